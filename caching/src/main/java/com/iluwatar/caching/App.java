@@ -37,8 +37,9 @@ import lombok.extern.slf4j.Slf4j;
  * cons. They are <code>write-through</code> which writes data to the cache and
  * DB in a single transaction, <code>write-around</code> which writes data
  * immediately into the DB instead of the cache, <code>write-behind</code>
- * which writes data into the cache initially whilst the data is only
- * written into the DB when the cache is full, and <code>cache-aside</code>
+ * which writes data into the cache initially whilst the data is queued and
+ * written into the DB in batches by a background thread, and
+ * <code>cache-aside</code>
  * which pushes the responsibility of keeping the data synchronized in both
  * data sources to the application itself. The <code>read-through</code>
  * strategy is also included in the mentioned four strategies --
@@ -85,6 +86,7 @@ import lombok.extern.slf4j.Slf4j;
  *
  * @see CacheStore
  * @see LruCache
+ * @see ConcurrentCache
  * @see CachingPolicy
  */
 @Slf4j
@@ -25,8 +25,15 @@
 package com.iluwatar.caching;
 
 import com.iluwatar.caching.database.DbManager;
+import com.iluwatar.caching.eviction.EvictionPolicy;
+import com.iluwatar.caching.eviction.LruPolicy;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 
@@ -39,35 +46,89 @@ public class CacheStore {
    * Cache capacity.
    */
   private static final int CAPACITY = 3;
+  /**
+   * Maximum number of records per write-behind DB write.
+   */
+  private static final int WRITE_BEHIND_BATCH_SIZE = 100;
+  /**
+   * Maximum time a record waits in the write-behind queue.
+   */
+  private static final Duration WRITE_BEHIND_MAX_DELAY = Duration.ofMillis(100);
 
   /**
-   * Lru cache see {@link LruCache}.
+   * Thread-safe cache see {@link ConcurrentCache}.
    */
-  private LruCache cache;
+  private final ConcurrentCache cache;
   /**
    * DbManager.
    */
   private final DbManager dbManager;
+  /**
+   * Dirty records waiting to be written to the DB, see {@link WriteBehindQueue}.
+   */
+  private final WriteBehindQueue writeBehindQueue;
+  /**
+   * Deduplicates concurrent cache misses, see {@link SingleFlightLoader}.
+   */
+  private final SingleFlightLoader loader = new SingleFlightLoader();
 
   /**
-   * Cache Store.
+   * Cache Store with LRU eviction.
    * @param dataBaseManager {@link DbManager}
    */
   public CacheStore(final DbManager dataBaseManager) {
+    this(dataBaseManager, new LruPolicy());
+  }
+
+  /**
+   * Cache Store.
+   * @param dataBaseManager {@link DbManager}
+   * @param policy {@link EvictionPolicy}
+   */
+  public CacheStore(final DbManager dataBaseManager, final EvictionPolicy policy) {
+    this(dataBaseManager, policy, WRITE_BEHIND_BATCH_SIZE, WRITE_BEHIND_MAX_DELAY);
+  }
+
+  /**
+   * Cache Store.
+   * @param dataBaseManager {@link DbManager}
+   * @param policy {@link EvictionPolicy}
+   * @param writeBehindBatchSize maximum number of records per write-behind DB write
+   * @param writeBehindMaxDelay maximum time a record waits in the write-behind queue
+   */
+  public CacheStore(final DbManager dataBaseManager, final EvictionPolicy policy,
+                    final int writeBehindBatchSize, final Duration writeBehindMaxDelay) {
+    this(dataBaseManager,
+        ConcurrentCache.builder().maximumWeight(CAPACITY).evictionPolicy(policy),
+        writeBehindBatchSize, writeBehindMaxDelay);
+  }
+
+  /**
+   * Cache Store with a cache configured by the caller, e.g. bounded by
+   * {@link Weigher#estimatedBytes()} or expiring entries. Entries due for
+   * refresh are reloaded asynchronously on the common {@link ForkJoinPool}.
+   * @param dataBaseManager {@link DbManager}
+   * @param cacheBuilder {@link ConcurrentCache.ConcurrentCacheBuilder}
+   * @param writeBehindBatchSize maximum number of records per write-behind DB write
+   * @param writeBehindMaxDelay maximum time a record waits in the write-behind queue
+   */
+  public CacheStore(final DbManager dataBaseManager,
+                    final ConcurrentCache.ConcurrentCacheBuilder cacheBuilder,
+                    final int writeBehindBatchSize, final Duration writeBehindMaxDelay) {
     this.dbManager = dataBaseManager;
-    initCapacity(CAPACITY);
+    this.writeBehindQueue = new WriteBehindQueue(dataBaseManager,
+        writeBehindBatchSize, writeBehindMaxDelay);
+    this.cache = cacheBuilder
+        .refresher(userId -> loader.load(userId, this::loadFromDb, ForkJoinPool.commonPool()))
+        .build();
   }
 
   /**
-   * Init cache capacity.
+   * Init cache capacity. Shrinking keeps the entries most worth keeping.
    * @param capacity int
    */
   public void initCapacity(final int capacity) {
-    if (cache == null) {
-      cache = new LruCache(capacity);
-    } else {
-      cache.setCapacity(capacity);
-    }
+    cache.setCapacity(capacity);
   }
 
   /**
@@ -76,14 +137,41 @@ public class CacheStore {
    * @return {@link UserAccount}
    */
   public UserAccount readThrough(final String userId) {
-    if (cache.contains(userId)) {
+    var cached = cache.get(userId);
+    if (cached != null) {
       LOGGER.info("# Found in Cache!");
-      return cache.get(userId);
+      return cached;
     }
     LOGGER.info("# Not found in cache! Go to DB!!");
-    UserAccount userAccount = dbManager.readFromDb(userId);
-    cache.set(userId, userAccount);
-    return userAccount;
+    return join(loader.load(userId, this::loadFromDb, Runnable::run));
+  }
+
+  /**
+   * Get user account using read-through cache without blocking the caller.
+   * Misses are loaded on the common {@link ForkJoinPool}.
+   * @param userId {@link String}
+   * @return {@link CompletableFuture} of {@link UserAccount}
+   */
+  public CompletableFuture<UserAccount> readThroughAsync(final String userId) {
+    return readThroughAsync(userId, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Get user account using read-through cache without blocking the caller.
+   * Concurrent misses for the same user share one DB read.
+   * @param userId {@link String}
+   * @param executor runs the DB read on a miss
+   * @return {@link CompletableFuture} of {@link UserAccount}
+   */
+  public CompletableFuture<UserAccount> readThroughAsync(final String userId,
+                                                         final Executor executor) {
+    var cached = cache.get(userId);
+    if (cached != null) {
+      LOGGER.info("# Found in Cache!");
+      return CompletableFuture.completedFuture(cached);
+    }
+    LOGGER.info("# Not found in cache! Go to DB!!");
+    return loader.load(userId, this::loadFromDb, executor);
   }
 
   /**
@@ -111,6 +199,8 @@ public class CacheStore {
       // version from cache.
     } else {
       dbManager.writeToDb(userAccount);
+      // Keeps a load in flight from caching what it read before the write.
+      cache.invalidate(userAccount.getUserId());
     }
   }
 
@@ -120,32 +210,75 @@ public class CacheStore {
    * @return {@link UserAccount}
    */
   public UserAccount readThroughWithWriteBackPolicy(final String userId) {
-    if (cache.contains(userId)) {
+    var cached = cache.get(userId);
+    if (cached != null) {
       LOGGER.info("# Found in cache!");
-      return cache.get(userId);
+      return cached;
     }
     LOGGER.info("# Not found in Cache!");
-    UserAccount userAccount = dbManager.readFromDb(userId);
-    if (cache.isFull()) {
-      LOGGER.info("# Cache is FULL! Writing LRU data to DB...");
-      UserAccount toBeWrittenToDb = cache.getLruData();
-      dbManager.upsertDb(toBeWrittenToDb);
+    return join(loader.load(userId, this::loadFromDb, Runnable::run));
+  }
+
+  /**
+   * Number of cache misses that went to the DB.
+   * @return long
+   */
+  public long getDbLoadCount() {
+    return loader.getLoadCount();
+  }
+
+  /**
+   * Number of cache misses that shared a DB read already in flight.
+   * @return long
+   */
+  public long getDeduplicatedLoadCount() {
+    return loader.getDeduplicatedCount();
+  }
+
+  /**
+   * Load a user account into the cache. Records still waiting in the
+   * write-behind queue are newer than the DB. The account is only cached if
+   * no write or invalidation of it raced with the load, as the cache may then
+   * already hold a newer version or the DB may have changed after the read.
+   * @param userId {@link String}
+   * @return {@link UserAccount}
+   */
+  private UserAccount loadFromDb(final String userId) {
+    var stamp = cache.stamp();
+    UserAccount userAccount = writeBehindQueue.getPending(userId);
+    if (userAccount == null) {
+      userAccount = dbManager.readFromDb(userId);
+    }
+    if (!cache.setIfUnchanged(userId, userAccount, stamp)) {
+      LOGGER.info("# {} was written during the load, not caching it", userId);
     }
-    cache.set(userId, userAccount);
     return userAccount;
   }
 
   /**
-   * Set user account.
+   * Wait for a load, rethrowing its failure unwrapped.
+   * @param future {@link CompletableFuture}
+   * @return {@link UserAccount}
+   */
+  private static UserAccount join(final CompletableFuture<UserAccount> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Set user account. The record is queued and written to the DB by a
+   * background thread, see {@link WriteBehindQueue}.
    * @param userAccount {@link UserAccount}
    */
   public void writeBehind(final UserAccount userAccount) {
-    if (cache.isFull() && !cache.contains(userAccount.getUserId())) {
-      LOGGER.info("# Cache is FULL! Writing LRU data to DB...");
-      UserAccount toBeWrittenToDb = cache.getLruData();
-      dbManager.upsertDb(toBeWrittenToDb);
-    }
     cache.set(userAccount.getUserId(), userAccount);
+    writeBehindQueue.enqueue(userAccount);
   }
 
   /**
@@ -162,8 +295,9 @@ public class CacheStore {
    */
   public void flushCache() {
     LOGGER.info("# flushCache...");
+    writeBehindQueue.close();
     Optional.ofNullable(cache)
-        .map(LruCache::getCacheDataInListForm)
+        .map(ConcurrentCache::getCacheDataInListForm)
         .orElse(List.of())
         .forEach(dbManager::updateDb);
     dbManager.disconnect();
@@ -175,7 +309,7 @@ public class CacheStore {
    */
   public String print() {
     return Optional.ofNullable(cache)
-        .map(LruCache::getCacheDataInListForm)
+        .map(ConcurrentCache::getCacheDataInListForm)
         .orElse(List.of())
         .stream()
         .map(userAccount -> userAccount.toString() + "\n")
@@ -0,0 +1,698 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import com.iluwatar.caching.eviction.EvictionPolicy;
+import com.iluwatar.caching.eviction.LruPolicy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Thread-safe cache. Entries live in a {@link ConcurrentHashMap}, so a hit is a
+ * single lock-free lookup. Which entry to evict is decided by an
+ * {@link EvictionPolicy} (LRU unless another one is given) that is only touched
+ * under the eviction lock: readers record their accesses into striped, lossy
+ * ring buffers and whichever thread next wins the lock replays them onto the
+ * policy. Writes take the lock directly.
+ *
+ * <p>The cache is bounded by a maximum weight, which is a number of entries
+ * unless a {@link Weigher} is given. Entries can expire a fixed time after they
+ * were written, tracked by a {@link TimerWheel} that is advanced along with the
+ * other maintenance, and can be refreshed in the background once they are
+ * older than the refresh interval and read again.
+ */
+@Slf4j
+public class ConcurrentCache {
+  /**
+   * Slots per read buffer, must be a power of two.
+   */
+  private static final int READ_BUFFER_SIZE = 32;
+  /**
+   * Upper bound for the number of read buffer stripes.
+   */
+  private static final int MAX_STRIPES = 64;
+  /**
+   * Policy capacity used by a weighted cache until it first fills up.
+   */
+  private static final int INITIAL_WEIGHTED_POLICY_CAPACITY = 16;
+
+  /**
+   * Cache entry.
+   */
+  static final class Node {
+    /**
+     * user id.
+     */
+    private final String userId;
+    /**
+     * User Account.
+     */
+    private volatile UserAccount userAccount;
+    /**
+     * Ticker value of the last write.
+     */
+    private volatile long writeTime;
+    /**
+     * Whether a refresh has been requested since the last write.
+     */
+    private volatile boolean refreshing;
+    /**
+     * Write stamp of the last write, guarded by the eviction lock.
+     */
+    private long stamp;
+    /**
+     * Weight, guarded by the eviction lock.
+     */
+    private int weight;
+    /**
+     * Whether the node is still in the cache, guarded by the eviction lock.
+     */
+    private boolean alive = true;
+    /**
+     * Expiry timer, guarded by the eviction lock.
+     */
+    private final TimerWheel.Timer<Node> timer = new TimerWheel.Timer<>(this);
+
+    /**
+     * Node definition.
+     *
+     * @param id      String
+     * @param account {@link UserAccount}
+     */
+    Node(final String id, final UserAccount account) {
+      this.userId = id;
+      this.userAccount = account;
+    }
+  }
+
+  /**
+   * Lossy ring buffer of recently read nodes. Producers are any reader threads,
+   * the consumer is the thread holding the eviction lock.
+   */
+  private static final class ReadBuffer {
+    /**
+     * Slots.
+     */
+    private final AtomicReferenceArray<Node> slots =
+        new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    /**
+     * Number of slots claimed by producers.
+     */
+    private final AtomicLong writeCounter = new AtomicLong();
+    /**
+     * Number of slots drained, only written under the eviction lock.
+     */
+    private volatile long readCounter;
+
+    /**
+     * Records a read. Returns false if the buffer is full and should be drained.
+     *
+     * @param node {@link Node}
+     * @return boolean
+     */
+    boolean offer(final Node node) {
+      var tail = writeCounter.get();
+      if (tail - readCounter >= READ_BUFFER_SIZE) {
+        return false;
+      }
+      // Losing the race only drops a recency hint, which is acceptable.
+      if (writeCounter.compareAndSet(tail, tail + 1)) {
+        slots.lazySet((int) (tail & (READ_BUFFER_SIZE - 1)), node);
+      }
+      return true;
+    }
+
+    /**
+     * Number of claimed slots not yet drained.
+     *
+     * @return long
+     */
+    long pending() {
+      return writeCounter.get() - readCounter;
+    }
+  }
+
+  /**
+   * Maximum total weight.
+   */
+  private volatile long maximumWeight;
+  /**
+   * Total weight of the entries, guarded by the eviction lock.
+   */
+  private volatile long totalWeight;
+  /**
+   * Cache {@link ConcurrentHashMap}.
+   */
+  private final Map<String, Node> cache = new ConcurrentHashMap<>();
+  /**
+   * Striped read buffers.
+   */
+  private final ReadBuffer[] readBuffers;
+  /**
+   * Guards the eviction policy, the timer wheel and the draining of read buffers.
+   */
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  /**
+   * Eviction policy, guarded by the eviction lock.
+   */
+  private final EvictionPolicy policy;
+  /**
+   * Weigher, null if every entry weighs 1.
+   */
+  private final Weigher weigher;
+  /**
+   * Whether the policy has been sized from the observed entry weights.
+   */
+  private boolean policySized;
+  /**
+   * Time to live after a write in nanoseconds, 0 if entries do not expire.
+   */
+  private final long expireAfterWriteNanos;
+  /**
+   * Age after which a read triggers a refresh in nanoseconds, 0 if disabled.
+   */
+  private final long refreshAfterWriteNanos;
+  /**
+   * Called with the user id of an entry to refresh, should reload it asynchronously.
+   */
+  private final Function<String, ? extends CompletionStage<?>> refresher;
+  /**
+   * Source of time in nanoseconds.
+   */
+  private final LongSupplier ticker;
+  /**
+   * Expiry timers, null if entries do not expire. Guarded by the eviction lock.
+   */
+  private final TimerWheel<Node> timerWheel;
+  /**
+   * Number of writes and invalidations so far, only written under the eviction lock.
+   */
+  private volatile long writeStamp;
+  /**
+   * Highest write stamp of an entry that has been removed, guarded by the eviction lock.
+   */
+  private long removedStamp;
+
+  /**
+   * Constructor with LRU eviction.
+   *
+   * @param cap Integer.
+   */
+  public ConcurrentCache(final int cap) {
+    this(cap, new LruPolicy());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param cap            Integer.
+   * @param evictionPolicy {@link EvictionPolicy}
+   */
+  public ConcurrentCache(final int cap, final EvictionPolicy evictionPolicy) {
+    this(cap, evictionPolicy, null, null, null, null, null);
+  }
+
+  /**
+   * Constructor used by {@link #builder()}. Every argument except the maximum
+   * weight is optional.
+   *
+   * @param maximumWeight     maximum total weight
+   * @param evictionPolicy    {@link EvictionPolicy}, LRU if null
+   * @param weigher           {@link Weigher}, every entry weighs 1 if null
+   * @param expireAfterWrite  time to live after a write, no expiry if null
+   * @param refreshAfterWrite age after which a read triggers a refresh, none if null
+   * @param refresher         reloads an entry asynchronously, required for refresh; a later read
+   *                          refreshes the entry again once the returned stage has completed
+   * @param ticker            source of time in nanoseconds, {@link System#nanoTime()} if null
+   */
+  @Builder
+  private ConcurrentCache(final long maximumWeight, final EvictionPolicy evictionPolicy,
+                          final Weigher weigher, final Duration expireAfterWrite,
+                          final Duration refreshAfterWrite,
+                          final Function<String, ? extends CompletionStage<?>> refresher,
+                          final LongSupplier ticker) {
+    if (refreshAfterWrite != null && refresher == null) {
+      throw new IllegalArgumentException("refreshAfterWrite requires a refresher");
+    }
+    this.maximumWeight = maximumWeight;
+    this.policy = evictionPolicy != null ? evictionPolicy : new LruPolicy();
+    this.weigher = weigher;
+    this.expireAfterWriteNanos = expireAfterWrite != null ? expireAfterWrite.toNanos() : 0;
+    this.refreshAfterWriteNanos = refreshAfterWrite != null ? refreshAfterWrite.toNanos() : 0;
+    this.refresher = refresher;
+    this.ticker = ticker != null ? ticker : System::nanoTime;
+    this.timerWheel = expireAfterWriteNanos > 0
+        ? new TimerWheel<>(expireAfterWriteNanos / (TimerWheel.BUCKETS / 2),
+            this.ticker.getAsLong())
+        : null;
+    policy.setCapacity(weigher == null
+        ? (int) Math.min(Integer.MAX_VALUE, maximumWeight)
+        : INITIAL_WEIGHTED_POLICY_CAPACITY);
+    var stripes = Integer.highestOneBit(
+        Math.min(MAX_STRIPES, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+    this.readBuffers = new ReadBuffer[stripes];
+    for (var i = 0; i < stripes; i++) {
+      readBuffers[i] = new ReadBuffer();
+    }
+  }
+
+  /**
+   * Get user account.
+   *
+   * @param userId String
+   * @return {@link UserAccount}, or null on a miss or if the entry has expired
+   */
+  public UserAccount get(final String userId) {
+    var node = cache.get(userId);
+    if (node == null) {
+      return null;
+    }
+    if (expireAfterWriteNanos > 0 || refreshAfterWriteNanos > 0) {
+      var now = ticker.getAsLong();
+      if (isExpired(node, now)) {
+        // The timer wheel removes it during the next maintenance.
+        return null;
+      }
+      if (refreshAfterWriteNanos > 0 && now - node.writeTime >= refreshAfterWriteNanos
+          && !node.refreshing) {
+        node.refreshing = true;
+        refresh(userId, node);
+      }
+    }
+    recordRead(node);
+    return node.userAccount;
+  }
+
+  /**
+   * Starts reloading an entry. The flag is cleared when the reload completes, so that a refresh
+   * which failed, or did not write the entry, is tried again on a later read.
+   *
+   * @param userId {@link String}
+   * @param node   {@link Node}
+   */
+  private void refresh(final String userId, final Node node) {
+    try {
+      refresher.apply(userId).whenComplete((result, error) -> node.refreshing = false);
+    } catch (RuntimeException e) {
+      node.refreshing = false;
+      LOGGER.warn("Failed to start refreshing {}", userId, e);
+    }
+  }
+
+  /**
+   * Set user account.
+   *
+   * @param userId      {@link String}
+   * @param userAccount {@link UserAccount}
+   * @return the accounts evicted to make room, possibly including this one
+   */
+  public List<UserAccount> set(final String userId, final UserAccount userAccount) {
+    evictionLock.lock();
+    try {
+      return put(userId, userAccount);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Current write stamp, to be passed to {@link #setIfUnchanged} by a loader
+   * before it starts reading the value.
+   *
+   * @return long
+   */
+  public long stamp() {
+    return writeStamp;
+  }
+
+  /**
+   * Set user account unless the entry has been written or invalidated since the
+   * given stamp was taken, in which case the loaded value may be older than the
+   * cached one. Removing an entry written after the stamp, e.g. by eviction, also
+   * counts, as does invalidating or clearing any entry.
+   *
+   * @param userId      {@link String}
+   * @param userAccount {@link UserAccount}
+   * @param stamp       value of {@link #stamp()} taken before loading
+   * @return whether the account was set
+   */
+  public boolean setIfUnchanged(final String userId, final UserAccount userAccount,
+                                final long stamp) {
+    evictionLock.lock();
+    try {
+      var node = cache.get(userId);
+      if (node != null ? node.stamp > stamp : removedStamp > stamp) {
+        return false;
+      }
+      put(userId, userAccount);
+      return true;
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Sets the entry. Caller must hold the eviction lock.
+   *
+   * @param userId      {@link String}
+   * @param userAccount {@link UserAccount}
+   * @return the accounts evicted to make room, possibly including this one
+   */
+  private List<UserAccount> put(final String userId, final UserAccount userAccount) {
+    var now = ticker.getAsLong();
+    runMaintenance(now);
+    var weight = weigh(userId, userAccount);
+    var old = cache.get(userId);
+    if (weight > maximumWeight) {
+      // Would flush the whole cache and then be evicted itself.
+      if (old != null) {
+        removeNode(old);
+        policy.onRemove(userId);
+      }
+      removedStamp = ++writeStamp;
+      return userAccount == null ? List.of() : List.of(userAccount);
+    }
+    if (old != null) {
+      old.userAccount = userAccount;
+      write(old, weight, now);
+      policy.onAccess(userId);
+    } else {
+      var node = new Node(userId, userAccount);
+      cache.put(userId, node);
+      write(node, weight, now);
+      policy.onInsert(userId);
+    }
+    return evictOverflow();
+  }
+
+  /**
+   * Check if Cache contains the userId.
+   *
+   * @param userId {@link String}
+   * @return boolean
+   */
+  public boolean contains(final String userId) {
+    var node = cache.get(userId);
+    return node != null && !isExpired(node, ticker.getAsLong());
+  }
+
+  /**
+   * Invalidate cache for user.
+   *
+   * @param userId {@link String}
+   */
+  public void invalidate(final String userId) {
+    evictionLock.lock();
+    try {
+      var toBeRemoved = cache.get(userId);
+      if (toBeRemoved != null) {
+        LOGGER.info("# {} has been updated! "
+            + "Removing older version from cache...", userId);
+        removeNode(toBeRemoved);
+        policy.onRemove(userId);
+      }
+      removedStamp = ++writeStamp;
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Check if the cache is full.
+   *
+   * @return boolean
+   */
+  public boolean isFull() {
+    return totalWeight >= maximumWeight;
+  }
+
+  /**
+   * Total weight of the entries, which is their number unless a
+   * {@link Weigher} is used.
+   *
+   * @return long
+   */
+  public long getTotalWeight() {
+    return totalWeight;
+  }
+
+  /**
+   * Clear cache.
+   */
+  public void clear() {
+    evictionLock.lock();
+    try {
+      for (var buffer : readBuffers) {
+        for (var i = 0; i < READ_BUFFER_SIZE; i++) {
+          buffer.slots.lazySet(i, null);
+        }
+        buffer.readCounter = buffer.writeCounter.get();
+      }
+      cache.values().forEach(node -> node.alive = false);
+      cache.clear();
+      policy.clear();
+      if (timerWheel != null) {
+        timerWheel.clear();
+      }
+      totalWeight = 0;
+      removedStamp = ++writeStamp;
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Remove expired entries and replay recorded reads now instead of during
+   * the next write.
+   */
+  public void cleanUp() {
+    evictionLock.lock();
+    try {
+      runMaintenance(ticker.getAsLong());
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Returns cache data in list form, in the order of {@link EvictionPolicy#keys()}.
+   *
+   * @return {@link List}
+   */
+  public List<UserAccount> getCacheDataInListForm() {
+    evictionLock.lock();
+    try {
+      runMaintenance(ticker.getAsLong());
+      var listOfCacheData = new ArrayList<UserAccount>();
+      for (var key : policy.keys()) {
+        listOfCacheData.add(cache.get(key).userAccount);
+      }
+      return listOfCacheData;
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Set cache capacity, see {@link #setMaximumWeight(long)}.
+   *
+   * @param newCapacity int
+   */
+  public void setCapacity(final int newCapacity) {
+    setMaximumWeight(newCapacity);
+  }
+
+  /**
+   * Set the maximum total weight. Shrinking evicts the policy's victims one by
+   * one until the cache fits, so the entries most worth keeping stay cached.
+   *
+   * @param newMaximumWeight long
+   * @return the evicted accounts
+   */
+  public List<UserAccount> setMaximumWeight(final long newMaximumWeight) {
+    evictionLock.lock();
+    try {
+      runMaintenance(ticker.getAsLong());
+      this.maximumWeight = newMaximumWeight;
+      sizePolicy();
+      return evictOverflow();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Records a read in this thread's buffer, running the maintenance if the
+   * buffer is full and no other thread is already doing so.
+   *
+   * @param node {@link Node}
+   */
+  private void recordRead(final Node node) {
+    var buffer = readBuffers[(int) Thread.currentThread().getId() & (readBuffers.length - 1)];
+    var accepted = buffer.offer(node);
+    if ((!accepted || buffer.pending() >= READ_BUFFER_SIZE) && evictionLock.tryLock()) {
+      try {
+        runMaintenance(ticker.getAsLong());
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Replays the recorded reads and expires entries. Caller must hold the
+   * eviction lock.
+   *
+   * @param now current ticker value
+   */
+  private void runMaintenance(final long now) {
+    drainReadBuffers();
+    if (timerWheel != null) {
+      timerWheel.advance(now, node -> {
+        removeNode(node);
+        policy.onRemove(node.userId);
+      });
+    }
+  }
+
+  /**
+   * Replays the recorded reads onto the policy. Caller must hold the eviction lock.
+   */
+  private void drainReadBuffers() {
+    for (var buffer : readBuffers) {
+      var read = buffer.readCounter;
+      var write = buffer.writeCounter.get();
+      for (; read < write; read++) {
+        var index = (int) (read & (READ_BUFFER_SIZE - 1));
+        var node = buffer.slots.get(index);
+        if (node == null) {
+          // The producer claimed the slot but has not published it yet.
+          break;
+        }
+        buffer.slots.lazySet(index, null);
+        if (node.alive) {
+          policy.onAccess(node.userId);
+        }
+      }
+      buffer.readCounter = read;
+    }
+  }
+
+  /**
+   * Records a write of the node. Caller must hold the eviction lock.
+   *
+   * @param node   {@link Node}
+   * @param weight int
+   * @param now    current ticker value
+   */
+  private void write(final Node node, final int weight, final long now) {
+    totalWeight += weight - node.weight;
+    node.weight = weight;
+    node.writeTime = now;
+    node.stamp = ++writeStamp;
+    node.refreshing = false;
+    if (timerWheel != null) {
+      timerWheel.schedule(node.timer, now + expireAfterWriteNanos);
+    }
+  }
+
+  /**
+   * Evicts the policy's victims until the cache fits its maximum weight.
+   * Caller must hold the eviction lock.
+   *
+   * @return the evicted accounts
+   */
+  private List<UserAccount> evictOverflow() {
+    if (totalWeight > maximumWeight && !policySized) {
+      sizePolicy();
+    }
+    var evicted = new ArrayList<UserAccount>();
+    while (totalWeight > maximumWeight) {
+      var victim = policy.evict();
+      if (victim == null) {
+        break;
+      }
+      LOGGER.info("# Cache is FULL! Removing {} from cache...", victim);
+      var node = cache.get(victim);
+      removeNode(node);
+      if (node.userAccount != null) {
+        evicted.add(node.userAccount);
+      }
+    }
+    return evicted;
+  }
+
+  /**
+   * Tells the policy how many entries to expect. For a weighted cache that is
+   * estimated from the average weight of the current entries. Caller must hold
+   * the eviction lock.
+   */
+  private void sizePolicy() {
+    long entries;
+    if (weigher == null) {
+      entries = maximumWeight;
+    } else if (cache.isEmpty() || totalWeight == 0) {
+      return;
+    } else {
+      entries = maximumWeight * cache.size() / totalWeight;
+      policySized = true;
+    }
+    policy.setCapacity((int) Math.max(1, Math.min(Integer.MAX_VALUE, entries)));
+  }
+
+  /**
+   * Removes the node from the map. Caller must hold the eviction lock.
+   *
+   * @param node {@link Node}
+   */
+  private void removeNode(final Node node) {
+    cache.remove(node.userId);
+    totalWeight -= node.weight;
+    node.alive = false;
+    removedStamp = Math.max(removedStamp, node.stamp);
+    if (timerWheel != null) {
+      timerWheel.cancel(node.timer);
+    }
+  }
+
+  private int weigh(final String userId, final UserAccount userAccount) {
+    return weigher == null ? 1 : weigher.weigh(userId, userAccount);
+  }
+
+  private boolean isExpired(final Node node, final long now) {
+    return expireAfterWriteNanos > 0 && now - node.writeTime >= expireAfterWriteNanos;
+  }
+}
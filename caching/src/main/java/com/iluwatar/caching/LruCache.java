@@ -243,18 +243,17 @@ public class LruCache {
   }
 
   /**
-   * Set cache capacity.
+   * Set cache capacity. Shrinking evicts least recently used data until the
+   * cache fits, keeping the most recently used entries.
    *
    * @param newCapacity int
    */
   public void setCapacity(final int newCapacity) {
-    if (capacity > newCapacity) {
-      // Behavior can be modified to accommodate
-      // for decrease in cache size. For now, we'll
-      clear();
-      // just clear the cache.
-    } else {
-      this.capacity = newCapacity;
+    this.capacity = newCapacity;
+    while (cache.size() > capacity) {
+      LOGGER.info("# Cache is shrinking! Removing {} from cache...", end.userId);
+      cache.remove(end.userId);
+      remove(end);
     }
   }
 }
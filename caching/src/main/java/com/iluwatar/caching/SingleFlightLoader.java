@@ -0,0 +1,106 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Deduplicates concurrent loads of the same user id: the first caller starts
+ * the load and every caller arriving while it is in flight gets the same
+ * {@link CompletableFuture} instead of going to the DB again.
+ */
+public class SingleFlightLoader {
+  /**
+   * Loads in flight, by user id.
+   */
+  private final Map<String, CompletableFuture<UserAccount>> inFlight = new ConcurrentHashMap<>();
+  /**
+   * Number of loads started.
+   */
+  private final LongAdder loads = new LongAdder();
+  /**
+   * Number of callers that joined a load already in flight.
+   */
+  private final LongAdder deduplicated = new LongAdder();
+
+  /**
+   * Load the user account, or join the load already in flight for it.
+   *
+   * @param userId   {@link String}
+   * @param loader   loads the account, typically from the DB into the cache
+   * @param executor runs the loader if a new load is started
+   * @return {@link CompletableFuture} completed with the loaded account
+   */
+  public CompletableFuture<UserAccount> load(final String userId,
+                                            final Function<String, UserAccount> loader,
+                                            final Executor executor) {
+    var future = new CompletableFuture<UserAccount>();
+    var existing = inFlight.putIfAbsent(userId, future);
+    if (existing != null) {
+      deduplicated.increment();
+      return existing;
+    }
+    loads.increment();
+    try {
+      executor.execute(() -> {
+        try {
+          future.complete(loader.apply(userId));
+        } catch (RuntimeException | Error e) {
+          future.completeExceptionally(e);
+        } finally {
+          inFlight.remove(userId, future);
+        }
+      });
+    } catch (RuntimeException e) {
+      inFlight.remove(userId, future);
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  /**
+   * Number of loads started.
+   *
+   * @return long
+   */
+  public long getLoadCount() {
+    return loads.sum();
+  }
+
+  /**
+   * Number of callers that joined a load already in flight instead of
+   * starting their own.
+   *
+   * @return long
+   */
+  public long getDeduplicatedCount() {
+    return deduplicated.sum();
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel used to expire cache entries. Time is cut into ticks and
+ * each timer is linked into the bucket of the tick its deadline falls in, so
+ * scheduling and cancelling are O(1) and advancing the clock only visits the
+ * buckets of the ticks that have fully elapsed. The cache sizes the tick so
+ * that its expiry duration fits in one revolution of the wheel. Not
+ * thread-safe; the cache only uses it under its eviction lock.
+ *
+ * @param <T> the type of the value carried by each timer
+ */
+final class TimerWheel<T> {
+  /**
+   * Number of buckets, a power of two.
+   */
+  static final int BUCKETS = 64;
+
+  /**
+   * A scheduled deadline, linked into the bucket of its tick.
+   *
+   * @param <T> the type of the value
+   */
+  static final class Timer<T> {
+    /**
+     * Value handed to the expiry callback.
+     */
+    private final T value;
+    /**
+     * Deadline in ticker nanoseconds.
+     */
+    private long deadline;
+    /**
+     * Bucket index, -1 when not scheduled.
+     */
+    private int bucket = -1;
+    /**
+     * previous in bucket.
+     */
+    private Timer<T> previous;
+    /**
+     * next in bucket.
+     */
+    private Timer<T> next;
+
+    /**
+     * Timer definition.
+     *
+     * @param timerValue T
+     */
+    Timer(final T timerValue) {
+      this.value = timerValue;
+    }
+  }
+
+  /**
+   * Bucket heads.
+   */
+  private final Timer<T>[] buckets;
+  /**
+   * Length of a tick in nanoseconds.
+   */
+  private final long tickNanos;
+  /**
+   * Ticker value ticks are counted from.
+   */
+  private final long origin;
+  /**
+   * Last tick whose bucket has been processed.
+   */
+  private long processedTick;
+
+  /**
+   * Constructor.
+   *
+   * @param tick length of a tick in nanoseconds
+   * @param now  current ticker value
+   */
+  @SuppressWarnings("unchecked")
+  TimerWheel(final long tick, final long now) {
+    this.buckets = (Timer<T>[]) new Timer<?>[BUCKETS];
+    this.tickNanos = Math.max(1, tick);
+    this.origin = now;
+    this.processedTick = 0;
+  }
+
+  /**
+   * Schedule, or reschedule, the timer.
+   *
+   * @param timer    {@link Timer}
+   * @param deadline ticker value at which the timer expires
+   */
+  void schedule(final Timer<T> timer, final long deadline) {
+    cancel(timer);
+    timer.deadline = deadline;
+    // A deadline in an already processed tick goes in the next bucket to be processed.
+    var tick = Math.max(processedTick + 1, tickOf(deadline));
+    var index = (int) (tick & (BUCKETS - 1));
+    timer.bucket = index;
+    timer.next = buckets[index];
+    if (timer.next != null) {
+      timer.next.previous = timer;
+    }
+    buckets[index] = timer;
+  }
+
+  /**
+   * Unschedule the timer, if scheduled.
+   *
+   * @param timer {@link Timer}
+   */
+  void cancel(final Timer<T> timer) {
+    if (timer.bucket < 0) {
+      return;
+    }
+    if (timer.previous != null) {
+      timer.previous.next = timer.next;
+    } else {
+      buckets[timer.bucket] = timer.next;
+    }
+    if (timer.next != null) {
+      timer.next.previous = timer.previous;
+    }
+    timer.previous = null;
+    timer.next = null;
+    timer.bucket = -1;
+  }
+
+  /**
+   * Expire the timers of every tick that has fully elapsed.
+   *
+   * @param now       current ticker value
+   * @param onExpired called with the value of each expired timer
+   */
+  void advance(final long now, final Consumer<T> onExpired) {
+    var lastElapsedTick = tickOf(now) - 1;
+    var ticks = Math.min(lastElapsedTick - processedTick, BUCKETS);
+    for (var i = 1; i <= ticks; i++) {
+      var index = (int) ((processedTick + i) & (BUCKETS - 1));
+      var timer = buckets[index];
+      while (timer != null) {
+        var next = timer.next;
+        if (timer.deadline <= now) {
+          cancel(timer);
+          onExpired.accept(timer.value);
+        }
+        timer = next;
+      }
+    }
+    processedTick = Math.max(processedTick, lastElapsedTick);
+  }
+
+  /**
+   * Unschedule all timers.
+   */
+  void clear() {
+    for (var i = 0; i < BUCKETS; i++) {
+      var timer = buckets[i];
+      while (timer != null) {
+        var next = timer.next;
+        timer.previous = null;
+        timer.next = null;
+        timer.bucket = -1;
+        timer = next;
+      }
+      buckets[i] = null;
+    }
+  }
+
+  private long tickOf(final long time) {
+    return (time - origin) / tickNanos;
+  }
+}
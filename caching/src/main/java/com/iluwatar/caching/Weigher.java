@@ -0,0 +1,80 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+/**
+ * Computes how much of the cache's maximum weight an entry uses.
+ */
+@FunctionalInterface
+public interface Weigher {
+  /**
+   * Weight of the entry, must not be negative.
+   *
+   * @param userId      {@link String}
+   * @param userAccount {@link UserAccount}, may be null
+   * @return int
+   */
+  int weigh(String userId, UserAccount userAccount);
+
+  /**
+   * Every entry weighs 1, so the maximum weight is a maximum number of entries.
+   *
+   * @return {@link Weigher}
+   */
+  static Weigher singleton() {
+    return (userId, userAccount) -> 1;
+  }
+
+  /**
+   * Approximate retained heap size of the entry in bytes, assuming compressed
+   * references and Latin-1 strings: the map node, the cache entry, the account
+   * and its three strings.
+   *
+   * @return {@link Weigher}
+   */
+  static Weigher estimatedBytes() {
+    return (userId, userAccount) -> {
+      var bytes = 32 + 40 + stringBytes(userId);
+      if (userAccount != null) {
+        bytes += 24 + stringBytes(userAccount.getUserName())
+            + stringBytes(userAccount.getAdditionalInfo());
+      }
+      return bytes;
+    };
+  }
+
+  /**
+   * Approximate size of a string: the String object plus its byte array.
+   *
+   * @param value {@link String}, may be null
+   * @return int
+   */
+  private static int stringBytes(final String value) {
+    if (value == null) {
+      return 0;
+    }
+    return 24 + ((16 + value.length() + 7) & ~7);
+  }
+}
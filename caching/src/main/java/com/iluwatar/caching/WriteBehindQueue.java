@@ -0,0 +1,294 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import com.iluwatar.caching.database.DbManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Queue of dirty user accounts waiting to be written to the DB. Writes to the
+ * same user id are coalesced so only the latest version is written. A
+ * background thread, started on the first enqueue, writes them with
+ * {@link DbManager#upsertAll} in batches: as soon as a full batch is waiting,
+ * or once the oldest waiting account has waited for the maximum delay.
+ */
+@Slf4j
+public class WriteBehindQueue {
+  /**
+   * DbManager.
+   */
+  private final DbManager dbManager;
+  /**
+   * Maximum number of accounts per DB write.
+   */
+  private final int batchSize;
+  /**
+   * Maximum time an account waits before it is written, in nanoseconds.
+   */
+  private final long maxDelayNanos;
+  /**
+   * Guards the queue state.
+   */
+  private final ReentrantLock lock = new ReentrantLock();
+  /**
+   * Signalled when the writer may have work to do.
+   */
+  private final Condition changed = lock.newCondition();
+  /**
+   * Serializes the DB writes of the writer thread and {@link #flush()}.
+   */
+  private final ReentrantLock writeLock = new ReentrantLock();
+  /**
+   * Accounts waiting to be written, by user id, in enqueue order.
+   */
+  private final Map<String, UserAccount> pending = new LinkedHashMap<>();
+  /**
+   * Accounts being written right now, by user id.
+   */
+  private final Map<String, UserAccount> inFlight = new LinkedHashMap<>();
+  /**
+   * When the oldest pending account was enqueued.
+   */
+  private long oldestEnqueuedAt;
+  /**
+   * Background writer, null until the first enqueue.
+   */
+  private Thread writer;
+  /**
+   * Whether {@link #close()} has been called.
+   */
+  private boolean closed;
+
+  /**
+   * Constructor.
+   *
+   * @param dataBaseManager {@link DbManager}
+   * @param maxBatchSize    maximum number of accounts per DB write
+   * @param maxDelay        maximum time an account waits before it is written
+   */
+  public WriteBehindQueue(final DbManager dataBaseManager, final int maxBatchSize,
+                          final Duration maxDelay) {
+    this.dbManager = dataBaseManager;
+    this.batchSize = maxBatchSize;
+    this.maxDelayNanos = maxDelay.toNanos();
+  }
+
+  /**
+   * Queue the account to be written, replacing a queued older version.
+   *
+   * @param userAccount {@link UserAccount}
+   */
+  public void enqueue(final UserAccount userAccount) {
+    lock.lock();
+    try {
+      if (closed) {
+        throw new IllegalStateException("Write-behind queue is closed");
+      }
+      if (pending.isEmpty()) {
+        oldestEnqueuedAt = System.nanoTime();
+      }
+      pending.put(userAccount.getUserId(), userAccount);
+      if (writer == null) {
+        writer = new Thread(this::runWriter, "cache-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+      }
+      if (pending.size() >= batchSize) {
+        changed.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Get the queued version of an account that has not reached the DB yet.
+   *
+   * @param userId {@link String}
+   * @return {@link UserAccount} or null if nothing is queued for this user
+   */
+  public UserAccount getPending(final String userId) {
+    lock.lock();
+    try {
+      var queued = pending.get(userId);
+      return queued != null ? queued : inFlight.get(userId);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Number of accounts not written yet.
+   *
+   * @return int
+   */
+  public int size() {
+    lock.lock();
+    try {
+      return pending.size() + inFlight.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Write all queued accounts on the calling thread. Stops at the first failed
+   * batch, which stays queued.
+   */
+  public void flush() {
+    writeLock.lock();
+    try {
+      List<UserAccount> batch;
+      while (!(batch = takeBatch()).isEmpty()) {
+        if (!write(batch)) {
+          return;
+        }
+      }
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Write all queued accounts and stop the background writer.
+   */
+  public void close() {
+    lock.lock();
+    try {
+      closed = true;
+      changed.signal();
+    } finally {
+      lock.unlock();
+    }
+    flush();
+  }
+
+  /**
+   * Background writer loop.
+   */
+  private void runWriter() {
+    while (true) {
+      lock.lock();
+      try {
+        while (!closed && !isDue()) {
+          if (pending.isEmpty()) {
+            changed.await();
+          } else {
+            changed.awaitNanos(maxDelayNanos - (System.nanoTime() - oldestEnqueuedAt));
+          }
+        }
+        if (closed) {
+          return;
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } finally {
+        lock.unlock();
+      }
+      writeLock.lock();
+      try {
+        write(takeBatch());
+      } finally {
+        writeLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Whether a batch should be written now. Caller must hold the lock.
+   *
+   * @return boolean
+   */
+  private boolean isDue() {
+    return pending.size() >= batchSize
+        || !pending.isEmpty() && System.nanoTime() - oldestEnqueuedAt >= maxDelayNanos;
+  }
+
+  /**
+   * Move up to one batch of the oldest pending accounts in flight. Caller must
+   * hold the write lock.
+   *
+   * @return {@link List} of {@link UserAccount}
+   */
+  private List<UserAccount> takeBatch() {
+    lock.lock();
+    try {
+      var batch = new ArrayList<UserAccount>(Math.min(batchSize, pending.size()));
+      var iterator = pending.values().iterator();
+      while (iterator.hasNext() && batch.size() < batchSize) {
+        var userAccount = iterator.next();
+        iterator.remove();
+        inFlight.put(userAccount.getUserId(), userAccount);
+        batch.add(userAccount);
+      }
+      // The remaining accounts were queued later, restarting their clock is
+      // a close enough bound.
+      oldestEnqueuedAt = System.nanoTime();
+      return batch;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Write a batch to the DB. Caller must hold the write lock. On failure the
+   * accounts are queued again unless a newer version was queued meanwhile.
+   *
+   * @param batch {@link List} of {@link UserAccount}
+   * @return whether the batch was written
+   */
+  private boolean write(final List<UserAccount> batch) {
+    if (batch.isEmpty()) {
+      return true;
+    }
+    var written = false;
+    try {
+      LOGGER.info("# Writing {} cached records to DB...", batch.size());
+      dbManager.upsertAll(batch);
+      written = true;
+    } catch (RuntimeException e) {
+      LOGGER.error("# Failed to write {} cached records to DB", batch.size(), e);
+    } finally {
+      lock.lock();
+      try {
+        inFlight.clear();
+        if (!written) {
+          batch.forEach(userAccount -> pending.putIfAbsent(userAccount.getUserId(), userAccount));
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+    return written;
+  }
+}
@@ -36,7 +36,10 @@ import com.mongodb.MongoClientOptions;
 import com.mongodb.MongoCredential;
 import com.mongodb.ServerAddress;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
 import com.mongodb.client.model.UpdateOptions;
+import java.util.Collection;
 import lombok.extern.slf4j.Slf4j;
 import org.bson.Document;
 
@@ -152,4 +155,28 @@ public class MongoDb implements DbManager {
     );
     return userAccount;
   }
+
+  /**
+   * Update or insert all records with one unordered bulk write.
+   *
+   * @param userAccounts {@link Collection} of {@link UserAccount}
+   */
+  @Override
+  public void upsertAll(final Collection<UserAccount> userAccounts) {
+    if (userAccounts.isEmpty()) {
+      return;
+    }
+    var updates = userAccounts.stream()
+            .map(userAccount -> new UpdateOneModel<Document>(
+                    new Document(USER_ID, userAccount.getUserId()),
+                    new Document("$set",
+                            new Document(USER_ID, userAccount.getUserId())
+                                    .append(USER_NAME, userAccount.getUserName())
+                                    .append(ADD_INFO, userAccount.getAdditionalInfo())
+                    ),
+                    new UpdateOptions().upsert(true)))
+            .toList();
+    db.getCollection(CachingConstants.USER_ACCOUNT)
+            .bulkWrite(updates, new BulkWriteOptions().ordered(false));
+  }
 }
@@ -25,8 +25,9 @@
 package com.iluwatar.caching.database;
 
 import com.iluwatar.caching.UserAccount;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Implementation of DatabaseManager.
@@ -39,11 +40,12 @@ public class VirtualDb implements DbManager {
   private Map<String, UserAccount> db;
 
   /**
-   * Creates new HashMap.
+   * Creates new ConcurrentHashMap, as the cache writes to it from a
+   * background thread.
    */
   @Override
   public void connect() {
-    db = new HashMap<>();
+    db = new ConcurrentHashMap<>();
   }
 
   @Override
@@ -98,4 +100,14 @@ public class VirtualDb implements DbManager {
   public UserAccount upsertDb(final UserAccount userAccount) {
     return updateDb(userAccount);
   }
+
+  /**
+   * Update or insert all records.
+   *
+   * @param userAccounts {@link Collection} of {@link UserAccount}
+   */
+  @Override
+  public void upsertAll(final Collection<UserAccount> userAccounts) {
+    userAccounts.forEach(this::upsertDb);
+  }
 }
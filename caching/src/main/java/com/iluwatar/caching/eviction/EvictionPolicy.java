@@ -0,0 +1,82 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching.eviction;
+
+import java.util.List;
+
+/**
+ * Decides which entry leaves the cache when it grows past its capacity. The
+ * cache owns the entries and only tells the policy about keys; implementations
+ * are not thread-safe and are always called under the cache's eviction lock.
+ */
+public interface EvictionPolicy {
+  /**
+   * Set the maximum number of entries the cache holds.
+   *
+   * @param capacity int
+   */
+  void setCapacity(int capacity);
+
+  /**
+   * A key has been added to the cache.
+   *
+   * @param key {@link String}
+   */
+  void onInsert(String key);
+
+  /**
+   * A resident key has been read or updated.
+   *
+   * @param key {@link String}
+   */
+  void onAccess(String key);
+
+  /**
+   * A resident key has been removed by the cache, not by {@link #evict()}.
+   *
+   * @param key {@link String}
+   */
+  void onRemove(String key);
+
+  /**
+   * Choose a victim and forget it. Called while the cache is over capacity; the
+   * victim may be the key that was just inserted if the policy refuses to admit it.
+   *
+   * @return {@link String} key to evict, or null if the policy holds no keys
+   */
+  String evict();
+
+  /**
+   * Resident keys, the ones most worth keeping first.
+   *
+   * @return {@link List}
+   */
+  List<String> keys();
+
+  /**
+   * Forget all keys.
+   */
+  void clear();
+}
@@ -0,0 +1,136 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching.eviction;
+
+/**
+ * Count-min sketch estimating how often each key has been seen recently. Each
+ * key maps to one 4-bit counter in each of four rows, packed sixteen to a
+ * {@code long}; the estimate is the smallest of the four. Once the number of
+ * increments reaches ten times the capacity every counter is halved, so the
+ * estimates age and old popularity fades.
+ */
+final class FrequencySketch {
+  /**
+   * Clears the top bit of every 4-bit counter after a right shift.
+   */
+  private static final long RESET_MASK = 0x7777777777777777L;
+  /**
+   * Largest value of a 4-bit counter.
+   */
+  private static final int MAX_COUNT = 15;
+  /**
+   * One seed per row.
+   */
+  private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+  /**
+   * Packed counters.
+   */
+  private long[] table = new long[1];
+  /**
+   * Number of increments before the counters are halved.
+   */
+  private int sampleSize = 10;
+  /**
+   * Increments since the last reset.
+   */
+  private int additions;
+
+  /**
+   * Size the sketch for the given number of keys. Resets all counters.
+   *
+   * @param capacity int
+   */
+  void setCapacity(final int capacity) {
+    var maximum = Math.max(1, capacity);
+    table = new long[Integer.highestOneBit(maximum * 2 - 1)];
+    sampleSize = 10 * maximum;
+    additions = 0;
+  }
+
+  /**
+   * Estimated number of recent occurrences of the key, at most 15.
+   *
+   * @param key {@link String}
+   * @return int
+   */
+  int frequency(final String key) {
+    var hash = spread(key.hashCode());
+    var frequency = MAX_COUNT;
+    for (var row = 0; row < SEEDS.length; row++) {
+      var index = indexOf(hash, row);
+      var offset = offsetOf(hash, row);
+      frequency = Math.min(frequency, (int) ((table[index] >>> offset) & MAX_COUNT));
+    }
+    return frequency;
+  }
+
+  /**
+   * Record an occurrence of the key.
+   *
+   * @param key {@link String}
+   */
+  void increment(final String key) {
+    var hash = spread(key.hashCode());
+    var added = false;
+    for (var row = 0; row < SEEDS.length; row++) {
+      var index = indexOf(hash, row);
+      var offset = offsetOf(hash, row);
+      if (((table[index] >>> offset) & MAX_COUNT) < MAX_COUNT) {
+        table[index] += 1L << offset;
+        added = true;
+      }
+    }
+    if (added && ++additions >= sampleSize) {
+      reset();
+    }
+  }
+
+  /**
+   * Halve every counter.
+   */
+  private void reset() {
+    for (var i = 0; i < table.length; i++) {
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    additions /= 2;
+  }
+
+  private int indexOf(final int hash, final int row) {
+    var h = (hash + SEEDS[row]) * SEEDS[row];
+    h += h >>> 32;
+    return (int) h & (table.length - 1);
+  }
+
+  private static int offsetOf(final int hash, final int row) {
+    return ((hash >>> (row << 3)) & 0xF) << 2;
+  }
+
+  private static int spread(final int hashCode) {
+    var h = hashCode * 0x9e3779b9;
+    return h ^ (h >>> 16);
+  }
+}
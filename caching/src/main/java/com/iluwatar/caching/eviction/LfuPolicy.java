@@ -0,0 +1,127 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching.eviction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Least-Frequently-Used: evicts the key with the fewest accesses since it was
+ * inserted, the least recently used one among ties. All operations are O(1).
+ */
+public class LfuPolicy implements EvictionPolicy {
+  /**
+   * Access count per key.
+   */
+  private final Map<String, Integer> counts = new HashMap<>();
+  /**
+   * Keys per access count, in insertion order.
+   */
+  private final Map<Integer, LinkedHashSet<String>> buckets = new HashMap<>();
+  /**
+   * Lowest access count with a non-empty bucket.
+   */
+  private int minCount;
+
+  @Override
+  public void setCapacity(final int capacity) {
+    // Frequency does not depend on the capacity.
+  }
+
+  @Override
+  public void onInsert(final String key) {
+    counts.put(key, 1);
+    buckets.computeIfAbsent(1, c -> new LinkedHashSet<>()).add(key);
+    minCount = 1;
+  }
+
+  @Override
+  public void onAccess(final String key) {
+    var count = counts.get(key);
+    if (count == null) {
+      return;
+    }
+    removeFromBucket(key, count);
+    if (count == minCount && !buckets.containsKey(count)) {
+      minCount = count + 1;
+    }
+    counts.put(key, count + 1);
+    buckets.computeIfAbsent(count + 1, c -> new LinkedHashSet<>()).add(key);
+  }
+
+  @Override
+  public void onRemove(final String key) {
+    var count = counts.remove(key);
+    if (count != null) {
+      removeFromBucket(key, count);
+    }
+  }
+
+  @Override
+  public String evict() {
+    if (counts.isEmpty()) {
+      return null;
+    }
+    // minCount may be stale after onRemove, so skip empty counts.
+    while (!buckets.containsKey(minCount)) {
+      minCount++;
+    }
+    var victim = buckets.get(minCount).iterator().next();
+    onRemove(victim);
+    return victim;
+  }
+
+  @Override
+  public List<String> keys() {
+    var keys = new ArrayList<String>(counts.size());
+    buckets.entrySet().stream()
+        .sorted(Map.Entry.comparingByKey(Collections.reverseOrder()))
+        .forEach(bucket -> {
+          var inBucket = new ArrayList<>(bucket.getValue());
+          Collections.reverse(inBucket);
+          keys.addAll(inBucket);
+        });
+    return keys;
+  }
+
+  @Override
+  public void clear() {
+    counts.clear();
+    buckets.clear();
+    minCount = 0;
+  }
+
+  private void removeFromBucket(final String key, final int count) {
+    var bucket = buckets.get(count);
+    bucket.remove(key);
+    if (bucket.isEmpty()) {
+      buckets.remove(count);
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching.eviction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Least-Recently-Used: evicts the key that has gone longest without an access.
+ */
+public class LruPolicy implements EvictionPolicy {
+  /**
+   * Keys in access order, eldest first.
+   */
+  private final Map<String, Boolean> order = new LinkedHashMap<>(16, 0.75f, true);
+
+  @Override
+  public void setCapacity(final int capacity) {
+    // Recency does not depend on the capacity.
+  }
+
+  @Override
+  public void onInsert(final String key) {
+    order.put(key, Boolean.TRUE);
+  }
+
+  @Override
+  public void onAccess(final String key) {
+    order.get(key);
+  }
+
+  @Override
+  public void onRemove(final String key) {
+    order.remove(key);
+  }
+
+  @Override
+  public String evict() {
+    var iterator = order.keySet().iterator();
+    if (!iterator.hasNext()) {
+      return null;
+    }
+    var victim = iterator.next();
+    iterator.remove();
+    return victim;
+  }
+
+  /**
+   * Peek at the next victim without removing it.
+   *
+   * @return {@link String} or null if empty
+   */
+  String peekVictim() {
+    var iterator = order.keySet().iterator();
+    return iterator.hasNext() ? iterator.next() : null;
+  }
+
+  /**
+   * Whether the key is tracked by this policy.
+   *
+   * @param key {@link String}
+   * @return boolean
+   */
+  boolean contains(final String key) {
+    return order.containsKey(key);
+  }
+
+  /**
+   * Number of tracked keys.
+   *
+   * @return int
+   */
+  int size() {
+    return order.size();
+  }
+
+  @Override
+  public List<String> keys() {
+    var keys = new ArrayList<>(order.keySet());
+    Collections.reverse(keys);
+    return keys;
+  }
+
+  @Override
+  public void clear() {
+    order.clear();
+  }
+}
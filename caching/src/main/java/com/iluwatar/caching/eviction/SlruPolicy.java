@@ -0,0 +1,141 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching.eviction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Segmented LRU: new keys enter a probationary segment and are promoted to a
+ * protected segment on their second access, so a one-off scan can only flush
+ * the probationary segment. When the protected segment overflows its least
+ * recently used key is demoted back to probation.
+ */
+public class SlruPolicy implements EvictionPolicy {
+  /**
+   * Share of the capacity reserved for the protected segment.
+   */
+  private static final double PROTECTED_RATIO = 0.8;
+
+  /**
+   * Probationary segment.
+   */
+  private final LruPolicy probation = new LruPolicy();
+  /**
+   * Protected segment.
+   */
+  private final LruPolicy protectedSegment = new LruPolicy();
+  /**
+   * Maximum size of the protected segment.
+   */
+  private int protectedCapacity;
+
+  @Override
+  public void setCapacity(final int capacity) {
+    protectedCapacity = (int) (capacity * PROTECTED_RATIO);
+    while (protectedSegment.size() > protectedCapacity) {
+      probation.onInsert(protectedSegment.evict());
+    }
+  }
+
+  @Override
+  public void onInsert(final String key) {
+    probation.onInsert(key);
+  }
+
+  @Override
+  public void onAccess(final String key) {
+    if (protectedSegment.contains(key)) {
+      protectedSegment.onAccess(key);
+      return;
+    }
+    if (!probation.contains(key)) {
+      return;
+    }
+    probation.onRemove(key);
+    if (protectedCapacity == 0) {
+      probation.onInsert(key);
+      return;
+    }
+    protectedSegment.onInsert(key);
+    if (protectedSegment.size() > protectedCapacity) {
+      probation.onInsert(protectedSegment.evict());
+    }
+  }
+
+  @Override
+  public void onRemove(final String key) {
+    probation.onRemove(key);
+    protectedSegment.onRemove(key);
+  }
+
+  @Override
+  public String evict() {
+    var victim = probation.evict();
+    return victim != null ? victim : protectedSegment.evict();
+  }
+
+  /**
+   * Peek at the next victim without removing it.
+   *
+   * @return {@link String} or null if empty
+   */
+  String peekVictim() {
+    var victim = probation.peekVictim();
+    return victim != null ? victim : protectedSegment.peekVictim();
+  }
+
+  /**
+   * Whether the key is tracked by this policy.
+   *
+   * @param key {@link String}
+   * @return boolean
+   */
+  boolean contains(final String key) {
+    return probation.contains(key) || protectedSegment.contains(key);
+  }
+
+  /**
+   * Number of tracked keys.
+   *
+   * @return int
+   */
+  int size() {
+    return probation.size() + protectedSegment.size();
+  }
+
+  @Override
+  public List<String> keys() {
+    var keys = new ArrayList<>(protectedSegment.keys());
+    keys.addAll(probation.keys());
+    return keys;
+  }
+
+  @Override
+  public void clear() {
+    probation.clear();
+    protectedSegment.clear();
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching.eviction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * W-TinyLFU: a small LRU admission window in front of a segmented LRU main
+ * space. Keys evicted from the window only enter the main space if the
+ * {@link FrequencySketch} says they are seen more often than the main space's
+ * victim, so a scan of one-off keys churns through the window without
+ * displacing the frequently used entries.
+ */
+public class WindowTinyLfuPolicy implements EvictionPolicy {
+  /**
+   * Share of the capacity given to the admission window.
+   */
+  private static final double WINDOW_RATIO = 0.01;
+
+  /**
+   * Admission window.
+   */
+  private final LruPolicy window = new LruPolicy();
+  /**
+   * Main space.
+   */
+  private final SlruPolicy main = new SlruPolicy();
+  /**
+   * Popularity estimates of recently seen keys.
+   */
+  private final FrequencySketch sketch = new FrequencySketch();
+  /**
+   * Maximum size of the admission window.
+   */
+  private int windowCapacity;
+  /**
+   * Maximum size of the main space.
+   */
+  private int mainCapacity;
+
+  @Override
+  public void setCapacity(final int capacity) {
+    windowCapacity = Math.max(1, (int) (capacity * WINDOW_RATIO));
+    mainCapacity = Math.max(0, capacity - windowCapacity);
+    main.setCapacity(mainCapacity);
+    sketch.setCapacity(capacity);
+  }
+
+  @Override
+  public void onInsert(final String key) {
+    sketch.increment(key);
+    window.onInsert(key);
+  }
+
+  @Override
+  public void onAccess(final String key) {
+    sketch.increment(key);
+    if (window.contains(key)) {
+      window.onAccess(key);
+    } else {
+      main.onAccess(key);
+    }
+  }
+
+  @Override
+  public void onRemove(final String key) {
+    window.onRemove(key);
+    main.onRemove(key);
+  }
+
+  @Override
+  public String evict() {
+    while (window.size() > windowCapacity) {
+      var candidate = window.evict();
+      if (main.size() < mainCapacity) {
+        main.onInsert(candidate);
+        continue;
+      }
+      var victim = main.peekVictim();
+      if (victim != null && sketch.frequency(candidate) > sketch.frequency(victim)) {
+        main.onRemove(victim);
+        main.onInsert(candidate);
+        return victim;
+      }
+      return candidate;
+    }
+    var victim = main.evict();
+    return victim != null ? victim : window.evict();
+  }
+
+  @Override
+  public List<String> keys() {
+    var keys = new ArrayList<>(main.keys());
+    keys.addAll(window.keys());
+    return keys;
+  }
+
+  @Override
+  public void clear() {
+    window.clear();
+    main.clear();
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark comparing {@link LruCache}, which has to be guarded by a global
+ * lock to be shared between threads, with {@link ConcurrentCache}. The working
+ * set fits in the cache, so every operation is a hit or an in-place update;
+ * 90% of the operations are reads.
+ *
+ * <p>Run {@link #main(String[])} from the test classpath to execute it with
+ * 1, 4, 16 and 64 threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheBenchmark {
+  private static final int CAPACITY = 1024;
+  private static final int[] THREADS = {1, 4, 16, 64};
+
+  private String[] keys;
+  private UserAccount[] accounts;
+  private LruCache lruCache;
+  private ConcurrentCache concurrentCache;
+
+  /**
+   * Fills both caches with the whole working set.
+   */
+  @Setup
+  public void setUp() {
+    keys = new String[CAPACITY];
+    accounts = new UserAccount[CAPACITY];
+    lruCache = new LruCache(CAPACITY);
+    concurrentCache = new ConcurrentCache(CAPACITY);
+    for (var i = 0; i < CAPACITY; i++) {
+      keys[i] = String.valueOf(i);
+      accounts[i] = new UserAccount(keys[i], "user" + i, "info" + i);
+      lruCache.set(keys[i], accounts[i]);
+      concurrentCache.set(keys[i], accounts[i]);
+    }
+  }
+
+  @Benchmark
+  public UserAccount lruCacheWithGlobalLock() {
+    var random = ThreadLocalRandom.current();
+    var i = random.nextInt(CAPACITY);
+    synchronized (lruCache) {
+      if (random.nextInt(10) == 0) {
+        lruCache.set(keys[i], accounts[i]);
+        return accounts[i];
+      }
+      return lruCache.get(keys[i]);
+    }
+  }
+
+  @Benchmark
+  public UserAccount concurrentCache() {
+    var random = ThreadLocalRandom.current();
+    var i = random.nextInt(CAPACITY);
+    if (random.nextInt(10) == 0) {
+      concurrentCache.set(keys[i], accounts[i]);
+      return accounts[i];
+    }
+    return concurrentCache.get(keys[i]);
+  }
+
+  /**
+   * Runs the benchmark once per thread count.
+   *
+   * @param args command line args
+   * @throws Exception if JMH fails
+   */
+  public static void main(String[] args) throws Exception {
+    for (var threads : THREADS) {
+      var options = new OptionsBuilder()
+          .include(CacheBenchmark.class.getSimpleName())
+          .threads(threads)
+          .build();
+      new Runner(options).run();
+    }
+  }
+}
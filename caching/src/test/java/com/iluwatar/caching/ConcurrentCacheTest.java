@@ -0,0 +1,301 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import com.iluwatar.caching.eviction.LfuPolicy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link ConcurrentCache}.
+ */
+class ConcurrentCacheTest {
+  private ConcurrentCache cache;
+
+  @BeforeEach
+  void setUp() {
+    cache = new ConcurrentCache(3);
+  }
+
+  private static UserAccount account(String id) {
+    return new UserAccount(id, "user " + id, "info " + id);
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsed() {
+    cache.set("1", account("1"));
+    cache.set("2", account("2"));
+    cache.set("3", account("3"));
+    cache.get("1");
+    cache.set("4", account("4"));
+
+    assertFalse(cache.contains("2"));
+    assertEquals(List.of(account("4"), account("1"), account("3")),
+        cache.getCacheDataInListForm());
+  }
+
+  @Test
+  void shouldReturnEvictedAccounts() {
+    cache.set("1", account("1"));
+    cache.set("2", account("2"));
+    assertTrue(cache.set("3", account("3")).isEmpty());
+
+    assertEquals(List.of(account("1")), cache.set("4", account("4")));
+  }
+
+  @Test
+  void shouldUseGivenEvictionPolicy() {
+    var lfuCache = new ConcurrentCache(2, new LfuPolicy());
+    lfuCache.set("1", account("1"));
+    lfuCache.set("2", account("2"));
+    lfuCache.get("1");
+    lfuCache.get("1");
+    lfuCache.get("2");
+
+    assertEquals(List.of(account("3")), lfuCache.set("3", account("3")));
+    assertTrue(lfuCache.contains("2"));
+  }
+
+  @Test
+  void shouldUpdateExistingEntryInPlace() {
+    cache.set("1", account("1"));
+    cache.set("2", account("2"));
+    var updated = new UserAccount("1", "renamed", "info");
+    cache.set("1", updated);
+
+    assertEquals(updated, cache.get("1"));
+    assertEquals(List.of(updated, account("2")), cache.getCacheDataInListForm());
+  }
+
+  @Test
+  void shouldInvalidateAndClear() {
+    cache.set("1", account("1"));
+    cache.set("2", account("2"));
+    cache.get("1");
+    cache.invalidate("1");
+
+    assertNull(cache.get("1"));
+    assertEquals(List.of(account("2")), cache.getCacheDataInListForm());
+
+    cache.clear();
+    assertNull(cache.get("2"));
+    assertTrue(cache.getCacheDataInListForm().isEmpty());
+  }
+
+  @Test
+  void shouldSetOnlyIfUnchangedSinceStamp() {
+    cache.set("2", account("2"));
+    var stamp = cache.stamp();
+    assertTrue(cache.setIfUnchanged("1", account("1"), stamp));
+
+    var updated = new UserAccount("1", "renamed", "info");
+    cache.set("1", updated);
+    assertFalse(cache.setIfUnchanged("1", account("1"), stamp));
+    assertEquals(updated, cache.get("1"));
+
+    stamp = cache.stamp();
+    cache.invalidate("1");
+    assertFalse(cache.setIfUnchanged("1", account("1"), stamp));
+    assertNull(cache.get("1"));
+    assertTrue(cache.setIfUnchanged("1", account("1"), cache.stamp()));
+  }
+
+  @Test
+  void shouldStayConsistentUnderConcurrentAccess() throws Exception {
+    var capacity = 64;
+    var concurrentCache = new ConcurrentCache(capacity);
+    var threads = 8;
+    var executor = Executors.newFixedThreadPool(threads);
+    var start = new CountDownLatch(1);
+    var futures = new ArrayList<Future<?>>();
+    for (var t = 0; t < threads; t++) {
+      futures.add(executor.submit(() -> {
+        start.await();
+        var random = ThreadLocalRandom.current();
+        for (var i = 0; i < 2_000; i++) {
+          var id = String.valueOf(random.nextInt(capacity * 2));
+          var op = random.nextInt(10);
+          if (op < 7) {
+            var found = concurrentCache.get(id);
+            if (found != null) {
+              assertEquals(id, found.getUserId());
+            }
+          } else if (op < 9) {
+            concurrentCache.set(id, account(id));
+          } else {
+            concurrentCache.invalidate(id);
+          }
+        }
+        return null;
+      }));
+    }
+    start.countDown();
+    for (var future : futures) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    var content = concurrentCache.getCacheDataInListForm();
+    assertTrue(content.size() <= capacity);
+    for (var userAccount : content) {
+      assertTrue(concurrentCache.contains(userAccount.getUserId()));
+    }
+    assertEquals(content.size(), content.stream().distinct().count());
+  }
+
+  @Test
+  void shouldShrinkIncrementallyKeepingHottestEntries() {
+    var bigCache = new ConcurrentCache(4);
+    List.of("1", "2", "3", "4").forEach(id -> bigCache.set(id, account(id)));
+    bigCache.get("1");
+    bigCache.get("3");
+
+    assertEquals(List.of(account("2"), account("4")), bigCache.setMaximumWeight(2));
+    assertEquals(List.of(account("3"), account("1")), bigCache.getCacheDataInListForm());
+  }
+
+  @Test
+  void shouldBoundByWeight() {
+    var weighted = ConcurrentCache.builder()
+        .maximumWeight(10)
+        .weigher((id, userAccount) -> userAccount.getUserName().length())
+        .build();
+    weighted.set("1", new UserAccount("1", "aaaa", ""));
+    weighted.set("2", new UserAccount("2", "bbbb", ""));
+    assertEquals(8, weighted.getTotalWeight());
+
+    weighted.set("3", new UserAccount("3", "ccc", ""));
+    assertFalse(weighted.contains("1"));
+    assertEquals(7, weighted.getTotalWeight());
+
+    var tooBig = new UserAccount("4", "ddddddddddd", "");
+    assertEquals(List.of(tooBig), weighted.set("4", tooBig));
+    assertTrue(weighted.contains("2"));
+    assertTrue(weighted.contains("3"));
+  }
+
+  @Test
+  void shouldEstimateBytes() {
+    var weigher = Weigher.estimatedBytes();
+    var small = weigher.weigh("1", new UserAccount("1", "a", "b"));
+    var large = weigher.weigh("1", new UserAccount("1", "a", "b".repeat(1000)));
+
+    assertTrue(small > 0);
+    assertTrue(large - small > 900);
+  }
+
+  @Test
+  void shouldExpireAfterWrite() {
+    var now = new AtomicLong();
+    var expiring = ConcurrentCache.builder()
+        .maximumWeight(10)
+        .expireAfterWrite(Duration.ofSeconds(10))
+        .ticker(now::get)
+        .build();
+    expiring.set("1", account("1"));
+    now.addAndGet(Duration.ofSeconds(5).toNanos());
+    expiring.set("2", account("2"));
+
+    now.addAndGet(Duration.ofSeconds(6).toNanos());
+    assertNull(expiring.get("1"));
+    assertFalse(expiring.contains("1"));
+    assertEquals(account("2"), expiring.get("2"));
+
+    expiring.cleanUp();
+    assertEquals(1, expiring.getTotalWeight());
+    now.addAndGet(Duration.ofSeconds(5).toNanos());
+    expiring.cleanUp();
+    assertEquals(0, expiring.getTotalWeight());
+    assertTrue(expiring.getCacheDataInListForm().isEmpty());
+  }
+
+  @Test
+  void shouldRequestRefreshOnceAfterInterval() {
+    var now = new AtomicLong();
+    var refreshed = new ArrayList<String>();
+    var refreshing = ConcurrentCache.builder()
+        .maximumWeight(10)
+        .refreshAfterWrite(Duration.ofSeconds(10))
+        .refresher(userId -> {
+          refreshed.add(userId);
+          return new CompletableFuture<Void>();
+        })
+        .ticker(now::get)
+        .build();
+    refreshing.set("1", account("1"));
+    refreshing.get("1");
+    assertTrue(refreshed.isEmpty());
+
+    now.addAndGet(Duration.ofSeconds(10).toNanos());
+    assertEquals(account("1"), refreshing.get("1"));
+    refreshing.get("1");
+    assertEquals(List.of("1"), refreshed);
+
+    refreshing.set("1", account("1"));
+    now.addAndGet(Duration.ofSeconds(10).toNanos());
+    refreshing.get("1");
+    assertEquals(List.of("1", "1"), refreshed);
+  }
+
+  @Test
+  void shouldRefreshAgainAfterFailedRefresh() {
+    var now = new AtomicLong();
+    var refreshes = new ArrayList<CompletableFuture<Void>>();
+    var refreshing = ConcurrentCache.builder()
+        .maximumWeight(10)
+        .refreshAfterWrite(Duration.ofSeconds(10))
+        .refresher(userId -> {
+          var refresh = new CompletableFuture<Void>();
+          refreshes.add(refresh);
+          return refresh;
+        })
+        .ticker(now::get)
+        .build();
+    refreshing.set("1", account("1"));
+    now.addAndGet(Duration.ofSeconds(10).toNanos());
+    refreshing.get("1");
+    refreshing.get("1");
+    assertEquals(1, refreshes.size());
+
+    refreshes.get(0).completeExceptionally(new IllegalStateException("database is down"));
+    assertEquals(account("1"), refreshing.get("1"));
+    assertEquals(2, refreshes.size());
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import com.iluwatar.caching.database.VirtualDb;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link SingleFlightLoader}.
+ */
+class SingleFlightLoaderTest {
+  private static final UserAccount ACCOUNT = new UserAccount("1", "John", "info");
+
+  @Test
+  void shouldShareLoadInFlight() {
+    var loader = new SingleFlightLoader();
+    var release = new CountDownLatch(1);
+    var calls = new AtomicInteger();
+    var executor = Executors.newSingleThreadExecutor();
+
+    var first = loader.load("1", id -> {
+      calls.incrementAndGet();
+      await(release);
+      return ACCOUNT;
+    }, executor);
+    var second = loader.load("1", id -> {
+      calls.incrementAndGet();
+      return ACCOUNT;
+    }, executor);
+    release.countDown();
+
+    assertSame(first, second);
+    assertEquals(ACCOUNT, second.join());
+    assertEquals(1, calls.get());
+    assertEquals(1, loader.getLoadCount());
+    assertEquals(1, loader.getDeduplicatedCount());
+    executor.shutdown();
+  }
+
+  @Test
+  void shouldLoadAgainAfterCompletion() {
+    var loader = new SingleFlightLoader();
+    loader.load("1", id -> ACCOUNT, Runnable::run).join();
+    loader.load("1", id -> ACCOUNT, Runnable::run).join();
+
+    assertEquals(2, loader.getLoadCount());
+    assertEquals(0, loader.getDeduplicatedCount());
+  }
+
+  @Test
+  void shouldPropagateFailureAndForgetIt() {
+    var loader = new SingleFlightLoader();
+    var failed = loader.load("1", id -> {
+      throw new IllegalStateException("DB down");
+    }, Runnable::run);
+
+    var thrown = assertThrows(ExecutionException.class, failed::get);
+    assertInstanceOf(IllegalStateException.class, thrown.getCause());
+    assertEquals(ACCOUNT, loader.load("1", id -> ACCOUNT, Runnable::run).join());
+  }
+
+  @Test
+  void cacheStoreShouldReadDbOnceForConcurrentMisses() throws Exception {
+    var dbReads = new AtomicInteger();
+    var release = new CountDownLatch(1);
+    var db = new VirtualDb() {
+      @Override
+      public UserAccount readFromDb(String userId) {
+        dbReads.incrementAndGet();
+        await(release);
+        return super.readFromDb(userId);
+      }
+    };
+    db.connect();
+    db.writeToDb(ACCOUNT);
+    var store = new CacheStore(db);
+    var executor = Executors.newFixedThreadPool(4);
+
+    var futures = new ArrayList<CompletableFuture<UserAccount>>();
+    for (var i = 0; i < 8; i++) {
+      futures.add(store.readThroughAsync("1", executor));
+    }
+    var blocking = CompletableFuture.supplyAsync(() -> store.readThrough("1"), executor);
+    while (store.getDeduplicatedLoadCount() < 8) {
+      Thread.onSpinWait();
+    }
+    assertFalse(blocking.isDone());
+    release.countDown();
+
+    for (var future : futures) {
+      assertEquals(ACCOUNT, future.get(5, TimeUnit.SECONDS));
+    }
+    assertEquals(ACCOUNT, blocking.get(5, TimeUnit.SECONDS));
+    assertEquals(1, dbReads.get());
+    assertEquals(1, store.getDbLoadCount());
+    assertTrue(store.readThroughAsync("1").isDone());
+    executor.shutdown();
+  }
+
+  @Test
+  void cacheStoreShouldNotCacheLoadThatRacedWithWriteThrough() throws Exception {
+    var updated = new UserAccount("1", "John", "updated");
+    var store = raceLoadWith(s -> s.writeThrough(updated));
+
+    assertEquals(updated, store.readThrough("1"));
+  }
+
+  @Test
+  void cacheStoreShouldNotCacheLoadThatRacedWithWriteAround() throws Exception {
+    var updated = new UserAccount("1", "John", "updated");
+    var store = raceLoadWith(s -> s.writeAround(updated));
+
+    assertEquals(updated, store.readThrough("1"));
+    assertEquals(2, store.getDbLoadCount());
+  }
+
+  /**
+   * Runs the write after a miss has read {@link #ACCOUNT} from the DB but
+   * before the load completes.
+   */
+  private static CacheStore raceLoadWith(Consumer<CacheStore> write) throws Exception {
+    var readDone = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var db = new VirtualDb() {
+      @Override
+      public UserAccount readFromDb(String userId) {
+        var account = super.readFromDb(userId);
+        if (readDone.getCount() > 0) {
+          readDone.countDown();
+          await(release);
+        }
+        return account;
+      }
+    };
+    db.connect();
+    db.writeToDb(ACCOUNT);
+    var store = new CacheStore(db);
+    var executor = Executors.newSingleThreadExecutor();
+
+    var load = store.readThroughAsync("1", executor);
+    await(readDone);
+    write.accept(store);
+    release.countDown();
+
+    assertEquals(ACCOUNT, load.get(5, TimeUnit.SECONDS));
+    executor.shutdown();
+    return store;
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+}
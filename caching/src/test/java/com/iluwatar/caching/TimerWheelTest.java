@@ -0,0 +1,82 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link TimerWheel}.
+ */
+class TimerWheelTest {
+
+  @Test
+  void shouldExpireOnlyElapsedTicks() {
+    var wheel = new TimerWheel<String>(10, 0);
+    var expired = new ArrayList<String>();
+    wheel.schedule(new TimerWheel.Timer<>("a"), 25);
+    wheel.schedule(new TimerWheel.Timer<>("b"), 45);
+
+    wheel.advance(29, expired::add);
+    assertTrue(expired.isEmpty());
+    wheel.advance(30, expired::add);
+    assertEquals(List.of("a"), expired);
+    wheel.advance(1_000, expired::add);
+    assertEquals(List.of("a", "b"), expired);
+  }
+
+  @Test
+  void shouldNotExpireCancelledOrRescheduledTimers() {
+    var wheel = new TimerWheel<String>(10, 0);
+    var expired = new ArrayList<String>();
+    var cancelled = new TimerWheel.Timer<>("cancelled");
+    var rescheduled = new TimerWheel.Timer<>("rescheduled");
+    wheel.schedule(cancelled, 15);
+    wheel.schedule(rescheduled, 15);
+    wheel.cancel(cancelled);
+    wheel.schedule(rescheduled, 55);
+
+    wheel.advance(40, expired::add);
+    assertTrue(expired.isEmpty());
+    wheel.advance(60, expired::add);
+    assertEquals(List.of("rescheduled"), expired);
+  }
+
+  @Test
+  void shouldKeepTimersOfLaterRevolutions() {
+    var wheel = new TimerWheel<String>(1, 0);
+    var expired = new ArrayList<String>();
+    wheel.schedule(new TimerWheel.Timer<>("later"), TimerWheel.BUCKETS + 5);
+
+    wheel.advance(10, expired::add);
+    assertTrue(expired.isEmpty());
+    wheel.advance(TimerWheel.BUCKETS + 6, expired::add);
+    assertEquals(List.of("later"), expired);
+  }
+}
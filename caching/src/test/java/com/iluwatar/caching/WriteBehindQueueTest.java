@@ -0,0 +1,166 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import com.iluwatar.caching.database.DbManager;
+import com.iluwatar.caching.database.VirtualDb;
+import com.iluwatar.caching.eviction.LruPolicy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link WriteBehindQueue}.
+ */
+class WriteBehindQueueTest {
+  /**
+   * Records every batch it is asked to write, optionally failing.
+   */
+  static class RecordingDb extends VirtualDb {
+    final List<List<UserAccount>> batches = new CopyOnWriteArrayList<>();
+    volatile boolean failing;
+
+    @Override
+    public void upsertAll(Collection<UserAccount> userAccounts) {
+      if (failing) {
+        throw new IllegalStateException("DB down");
+      }
+      batches.add(new ArrayList<>(userAccounts));
+      super.upsertAll(userAccounts);
+    }
+  }
+
+  private RecordingDb db;
+
+  @BeforeEach
+  void setUp() {
+    db = new RecordingDb();
+    db.connect();
+  }
+
+  private static UserAccount account(String id, String name) {
+    return new UserAccount(id, name, "info");
+  }
+
+  @Test
+  void shouldCoalesceWritesToTheSameUser() {
+    var queue = new WriteBehindQueue(db, 10, Duration.ofHours(1));
+    queue.enqueue(account("1", "first"));
+    queue.enqueue(account("2", "other"));
+    queue.enqueue(account("1", "second"));
+
+    assertEquals(account("1", "second"), queue.getPending("1"));
+    assertEquals(2, queue.size());
+    queue.flush();
+
+    assertEquals(List.of(List.of(account("1", "second"), account("2", "other"))), db.batches);
+    assertEquals(account("1", "second"), db.readFromDb("1"));
+    assertNull(queue.getPending("1"));
+  }
+
+  @Test
+  void shouldWriteInBatchesOfConfiguredSize() {
+    var queue = new WriteBehindQueue(db, 2, Duration.ofHours(1));
+    for (var i = 0; i < 5; i++) {
+      queue.enqueue(account(String.valueOf(i), "user"));
+    }
+    queue.close();
+
+    var written = db.batches.stream().mapToInt(List::size).sum();
+    assertEquals(5, written);
+    assertTrue(db.batches.stream().allMatch(batch -> batch.size() <= 2));
+  }
+
+  @Test
+  void shouldWriteFullBatchInBackground() throws InterruptedException {
+    var queue = new WriteBehindQueue(db, 2, Duration.ofHours(1));
+    queue.enqueue(account("1", "a"));
+    queue.enqueue(account("2", "b"));
+
+    awaitWritten(2);
+    assertEquals(List.of(account("1", "a"), account("2", "b")), db.batches.get(0));
+  }
+
+  @Test
+  void shouldWriteAfterMaxDelay() throws InterruptedException {
+    var queue = new WriteBehindQueue(db, 100, Duration.ofMillis(20));
+    queue.enqueue(account("1", "a"));
+
+    awaitWritten(1);
+    assertEquals(account("1", "a"), db.readFromDb("1"));
+  }
+
+  @Test
+  void shouldKeepBatchQueuedWhenWriteFails() {
+    var queue = new WriteBehindQueue(db, 10, Duration.ofHours(1));
+    db.failing = true;
+    queue.enqueue(account("1", "a"));
+    queue.flush();
+
+    assertEquals(account("1", "a"), queue.getPending("1"));
+    db.failing = false;
+    queue.flush();
+    assertEquals(account("1", "a"), db.readFromDb("1"));
+  }
+
+  @Test
+  void shouldRejectWritesAfterClose() {
+    var queue = new WriteBehindQueue(db, 10, Duration.ofHours(1));
+    queue.close();
+
+    assertThrows(IllegalStateException.class, () -> queue.enqueue(account("1", "a")));
+  }
+
+  @Test
+  void cacheStoreShouldServeQueuedWritesBeforeTheyReachTheDb() {
+    DbManager slowDb = new RecordingDb();
+    slowDb.connect();
+    var store = new CacheStore(slowDb, new LruPolicy(),
+        100, Duration.ofHours(1));
+    for (var i = 0; i < 5; i++) {
+      store.writeBehind(account(String.valueOf(i), "user" + i));
+    }
+
+    assertNull(slowDb.readFromDb("0"));
+    assertEquals(account("0", "user0"), store.readThroughWithWriteBackPolicy("0"));
+  }
+
+  private void awaitWritten(int records) throws InterruptedException {
+    var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (db.batches.stream().mapToInt(List::size).sum() < records) {
+      assertTrue(System.nanoTime() < deadline, "records not written in time");
+      Thread.sleep(5);
+    }
+  }
+}
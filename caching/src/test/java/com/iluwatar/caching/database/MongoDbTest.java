@@ -29,6 +29,8 @@ import com.iluwatar.caching.constants.CachingConstants;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import java.util.List;
 import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -100,4 +102,14 @@ class MongoDbTest {
     when(db.getCollection(CachingConstants.USER_ACCOUNT)).thenReturn(mongoCollection);
     assertDoesNotThrow(()-> {mongoDb.upsertDb(userAccount);});
   }
-}
\ No newline at end of file
+
+  @Test
+  void upsertAll() {
+    MongoCollection<Document> mongoCollection = mock(MongoCollection.class);
+    when(db.getCollection(CachingConstants.USER_ACCOUNT)).thenReturn(mongoCollection);
+    var other = new UserAccount("456", NAME, ADDITIONAL_INFO);
+    assertDoesNotThrow(() -> mongoDb.upsertAll(List.of(userAccount, other)));
+    verify(mongoCollection).bulkWrite(argThat(updates -> updates.size() == 2),
+        any(BulkWriteOptions.class));
+  }
+}
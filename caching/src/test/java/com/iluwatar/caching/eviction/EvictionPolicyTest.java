@@ -0,0 +1,141 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching.eviction;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link EvictionPolicy} implementations.
+ */
+class EvictionPolicyTest {
+
+  static Stream<Supplier<EvictionPolicy>> policies() {
+    return TraceReplay.policies().values().stream();
+  }
+
+  @ParameterizedTest
+  @MethodSource("policies")
+  void shouldEvictEveryKeyExactlyOnce(Supplier<EvictionPolicy> supplier) {
+    var policy = supplier.get();
+    policy.setCapacity(3);
+    List.of("a", "b", "c").forEach(policy::onInsert);
+    policy.onAccess("b");
+    policy.onRemove("c");
+
+    var first = policy.evict();
+    var second = policy.evict();
+    assertTrue(Set.of("a", "b").containsAll(List.of(first, second)));
+    assertNotEquals(first, second);
+    assertNull(policy.evict());
+    assertTrue(policy.keys().isEmpty());
+  }
+
+  @ParameterizedTest
+  @MethodSource("policies")
+  void shouldForgetKeysOnClear(Supplier<EvictionPolicy> supplier) {
+    var policy = supplier.get();
+    policy.setCapacity(2);
+    policy.onInsert("a");
+    policy.onInsert("b");
+    policy.clear();
+
+    assertTrue(policy.keys().isEmpty());
+    assertNull(policy.evict());
+  }
+
+  @Test
+  void lruShouldEvictLeastRecentlyUsed() {
+    var policy = new LruPolicy();
+    List.of("a", "b", "c").forEach(policy::onInsert);
+    policy.onAccess("a");
+
+    assertEquals(List.of("a", "c", "b"), policy.keys());
+    assertEquals("b", policy.evict());
+  }
+
+  @Test
+  void lfuShouldEvictLeastFrequentlyUsed() {
+    var policy = new LfuPolicy();
+    List.of("a", "b", "c").forEach(policy::onInsert);
+    policy.onAccess("a");
+    policy.onAccess("a");
+    policy.onAccess("c");
+
+    assertEquals(List.of("a", "c", "b"), policy.keys());
+    assertEquals("b", policy.evict());
+    assertEquals("c", policy.evict());
+  }
+
+  @Test
+  void slruShouldKeepProtectedKeysOverNewOnes() {
+    var policy = new SlruPolicy();
+    policy.setCapacity(5);
+    List.of("a", "b").forEach(policy::onInsert);
+    policy.onAccess("a");
+    policy.onAccess("b");
+    List.of("c", "d", "e").forEach(policy::onInsert);
+
+    assertEquals("c", policy.evict());
+    assertEquals("d", policy.evict());
+    assertEquals("e", policy.evict());
+    assertEquals("a", policy.evict());
+  }
+
+  @Test
+  void windowTinyLfuShouldRejectOneHitWonders() {
+    var policy = new WindowTinyLfuPolicy();
+    policy.setCapacity(3);
+    List.of("a", "b").forEach(policy::onInsert);
+    for (var i = 0; i < 5; i++) {
+      policy.onAccess("a");
+      policy.onAccess("b");
+    }
+    policy.onInsert("c");
+    policy.onInsert("scan");
+
+    assertEquals("c", policy.evict());
+    assertTrue(policy.keys().containsAll(List.of("a", "b", "scan")));
+  }
+
+  @Test
+  void windowTinyLfuShouldResistScans() {
+    var trace = TraceReplay.zipfWithScans(200_000, 10_000, 2_000, 5_000, 7);
+    var lru = TraceReplay.hitRatio(new LruPolicy(), 500, trace);
+    var tinyLfu = TraceReplay.hitRatio(new WindowTinyLfuPolicy(), 500, trace);
+
+    assertTrue(tinyLfu > lru, () -> "W-TinyLFU " + tinyLfu + " <= LRU " + lru);
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching.eviction;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Replays key traces against each {@link EvictionPolicy} and reports hit ratios.
+ *
+ * <p>Run {@link #main(String[])} from the test classpath. Without arguments it
+ * replays generated traces; otherwise each argument is a file with one key per
+ * line.
+ */
+public final class TraceReplay {
+  private static final int CAPACITY = 1_000;
+  private static final int TRACE_LENGTH = 1_000_000;
+
+  private TraceReplay() {
+  }
+
+  /**
+   * The policies to compare, by name.
+   *
+   * @return {@link Map}
+   */
+  static Map<String, Supplier<EvictionPolicy>> policies() {
+    var policies = new LinkedHashMap<String, Supplier<EvictionPolicy>>();
+    policies.put("LRU", LruPolicy::new);
+    policies.put("LFU", LfuPolicy::new);
+    policies.put("SLRU", SlruPolicy::new);
+    policies.put("W-TinyLFU", WindowTinyLfuPolicy::new);
+    return policies;
+  }
+
+  /**
+   * Replays the trace against a cache of the given capacity, the same way
+   * {@link com.iluwatar.caching.ConcurrentCache} drives its policy.
+   *
+   * @param policy   {@link EvictionPolicy}
+   * @param capacity int
+   * @param trace    keys in access order
+   * @return hit ratio between 0 and 1
+   */
+  static double hitRatio(EvictionPolicy policy, int capacity, String[] trace) {
+    policy.setCapacity(capacity);
+    var resident = new HashSet<String>();
+    var hits = 0;
+    for (var key : trace) {
+      if (resident.contains(key)) {
+        hits++;
+        policy.onAccess(key);
+        continue;
+      }
+      resident.add(key);
+      policy.onInsert(key);
+      while (resident.size() > capacity) {
+        resident.remove(policy.evict());
+      }
+    }
+    return (double) hits / trace.length;
+  }
+
+  /**
+   * Zipf-distributed accesses over {@code keys} distinct keys.
+   *
+   * @param length   trace length
+   * @param keys     number of distinct keys
+   * @param exponent skew, higher is more skewed
+   * @param seed     random seed
+   * @return trace
+   */
+  static String[] zipf(int length, int keys, double exponent, long seed) {
+    var cumulative = new double[keys];
+    var sum = 0.0;
+    for (var i = 0; i < keys; i++) {
+      sum += 1 / Math.pow(i + 1, exponent);
+      cumulative[i] = sum;
+    }
+    var random = new Random(seed);
+    var trace = new String[length];
+    for (var i = 0; i < length; i++) {
+      var index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+      trace[i] = "k" + (index < 0 ? -index - 1 : index);
+    }
+    return trace;
+  }
+
+  /**
+   * Zipf accesses interrupted by scans of keys that are never seen again.
+   *
+   * @param length     trace length
+   * @param keys       number of distinct hot keys
+   * @param scanLength keys per scan
+   * @param scanEvery  Zipf accesses between two scans
+   * @param seed       random seed
+   * @return trace
+   */
+  static String[] zipfWithScans(int length, int keys, int scanLength, int scanEvery, long seed) {
+    var hot = zipf(length, keys, 0.9, seed);
+    var trace = new String[length];
+    var scanned = 0;
+    for (var i = 0; i < length; i++) {
+      var inScan = i % (scanEvery + scanLength) >= scanEvery;
+      trace[i] = inScan ? "scan" + scanned++ : hot[i];
+    }
+    return trace;
+  }
+
+  /**
+   * Cyclic accesses over {@code keys} keys.
+   *
+   * @param length trace length
+   * @param keys   number of distinct keys
+   * @return trace
+   */
+  static String[] loop(int length, int keys) {
+    var trace = new String[length];
+    for (var i = 0; i < length; i++) {
+      trace[i] = "k" + i % keys;
+    }
+    return trace;
+  }
+
+  /**
+   * Prints a hit-ratio report.
+   *
+   * @param args trace files, one key per line
+   * @throws IOException if a trace cannot be read
+   */
+  public static void main(String[] args) throws IOException {
+    var traces = new LinkedHashMap<String, String[]>();
+    if (args.length == 0) {
+      traces.put("zipf(0.9)", zipf(TRACE_LENGTH, 100_000, 0.9, 42));
+      traces.put("zipf(0.9)+scans", zipfWithScans(TRACE_LENGTH, 100_000, 5_000, 20_000, 42));
+      traces.put("loop(1.5x)", loop(TRACE_LENGTH, CAPACITY * 3 / 2));
+    } else {
+      for (var file : args) {
+        try (Stream<String> lines = Files.lines(Path.of(file))) {
+          traces.put(file, lines.toArray(String[]::new));
+        }
+      }
+    }
+    System.out.printf("%-20s", "trace");
+    policies().keySet().forEach(name -> System.out.printf("%12s", name));
+    System.out.println();
+    for (var trace : traces.entrySet()) {
+      System.out.printf("%-20s", trace.getKey());
+      for (var policy : policies().values()) {
+        var ratio = hitRatio(policy.get(), CAPACITY, trace.getValue());
+        System.out.printf("%11.2f%%", ratio * 100);
+      }
+      System.out.println();
+    }
+  }
+}
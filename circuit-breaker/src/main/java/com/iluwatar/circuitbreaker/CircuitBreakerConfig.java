@@ -0,0 +1,78 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.circuitbreaker;
+
+import java.util.concurrent.TimeUnit;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Settings of a {@link SlidingWindowCircuitBreaker}. Durations are in nanoseconds, like the retry
+ * time period of the {@link DefaultCircuitBreaker}, and rates are percentages.
+ */
+@Getter
+@Builder
+public class CircuitBreakerConfig {
+
+  /**
+   * How the sliding window of recent calls is measured.
+   */
+  public enum WindowType {
+    /** The window holds the last {@code windowSize} calls. */
+    COUNT_BASED,
+    /** The window holds the calls of the last {@code windowSize} seconds. */
+    TIME_BASED
+  }
+
+  @Builder.Default
+  private final WindowType windowType = WindowType.COUNT_BASED;
+
+  // Number of calls, or of seconds, in the sliding window
+  @Builder.Default
+  private final int windowSize = 100;
+
+  // Calls the window must hold before the rates are evaluated
+  @Builder.Default
+  private final int minimumCalls = 10;
+
+  @Builder.Default
+  private final float failureRateThreshold = 50;
+
+  @Builder.Default
+  private final float slowCallRateThreshold = 100;
+
+  // A call which takes at least this long is slow, even when it succeeds
+  @Builder.Default
+  private final long slowCallDuration = TimeUnit.SECONDS.toNanos(1);
+
+  // How long the circuit stays open before trial calls are let through
+  @Builder.Default
+  private final long waitInOpenState = TimeUnit.SECONDS.toNanos(60);
+
+  // Trial calls let through in the half-open state, at most this many in total until it closes or
+  // opens again
+  @Builder.Default
+  private final int permittedCallsInHalfOpenState = 10;
+}
@@ -0,0 +1,42 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.circuitbreaker;
+
+/**
+ * Point in time view of a {@link SlidingWindowCircuitBreaker}.
+ *
+ * @param state              the current state
+ * @param bufferedCalls      calls in the sliding window of the current state
+ * @param failedCalls        failed calls in the window
+ * @param slowCalls          slow calls in the window, failed or not
+ * @param failureRate        percentage of failed calls in the window, 0 when it is empty
+ * @param slowCallRate       percentage of slow calls in the window, 0 when it is empty
+ * @param notPermittedCalls  calls rejected without reaching the service since creation
+ * @param stateTransitions   state changes since creation
+ */
+public record CircuitBreakerMetrics(State state, int bufferedCalls, int failedCalls, int slowCalls,
+                                    float failureRate, float slowCallRate, long notPermittedCalls,
+                                    long stateTransitions) {
+}
@@ -0,0 +1,166 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.circuitbreaker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Outcomes of the recent calls of a {@link SlidingWindowCircuitBreaker}, kept in a ring buffer
+ * which concurrent callers update with atomic operations only.
+ */
+abstract class SlidingWindow {
+
+  /**
+   * Totals of the calls currently in a window.
+   */
+  record Snapshot(int calls, int failedCalls, int slowCalls) {
+
+    float failureRate() {
+      return calls == 0 ? 0 : failedCalls * 100f / calls;
+    }
+
+    float slowCallRate() {
+      return calls == 0 ? 0 : slowCalls * 100f / calls;
+    }
+  }
+
+  abstract void record(boolean failed, boolean slow, long now);
+
+  abstract Snapshot snapshot(long now);
+
+  static SlidingWindow ofCalls(int size) {
+    return new CountBased(size);
+  }
+
+  static SlidingWindow ofSeconds(int seconds) {
+    return new TimeBased(seconds);
+  }
+
+  /**
+   * Ring of the last calls. A call overwrites the oldest slot and corrects the running totals by
+   * the difference between the two outcomes, so a snapshot costs no more than a call.
+   */
+  private static class CountBased extends SlidingWindow {
+
+    private static final int CALL = 1;
+    private static final int FAILED = 2;
+    private static final int SLOW = 4;
+
+    private final AtomicIntegerArray slots;
+    private final AtomicLong cursor = new AtomicLong();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger failedCalls = new AtomicInteger();
+    private final AtomicInteger slowCalls = new AtomicInteger();
+
+    CountBased(int size) {
+      this.slots = new AtomicIntegerArray(size);
+    }
+
+    @Override
+    void record(boolean failed, boolean slow, long now) {
+      var outcome = CALL | (failed ? FAILED : 0) | (slow ? SLOW : 0);
+      var slot = (int) (cursor.getAndIncrement() % slots.length());
+      var evicted = slots.getAndSet(slot, outcome);
+      calls.addAndGet(bit(outcome, CALL) - bit(evicted, CALL));
+      failedCalls.addAndGet(bit(outcome, FAILED) - bit(evicted, FAILED));
+      slowCalls.addAndGet(bit(outcome, SLOW) - bit(evicted, SLOW));
+    }
+
+    @Override
+    Snapshot snapshot(long now) {
+      return new Snapshot(calls.get(), failedCalls.get(), slowCalls.get());
+    }
+
+    private static int bit(int outcome, int flag) {
+      return (outcome & flag) == 0 ? 0 : 1;
+    }
+  }
+
+  /**
+   * Ring of one second buckets. The first call of a new second replaces the bucket it lands on
+   * with compare-and-set, and a snapshot sums the buckets which are still inside the window.
+   */
+  private static class TimeBased extends SlidingWindow {
+
+    private static final long BUCKET_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    TimeBased(int seconds) {
+      this.buckets = new AtomicReferenceArray<>(seconds);
+    }
+
+    @Override
+    void record(boolean failed, boolean slow, long now) {
+      var second = Math.floorDiv(now, BUCKET_NANOS);
+      var slot = (int) Math.floorMod(second, (long) buckets.length());
+      var bucket = buckets.get(slot);
+      while (bucket == null || bucket.second < second) {
+        buckets.compareAndSet(slot, bucket, new Bucket(second));
+        bucket = buckets.get(slot);
+      }
+      // a bucket of a later second means this call was overtaken, it still counts there
+      bucket.calls.incrementAndGet();
+      if (failed) {
+        bucket.failedCalls.incrementAndGet();
+      }
+      if (slow) {
+        bucket.slowCalls.incrementAndGet();
+      }
+    }
+
+    @Override
+    Snapshot snapshot(long now) {
+      var oldest = Math.floorDiv(now, BUCKET_NANOS) - buckets.length();
+      int calls = 0;
+      int failedCalls = 0;
+      int slowCalls = 0;
+      for (var i = 0; i < buckets.length(); i++) {
+        var bucket = buckets.get(i);
+        if (bucket != null && bucket.second > oldest) {
+          calls += bucket.calls.get();
+          failedCalls += bucket.failedCalls.get();
+          slowCalls += bucket.slowCalls.get();
+        }
+      }
+      return new Snapshot(calls, failedCalls, slowCalls);
+    }
+
+    private static class Bucket {
+      private final long second;
+      private final AtomicInteger calls = new AtomicInteger();
+      private final AtomicInteger failedCalls = new AtomicInteger();
+      private final AtomicInteger slowCalls = new AtomicInteger();
+
+      Bucket(long second) {
+        this.second = second;
+      }
+    }
+  }
+}
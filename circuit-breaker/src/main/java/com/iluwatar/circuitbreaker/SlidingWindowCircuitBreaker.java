@@ -0,0 +1,220 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.circuitbreaker;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker which may be shared by many threads. Unlike the {@link DefaultCircuitBreaker},
+ * which opens after a number of consecutive failures, it keeps the outcomes of the recent calls in
+ * a sliding window and opens when the rate of failed calls or of slow calls crosses a threshold.
+ * After a while in the OPEN state a limited number of trial calls is let through in the HALF_OPEN
+ * state, and their rates decide whether the circuit closes or opens again.
+ *
+ * <p>The state, together with the window and the trial permits which belong to it, is one
+ * immutable phase which is replaced with compare-and-set, so every transition happens once however
+ * many callers see it at the same time, and no caller ever blocks on another.
+ */
+public class SlidingWindowCircuitBreaker implements CircuitBreaker {
+
+  private final RemoteService service;
+  private final CircuitBreakerConfig config;
+  private final LongSupplier clock;
+  private final AtomicReference<Phase> phase = new AtomicReference<>();
+  private final LongAdder notPermittedCalls = new LongAdder();
+  private final LongAdder stateTransitions = new LongAdder();
+  private volatile String lastFailureResponse;
+
+  public SlidingWindowCircuitBreaker(RemoteService service, CircuitBreakerConfig config) {
+    this(service, config, System::nanoTime);
+  }
+
+  SlidingWindowCircuitBreaker(RemoteService service, CircuitBreakerConfig config,
+      LongSupplier clock) {
+    if (config.getWindowSize() <= 0 || config.getMinimumCalls() <= 0
+        || config.getPermittedCallsInHalfOpenState() <= 0) {
+      throw new IllegalArgumentException("Window size, minimum and permitted calls must be > 0");
+    }
+    this.service = service;
+    this.config = config;
+    this.clock = clock;
+    this.phase.set(newPhase(State.CLOSED, clock.getAsLong()));
+  }
+
+  @Override
+  public void recordSuccess() {
+    record(currentPhase(clock.getAsLong()), false, false);
+  }
+
+  @Override
+  public void recordFailure(String response) {
+    this.lastFailureResponse = response;
+    record(currentPhase(clock.getAsLong()), true, false);
+  }
+
+  @Override
+  public String getState() {
+    return currentPhase(clock.getAsLong()).state().name();
+  }
+
+  /**
+   * Forces the circuit into the given state, with an empty window.
+   *
+   * @param state State at which circuit is in
+   */
+  @Override
+  public void setState(State state) {
+    phase.set(newPhase(state, clock.getAsLong()));
+    stateTransitions.increment();
+  }
+
+  /**
+   * Executes service call when the circuit permits it.
+   *
+   * @return Value from the remote resource, or the last failure response when the call is not
+   *     permitted
+   */
+  @Override
+  public String attemptRequest() throws RemoteServiceException {
+    var permitted = acquirePermission(clock.getAsLong());
+    if (permitted == null) {
+      notPermittedCalls.increment();
+      return lastFailureResponse;
+    }
+    var start = clock.getAsLong();
+    try {
+      var response = service.call();
+      record(permitted, false, isSlow(start));
+      return response;
+    } catch (RemoteServiceException ex) {
+      lastFailureResponse = ex.getMessage();
+      record(permitted, true, isSlow(start));
+      throw ex;
+    } catch (RuntimeException ex) {
+      //an unexpected error fails the call too, or a half-open trial would never be returned
+      record(permitted, true, isSlow(start));
+      throw ex;
+    }
+  }
+
+  /**
+   * Returns the metrics of the circuit breaker.
+   *
+   * @return the state, the totals of its window and the counters since creation
+   */
+  public CircuitBreakerMetrics getMetrics() {
+    var now = clock.getAsLong();
+    var current = currentPhase(now);
+    var window = current.window() == null
+        ? new SlidingWindow.Snapshot(0, 0, 0) : current.window().snapshot(now);
+    return new CircuitBreakerMetrics(current.state(), window.calls(), window.failedCalls(),
+        window.slowCalls(), window.failureRate(), window.slowCallRate(), notPermittedCalls.sum(),
+        stateTransitions.sum());
+  }
+
+  // The phase the call may run in, or null when the circuit does not permit it
+  private Phase acquirePermission(long now) {
+    var current = currentPhase(now);
+    return switch (current.state()) {
+      case CLOSED -> current;
+      case OPEN -> null;
+      case HALF_OPEN -> takeTrial(current) ? current : null;
+    };
+  }
+
+  // Takes one of the trial permits of a HALF_OPEN phase, which are never given back
+  private boolean takeTrial(Phase halfOpen) {
+    var permitted = config.getPermittedCallsInHalfOpenState();
+    return halfOpen.trials().getAndUpdate(trials -> Math.min(trials + 1, permitted)) < permitted;
+  }
+
+  // The current phase, after moving an OPEN circuit which has waited long enough to HALF_OPEN
+  private Phase currentPhase(long now) {
+    var current = phase.get();
+    while (current.state() == State.OPEN
+        && now - current.since() >= config.getWaitInOpenState()) {
+      transition(current, State.HALF_OPEN, now);
+      current = phase.get();
+    }
+    return current;
+  }
+
+  private void record(Phase calledIn, boolean failed, boolean slow) {
+    if (calledIn.window() == null) {
+      return;
+    }
+    var now = clock.getAsLong();
+    calledIn.window().record(failed, slow, now);
+    var window = calledIn.window().snapshot(now);
+    if (calledIn.state() == State.CLOSED) {
+      if (window.calls() >= config.getMinimumCalls() && isExceeded(window)) {
+        transition(calledIn, State.OPEN, now);
+      }
+    } else if (window.calls() >= config.getPermittedCallsInHalfOpenState()) {
+      transition(calledIn, isExceeded(window) ? State.OPEN : State.CLOSED, now);
+    }
+  }
+
+  private boolean isExceeded(SlidingWindow.Snapshot window) {
+    return window.failureRate() >= config.getFailureRateThreshold()
+        || window.slowCallRate() >= config.getSlowCallRateThreshold();
+  }
+
+  private boolean isSlow(long start) {
+    return clock.getAsLong() - start >= config.getSlowCallDuration();
+  }
+
+  // Only the caller whose compare-and-set succeeds makes the transition, the others see its result
+  private void transition(Phase from, State to, long now) {
+    if (phase.compareAndSet(from, newPhase(to, now))) {
+      stateTransitions.increment();
+    }
+  }
+
+  private Phase newPhase(State state, long now) {
+    return switch (state) {
+      case CLOSED -> new Phase(state, now, newClosedWindow(), null);
+      case OPEN -> new Phase(state, now, null, null);
+      case HALF_OPEN -> new Phase(state, now,
+          SlidingWindow.ofCalls(config.getPermittedCallsInHalfOpenState()), new AtomicInteger());
+    };
+  }
+
+  private SlidingWindow newClosedWindow() {
+    return config.getWindowType() == CircuitBreakerConfig.WindowType.TIME_BASED
+        ? SlidingWindow.ofSeconds(config.getWindowSize())
+        : SlidingWindow.ofCalls(config.getWindowSize());
+  }
+
+  /**
+   * A state together with the time it was entered, the window of the calls made in it and, when
+   * half-open, the number of trial calls let through so far.
+   */
+  private record Phase(State state, long since, SlidingWindow window, AtomicInteger trials) {
+  }
+}
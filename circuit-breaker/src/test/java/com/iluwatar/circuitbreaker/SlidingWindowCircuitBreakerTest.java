@@ -0,0 +1,268 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.circuitbreaker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link SlidingWindowCircuitBreaker}.
+ */
+class SlidingWindowCircuitBreakerTest {
+
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final AtomicLong clock = new AtomicLong();
+  private final AtomicBoolean down = new AtomicBoolean();
+  private final RemoteService service = () -> {
+    if (down.get()) {
+      throw new RemoteServiceException("Service is down");
+    }
+    return "Service is working";
+  };
+
+  @Test
+  void testOpensOnFailureRate() throws RemoteServiceException {
+    var config = CircuitBreakerConfig.builder().windowSize(10).minimumCalls(4)
+        .failureRateThreshold(50).build();
+    var circuitBreaker = new SlidingWindowCircuitBreaker(service, config, clock::get);
+    circuitBreaker.attemptRequest();
+    circuitBreaker.attemptRequest();
+    down.set(true);
+    assertThrows(RemoteServiceException.class, circuitBreaker::attemptRequest);
+    assertEquals("CLOSED", circuitBreaker.getState());
+    // the fourth call makes the window big enough, and half of its calls failed
+    assertThrows(RemoteServiceException.class, circuitBreaker::attemptRequest);
+    assertEquals("OPEN", circuitBreaker.getState());
+    assertEquals("Service is down", circuitBreaker.attemptRequest());
+    assertEquals(1, circuitBreaker.getMetrics().notPermittedCalls());
+  }
+
+  @Test
+  void testOpensOnSlowCallRate() throws RemoteServiceException {
+    var config = CircuitBreakerConfig.builder().windowSize(4).minimumCalls(4)
+        .slowCallDuration(SECOND).slowCallRateThreshold(75).build();
+    RemoteService slowService = () -> {
+      clock.addAndGet(2 * SECOND);
+      return "Slow service is working";
+    };
+    var slowCircuitBreaker = new SlidingWindowCircuitBreaker(slowService, config, clock::get);
+    for (var i = 0; i < 3; i++) {
+      slowCircuitBreaker.attemptRequest();
+    }
+    assertEquals("CLOSED", slowCircuitBreaker.getState());
+    slowCircuitBreaker.attemptRequest();
+    var metrics = slowCircuitBreaker.getMetrics();
+    assertEquals(State.OPEN, metrics.state());
+    assertEquals(1, metrics.stateTransitions());
+  }
+
+  @Test
+  void testCountBasedWindowSlides() throws RemoteServiceException {
+    var config = CircuitBreakerConfig.builder().windowSize(4).minimumCalls(4).build();
+    var circuitBreaker = new SlidingWindowCircuitBreaker(service, config, clock::get);
+    down.set(true);
+    assertThrows(RemoteServiceException.class, circuitBreaker::attemptRequest);
+    down.set(false);
+    for (var i = 0; i < 5; i++) {
+      circuitBreaker.attemptRequest();
+    }
+    var metrics = circuitBreaker.getMetrics();
+    assertEquals(4, metrics.bufferedCalls());
+    assertEquals(0, metrics.failedCalls());
+    assertEquals(State.CLOSED, metrics.state());
+  }
+
+  @Test
+  void testTimeBasedWindowForgetsOldCalls() {
+    var config = CircuitBreakerConfig.builder()
+        .windowType(CircuitBreakerConfig.WindowType.TIME_BASED).windowSize(2).minimumCalls(3)
+        .build();
+    var circuitBreaker = new SlidingWindowCircuitBreaker(service, config, clock::get);
+    down.set(true);
+    assertThrows(RemoteServiceException.class, circuitBreaker::attemptRequest);
+    assertThrows(RemoteServiceException.class, circuitBreaker::attemptRequest);
+    assertEquals(2, circuitBreaker.getMetrics().failedCalls());
+    clock.addAndGet(3 * SECOND);
+    assertEquals(0, circuitBreaker.getMetrics().bufferedCalls());
+    assertThrows(RemoteServiceException.class, circuitBreaker::attemptRequest);
+    assertEquals("CLOSED", circuitBreaker.getState());
+    clock.addAndGet(SECOND);
+    assertThrows(RemoteServiceException.class, circuitBreaker::attemptRequest);
+    assertThrows(RemoteServiceException.class, circuitBreaker::attemptRequest);
+    assertEquals("OPEN", circuitBreaker.getState());
+  }
+
+  @Test
+  void testHalfOpenTrialsDecideTheState() throws RemoteServiceException {
+    var config = CircuitBreakerConfig.builder().windowSize(2).minimumCalls(2)
+        .waitInOpenState(SECOND).permittedCallsInHalfOpenState(2).build();
+    var circuitBreaker = new SlidingWindowCircuitBreaker(service, config, clock::get);
+    circuitBreaker.setState(State.OPEN);
+    clock.addAndGet(SECOND);
+    assertEquals("HALF_OPEN", circuitBreaker.getState());
+    down.set(true);
+    circuitBreaker.recordSuccess();
+    assertThrows(RemoteServiceException.class, circuitBreaker::attemptRequest);
+    assertEquals("OPEN", circuitBreaker.getState());
+    clock.addAndGet(SECOND);
+    down.set(false);
+    circuitBreaker.attemptRequest();
+    assertEquals("HALF_OPEN", circuitBreaker.getState());
+    circuitBreaker.attemptRequest();
+    assertEquals("CLOSED", circuitBreaker.getState());
+  }
+
+  @Test
+  void testUnexpectedErrorFailsHalfOpenTrial() throws RemoteServiceException {
+    var config = CircuitBreakerConfig.builder().waitInOpenState(SECOND)
+        .permittedCallsInHalfOpenState(1).build();
+    RemoteService brokenService = () -> {
+      throw new IllegalStateException("Service is broken");
+    };
+    var circuitBreaker = new SlidingWindowCircuitBreaker(brokenService, config, clock::get);
+    circuitBreaker.setState(State.HALF_OPEN);
+    assertThrows(IllegalStateException.class, circuitBreaker::attemptRequest);
+    assertEquals("OPEN", circuitBreaker.getState());
+    clock.addAndGet(SECOND);
+    assertEquals("HALF_OPEN", circuitBreaker.getState());
+    assertThrows(IllegalStateException.class, circuitBreaker::attemptRequest);
+  }
+
+  @Test
+  void testLimitsConcurrentTrialCalls() throws Exception {
+    var entered = new AtomicInteger();
+    var release = new CountDownLatch(1);
+    RemoteService blockingService = () -> {
+      entered.incrementAndGet();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RemoteServiceException("Interrupted");
+      }
+      return "Blocking service is working";
+    };
+    var config = CircuitBreakerConfig.builder().permittedCallsInHalfOpenState(2).build();
+    var circuitBreaker = new SlidingWindowCircuitBreaker(blockingService, config);
+    circuitBreaker.setState(State.HALF_OPEN);
+    var executor = Executors.newFixedThreadPool(5);
+    try {
+      var calls = new ArrayList<Future<String>>();
+      for (var i = 0; i < 5; i++) {
+        calls.add(executor.submit(circuitBreaker::attemptRequest));
+      }
+      var deadline = System.nanoTime() + 5 * SECOND;
+      while (calls.stream().filter(Future::isDone).count() < 3 && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(3, calls.stream().filter(Future::isDone).count());
+      for (var call : calls) {
+        if (call.isDone()) {
+          assertNull(call.get());
+        }
+      }
+      assertEquals(2, entered.get());
+      assertEquals(3, circuitBreaker.getMetrics().notPermittedCalls());
+      release.countDown();
+      for (var call : calls) {
+        call.get(5, TimeUnit.SECONDS);
+      }
+      assertEquals("CLOSED", circuitBreaker.getState());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void testManyThreadsAgainstDelayedService() throws Exception {
+    var delayedService = new DelayedRemoteService(System.nanoTime(), 1);
+    var forwarded = new AtomicInteger();
+    var failed = new AtomicInteger();
+    RemoteService countingService = () -> {
+      forwarded.incrementAndGet();
+      try {
+        return delayedService.call();
+      } catch (RemoteServiceException e) {
+        failed.incrementAndGet();
+        throw e;
+      }
+    };
+    var config = CircuitBreakerConfig.builder().windowSize(20).minimumCalls(10)
+        .waitInOpenState(TimeUnit.MILLISECONDS.toNanos(100)).permittedCallsInHalfOpenState(4)
+        .slowCallDuration(10 * SECOND).build();
+    var circuitBreaker = new SlidingWindowCircuitBreaker(countingService, config);
+    var threads = 8;
+    var errors = new ConcurrentLinkedQueue<Throwable>();
+    var attempts = new AtomicInteger();
+    var end = System.nanoTime() + 2500 * TimeUnit.MILLISECONDS.toNanos(1);
+    var executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> workers = new ArrayList<>();
+      for (var i = 0; i < threads; i++) {
+        workers.add(executor.submit(() -> {
+          while (System.nanoTime() < end) {
+            attempts.incrementAndGet();
+            try {
+              circuitBreaker.attemptRequest();
+            } catch (RemoteServiceException e) {
+              // expected while the service is down
+            } catch (RuntimeException e) {
+              errors.add(e);
+            }
+          }
+        }));
+      }
+      for (var worker : workers) {
+        worker.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    var metrics = circuitBreaker.getMetrics();
+    assertTrue(errors.isEmpty(), () -> "Unexpected errors " + errors);
+    assertEquals(State.CLOSED, metrics.state());
+    assertTrue(metrics.notPermittedCalls() > 0);
+    assertEquals(attempts.get(), forwarded.get() + metrics.notPermittedCalls());
+    // the window opens the circuit, and every half-open period lets only a few trials through
+    assertTrue(failed.get() <= 100, () -> failed.get() + " calls reached the service while down");
+    assertTrue(metrics.bufferedCalls() <= 20);
+    assertTrue(metrics.failureRate() < 50);
+  }
+}
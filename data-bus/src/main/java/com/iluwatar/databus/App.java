@@ -47,7 +47,8 @@ import java.time.LocalDateTime;
  *     <p>Members may unsubscribe from the Data-Bus to stop receiving data.</p>
  *     <p>This example of the pattern implements a Synchronous Data-Bus, meaning that
  *     when data is published to the Data-Bus, the publish method will not return until all members
- *     have received the data and returned.</p>
+ *     have received the data and returned. Members which subscribe asynchronously receive the data
+ *     from a queue of their own instead.</p>
  *     <p>The {@link DataBus} class is a Singleton.</p>
  *     <p>Members of the Data-Bus must implement the {@link Member} interface.</p>
  *     <p>Data to be published via the Data-Bus must implement the {@link DataType} interface.</p>
@@ -64,10 +65,10 @@ class App {
     bus.subscribe(new StatusMember(2));
     final var foo = new MessageCollectorMember("Foo");
     final var bar = new MessageCollectorMember("Bar");
-    bus.subscribe(foo);
+    bus.subscribe(MessageData.class, foo);
     bus.publish(StartingData.of(LocalDateTime.now()));
     bus.publish(MessageData.of("Only Foo should see this"));
-    bus.subscribe(bar);
+    bus.subscribe(MessageData.class, bar);
     bus.publish(MessageData.of("Foo and Bar should see this"));
     bus.unsubscribe(foo);
     bus.publish(MessageData.of("Only Bar should see this"));
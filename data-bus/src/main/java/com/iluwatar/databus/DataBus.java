@@ -24,20 +24,67 @@
  */
 package com.iluwatar.databus;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * The Data-Bus implementation.
  *
  * <p>This implementation uses a Singleton.</p>
  *
+ * <p>Members subscribe to a type of data, and only receive data of that type or its subtypes.
+ * The subscriptions are kept in an immutable registry which is copied when a member subscribes or
+ * unsubscribes, so publishing takes no lock, and the members each type of data is routed to are
+ * looked up once and cached in the registry.</p>
+ *
+ * <p>A member receives data on the thread of the publisher, unless it subscribes asynchronously.
+ * Then the data is put in a bounded queue of its own, and handed to it in order on its own
+ * executor, so a slow member does not hold up the publishers.</p>
+ *
+ * <p>A member is subscribed to a type at most once. Subscribing it again to the same type, in
+ * either way, has no effect.</p>
  */
+@Slf4j
 public class DataBus {
 
+  /**
+   * What publishing does when the queue of an asynchronous member is full.
+   */
+  public enum Overflow {
+    /**
+     * Wait until the member has taken data from its queue. A member which publishes data it is
+     * subscribed to itself would wait for itself, so that data is dropped instead when its queue is
+     * full. Members which publish to each other can still wait for each other forever, and should
+     * use {@link #DROP} for one of them.
+     */
+    BLOCK,
+    /**
+     * Drop the data for this member, which is counted by {@link #getDroppedEvents()}.
+     */
+    DROP
+  }
+
   private static final DataBus INSTANCE = new DataBus();
 
-  private final Set<Member> listeners = new HashSet<>();
+  private static final int DRAIN_BATCH = 64;
+
+  private static final AtomicInteger THREADS = new AtomicInteger();
+
+  private volatile Registry registry = new Registry(List.of());
+
+  private final LongAdder dropped = new LongAdder();
 
   public static DataBus getInstance() {
     return INSTANCE;
@@ -49,25 +96,228 @@ public class DataBus {
    * @param member The member to register
    */
   public void subscribe(final Member member) {
-    this.listeners.add(member);
+    subscribe(DataType.class, member);
   }
 
   /**
-   * Deregister a member to stop receiving events.
+   * Register a member with the data-bus to start receiving events of a type.
+   *
+   * @param type   The type of events, which includes its subtypes
+   * @param member The member to register
+   */
+  public void subscribe(final Class<? extends DataType> type, final Member member) {
+    add(new Subscription(type, member));
+  }
+
+  /**
+   * Register a member which receives events of a type on a thread of its own.
+   *
+   * @param type     The type of events, which includes its subtypes
+   * @param member   The member to register
+   * @param capacity The number of events which can wait for the member
+   * @param overflow What to do with events when so many are waiting
+   */
+  public void subscribeAsync(final Class<? extends DataType> type, final Member member,
+      final int capacity, final Overflow overflow) {
+    var executor = Executors.newSingleThreadExecutor(runnable -> {
+      var thread = new Thread(runnable, "databus-member-" + THREADS.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    add(new AsyncSubscription(type, member, capacity, overflow, executor, executor));
+  }
+
+  /**
+   * Register a member which receives events of a type on an executor, one event at a time.
+   *
+   * @param type     The type of events, which includes its subtypes
+   * @param member   The member to register
+   * @param capacity The number of events which can wait for the member
+   * @param overflow What to do with events when so many are waiting
+   * @param executor The executor the member receives the events on
+   */
+  public void subscribeAsync(final Class<? extends DataType> type, final Member member,
+      final int capacity, final Overflow overflow, final Executor executor) {
+    add(new AsyncSubscription(type, member, capacity, overflow, executor, null));
+  }
+
+  /**
+   * Deregister a member to stop receiving events. Events which already wait in the queue of an
+   * asynchronous member are still received, all of them, before the executor created for it shuts
+   * down.
    *
    * @param member The member to deregister
    */
-  public void unsubscribe(final Member member) {
-    this.listeners.remove(member);
+  public synchronized void unsubscribe(final Member member) {
+    var remaining = new ArrayList<Subscription>();
+    for (var subscription : registry.subscriptions()) {
+      if (subscription.member == member) {
+        subscription.close();
+      } else {
+        remaining.add(subscription);
+      }
+    }
+    registry = new Registry(List.copyOf(remaining));
   }
 
   /**
-   * Publish and event to all members.
+   * Publish and event to all members subscribed to its type.
    *
    * @param event The event
    */
   public void publish(final DataType event) {
     event.setDataBus(this);
-    listeners.forEach(listener -> listener.accept(event));
+    for (var subscription : registry.route(event.getClass())) {
+      subscription.deliver(event);
+    }
+  }
+
+  /**
+   * The number of events dropped because the queue of an asynchronous member was full.
+   *
+   * @return the number of dropped events
+   */
+  public long getDroppedEvents() {
+    return dropped.sum();
+  }
+
+  private synchronized void add(Subscription subscription) {
+    for (var existing : registry.subscriptions()) {
+      if (existing.member == subscription.member && existing.type == subscription.type) {
+        //shuts down the executor created for the duplicate, if any
+        subscription.close();
+        return;
+      }
+    }
+    var subscriptions = new ArrayList<>(registry.subscriptions());
+    subscriptions.add(subscription);
+    registry = new Registry(List.copyOf(subscriptions));
+  }
+
+  /**
+   * The subscriptions, and the subscriptions each class of events is routed to.
+   */
+  private record Registry(List<Subscription> subscriptions,
+                          Map<Class<?>, Subscription[]> routes) {
+
+    Registry(List<Subscription> subscriptions) {
+      this(subscriptions, new ConcurrentHashMap<>());
+    }
+
+    Subscription[] route(Class<?> eventClass) {
+      var route = routes.get(eventClass);
+      if (route == null) {
+        route = subscriptions.stream()
+            .filter(subscription -> subscription.type.isAssignableFrom(eventClass))
+            .toArray(Subscription[]::new);
+        routes.put(eventClass, route);
+      }
+      return route;
+    }
+  }
+
+  private static class Subscription {
+
+    final Class<? extends DataType> type;
+    final Member member;
+
+    Subscription(Class<? extends DataType> type, Member member) {
+      this.type = type;
+      this.member = member;
+    }
+
+    void deliver(DataType event) {
+      member.accept(event);
+    }
+
+    void close() {
+    }
+  }
+
+  /**
+   * A subscription with a queue of events, which are drained in batches by one task at a time.
+   */
+  private class AsyncSubscription extends Subscription {
+
+    private final BlockingQueue<DataType> queue;
+    private final Overflow overflow;
+    private final Executor executor;
+    private final ExecutorService ownExecutor;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean closed;
+    private volatile Thread drainer;
+
+    AsyncSubscription(Class<? extends DataType> type, Member member, int capacity,
+        Overflow overflow, Executor executor, ExecutorService ownExecutor) {
+      super(type, member);
+      this.queue = new ArrayBlockingQueue<>(capacity);
+      this.overflow = overflow;
+      this.executor = executor;
+      this.ownExecutor = ownExecutor;
+    }
+
+    @Override
+    void deliver(DataType event) {
+      if (closed) {
+        //a publisher which read the registry before the member unsubscribed
+        dropped.increment();
+        return;
+      }
+      if (overflow == Overflow.BLOCK && Thread.currentThread() != drainer) {
+        try {
+          queue.put(event);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          dropped.increment();
+          return;
+        }
+      } else if (!queue.offer(event)) {
+        dropped.increment();
+        return;
+      }
+      schedule();
+    }
+
+    @Override
+    void close() {
+      closed = true;
+      //the drain which finds the queue empty shuts the executor down
+      schedule();
+    }
+
+    private void schedule() {
+      if (scheduled.compareAndSet(false, true)) {
+        try {
+          executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+          //the member has unsubscribed
+          dropped.add(queue.size());
+          queue.clear();
+        }
+      }
+    }
+
+    private void drain() {
+      drainer = Thread.currentThread();
+      for (var i = 0; i < DRAIN_BATCH; i++) {
+        var event = queue.poll();
+        if (event == null) {
+          break;
+        }
+        try {
+          member.accept(event);
+        } catch (RuntimeException e) {
+          LOGGER.error("Member {} failed to accept {}", member, event, e);
+        }
+      }
+      drainer = null;
+      scheduled.set(false);
+      //data put in the queue after the last poll did not schedule, as this was still running
+      if (!queue.isEmpty()) {
+        schedule();
+      } else if (closed && ownExecutor != null) {
+        ownExecutor.shutdown();
+      }
+    }
   }
 }
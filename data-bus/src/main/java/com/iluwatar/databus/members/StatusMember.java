@@ -45,9 +45,9 @@ public class StatusMember implements Member {
 
   private final int id;
 
-  private LocalDateTime started;
+  private volatile LocalDateTime started;
 
-  private LocalDateTime stopped;
+  private volatile LocalDateTime stopped;
 
   @Override
   public void accept(final DataType data) {
@@ -0,0 +1,104 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.databus;
+
+import com.iluwatar.databus.data.MessageData;
+import com.iluwatar.databus.data.StartingData;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Events per second published to 1 to 64 members, which receive them on the publishing thread or
+ * asynchronously from queues of their own. Half of the members subscribe to {@link MessageData}
+ * and half to {@link StartingData}, so every event is routed to half of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataBusBenchmark {
+
+  @Param({"1", "4", "16", "64"})
+  private int members;
+
+  @Param({"sync", "async"})
+  private String delivery;
+
+  private DataBus dataBus;
+  private final List<Member> subscribed = new ArrayList<>();
+  private final LongAdder received = new LongAdder();
+  private final MessageData message = new MessageData("message");
+
+  /**
+   * Subscribe the members.
+   */
+  @Setup
+  public void setUp() {
+    dataBus = new DataBus();
+    for (var i = 0; i < members; i++) {
+      Member member = event -> received.increment();
+      var type = i % 2 == 0 ? MessageData.class : StartingData.class;
+      if (delivery.equals("sync")) {
+        dataBus.subscribe(type, member);
+      } else {
+        dataBus.subscribeAsync(type, member, 1024, DataBus.Overflow.BLOCK);
+      }
+      subscribed.add(member);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    subscribed.forEach(dataBus::unsubscribe);
+  }
+
+  @Benchmark
+  public void publish() {
+    dataBus.publish(message);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(DataBusBenchmark.class.getSimpleName()).build()).run();
+  }
+}
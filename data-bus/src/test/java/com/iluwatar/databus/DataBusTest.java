@@ -24,9 +24,21 @@
  */
 package com.iluwatar.databus;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.BDDMockito.then;
 import static org.mockito.Mockito.never;
 
+import com.iluwatar.databus.data.MessageData;
+import com.iluwatar.databus.data.StartingData;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -72,4 +84,170 @@ class DataBusTest {
     then(member).should(never()).accept(event);
   }
 
+  @Test
+  void publishedEventIsRoutedByType() {
+    //given
+    final var dataBus = new DataBus();
+    dataBus.subscribe(MessageData.class, member);
+    final var message = MessageData.of("message");
+    final var starting = StartingData.of(LocalDateTime.now());
+    //when
+    dataBus.publish(message);
+    dataBus.publish(starting);
+    //then
+    then(member).should().accept(message);
+    then(member).should(never()).accept(starting);
+  }
+
+  @Test
+  void memberSubscribedTwiceToATypeReceivesEventsOnce() {
+    //given
+    final var dataBus = new DataBus();
+    final var received = new AtomicInteger();
+    final Member counting = event -> received.incrementAndGet();
+    dataBus.subscribeAsync(MessageData.class, counting, 10, DataBus.Overflow.BLOCK, Runnable::run);
+    dataBus.subscribeAsync(MessageData.class, counting, 10, DataBus.Overflow.BLOCK, Runnable::run);
+    dataBus.subscribe(MessageData.class, counting);
+    dataBus.subscribe(counting);
+    //when
+    dataBus.publish(MessageData.of("message"));
+    //then, once for each of the two types
+    assertEquals(2, received.get());
+  }
+
+  @Test
+  void asyncMemberReceivesEventsInOrderOnItsOwnThread() throws InterruptedException {
+    //given
+    final var dataBus = new DataBus();
+    final var messages = new CopyOnWriteArrayList<String>();
+    final var threads = new CopyOnWriteArrayList<Thread>();
+    final var received = new CountDownLatch(100);
+    dataBus.subscribeAsync(MessageData.class, event -> {
+      messages.add(((MessageData) event).getMessage());
+      threads.add(Thread.currentThread());
+      received.countDown();
+    }, 16, DataBus.Overflow.BLOCK);
+    //when
+    final var expected = new ArrayList<String>();
+    for (var i = 0; i < 100; i++) {
+      expected.add("message " + i);
+      dataBus.publish(MessageData.of("message " + i));
+    }
+    //then
+    assertTrue(received.await(10, TimeUnit.SECONDS));
+    assertEquals(expected, messages);
+    assertNotEquals(Thread.currentThread(), threads.get(0));
+    assertEquals(0, dataBus.getDroppedEvents());
+  }
+
+  @Test
+  void slowAsyncMemberDoesNotStallPublisher() throws InterruptedException {
+    //given
+    final var dataBus = new DataBus();
+    final var entered = new CountDownLatch(1);
+    final var release = new CountDownLatch(1);
+    final var received = new AtomicInteger();
+    dataBus.subscribeAsync(MessageData.class, event -> {
+      entered.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      received.incrementAndGet();
+    }, 8, DataBus.Overflow.DROP);
+    final var fast = new AtomicInteger();
+    dataBus.subscribe(MessageData.class, event -> fast.incrementAndGet());
+    dataBus.publish(MessageData.of("first"));
+    assertTrue(entered.await(10, TimeUnit.SECONDS));
+    //when
+    for (var i = 0; i < 13; i++) {
+      dataBus.publish(MessageData.of("message " + i));
+    }
+    //then
+    assertEquals(14, fast.get());
+    assertEquals(5, dataBus.getDroppedEvents());
+    release.countDown();
+  }
+
+  @Test
+  void unsubscribedAsyncMemberReceivesAllQueuedEvents() throws InterruptedException {
+    //given
+    final var dataBus = new DataBus();
+    final var entered = new CountDownLatch(1);
+    final var release = new CountDownLatch(1);
+    final var received = new CountDownLatch(150);
+    final Member member = event -> {
+      entered.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      received.countDown();
+    };
+    dataBus.subscribeAsync(MessageData.class, member, 200, DataBus.Overflow.BLOCK);
+    for (var i = 0; i < 150; i++) {
+      dataBus.publish(MessageData.of("message " + i));
+    }
+    assertTrue(entered.await(10, TimeUnit.SECONDS));
+    //when
+    dataBus.unsubscribe(member);
+    release.countDown();
+    //then
+    assertTrue(received.await(10, TimeUnit.SECONDS));
+    assertEquals(0, dataBus.getDroppedEvents());
+  }
+
+  @Test
+  void blockingMemberPublishingToItselfDropsInsteadOfWaiting() throws InterruptedException {
+    //given
+    final var dataBus = new DataBus();
+    final var handled = new CountDownLatch(1);
+    dataBus.subscribeAsync(MessageData.class, event -> {
+      if (((MessageData) event).getMessage().equals("start")) {
+        for (var i = 0; i < 3; i++) {
+          dataBus.publish(MessageData.of("echo " + i));
+        }
+        handled.countDown();
+      }
+    }, 1, DataBus.Overflow.BLOCK);
+    //when
+    dataBus.publish(MessageData.of("start"));
+    //then
+    assertTrue(handled.await(10, TimeUnit.SECONDS));
+    assertEquals(2, dataBus.getDroppedEvents());
+  }
+
+  @Test
+  void membersSubscribeWhileEventsArePublished() throws InterruptedException {
+    //given
+    final var dataBus = new DataBus();
+    final var received = new AtomicInteger();
+    final var publishers = new ArrayList<Thread>();
+    for (var i = 0; i < 4; i++) {
+      publishers.add(new Thread(() -> {
+        for (var j = 0; j < 10_000; j++) {
+          dataBus.publish(MessageData.of("message"));
+        }
+      }));
+    }
+    //when
+    publishers.forEach(Thread::start);
+    final List<Member> members = new ArrayList<>();
+    for (var i = 0; i < 50; i++) {
+      Member counter = event -> received.incrementAndGet();
+      members.add(counter);
+      dataBus.subscribe(counter);
+    }
+    members.forEach(dataBus::unsubscribe);
+    for (var publisher : publishers) {
+      publisher.join();
+    }
+    final var afterUnsubscribing = received.get();
+    dataBus.publish(MessageData.of("message"));
+    //then
+    assertEquals(afterUnsubscribing, received.get());
+  }
+
 }
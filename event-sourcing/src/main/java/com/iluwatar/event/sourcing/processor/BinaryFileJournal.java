@@ -0,0 +1,527 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * This is the implementation of event journal which appends binary records to segment files in a
+ * directory. Every record carries its length and a checksum, so a record which was only partly
+ * written when the system went down is recognized and ignored on recovery. A segment file is named
+ * after the offset, the number of events before it in the journal, of its first record, and a new
+ * one is started when the current one is full.
+ *
+ * <p>Writes of many threads are committed in groups: a writer which finds no write in progress
+ * writes the records of all waiting writers with one system call, and forces them to disk once if
+ * the {@link FsyncPolicy} asks for it, while the others wait for it. Recovery reads the segments
+ * sequentially through memory maps, without copying them.
+ */
+@Slf4j
+public class BinaryFileJournal extends EventJournal implements Closeable {
+
+  /**
+   * When written records are forced to the disk.
+   */
+  public enum FsyncPolicy {
+    /**
+     * Before a write returns. A record which is written survives a crash of the operating system.
+     */
+    ALWAYS,
+    /**
+     * Periodically in the background. A crash of the operating system can lose the records of the
+     * last interval, but a crash of the application cannot.
+     */
+    INTERVAL,
+    /**
+     * When the operating system decides to, and when a segment is full or the journal is closed.
+     */
+    NEVER
+  }
+
+  private static final String SUFFIX = ".journal";
+  private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+  private static final Duration DEFAULT_FSYNC_INTERVAL = Duration.ofMillis(100);
+  private static final int BUFFER_SIZE = 256 * 1024;
+
+  private final Path directory;
+  private final FsyncPolicy fsyncPolicy;
+  private final int segmentSize;
+  private final ScheduledExecutorService syncer;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition written = lock.newCondition();
+  private FileChannel channel;
+  private ByteBuffer pending = ByteBuffer.allocateDirect(BUFFER_SIZE);
+  private ByteBuffer spare = ByteBuffer.allocateDirect(BUFFER_SIZE);
+  private boolean writing;
+  private long appendedBytes;
+  private long writtenBytes;
+  private long writtenOffset;
+  private long segmentBytes;
+  private long nextOffset;
+  private IOException failure;
+
+  private List<Path> readSegments;
+  private int readSegment;
+  private MappedByteBuffer readBuffer;
+
+  /**
+   * Instantiates a journal in a directory, which forces every write to disk.
+   *
+   * @param directory the directory of the segment files
+   */
+  public BinaryFileJournal(Path directory) {
+    this(directory, FsyncPolicy.ALWAYS);
+  }
+
+  /**
+   * Instantiates a journal in a directory.
+   *
+   * @param directory   the directory of the segment files
+   * @param fsyncPolicy when writes are forced to disk
+   */
+  public BinaryFileJournal(Path directory, FsyncPolicy fsyncPolicy) {
+    this(directory, fsyncPolicy, DEFAULT_FSYNC_INTERVAL, DEFAULT_SEGMENT_SIZE);
+  }
+
+  /**
+   * Instantiates a journal in a directory, and continues after the last whole record in it.
+   *
+   * @param directory     the directory of the segment files
+   * @param fsyncPolicy   when writes are forced to disk
+   * @param fsyncInterval time between forces with {@link FsyncPolicy#INTERVAL}
+   * @param segmentSize   size a segment file grows to before a new one is started
+   */
+  public BinaryFileJournal(Path directory, FsyncPolicy fsyncPolicy, Duration fsyncInterval,
+      int segmentSize) {
+    if (segmentSize <= EventCodec.HEADER_SIZE) {
+      throw new IllegalArgumentException("Segment size is too small: " + segmentSize);
+    }
+    this.directory = directory;
+    this.fsyncPolicy = fsyncPolicy;
+    this.segmentSize = segmentSize;
+    file = directory.toFile();
+    try {
+      Files.createDirectories(directory);
+      openForAppend();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+      syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "journal-fsync");
+        thread.setDaemon(true);
+        return thread;
+      });
+      var millis = fsyncInterval.toMillis();
+      syncer.scheduleWithFixedDelay(this::forceQuietly, millis, millis, TimeUnit.MILLISECONDS);
+    } else {
+      syncer = null;
+    }
+  }
+
+  /**
+   * Write. The event is in the journal when this returns, and on disk if the fsync policy is
+   * {@link FsyncPolicy#ALWAYS}.
+   *
+   * @param domainEvent the domain event
+   */
+  @Override
+  public void write(DomainEvent domainEvent) {
+    var record = EventCodec.encode(domainEvent);
+    lock.lock();
+    try {
+      append(record);
+      awaitWritten(appendedBytes);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Read the next domain event, mapping one segment file after the other into memory.
+   *
+   * @return the domain event, or null at the end of the journal
+   */
+  @Override
+  public DomainEvent readNext() {
+    try {
+      if (readSegments == null) {
+        readSegments = listSegments();
+        readSegment = -1;
+      }
+      while (true) {
+        if (readBuffer != null) {
+          var body = nextRecord(readBuffer, readSegment == readSegments.size() - 1);
+          if (body != null) {
+            return EventCodec.decode(body);
+          }
+        }
+        if (readSegment + 1 >= readSegments.size()) {
+          return null;
+        }
+        readSegment++;
+        readBuffer = map(readSegments.get(readSegment));
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Skip the events before an offset, by mapping the segment which holds it and skipping records
+   * in it without decoding them.
+   *
+   * @param offset the number of events to skip
+   * @return the offset reached
+   */
+  @Override
+  long seek(long offset) {
+    try {
+      readSegments = listSegments();
+      readSegment = -1;
+      readBuffer = null;
+      for (var i = 0; i < readSegments.size() && baseOffset(readSegments.get(i)) <= offset; i++) {
+        readSegment = i;
+      }
+      if (readSegment < 0) {
+        return 0;
+      }
+      readBuffer = map(readSegments.get(readSegment));
+      var last = readSegment == readSegments.size() - 1;
+      var skip = offset - baseOffset(readSegments.get(readSegment));
+      while (skip > 0 && nextRecord(readBuffer, last) != null) {
+        skip--;
+      }
+      return offset - skip;
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Delete all segment files, and start the journal anew. Events which writers appended before
+   * the reset are written first, so their writes return and the reset deletes them, rather than
+   * ending up at the start of the new journal.
+   */
+  @Override
+  void reset() {
+    lock.lock();
+    try {
+      while (writtenBytes < appendedBytes) {
+        awaitWritten(appendedBytes);
+      }
+      awaitIdle();
+      channel.close();
+      for (var segment : listSegments()) {
+        Files.delete(segment);
+      }
+      readSegments = null;
+      readBuffer = null;
+      openForAppend();
+      LOGGER.info("Journal cleared successfully............");
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Force the events written so far to disk, whatever the fsync policy.
+   *
+   * @return the number of events on disk
+   */
+  @Override
+  long force() {
+    FileChannel target;
+    long end;
+    lock.lock();
+    try {
+      if (failure != null) {
+        throw new IOException("Journal failed to write earlier", failure);
+      }
+      target = channel;
+      end = writtenOffset;
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    } finally {
+      lock.unlock();
+    }
+    try {
+      target.force(false);
+    } catch (ClosedChannelException e) {
+      //the segment was forced when it was closed
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return end;
+  }
+
+  /**
+   * The offset the next event written will have, which is the number of events in the journal.
+   *
+   * @return the offset of the next event
+   */
+  public long getNextOffset() {
+    lock.lock();
+    try {
+      return nextOffset;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Force all written events to disk and close the segment file.
+   */
+  @Override
+  public void close() {
+    if (syncer != null) {
+      syncer.shutdown();
+    }
+    lock.lock();
+    try {
+      awaitIdle();
+      if (channel.isOpen()) {
+        channel.force(false);
+        channel.close();
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void append(ByteBuffer record) throws IOException {
+    if (failure != null) {
+      throw new IOException("Journal failed to write earlier", failure);
+    }
+    var size = record.remaining();
+    if (segmentBytes > 0 && segmentBytes + size > segmentSize) {
+      roll();
+    }
+    if (pending.remaining() < size) {
+      var larger = ByteBuffer.allocateDirect(Math.max(2 * pending.capacity(),
+          pending.position() + size));
+      pending.flip();
+      pending = larger.put(pending);
+    }
+    pending.put(record);
+    appendedBytes += size;
+    segmentBytes += size;
+    nextOffset++;
+  }
+
+  //the writer which finds no write in progress writes what all writers have appended so far
+
+  private void awaitWritten(long end) throws IOException {
+    while (writtenBytes < end) {
+      if (failure != null) {
+        throw new IOException("Journal failed to write", failure);
+      }
+      if (writing) {
+        written.awaitUninterruptibly();
+        continue;
+      }
+      writing = true;
+      var batch = pending;
+      var batchEnd = appendedBytes;
+      var batchOffset = nextOffset;
+      var target = channel;
+      pending = spare;
+      spare = null;
+      lock.unlock();
+      try {
+        writeFully(target, batch);
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+          target.force(false);
+        }
+      } catch (IOException e) {
+        failure = e;
+      } finally {
+        lock.lock();
+        spare = batch.clear();
+        writing = false;
+        if (failure == null) {
+          writtenBytes = batchEnd;
+          writtenOffset = batchOffset;
+        }
+        written.signalAll();
+      }
+    }
+  }
+
+  private void awaitIdle() {
+    while (writing) {
+      written.awaitUninterruptibly();
+    }
+  }
+
+  private void roll() throws IOException {
+    awaitIdle();
+    writeFully(channel, pending);
+    pending.clear();
+    writtenBytes = appendedBytes;
+    writtenOffset = nextOffset;
+    channel.force(false);
+    channel.close();
+    channel = FileChannel.open(segmentPath(nextOffset), StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.WRITE);
+    segmentBytes = 0;
+  }
+
+  private void forceQuietly() {
+    FileChannel target;
+    lock.lock();
+    try {
+      target = channel;
+    } finally {
+      lock.unlock();
+    }
+    try {
+      target.force(false);
+    } catch (ClosedChannelException e) {
+      //the segment was forced when it was closed
+    } catch (IOException e) {
+      LOGGER.error("Failed to force the journal to disk", e);
+    }
+  }
+
+  private void openForAppend() throws IOException {
+    var segments = listSegments();
+    if (segments.isEmpty()) {
+      nextOffset = 0;
+      writtenOffset = 0;
+      segmentBytes = 0;
+      channel = FileChannel.open(segmentPath(0), StandardOpenOption.CREATE_NEW,
+          StandardOpenOption.WRITE);
+      return;
+    }
+    var last = segments.get(segments.size() - 1);
+    var buffer = map(last);
+    var records = 0L;
+    while (nextRecord(buffer, true) != null) {
+      records++;
+    }
+    nextOffset = baseOffset(last) + records;
+    writtenOffset = nextOffset;
+    segmentBytes = buffer.position();
+    channel = FileChannel.open(last, StandardOpenOption.WRITE);
+    if (channel.size() > segmentBytes) {
+      LOGGER.warn("Dropping {} bytes of a torn record at the end of {}",
+          channel.size() - segmentBytes, last);
+      channel.truncate(segmentBytes);
+    }
+    channel.position(segmentBytes);
+  }
+
+  /**
+   * Read the body of the next record.
+   *
+   * @param buffer the segment, positioned at the record
+   * @param last   whether this is the last segment, where the end of the journal may be torn
+   * @return the body, or null at the end of the segment
+   */
+  private static ByteBuffer nextRecord(ByteBuffer buffer, boolean last) {
+    var start = buffer.position();
+    if (buffer.remaining() < EventCodec.HEADER_SIZE) {
+      return torn(buffer, start, last);
+    }
+    var length = buffer.getInt(start);
+    var checksum = buffer.getInt(start + Integer.BYTES);
+    var bodyStart = start + EventCodec.HEADER_SIZE;
+    if (length <= 0 || length > buffer.limit() - bodyStart) {
+      return torn(buffer, start, last);
+    }
+    var body = buffer.slice(bodyStart, length);
+    if (!EventCodec.verify(body, checksum)) {
+      return torn(buffer, start, last);
+    }
+    buffer.position(bodyStart + length);
+    return body;
+  }
+
+  private static ByteBuffer torn(ByteBuffer buffer, int start, boolean last) {
+    if (start < buffer.limit() && !last) {
+      throw new RuntimeException("Corrupt journal record at byte " + start);
+    }
+    buffer.position(start);
+    return null;
+  }
+
+  private static void writeFully(FileChannel target, ByteBuffer batch) throws IOException {
+    batch.flip();
+    while (batch.hasRemaining()) {
+      target.write(batch);
+    }
+  }
+
+  private static MappedByteBuffer map(Path segment) throws IOException {
+    try (var segmentChannel = FileChannel.open(segment, StandardOpenOption.READ)) {
+      return segmentChannel.map(FileChannel.MapMode.READ_ONLY, 0, segmentChannel.size());
+    }
+  }
+
+  private List<Path> listSegments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return new ArrayList<>(files
+          .filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+          .sorted()
+          .toList());
+    }
+  }
+
+  private Path segmentPath(long offset) {
+    return directory.resolve(String.format("%020d%s", offset, SUFFIX));
+  }
+
+  private static long baseOffset(Path segment) {
+    var name = segment.getFileName().toString();
+    return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+  }
+}
@@ -24,46 +24,295 @@
  */
 package com.iluwatar.event.sourcing.processor;
 
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
 import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import com.iluwatar.event.sourcing.state.AccountSnapshot;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * This is the implementation of event processor. All events are processed by this class. This
  * processor uses eventJournal to persist and recover events.
  *
+ * <p>With a {@link SnapshotStore}, the processor copies the state of the accounts after every
+ * interval of events and saves the copy in the background, together with the offset of the journal
+ * it covers. Recovery then loads the latest snapshot and replays only the events after it, so the
+ * time it takes depends on the snapshot interval rather than on the length of the journal.
+ *
+ * <p>Events of different accounts are independent, so they can be replayed in parallel, as long as
+ * the events of every account are replayed in journal order. Parallel recovery partitions the
+ * events by account, and a transfer between accounts of two partitions waits for the events before
+ * it in both partitions, which wait for it in turn, so the result is the same as sequential replay.
+ *
  * <p>Created by Serdar Hamzaogullari on 06.08.2017.
  */
+@Slf4j
 public class DomainEventProcessor {
 
+  private static final int BATCH_SIZE = 256;
+
   private final EventJournal eventJournal;
+  private final SnapshotStore snapshotStore;
+  private final int snapshotInterval;
+  private final ExecutorService snapshotter;
+  private CompletableFuture<Void> snapshotting = CompletableFuture.completedFuture(null);
+  private long offset;
+  private long snapshotOffset;
 
+  /**
+   * Instantiates a processor without snapshots.
+   *
+   * @param eventJournal the event journal
+   */
   public DomainEventProcessor(EventJournal eventJournal) {
     this.eventJournal = eventJournal;
+    this.snapshotStore = null;
+    this.snapshotInterval = 0;
+    this.snapshotter = null;
+  }
+
+  /**
+   * Instantiates a processor which snapshots the accounts.
+   *
+   * @param eventJournal     the event journal
+   * @param snapshotStore    the store of the snapshots
+   * @param snapshotInterval the number of events between snapshots
+   */
+  public DomainEventProcessor(EventJournal eventJournal, SnapshotStore snapshotStore,
+      int snapshotInterval) {
+    if (snapshotInterval < 1) {
+      throw new IllegalArgumentException("Snapshot interval must be positive: " + snapshotInterval);
+    }
+    this.eventJournal = eventJournal;
+    this.snapshotStore = snapshotStore;
+    this.snapshotInterval = snapshotInterval;
+    this.snapshotter = Executors.newSingleThreadExecutor(runnable -> {
+      var thread = new Thread(runnable, "snapshotter");
+      thread.setDaemon(true);
+      return thread;
+    });
   }
 
   /**
-   * Process.
+   * Process. The journal offset starts after the events which were recovered, or at zero after a
+   * reset.
    *
    * @param domainEvent the domain event
    */
   public void process(DomainEvent domainEvent) {
     domainEvent.process();
     eventJournal.write(domainEvent);
+    offset++;
+    if (snapshotStore != null && offset - snapshotOffset >= snapshotInterval
+        && snapshotting.isDone()) {
+      snapshot();
+    }
   }
 
   /**
    * Reset.
    */
   public void reset() {
+    snapshotting.join();
     eventJournal.reset();
+    if (snapshotStore != null) {
+      snapshotStore.clear();
+    }
+    offset = 0;
+    snapshotOffset = 0;
   }
 
   /**
    * Recover.
    */
   public void recover() {
+    restoreSnapshot();
     DomainEvent domainEvent;
     while ((domainEvent = eventJournal.readNext()) != null) {
       domainEvent.process();
+      offset++;
+    }
+  }
+
+  /**
+   * Recover, replaying the events of different accounts in parallel.
+   *
+   * @param executor   the executor which replays the partitions
+   * @param partitions the number of partitions the accounts are split into
+   */
+  public void recover(Executor executor, int partitions) {
+    if (partitions < 1) {
+      throw new IllegalArgumentException("Partitions must be positive: " + partitions);
+    }
+    restoreSnapshot();
+    var replay = new PartitionedReplay(executor, partitions);
+    DomainEvent domainEvent;
+    while ((domainEvent = eventJournal.readNext()) != null) {
+      replay.add(domainEvent);
+      offset++;
+    }
+    replay.finish();
+  }
+
+  private void restoreSnapshot() {
+    if (snapshotStore != null) {
+      snapshotStore.loadLatest().ifPresent(snapshot -> {
+        var end = eventJournal.seek(snapshot.offset());
+        if (end < snapshot.offset()) {
+          //the journal lost events the snapshot covers, so the snapshot is ahead of it
+          LOGGER.warn("Ignoring the snapshot at offset {} beyond the end of the journal at {}",
+              snapshot.offset(), end);
+          eventJournal.seek(0);
+          return;
+        }
+        AccountAggregate.restore(snapshot.accounts());
+        offset = snapshot.offset();
+        snapshotOffset = snapshot.offset();
+        LOGGER.info("Restored the snapshot at offset {}", snapshot.offset());
+      });
+    }
+  }
+
+  /**
+   * Copy the state of the accounts now, and save it in the background once the journal has forced
+   * the events it covers to disk. A snapshot is never ahead of the journal after a crash.
+   *
+   * @return a future completed when the snapshot is saved
+   */
+  public CompletableFuture<Void> snapshot() {
+    if (snapshotStore == null) {
+      throw new IllegalStateException("There is no snapshot store");
+    }
+    var snapshot = new AccountSnapshot(offset, AccountAggregate.snapshot());
+    snapshotOffset = offset;
+    snapshotting = CompletableFuture.runAsync(() -> {
+      var durable = eventJournal.force();
+      if (durable < snapshot.offset()) {
+        throw new IllegalStateException("The journal has only " + durable + " events on disk");
+      }
+      snapshotStore.save(snapshot);
+    }, snapshotter)
+        .exceptionally(e -> {
+          LOGGER.error("Failed to save the snapshot at offset {}", snapshot.offset(), e);
+          return null;
+        });
+    return snapshotting;
+  }
+
+  /**
+   * The snapshot which is being saved, or was saved last.
+   *
+   * @return a future completed when the snapshot is saved
+   */
+  public CompletableFuture<Void> getSnapshotting() {
+    return snapshotting;
+  }
+
+  /**
+   * The offset of the journal the next event is written at.
+   *
+   * @return the number of events processed since the journal started
+   */
+  public long getOffset() {
+    return offset;
+  }
+
+  /**
+   * Events in batches per partition, where each batch is replayed after the one before it in its
+   * partition. An event of accounts in several partitions is a barrier between those partitions.
+   */
+  private static class PartitionedReplay {
+
+    private final Executor executor;
+    private final List<List<DomainEvent>> batches = new ArrayList<>();
+    private final List<CompletableFuture<Void>> tails = new ArrayList<>();
+
+    PartitionedReplay(Executor executor, int partitions) {
+      this.executor = executor;
+      for (var i = 0; i < partitions; i++) {
+        batches.add(new ArrayList<>(BATCH_SIZE));
+        tails.add(CompletableFuture.completedFuture(null));
+      }
+    }
+
+    void add(DomainEvent domainEvent) {
+      if (domainEvent instanceof AccountCreateEvent event) {
+        append(partition(event.getAccountNo()), domainEvent);
+      } else if (domainEvent instanceof MoneyDepositEvent event) {
+        append(partition(event.getAccountNo()), domainEvent);
+      } else if (domainEvent instanceof MoneyTransferEvent event
+          && partition(event.getAccountNoFrom()) == partition(event.getAccountNoTo())) {
+        append(partition(event.getAccountNoFrom()), domainEvent);
+      } else if (domainEvent instanceof MoneyTransferEvent event) {
+        barrier(domainEvent, partition(event.getAccountNoFrom()), partition(event.getAccountNoTo()));
+      } else {
+        //the accounts of other events are unknown, so they wait for all partitions
+        var all = new int[batches.size()];
+        for (var i = 0; i < all.length; i++) {
+          all[i] = i;
+        }
+        barrier(domainEvent, all);
+      }
+    }
+
+    void finish() {
+      for (var i = 0; i < batches.size(); i++) {
+        flush(i);
+      }
+      try {
+        CompletableFuture.allOf(tails.toArray(CompletableFuture[]::new)).join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException cause) {
+          throw cause;
+        }
+        throw e;
+      }
+    }
+
+    private void append(int partition, DomainEvent domainEvent) {
+      var batch = batches.get(partition);
+      batch.add(domainEvent);
+      if (batch.size() == BATCH_SIZE) {
+        flush(partition);
+      }
+    }
+
+    private void barrier(DomainEvent domainEvent, int... partitions) {
+      var before = new CompletableFuture<?>[partitions.length];
+      for (var i = 0; i < partitions.length; i++) {
+        flush(partitions[i]);
+        before[i] = tails.get(partitions[i]);
+      }
+      var after = CompletableFuture.allOf(before).thenRunAsync(domainEvent::process, executor);
+      for (var partition : partitions) {
+        tails.set(partition, after);
+      }
+    }
+
+    private void flush(int partition) {
+      var batch = batches.get(partition);
+      if (batch.isEmpty()) {
+        return;
+      }
+      batches.set(partition, new ArrayList<>(BATCH_SIZE));
+      tails.set(partition, tails.get(partition).thenRunAsync(() -> {
+        for (var domainEvent : batch) {
+          domainEvent.process();
+        }
+      }, executor));
+    }
+
+    private int partition(int accountNo) {
+      return Math.floorMod(accountNo, batches.size());
     }
   }
 }
@@ -0,0 +1,160 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary records of the domain events. A record is the length of its body, the CRC-32C checksum of
+ * its body and the body, which is the type of the event followed by its fields.
+ */
+final class EventCodec {
+
+  /**
+   * Size of the length and the checksum in front of the body.
+   */
+  static final int HEADER_SIZE = 8;
+
+  private static final byte ACCOUNT_CREATE = 1;
+  private static final byte MONEY_DEPOSIT = 2;
+  private static final byte MONEY_TRANSFER = 3;
+
+  private EventCodec() {
+  }
+
+  /**
+   * Encode an event into a record.
+   *
+   * @param domainEvent the domain event
+   * @return the record, ready to be written
+   */
+  static ByteBuffer encode(DomainEvent domainEvent) {
+    var bodySize = 1 + Long.BYTES + Long.BYTES;
+    byte[] owner = null;
+    byte[] money = null;
+    if (domainEvent instanceof AccountCreateEvent event) {
+      owner = event.getOwner().getBytes(StandardCharsets.UTF_8);
+      bodySize += Integer.BYTES + Integer.BYTES + owner.length;
+    } else if (domainEvent instanceof MoneyDepositEvent event) {
+      money = event.getMoney().unscaledValue().toByteArray();
+      bodySize += Integer.BYTES + 2 * Integer.BYTES + money.length;
+    } else if (domainEvent instanceof MoneyTransferEvent event) {
+      money = event.getMoney().unscaledValue().toByteArray();
+      bodySize += 2 * Integer.BYTES + 2 * Integer.BYTES + money.length;
+    } else {
+      throw new RuntimeException("Journal Event not recognized");
+    }
+
+    var record = ByteBuffer.allocate(HEADER_SIZE + bodySize);
+    record.putInt(bodySize).putInt(0);
+    if (domainEvent instanceof AccountCreateEvent event) {
+      putHeader(record, ACCOUNT_CREATE, domainEvent);
+      record.putInt(event.getAccountNo()).putInt(owner.length).put(owner);
+    } else if (domainEvent instanceof MoneyDepositEvent event) {
+      putHeader(record, MONEY_DEPOSIT, domainEvent);
+      record.putInt(event.getAccountNo());
+      putMoney(record, event.getMoney().scale(), money);
+    } else if (domainEvent instanceof MoneyTransferEvent event) {
+      putHeader(record, MONEY_TRANSFER, domainEvent);
+      record.putInt(event.getAccountNoFrom()).putInt(event.getAccountNoTo());
+      putMoney(record, event.getMoney().scale(), money);
+    }
+
+    var crc = new CRC32C();
+    crc.update(record.array(), HEADER_SIZE, bodySize);
+    record.putInt(Integer.BYTES, (int) crc.getValue());
+    return record.flip();
+  }
+
+  /**
+   * Check the checksum of a body.
+   *
+   * @param body     the body, between its position and limit
+   * @param checksum checksum from the header of the record
+   * @return {@code true} if the body matches the checksum
+   */
+  static boolean verify(ByteBuffer body, int checksum) {
+    var crc = new CRC32C();
+    crc.update(body.duplicate());
+    return (int) crc.getValue() == checksum;
+  }
+
+  /**
+   * Decode the body of a record.
+   *
+   * @param body the body, between its position and limit
+   * @return the domain event, which is not processed in real time
+   */
+  static DomainEvent decode(ByteBuffer body) {
+    var type = body.get();
+    var sequenceId = body.getLong();
+    var createdTime = body.getLong();
+    DomainEvent domainEvent = switch (type) {
+      case ACCOUNT_CREATE -> {
+        var accountNo = body.getInt();
+        var owner = new byte[body.getInt()];
+        body.get(owner);
+        yield new AccountCreateEvent(sequenceId, createdTime, accountNo,
+            new String(owner, StandardCharsets.UTF_8));
+      }
+      case MONEY_DEPOSIT -> {
+        var accountNo = body.getInt();
+        yield new MoneyDepositEvent(sequenceId, createdTime, accountNo, getMoney(body));
+      }
+      case MONEY_TRANSFER -> {
+        var accountNoFrom = body.getInt();
+        var accountNoTo = body.getInt();
+        yield new MoneyTransferEvent(sequenceId, createdTime, getMoney(body), accountNoFrom,
+            accountNoTo);
+      }
+      default -> throw new RuntimeException("Journal Event not recognized");
+    };
+    domainEvent.setRealTime(false);
+    return domainEvent;
+  }
+
+  private static void putHeader(ByteBuffer record, byte type, DomainEvent domainEvent) {
+    record.put(type).putLong(domainEvent.getSequenceId()).putLong(domainEvent.getCreatedTime());
+  }
+
+  private static void putMoney(ByteBuffer record, int scale, byte[] unscaled) {
+    record.putInt(scale).putInt(unscaled.length).put(unscaled);
+  }
+
+  private static BigDecimal getMoney(ByteBuffer body) {
+    var scale = body.getInt();
+    var unscaled = new byte[body.getInt()];
+    body.get(unscaled);
+    return new BigDecimal(new BigInteger(unscaled), scale);
+  }
+}
@@ -52,6 +52,27 @@ public abstract class EventJournal {
     }
   }
 
+  /**
+   * Force the events written so far to disk.
+   *
+   * @return the number of events on disk, which a snapshot may cover
+   */
+  abstract long force();
+
+  /**
+   * Skip the events before an offset, so that the next event read is the one at the offset.
+   *
+   * @param offset the number of events to skip
+   * @return the offset reached, which is less than the one asked for past the end of the journal
+   */
+  long seek(long offset) {
+    var skipped = 0L;
+    while (skipped < offset && readNext() != null) {
+      skipped++;
+    }
+    return skipped;
+  }
+
   /**
    * Read domain event.
    *
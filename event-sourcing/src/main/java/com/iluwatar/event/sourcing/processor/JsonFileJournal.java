@@ -38,7 +38,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -52,6 +54,7 @@ public class JsonFileJournal extends EventJournal {
 
   private final List<String> events = new ArrayList<>();
   private int index = 0;
+  private long written;
 
   /**
    * Instantiates a new Json file journal.
@@ -68,6 +71,7 @@ public class JsonFileJournal extends EventJournal {
       } catch (IOException e) {
         throw new RuntimeException(e);
       }
+      written = events.size();
     } else {
       reset();
     }
@@ -89,6 +93,46 @@ public class JsonFileJournal extends EventJournal {
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
+    written++;
+  }
+
+  /**
+   * Reset.
+   */
+  @Override
+  void reset() {
+    super.reset();
+    events.clear();
+    index = 0;
+    written = 0;
+  }
+
+  /**
+   * Force the file to disk.
+   *
+   * @return the number of events written to the file
+   */
+  @Override
+  long force() {
+    try (var channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE)) {
+      channel.force(false);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return written;
+  }
+
+  /**
+   * Skip the events before an offset.
+   *
+   * @param offset the number of events to skip
+   * @return the offset reached
+   */
+  @Override
+  long seek(long offset) {
+    index = (int) Math.min(offset, events.size());
+    return index;
   }
 
 
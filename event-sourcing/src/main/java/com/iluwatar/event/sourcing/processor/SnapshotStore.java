@@ -0,0 +1,196 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.domain.Account;
+import com.iluwatar.event.sourcing.state.AccountSnapshot;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Saves snapshots of the accounts to files in a directory, named after the journal offset they
+ * cover. A snapshot is written to a temporary file first and renamed when it is complete, and it
+ * ends with a checksum, so a snapshot which is damaged is skipped in favour of the one before it.
+ */
+@Slf4j
+public class SnapshotStore {
+
+  private static final int MAGIC = 0x534e4150;
+  private static final String PREFIX = "snapshot-";
+  private static final String SUFFIX = ".bin";
+  private static final int RETAINED = 2;
+
+  private final Path directory;
+
+  /**
+   * Instantiates a snapshot store in a directory.
+   *
+   * @param directory the directory of the snapshot files
+   */
+  public SnapshotStore(Path directory) {
+    this.directory = directory;
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Save a snapshot, and delete all but the latest ones.
+   *
+   * @param snapshot the snapshot
+   */
+  public void save(AccountSnapshot snapshot) {
+    var target = directory.resolve(String.format("%s%020d%s", PREFIX, snapshot.offset(), SUFFIX));
+    var temporary = directory.resolve(target.getFileName() + ".tmp");
+    try {
+      try (var file = new FileOutputStream(temporary.toFile())) {
+        var checked = new CheckedOutputStream(new BufferedOutputStream(file), new CRC32C());
+        var output = new DataOutputStream(checked);
+        output.writeInt(MAGIC);
+        output.writeLong(snapshot.offset());
+        output.writeInt(snapshot.accounts().size());
+        for (var account : snapshot.accounts()) {
+          output.writeInt(account.getAccountNo());
+          output.writeUTF(account.getOwner());
+          var unscaled = account.getMoney().unscaledValue().toByteArray();
+          output.writeInt(account.getMoney().scale());
+          output.writeInt(unscaled.length);
+          output.write(unscaled);
+        }
+        output.writeLong(checked.getChecksum().getValue());
+        output.flush();
+        file.getFD().sync();
+      }
+      Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+      var snapshots = list();
+      for (var i = 0; i < snapshots.size() - RETAINED; i++) {
+        Files.delete(snapshots.get(i));
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Load the latest snapshot which is intact.
+   *
+   * @return the snapshot, or empty if there is none
+   */
+  public Optional<AccountSnapshot> loadLatest() {
+    try {
+      var snapshots = list();
+      for (var i = snapshots.size() - 1; i >= 0; i--) {
+        try {
+          return Optional.of(load(snapshots.get(i)));
+        } catch (IOException e) {
+          LOGGER.warn("Skipping damaged snapshot {}", snapshots.get(i), e);
+        }
+      }
+      return Optional.empty();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Delete all snapshots.
+   */
+  public void clear() {
+    try (Stream<Path> files = Files.list(directory)) {
+      for (var file : files.filter(path -> path.getFileName().toString().startsWith(PREFIX))
+          .toList()) {
+        Files.delete(file);
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private AccountSnapshot load(Path path) throws IOException {
+    // lengths read from a damaged file are checked against its size before allocating
+    var size = Files.size(path);
+    try (var checked = new CheckedInputStream(
+        new BufferedInputStream(Files.newInputStream(path)), new CRC32C())) {
+      var input = new DataInputStream(checked);
+      if (input.readInt() != MAGIC) {
+        throw new IOException("Not a snapshot");
+      }
+      var offset = input.readLong();
+      var count = checkLength(input.readInt(), 0, size);
+      var accounts = new ArrayList<Account>(count);
+      for (var i = 0; i < count; i++) {
+        var account = new Account(input.readInt(), input.readUTF());
+        var scale = input.readInt();
+        var unscaled = new byte[checkLength(input.readInt(), 1, size)];
+        input.readFully(unscaled);
+        account.setMoney(new BigDecimal(new BigInteger(unscaled), scale));
+        accounts.add(account);
+      }
+      var checksum = checked.getChecksum().getValue();
+      if (input.readLong() != checksum) {
+        throw new IOException("Checksum mismatch");
+      }
+      return new AccountSnapshot(offset, accounts);
+    }
+  }
+
+  private static int checkLength(int length, int min, long size) throws IOException {
+    if (length < min || length > size) {
+      throw new IOException("Invalid length " + length);
+    }
+    return length;
+  }
+
+  private List<Path> list() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(path -> {
+            var name = path.getFileName().toString();
+            return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+          })
+          .sorted()
+          .toList();
+    }
+  }
+}
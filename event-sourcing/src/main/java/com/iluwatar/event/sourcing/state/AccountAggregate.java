@@ -25,18 +25,22 @@
 package com.iluwatar.event.sourcing.state;
 
 import com.iluwatar.event.sourcing.domain.Account;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * This is the static accounts map holder class. This class holds the state of the accounts.
+ * This is the static accounts map holder class. This class holds the state of the accounts, in a
+ * ConcurrentHashMap, so that events of different accounts can be replayed on different threads.
  *
  * <p>Created by Serdar Hamzaogullari on 06.08.2017.
  */
 public class AccountAggregate {
 
-  private static Map<Integer, Account> accounts = new HashMap<>();
+  private static Map<Integer, Account> accounts = new ConcurrentHashMap<>();
 
   private AccountAggregate() {
   }
@@ -63,10 +67,36 @@ public class AccountAggregate {
         .orElse(null);
   }
 
+  /**
+   * Copy all accounts, so that the copies can be saved while the accounts change.
+   *
+   * @return copies of all accounts
+   */
+  public static List<Account> snapshot() {
+    var copies = new ArrayList<Account>(accounts.size());
+    for (var account : accounts.values()) {
+      copies.add(account.copy());
+    }
+    return copies;
+  }
+
+  /**
+   * Replace the state with accounts of a snapshot.
+   *
+   * @param snapshot the accounts
+   */
+  public static void restore(Collection<Account> snapshot) {
+    var restored = new ConcurrentHashMap<Integer, Account>();
+    for (var account : snapshot) {
+      restored.put(account.getAccountNo(), account.copy());
+    }
+    accounts = restored;
+  }
+
   /**
    * Reset state.
    */
   public static void resetState() {
-    accounts = new HashMap<>();
+    accounts = new ConcurrentHashMap<>();
   }
 }
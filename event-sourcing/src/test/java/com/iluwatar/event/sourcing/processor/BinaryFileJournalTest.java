@@ -0,0 +1,244 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for BinaryFileJournal.
+ */
+class BinaryFileJournalTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void testRoundTrip() {
+    try (var journal = new BinaryFileJournal(directory)) {
+      journal.write(new AccountCreateEvent(0, 10, 1, "Daenerys Targaryen"));
+      journal.write(new MoneyDepositEvent(1, 11, 1, new BigDecimal("100000.25")));
+      journal.write(new MoneyTransferEvent(2, 12, new BigDecimal("-1e40"), 1, 2));
+      assertEquals(3, journal.getNextOffset());
+    }
+
+    var journal = new BinaryFileJournal(directory);
+    var create = assertInstanceOf(AccountCreateEvent.class, journal.readNext());
+    assertEquals(0, create.getSequenceId());
+    assertEquals(10, create.getCreatedTime());
+    assertEquals(1, create.getAccountNo());
+    assertEquals("Daenerys Targaryen", create.getOwner());
+    assertFalse(create.isRealTime());
+    var deposit = assertInstanceOf(MoneyDepositEvent.class, journal.readNext());
+    assertEquals(new BigDecimal("100000.25"), deposit.getMoney());
+    var transfer = assertInstanceOf(MoneyTransferEvent.class, journal.readNext());
+    assertEquals(new BigDecimal("-1e40"), transfer.getMoney());
+    assertEquals(1, transfer.getAccountNoFrom());
+    assertEquals(2, transfer.getAccountNoTo());
+    assertNull(journal.readNext());
+    journal.close();
+  }
+
+  @Test
+  void testSegmentsRollAndAppendContinues() throws IOException {
+    try (var journal = new BinaryFileJournal(directory, BinaryFileJournal.FsyncPolicy.NEVER,
+        Duration.ofSeconds(1), 256)) {
+      for (var i = 0; i < 50; i++) {
+        journal.write(deposit(i));
+      }
+    }
+    assertTrue(segments().size() > 5);
+    try (var journal = new BinaryFileJournal(directory, BinaryFileJournal.FsyncPolicy.NEVER,
+        Duration.ofSeconds(1), 256)) {
+      assertEquals(50, journal.getNextOffset());
+      journal.write(deposit(50));
+    }
+    assertEquals(sequence(51), sequenceIds(new BinaryFileJournal(directory)));
+  }
+
+  @Test
+  void testTornRecordIsDropped() throws IOException {
+    try (var journal = new BinaryFileJournal(directory)) {
+      for (var i = 0; i < 10; i++) {
+        journal.write(deposit(i));
+      }
+    }
+    var segment = segments().get(0);
+    try (var file = new RandomAccessFile(segment.toFile(), "rw")) {
+      file.setLength(file.length() - 3);
+    }
+    assertEquals(sequence(9), sequenceIds(new BinaryFileJournal(directory)));
+
+    try (var journal = new BinaryFileJournal(directory)) {
+      assertEquals(9, journal.getNextOffset());
+      journal.write(deposit(9));
+    }
+    assertEquals(sequence(10), sequenceIds(new BinaryFileJournal(directory)));
+  }
+
+  @Test
+  void testChecksumMismatchEndsLastSegment() throws IOException {
+    try (var journal = new BinaryFileJournal(directory)) {
+      for (var i = 0; i < 10; i++) {
+        journal.write(deposit(i));
+      }
+    }
+    var segment = segments().get(0);
+    var size = Files.size(segment);
+    try (var file = new RandomAccessFile(segment.toFile(), "rw")) {
+      file.seek(size - 2);
+      file.write(file.read() ^ 0xff);
+    }
+    assertEquals(sequence(9), sequenceIds(new BinaryFileJournal(directory)));
+  }
+
+  @Test
+  void testCorruptionBeforeLastSegmentFails() throws IOException {
+    try (var journal = new BinaryFileJournal(directory, BinaryFileJournal.FsyncPolicy.NEVER,
+        Duration.ofSeconds(1), 256)) {
+      for (var i = 0; i < 20; i++) {
+        journal.write(deposit(i));
+      }
+    }
+    try (var file = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+      file.seek(12);
+      file.write(file.read() ^ 0xff);
+    }
+    var journal = new BinaryFileJournal(directory);
+    assertThrows(RuntimeException.class, () -> sequenceIds(journal));
+  }
+
+  @Test
+  void testConcurrentWritersAreCommittedInGroups() throws InterruptedException {
+    var threads = new ArrayList<Thread>();
+    try (var journal = new BinaryFileJournal(directory, BinaryFileJournal.FsyncPolicy.INTERVAL,
+        Duration.ofMillis(10), 4096)) {
+      for (var t = 0; t < 8; t++) {
+        var from = t * 500;
+        threads.add(new Thread(() -> {
+          for (var i = from; i < from + 500; i++) {
+            journal.write(deposit(i));
+          }
+        }));
+      }
+      threads.forEach(Thread::start);
+      for (var thread : threads) {
+        thread.join();
+      }
+      assertEquals(4000, journal.getNextOffset());
+    }
+    var read = sequenceIds(new BinaryFileJournal(directory));
+    assertEquals(4000, read.size());
+    assertEquals(new HashSet<>(sequence(4000)), new HashSet<>(read));
+  }
+
+  @Test
+  void testReset() throws IOException {
+    var journal = new BinaryFileJournal(directory);
+    journal.write(deposit(0));
+    journal.reset();
+    assertEquals(0, journal.getNextOffset());
+    journal.write(deposit(1));
+    journal.close();
+    assertEquals(List.of(1L), sequenceIds(new BinaryFileJournal(directory)));
+    assertEquals(1, segments().size());
+  }
+
+  @Test
+  void testResetDuringConcurrentWritesStartsConsistently() throws InterruptedException {
+    for (var round = 0; round < 50; round++) {
+      var threads = new ArrayList<Thread>();
+      long expected;
+      try (var journal = new BinaryFileJournal(directory)) {
+        for (var t = 0; t < 8; t++) {
+          threads.add(new Thread(() -> {
+            for (var i = 0; i < 20; i++) {
+              journal.write(deposit(i));
+            }
+          }));
+        }
+        threads.forEach(Thread::start);
+        Thread.sleep(1);
+        journal.reset();
+        for (var thread : threads) {
+          thread.join();
+        }
+        expected = journal.getNextOffset();
+      }
+      assertEquals(expected, sequenceIds(new BinaryFileJournal(directory)).size(),
+          "round " + round);
+    }
+  }
+
+  private static DomainEvent deposit(long sequenceId) {
+    return new MoneyDepositEvent(sequenceId, sequenceId, 1, BigDecimal.valueOf(sequenceId));
+  }
+
+  private static List<Long> sequence(int count) {
+    var ids = new ArrayList<Long>();
+    for (var i = 0L; i < count; i++) {
+      ids.add(i);
+    }
+    return ids;
+  }
+
+  private static List<Long> sequenceIds(BinaryFileJournal journal) {
+    var ids = new ArrayList<Long>();
+    try (journal) {
+      DomainEvent event;
+      while ((event = journal.readNext()) != null) {
+        ids.add(event.getSequenceId());
+      }
+    }
+    return ids;
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.sorted().toList();
+    }
+  }
+}
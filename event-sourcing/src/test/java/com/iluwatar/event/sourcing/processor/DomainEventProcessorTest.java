@@ -0,0 +1,356 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for recovery of DomainEventProcessor from snapshots and in parallel.
+ */
+class DomainEventProcessorTest {
+
+  private static final int ACCOUNTS = 10;
+  private static final int EVENTS = 2_000;
+  private static final int INTERVAL = 150;
+
+  @TempDir
+  Path directory;
+
+  private CountingJournal journal;
+
+  @BeforeEach
+  void setUp() {
+    AccountAggregate.resetState();
+    journal = new CountingJournal(directory.resolve("journal"));
+  }
+
+  @AfterEach
+  void tearDown() {
+    journal.close();
+    AccountAggregate.resetState();
+  }
+
+  @Test
+  void testRecoverReplaysOnlyTailAfterSnapshot() throws IOException {
+    var processor = new DomainEventProcessor(journal, snapshots(), INTERVAL);
+    processor.reset();
+    processEvents(processor);
+    processor.getSnapshotting().join();
+    var expected = balances();
+    var latest = snapshotOffset(snapshotFiles().size() - 1);
+
+    var replayed = recover();
+    assertEquals(expected, balances());
+    assertEquals(processor.getOffset() - latest, replayed);
+    assertTrue(replayed < 2 * INTERVAL, "replayed " + replayed);
+  }
+
+  @Test
+  void testDamagedSnapshotFallsBackToPreviousOne() throws IOException {
+    var processor = new DomainEventProcessor(journal, snapshots(), INTERVAL);
+    processor.reset();
+    processEvents(processor);
+    processor.getSnapshotting().join();
+    var expected = balances();
+
+    var previous = snapshotOffset(0);
+    try (var file = new RandomAccessFile(snapshotFiles().get(1).toFile(), "rw")) {
+      file.seek(file.length() - 12);
+      file.write(file.read() ^ 0xff);
+    }
+    var replayed = recover();
+    assertEquals(expected, balances());
+    assertEquals(processor.getOffset() - previous, replayed);
+  }
+
+  @Test
+  void testSnapshotWithDamagedCountFallsBackToPreviousOne() throws IOException {
+    var processor = new DomainEventProcessor(journal, snapshots(), INTERVAL);
+    processor.reset();
+    processEvents(processor);
+    processor.getSnapshotting().join();
+    var expected = balances();
+
+    var previous = snapshotOffset(0);
+    try (var file = new RandomAccessFile(snapshotFiles().get(1).toFile(), "rw")) {
+      //the account count follows the magic number and the offset
+      file.seek(12);
+      file.writeInt(Integer.MAX_VALUE);
+    }
+    var replayed = recover();
+    assertEquals(expected, balances());
+    assertEquals(processor.getOffset() - previous, replayed);
+  }
+
+  @Test
+  void testSnapshotWithDamagedLengthFallsBackToPreviousOne() throws IOException {
+    var processor = new DomainEventProcessor(journal, snapshots(), INTERVAL);
+    processor.reset();
+    processEvents(processor);
+    processor.getSnapshotting().join();
+    var expected = balances();
+
+    var previous = snapshotOffset(0);
+    try (var file = new RandomAccessFile(snapshotFiles().get(1).toFile(), "rw")) {
+      //the first account's number, owner and scale precede the length of its balance
+      file.seek(16 + 4);
+      var ownerLength = file.readUnsignedShort();
+      file.seek(file.getFilePointer() + ownerLength + 4);
+      file.writeInt(-1);
+    }
+    var replayed = recover();
+    assertEquals(expected, balances());
+    assertEquals(processor.getOffset() - previous, replayed);
+  }
+
+  @Test
+  void testSnapshotBeyondTheJournalEndIsIgnored() throws IOException {
+    var processor = new DomainEventProcessor(journal, snapshots(), INTERVAL);
+    processor.reset();
+    processEvents(processor);
+    processor.getSnapshotting().join();
+    journal.close();
+    var segment = directory.resolve("journal").resolve(String.format("%020d.journal", 0));
+    try (var file = new RandomAccessFile(segment.toFile(), "rw")) {
+      file.setLength(file.length() / 2);
+    }
+    AccountAggregate.resetState();
+    journal = new CountingJournal(directory.resolve("journal"));
+    var end = journal.getNextOffset();
+    new DomainEventProcessor(journal).recover();
+    var expected = balances();
+    assertTrue(end < snapshotOffset(snapshotFiles().size() - 1), "end " + end);
+
+    journal.close();
+    AccountAggregate.resetState();
+    journal = new CountingJournal(directory.resolve("journal"));
+    var recovered = new DomainEventProcessor(journal, snapshots(), INTERVAL);
+    recovered.recover();
+    assertEquals(expected, balances());
+    assertEquals(end, recovered.getOffset());
+    assertEquals(end, journal.read);
+  }
+
+  @Test
+  void testRecoverWithoutSnapshotsReplaysEverything() {
+    var processor = new DomainEventProcessor(journal);
+    processor.reset();
+    processEvents(processor);
+    var expected = balances();
+    journal.close();
+    AccountAggregate.resetState();
+
+    journal = new CountingJournal(directory.resolve("journal"));
+    new DomainEventProcessor(journal).recover();
+    assertEquals(expected, balances());
+    assertEquals(2 * ACCOUNTS + EVENTS, journal.read);
+  }
+
+  @Test
+  void testOldSnapshotsAreDeleted() throws IOException {
+    var processor = new DomainEventProcessor(journal, snapshots(), INTERVAL);
+    processor.reset();
+    processEvents(processor);
+    processor.snapshot().join();
+    assertEquals(2, snapshotFiles().size());
+    assertEquals(2 * ACCOUNTS + EVENTS, processor.getOffset());
+    assertEquals(0, recover());
+  }
+
+  @Test
+  void testParallelRecoveryMatchesSequentialRecovery() {
+    var processor = new DomainEventProcessor(journal);
+    processor.reset();
+    var random = new Random(42);
+    var accounts = 64;
+    var sequence = 0L;
+    for (var account = 0; account < accounts; account++) {
+      processor.process(new AccountCreateEvent(sequence++, 0, account, "Owner " + account));
+      processor.process(new MoneyDepositEvent(sequence++, 0, account, new BigDecimal(1000)));
+    }
+    for (var i = 0; i < 20_000; i++) {
+      var account = random.nextInt(accounts);
+      if (random.nextBoolean()) {
+        processor.process(new MoneyTransferEvent(sequence++, 0,
+            BigDecimal.valueOf(random.nextInt(5) + 1), account, random.nextInt(accounts)));
+      } else {
+        processor.process(new MoneyDepositEvent(sequence++, 0, account,
+            BigDecimal.valueOf(random.nextInt(100), 2)));
+      }
+    }
+    journal.close();
+    AccountAggregate.resetState();
+    journal = new CountingJournal(directory.resolve("journal"));
+    new DomainEventProcessor(journal).recover();
+    var expected = balances(accounts);
+
+    var executor = Executors.newFixedThreadPool(4);
+    try {
+      for (var partitions : new int[] {1, 2, 3, 8, 64}) {
+        journal.close();
+        AccountAggregate.resetState();
+        journal = new CountingJournal(directory.resolve("journal"));
+        var recovered = new DomainEventProcessor(journal);
+        recovered.recover(executor, partitions);
+        assertEquals(expected, balances(accounts), "partitions " + partitions);
+        assertEquals(sequence, recovered.getOffset());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testParallelRecoveryFromSnapshot() throws IOException {
+    var processor = new DomainEventProcessor(journal, snapshots(), INTERVAL);
+    processor.reset();
+    processEvents(processor);
+    processor.getSnapshotting().join();
+    var expected = balances();
+    var latest = snapshotOffset(snapshotFiles().size() - 1);
+
+    journal.close();
+    AccountAggregate.resetState();
+    journal = new CountingJournal(directory.resolve("journal"));
+    var executor = Executors.newFixedThreadPool(2);
+    new DomainEventProcessor(journal, snapshots(), INTERVAL).recover(executor, 4);
+    executor.shutdown();
+    assertEquals(expected, balances());
+    assertEquals(processor.getOffset() - latest, journal.read);
+  }
+
+  @Test
+  void testParallelRecoveryFailsLikeSequentialRecovery() {
+    var processor = new DomainEventProcessor(journal);
+    processor.reset();
+    processEvents(processor);
+    journal.write(new MoneyTransferEvent(0, 0, BigDecimal.ONE, 1, 99));
+    journal.close();
+    AccountAggregate.resetState();
+
+    journal = new CountingJournal(directory.resolve("journal"));
+    var executor = Executors.newFixedThreadPool(2);
+    var recovered = new DomainEventProcessor(journal);
+    var exception = assertThrows(RuntimeException.class, () -> recovered.recover(executor, 4));
+    executor.shutdown();
+    assertEquals("Account not found 99", exception.getMessage());
+  }
+
+  private int recover() {
+    journal.close();
+    AccountAggregate.resetState();
+    journal = new CountingJournal(directory.resolve("journal"));
+    new DomainEventProcessor(journal, snapshots(), INTERVAL).recover();
+    return journal.read;
+  }
+
+  private SnapshotStore snapshots() {
+    return new SnapshotStore(directory.resolve("snapshots"));
+  }
+
+  private List<Path> snapshotFiles() throws IOException {
+    try (Stream<Path> files = Files.list(directory.resolve("snapshots"))) {
+      return files.sorted().toList();
+    }
+  }
+
+  private long snapshotOffset(int index) throws IOException {
+    var name = snapshotFiles().get(index).getFileName().toString();
+    return Long.parseLong(name.replaceAll("\\D", ""));
+  }
+
+  private static void processEvents(DomainEventProcessor processor) {
+    var sequence = 0L;
+    for (var account = 0; account < ACCOUNTS; account++) {
+      processor.process(new AccountCreateEvent(sequence++, 0, account, "Owner " + account));
+      processor.process(new MoneyDepositEvent(sequence++, 0, account, BigDecimal.TEN));
+    }
+    for (var i = 0; i < EVENTS; i++) {
+      var account = i % ACCOUNTS;
+      if (i % 3 == 2) {
+        processor.process(new MoneyTransferEvent(sequence++, 0, BigDecimal.ONE, account,
+            (account + 1) % ACCOUNTS));
+      } else {
+        processor.process(new MoneyDepositEvent(sequence++, 0, account, BigDecimal.TEN));
+      }
+    }
+  }
+
+  private static Map<Integer, BigDecimal> balances() {
+    return balances(ACCOUNTS);
+  }
+
+  private static Map<Integer, BigDecimal> balances(int accounts) {
+    var balances = new TreeMap<Integer, BigDecimal>();
+    for (var account = 0; account < accounts; account++) {
+      balances.put(account, AccountAggregate.getAccount(account).getMoney());
+    }
+    return balances;
+  }
+
+  /**
+   * A journal which counts the events it reads.
+   */
+  private static class CountingJournal extends BinaryFileJournal {
+
+    private int read;
+
+    CountingJournal(Path directory) {
+      super(directory, FsyncPolicy.NEVER);
+    }
+
+    @Override
+    public DomainEvent readNext() {
+      var event = super.readNext();
+      if (event != null) {
+        read++;
+      }
+      return event;
+    }
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Events per second written to and replayed from the {@link JsonFileJournal}, which writes to
+ * Journal.json in the working directory, and the {@link BinaryFileJournal} with each fsync policy.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+
+  private static final int REPLAY_EVENTS = 10_000;
+
+  /**
+   * A journal to write to.
+   */
+  @State(Scope.Benchmark)
+  public static class Journals {
+
+    @Param({"json", "binary-always", "binary-interval", "binary-never"})
+    String journal;
+
+    Path directory;
+    EventJournal eventJournal;
+    final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Create an empty journal.
+     */
+    @Setup
+    public void setUp() throws IOException {
+      directory = Files.createTempDirectory("journal");
+      eventJournal = open();
+      eventJournal.reset();
+    }
+
+    EventJournal open() {
+      return switch (journal) {
+        case "json" -> new JsonFileJournal();
+        case "binary-always" -> new BinaryFileJournal(directory);
+        case "binary-interval" ->
+            new BinaryFileJournal(directory, BinaryFileJournal.FsyncPolicy.INTERVAL);
+        case "binary-never" -> new BinaryFileJournal(directory, BinaryFileJournal.FsyncPolicy.NEVER);
+        default -> throw new IllegalArgumentException(journal);
+      };
+    }
+
+    /**
+     * Close the journal and delete its files.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+      if (eventJournal instanceof BinaryFileJournal binaryFileJournal) {
+        binaryFileJournal.close();
+      }
+      eventJournal.reset();
+      try (Stream<Path> files = Files.walk(directory)) {
+        for (var path : files.sorted(Comparator.reverseOrder()).toList()) {
+          Files.delete(path);
+        }
+      }
+    }
+  }
+
+  /**
+   * A journal with events to replay.
+   */
+  @State(Scope.Benchmark)
+  public static class FilledJournals extends Journals {
+
+    /**
+     * Create a journal and write the events to replay.
+     */
+    @Override
+    @Setup
+    public void setUp() throws IOException {
+      super.setUp();
+      for (var i = 0; i < REPLAY_EVENTS; i++) {
+        eventJournal.write(event(i));
+      }
+      if (eventJournal instanceof BinaryFileJournal binaryFileJournal) {
+        binaryFileJournal.close();
+      }
+    }
+  }
+
+  @Benchmark
+  public void write(Journals journals) {
+    journals.eventJournal.write(event(journals.sequence.getAndIncrement()));
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void writeConcurrently(Journals journals) {
+    journals.eventJournal.write(event(journals.sequence.getAndIncrement()));
+  }
+
+  /**
+   * Open the journal and read all events, as recovery does.
+   */
+  @Benchmark
+  @OperationsPerInvocation(REPLAY_EVENTS)
+  public long replay(FilledJournals journals) {
+    var eventJournal = journals.open();
+    var sum = 0L;
+    DomainEvent event;
+    while ((event = eventJournal.readNext()) != null) {
+      sum += event.getSequenceId();
+    }
+    if (eventJournal instanceof BinaryFileJournal binaryFileJournal) {
+      binaryFileJournal.close();
+    }
+    return sum;
+  }
+
+  private static DomainEvent event(long sequenceId) {
+    if (sequenceId % 2 == 0) {
+      return new MoneyDepositEvent(sequenceId, sequenceId, 1, BigDecimal.valueOf(sequenceId));
+    }
+    return new MoneyTransferEvent(sequenceId, sequenceId, BigDecimal.TEN, 1, 2);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(JournalBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,648 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * An ExternalMapReduceJob runs a {@link Mapper} and a {@link Reducer} over input files which may be
+ * much larger than the heap.
+ *
+ * <p>The map workers read the input files line by line and buffer the pairs they emit, combined if
+ * there is a combiner, until the memory budget is used up. Then the buffer is spilled: its keys are
+ * sorted and written, partition by partition, to compressed run files on disk, and the buffer
+ * starts over. Once all input is mapped, one reduce task per partition merges the runs of its
+ * partition, k ways, in key order. As the runs are sorted, the values of a key come together from
+ * all runs at once, are reduced and handed to the output, and only one key per partition is in
+ * memory at a time. A task opens at most {@link Builder#mergeFanIn(int) a fan-in} of runs at once:
+ * when its partition has more runs, it first merges them in groups into fewer, longer runs, pass
+ * after pass, until one pass can merge them all.
+ *
+ * <p>Without a combiner the reducer gets all the values of a key in one list, so the values of
+ * any one key have to fit in the heap. Jobs with keys that have very many values need a combiner.
+ *
+ * <p>A job is created with a {@link Builder}, and the run files live in a temporary directory which
+ * is removed when the job ends.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class ExternalMapReduceJob<K, V> {
+  private static final int COMBINE_THRESHOLD = 64;
+  //heap taken by a buffered key besides the key itself: map entry, value list and references
+  private static final long ENTRY_OVERHEAD = 96;
+  private static final int IO_BUFFER_SIZE = 8192;
+  private static final int HAS_RECORD = 1;
+  private static final int END_OF_RUN = 0;
+  private static final int DEFAULT_MERGE_FAN_IN = 64;
+
+  private final Mapper<K, V> mapper;
+  private final Reducer<K, V> combiner;
+  private final Reducer<K, V> reducer;
+  private final Comparator<? super K> keyOrder;
+  private final RecordCodec<K> keyCodec;
+  private final RecordCodec<V> valueCodec;
+  private final int partitions;
+  private final int mapWorkers;
+  private final long memoryBudget;
+  private final int mergeFanIn;
+  private final Path spillDirectory;
+  private final Executor executor;
+  private final AtomicInteger spills = new AtomicInteger();
+
+  private ExternalMapReduceJob(Builder<K, V> builder) {
+    this.mapper = Objects.requireNonNull(builder.mapper, "mapper");
+    this.combiner = builder.combiner;
+    this.reducer = Objects.requireNonNull(builder.reducer, "reducer");
+    this.keyOrder = Objects.requireNonNull(builder.keyOrder, "keyOrder");
+    this.keyCodec = Objects.requireNonNull(builder.keyCodec, "keyCodec");
+    this.valueCodec = Objects.requireNonNull(builder.valueCodec, "valueCodec");
+    this.partitions = builder.partitions;
+    this.mapWorkers = builder.mapWorkers;
+    this.memoryBudget = builder.memoryBudget;
+    this.mergeFanIn = builder.mergeFanIn;
+    this.spillDirectory = builder.spillDirectory;
+    this.executor = builder.executor;
+  }
+
+  /**
+   * Starts building a job.
+   *
+   * @param <K> the type of the keys
+   * @param <V> the type of the values
+   * @return A builder with one map worker and one partition per available processor.
+   */
+  public static <K, V> Builder<K, V> builder() {
+    return new Builder<>();
+  }
+
+  /**
+   * The number of times the map workers spilled their buffers to disk, in all runs of the job.
+   *
+   * @return The number of spills.
+   */
+  public int getSpillCount() {
+    return spills.get();
+  }
+
+  /**
+   * Runs the job. The reduce tasks hand their results to the output at the same time, each one the
+   * keys of its partition in key order, so the output has to be thread-safe.
+   *
+   * @param inputs The text files to map, line by line.
+   * @param output Receives the reduced value of every key.
+   * @throws IOException If reading the inputs or the runs fails.
+   */
+  public void run(List<Path> inputs, BiConsumer<? super K, ? super V> output) throws IOException {
+    Path runDirectory = Files.createTempDirectory(spillDirectory, "map-reduce-");
+    try {
+      List<List<Path>> runs = new ArrayList<>(partitions);
+      for (int i = 0; i < partitions; i++) {
+        runs.add(Collections.synchronizedList(new ArrayList<>()));
+      }
+      ConcurrentLinkedQueue<Path> pending = new ConcurrentLinkedQueue<>(inputs);
+      long workerBudget = Math.max(1, memoryBudget / mapWorkers);
+      List<CompletableFuture<Void>> mapTasks = new ArrayList<>();
+      for (int worker = 0; worker < mapWorkers; worker++) {
+        MapWorker mapWorker = new MapWorker(worker, workerBudget, runDirectory, runs);
+        mapTasks.add(CompletableFuture.runAsync(() -> mapWorker.run(pending), executor));
+      }
+      join(mapTasks);
+
+      List<CompletableFuture<Void>> reduceTasks = new ArrayList<>();
+      for (int partition = 0; partition < partitions; partition++) {
+        ReduceTask reduceTask = new ReduceTask(partition, runDirectory, runs.get(partition));
+        reduceTasks.add(CompletableFuture.runAsync(() -> reduceTask.run(output), executor));
+      }
+      join(reduceTasks);
+    } finally {
+      deleteRecursively(runDirectory);
+    }
+  }
+
+  private static void join(List<CompletableFuture<Void>> tasks) throws IOException {
+    try {
+      MapReduceJob.join(tasks);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private void combine(K key, List<V> values) {
+    if (values.size() > 1) {
+      V combined = combiner.reduce(key, values);
+      values.clear();
+      values.add(combined);
+    }
+  }
+
+  /**
+   * Maps input files and spills the pairs to runs when its buffer is full.
+   */
+  private class MapWorker {
+    private final int id;
+    private final long budget;
+    private final Path runDirectory;
+    private final List<List<Path>> runs;
+    private final Map<K, List<V>> buffer = new HashMap<>();
+    private long buffered;
+    private int spillNumber;
+
+    MapWorker(int id, long budget, Path runDirectory, List<List<Path>> runs) {
+      this.id = id;
+      this.budget = budget;
+      this.runDirectory = runDirectory;
+      this.runs = runs;
+    }
+
+    void run(ConcurrentLinkedQueue<Path> pending) {
+      try {
+        for (Path input = pending.poll(); input != null; input = pending.poll()) {
+          try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+              mapper.map(line, this::collect);
+            }
+          }
+        }
+        if (!buffer.isEmpty()) {
+          spill();
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private void collect(K key, V value) {
+      List<V> values = buffer.get(key);
+      if (values == null) {
+        values = new ArrayList<>(1);
+        buffer.put(key, values);
+        buffered += ENTRY_OVERHEAD + keyCodec.estimateSize(key);
+      }
+      values.add(value);
+      buffered += valueCodec.estimateSize(value);
+      if (combiner != null && values.size() >= COMBINE_THRESHOLD) {
+        for (V v : values) {
+          buffered -= valueCodec.estimateSize(v);
+        }
+        combine(key, values);
+        buffered += valueCodec.estimateSize(values.get(0));
+      }
+      if (buffered >= budget) {
+        try {
+          spill();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+    }
+
+    private void spill() throws IOException {
+      List<List<K>> keysByPartition = new ArrayList<>(partitions);
+      for (int i = 0; i < partitions; i++) {
+        keysByPartition.add(new ArrayList<>());
+      }
+      for (K key : buffer.keySet()) {
+        keysByPartition.get(Shuffler.partition(key, partitions)).add(key);
+      }
+      for (int partition = 0; partition < partitions; partition++) {
+        List<K> keys = keysByPartition.get(partition);
+        if (keys.isEmpty()) {
+          continue;
+        }
+        keys.sort(keyOrder);
+        Path run = runDirectory.resolve("run-" + id + "-" + spillNumber + "-" + partition);
+        writeRun(run, keys);
+        runs.get(partition).add(run);
+      }
+      spillNumber++;
+      spills.incrementAndGet();
+      buffer.clear();
+      buffered = 0;
+    }
+
+    private void writeRun(Path run, List<K> keys) throws IOException {
+      try (RunWriter writer = new RunWriter(run)) {
+        for (K key : keys) {
+          List<V> values = buffer.get(key);
+          if (combiner != null) {
+            combine(key, values);
+          }
+          writer.write(key, values);
+        }
+      }
+    }
+  }
+
+  /**
+   * Merges the runs of one partition, in several passes if there are more than the fan-in, and
+   * reduces every key.
+   */
+  private class ReduceTask {
+    private final int partition;
+    private final Path runDirectory;
+    private final List<Path> runs;
+
+    ReduceTask(int partition, Path runDirectory, List<Path> runs) {
+      this.partition = partition;
+      this.runDirectory = runDirectory;
+      this.runs = runs;
+    }
+
+    void run(BiConsumer<? super K, ? super V> output) {
+      try {
+        List<Path> remaining = new ArrayList<>(runs);
+        for (int pass = 0; remaining.size() > mergeFanIn; pass++) {
+          remaining = mergePass(pass, remaining);
+        }
+        merge(remaining, new Grouping() {
+          @Override
+          void endOfKey(K key, List<V> values) {
+            output.accept(key, reducer.reduce(key, values));
+          }
+        });
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    /**
+     * Merges the runs in groups of the fan-in into longer runs, and deletes the merged runs.
+     */
+    private List<Path> mergePass(int pass, List<Path> passRuns) throws IOException {
+      List<Path> merged = new ArrayList<>();
+      for (int from = 0; from < passRuns.size(); from += mergeFanIn) {
+        List<Path> group = passRuns.subList(from, Math.min(from + mergeFanIn, passRuns.size()));
+        if (group.size() == 1) {
+          merged.add(group.get(0));
+          continue;
+        }
+        Path run = runDirectory.resolve("merge-" + partition + "-" + pass + "-" + merged.size());
+        try (RunWriter writer = new RunWriter(run)) {
+          merge(group, intermediateSink(writer));
+        }
+        for (Path input : group) {
+          Files.delete(input);
+        }
+        merged.add(run);
+      }
+      return merged;
+    }
+
+    private MergeSink intermediateSink(RunWriter writer) {
+      if (combiner == null) {
+        //the records are copied as they are, however many a key has
+        return new MergeSink() {
+          @Override
+          void record(K key, List<V> values) throws IOException {
+            writer.write(key, values);
+          }
+        };
+      }
+      return new Grouping() {
+        @Override
+        void endOfKey(K key, List<V> values) throws IOException {
+          combine(key, values);
+          writer.write(key, values);
+        }
+      };
+    }
+  }
+
+  /**
+   * Merges sorted runs in key order, handing the sink every record of a key, run by run, and then
+   * the end of the key.
+   */
+  private void merge(List<Path> mergedRuns, MergeSink sink) throws IOException {
+    List<RunReader> readers = new ArrayList<>();
+    try {
+      PriorityQueue<RunReader> heads =
+          new PriorityQueue<>((a, b) -> keyOrder.compare(a.key, b.key));
+      for (Path run : mergedRuns) {
+        RunReader reader = new RunReader(run);
+        readers.add(reader);
+        if (reader.next()) {
+          heads.add(reader);
+        }
+      }
+      while (!heads.isEmpty()) {
+        K key = heads.peek().key;
+        while (!heads.isEmpty() && keyOrder.compare(heads.peek().key, key) == 0) {
+          RunReader reader = heads.poll();
+          sink.record(key, reader.values);
+          if (reader.next()) {
+            heads.add(reader);
+          }
+        }
+        sink.endOfKey(key);
+      }
+    } finally {
+      readers.forEach(RunReader::close);
+    }
+  }
+
+  /**
+   * Receives the records of a merge.
+   */
+  private abstract class MergeSink {
+    abstract void record(K key, List<V> values) throws IOException;
+
+    void endOfKey(K key) throws IOException {
+      //records are handled one by one
+    }
+  }
+
+  /**
+   * Collects the values of a key from all runs, combining them as they come if there is a
+   * combiner.
+   */
+  private abstract class Grouping extends MergeSink {
+    private final List<V> values = new ArrayList<>();
+
+    @Override
+    void record(K key, List<V> recordValues) {
+      values.addAll(recordValues);
+      if (combiner != null && values.size() >= COMBINE_THRESHOLD) {
+        combine(key, values);
+      }
+    }
+
+    @Override
+    void endOfKey(K key) throws IOException {
+      endOfKey(key, values);
+      values.clear();
+    }
+
+    abstract void endOfKey(K key, List<V> keyValues) throws IOException;
+  }
+
+  /**
+   * Writes the records of a run, in the order they are given.
+   */
+  private class RunWriter implements Closeable {
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final DataOutputStream out;
+
+    RunWriter(Path run) throws IOException {
+      this.out = new DataOutputStream(new BufferedOutputStream(
+          new DeflaterOutputStream(Files.newOutputStream(run), deflater, IO_BUFFER_SIZE),
+          IO_BUFFER_SIZE));
+    }
+
+    void write(K key, List<V> values) throws IOException {
+      out.writeByte(HAS_RECORD);
+      keyCodec.write(out, key);
+      out.writeInt(values.size());
+      for (V value : values) {
+        valueCodec.write(out, value);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        out.writeByte(END_OF_RUN);
+        out.close();
+      } finally {
+        deflater.end();
+      }
+    }
+  }
+
+  /**
+   * Reads the records of a run one at a time.
+   */
+  private class RunReader implements Closeable {
+    private final Inflater inflater = new Inflater();
+    private final DataInputStream in;
+    private final List<V> values = new ArrayList<>();
+    private K key;
+
+    RunReader(Path run) throws IOException {
+      this.in = new DataInputStream(new BufferedInputStream(
+          new InflaterInputStream(Files.newInputStream(run), inflater, IO_BUFFER_SIZE),
+          IO_BUFFER_SIZE));
+    }
+
+    boolean next() throws IOException {
+      if (in.readByte() == END_OF_RUN) {
+        return false;
+      }
+      key = keyCodec.read(in);
+      values.clear();
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        values.add(valueCodec.read(in));
+      }
+      return true;
+    }
+
+    @Override
+    public void close() {
+      try {
+        in.close();
+      } catch (IOException e) {
+        //the run is deleted with its directory anyway
+      } finally {
+        inflater.end();
+      }
+    }
+  }
+
+  private static void deleteRecursively(Path directory) throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      List<Path> paths = files.sorted(Comparator.reverseOrder()).toList();
+      for (Path path : paths) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  /**
+   * Builds an {@link ExternalMapReduceJob}.
+   *
+   * @param <K> the type of the keys
+   * @param <V> the type of the values
+   */
+  public static class Builder<K, V> {
+    private Mapper<K, V> mapper;
+    private Reducer<K, V> combiner;
+    private Reducer<K, V> reducer;
+    private Comparator<? super K> keyOrder;
+    private RecordCodec<K> keyCodec;
+    private RecordCodec<V> valueCodec;
+    private int partitions = Runtime.getRuntime().availableProcessors();
+    private int mapWorkers = Runtime.getRuntime().availableProcessors();
+    private long memoryBudget = 64L * 1024 * 1024;
+    private int mergeFanIn = DEFAULT_MERGE_FAN_IN;
+    private Path spillDirectory = Path.of(System.getProperty("java.io.tmpdir"));
+    private Executor executor = ForkJoinPool.commonPool();
+
+    private Builder() {
+    }
+
+    public Builder<K, V> mapper(Mapper<K, V> mapper) {
+      this.mapper = mapper;
+      return this;
+    }
+
+    /**
+     * Sets the combiner, which must give the same result however the values are grouped.
+     *
+     * @param combiner Reduces the values of a key before they are spilled and while they are
+     *     merged.
+     * @return This builder.
+     */
+    public Builder<K, V> combiner(Reducer<K, V> combiner) {
+      this.combiner = combiner;
+      return this;
+    }
+
+    public Builder<K, V> reducer(Reducer<K, V> reducer) {
+      this.reducer = reducer;
+      return this;
+    }
+
+    /**
+     * Sets how the keys are written to and read from the runs, and the order they are sorted in.
+     *
+     * @param keyCodec Writes and reads the keys.
+     * @param keyOrder The order of the keys in the runs, equal keys must compare as 0.
+     * @return This builder.
+     */
+    public Builder<K, V> keys(RecordCodec<K> keyCodec, Comparator<? super K> keyOrder) {
+      this.keyCodec = keyCodec;
+      this.keyOrder = keyOrder;
+      return this;
+    }
+
+    public Builder<K, V> values(RecordCodec<V> valueCodec) {
+      this.valueCodec = valueCodec;
+      return this;
+    }
+
+    /**
+     * Sets the number of reducers.
+     *
+     * @param partitions The number of partitions, which are merged and reduced concurrently.
+     * @return This builder.
+     */
+    public Builder<K, V> partitions(int partitions) {
+      if (partitions < 1) {
+        throw new IllegalArgumentException("The number of partitions must be positive: "
+            + partitions);
+      }
+      this.partitions = partitions;
+      return this;
+    }
+
+    /**
+     * Sets the number of map workers, which share the input files and the memory budget.
+     *
+     * @param mapWorkers The number of files mapped concurrently.
+     * @return This builder.
+     */
+    public Builder<K, V> mapWorkers(int mapWorkers) {
+      if (mapWorkers < 1) {
+        throw new IllegalArgumentException("The number of map workers must be positive: "
+            + mapWorkers);
+      }
+      this.mapWorkers = mapWorkers;
+      return this;
+    }
+
+    /**
+     * Sets the memory the map workers buffer pairs in before they spill them to disk.
+     *
+     * @param bytes The estimated heap taken by all buffered pairs together.
+     * @return This builder.
+     */
+    public Builder<K, V> memoryBudget(long bytes) {
+      if (bytes < 1) {
+        throw new IllegalArgumentException("The memory budget must be positive: " + bytes);
+      }
+      this.memoryBudget = bytes;
+      return this;
+    }
+
+    /**
+     * Sets the most runs a reduce task reads at once. Each open run takes a few buffers, so the
+     * fan-in bounds the memory of the merge however many runs the map workers spilled.
+     *
+     * @param mergeFanIn The number of runs merged in one pass, at least 2.
+     * @return This builder.
+     */
+    public Builder<K, V> mergeFanIn(int mergeFanIn) {
+      if (mergeFanIn < 2) {
+        throw new IllegalArgumentException("The merge fan-in must be at least 2: " + mergeFanIn);
+      }
+      this.mergeFanIn = mergeFanIn;
+      return this;
+    }
+
+    public Builder<K, V> spillDirectory(Path spillDirectory) {
+      this.spillDirectory = spillDirectory;
+      return this;
+    }
+
+    public Builder<K, V> executor(Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    public ExternalMapReduceJob<K, V> build() {
+      return new ExternalMapReduceJob<>(this);
+    }
+  }
+}
@@ -25,12 +25,15 @@
 package com.iluwatar;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * The MapReduce class orchestrates the MapReduce process,
- * calling the Mapper, Shuffler, and Reducer components.
+ * running a word count {@link MapReduceJob} with the Mapper and Reducer components.
  */
 public class MapReduce {
   private MapReduce() {
@@ -43,13 +46,21 @@ public class MapReduce {
    * @return A list of word counts sorted in descending order.
    */
   public static List<Map.Entry<String, Integer>> mapReduce(List<String> inputs) {
-    List<Map<String, Integer>> mapped = new ArrayList<>();
-    for (String input : inputs) {
-      mapped.add(Mapper.map(input));
-    }
-
-    Map<String, List<Integer>> grouped = Shuffler.shuffleAndSort(mapped);
+    return mapReduce(inputs, ForkJoinPool.commonPool());
+  }
 
-    return Reducer.reduce(grouped);
+  /**
+   * Counts the words of the given inputs in parallel, with one reducer per available processor.
+   *
+   * @param inputs List of input strings to be processed.
+   * @param executor Runs the map and reduce tasks.
+   * @return A list of word counts sorted in descending order.
+   */
+  public static List<Map.Entry<String, Integer>> mapReduce(List<String> inputs, Executor executor) {
+    MapReduceJob<String, Integer> job = new MapReduceJob<>(Mapper.wordCount(), Reducer.summing(),
+        Reducer.summing(), Runtime.getRuntime().availableProcessors(), executor);
+    List<Map.Entry<String, Integer>> result = new ArrayList<>(job.run(inputs).entrySet());
+    result.sort(Map.Entry.comparingByValue(Comparator.reverseOrder()));
+    return result;
   }
 }
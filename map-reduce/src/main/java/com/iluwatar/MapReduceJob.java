@@ -0,0 +1,183 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * A MapReduceJob runs a {@link Mapper} and a {@link Reducer} over a list of inputs in parallel.
+ *
+ * <p>The inputs are cut into splits, and each split is mapped by a task on the executor. A map task
+ * hashes every pair it emits into one of as many partitions as there are reducers, and the
+ * combiner, if there is one, reduces the values of each key within the task as they pile up, so
+ * that a word seen a thousand times in a split is shuffled as one count instead of a thousand.
+ * Once all map tasks are done, one reduce task per partition gathers that partition's pairs from
+ * every map task, groups them by key and reduces them, all partitions at the same time.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class MapReduceJob<K, V> {
+  //values a map task keeps for a key before the combiner reduces them to one
+  private static final int COMBINE_THRESHOLD = 64;
+  //map tasks per reducer, so that uneven splits still keep every thread busy
+  private static final int SPLITS_PER_PARTITION = 4;
+
+  private final Mapper<K, V> mapper;
+  private final Reducer<K, V> combiner;
+  private final Reducer<K, V> reducer;
+  private final int partitions;
+  private final Executor executor;
+
+  /**
+   * Creates a job without a combiner.
+   *
+   * @param mapper Maps each input to key-value pairs.
+   * @param reducer Reduces the values of each key.
+   * @param partitions The number of reducers.
+   * @param executor Runs the map and reduce tasks, a fork/join pool or any other executor.
+   */
+  public MapReduceJob(Mapper<K, V> mapper, Reducer<K, V> reducer, int partitions,
+      Executor executor) {
+    this(mapper, null, reducer, partitions, executor);
+  }
+
+  /**
+   * Creates a job.
+   *
+   * @param mapper Maps each input to key-value pairs.
+   * @param combiner Reduces the values of a key on the map side, or null for none. It must give the
+   *     same result however the values are grouped, as it may be applied any number of times.
+   * @param reducer Reduces the values of each key.
+   * @param partitions The number of reducers.
+   * @param executor Runs the map and reduce tasks, a fork/join pool or any other executor.
+   */
+  public MapReduceJob(Mapper<K, V> mapper, Reducer<K, V> combiner, Reducer<K, V> reducer,
+      int partitions, Executor executor) {
+    if (partitions < 1) {
+      throw new IllegalArgumentException("The number of partitions must be positive: " + partitions);
+    }
+    this.mapper = mapper;
+    this.combiner = combiner;
+    this.reducer = reducer;
+    this.partitions = partitions;
+    this.executor = executor;
+  }
+
+  /**
+   * Runs the job.
+   *
+   * @param inputs The inputs to map.
+   * @return The reduced value of every key emitted.
+   * @throws RuntimeException Whatever a mapper or reducer threw.
+   */
+  public Map<K, V> run(List<String> inputs) {
+    int splitCount = Math.max(1, Math.min(inputs.size(), partitions * SPLITS_PER_PARTITION));
+    int splitSize = (inputs.size() + splitCount - 1) / splitCount;
+    List<CompletableFuture<List<Map<K, List<V>>>>> mapTasks = new ArrayList<>();
+    for (int from = 0; from < inputs.size(); from += splitSize) {
+      List<String> split = inputs.subList(from, Math.min(from + splitSize, inputs.size()));
+      mapTasks.add(CompletableFuture.supplyAsync(() -> map(split), executor));
+    }
+    List<List<Map<K, List<V>>>> mapped = join(mapTasks);
+
+    List<CompletableFuture<Map<K, V>>> reduceTasks = new ArrayList<>();
+    for (int partition = 0; partition < partitions; partition++) {
+      int p = partition;
+      reduceTasks.add(CompletableFuture.supplyAsync(() -> reduce(mapped, p), executor));
+    }
+    Map<K, V> result = new HashMap<>();
+    for (Map<K, V> reduced : join(reduceTasks)) {
+      result.putAll(reduced);
+    }
+    return result;
+  }
+
+  private List<Map<K, List<V>>> map(List<String> split) {
+    List<Map<K, List<V>>> output = new ArrayList<>(partitions);
+    for (int i = 0; i < partitions; i++) {
+      output.add(new HashMap<>());
+    }
+    for (String input : split) {
+      mapper.map(input, (key, value) -> {
+        List<V> values = output.get(Shuffler.partition(key, partitions))
+            .computeIfAbsent(key, k -> new ArrayList<>());
+        values.add(value);
+        if (combiner != null && values.size() >= COMBINE_THRESHOLD) {
+          combine(key, values);
+        }
+      });
+    }
+    if (combiner != null) {
+      for (Map<K, List<V>> partition : output) {
+        partition.forEach(this::combine);
+      }
+    }
+    return output;
+  }
+
+  private void combine(K key, List<V> values) {
+    if (values.size() > 1) {
+      V combined = combiner.reduce(key, values);
+      values.clear();
+      values.add(combined);
+    }
+  }
+
+  private Map<K, V> reduce(List<List<Map<K, List<V>>>> mapped, int partition) {
+    Map<K, List<V>> grouped = new HashMap<>();
+    for (List<Map<K, List<V>>> mapOutput : mapped) {
+      mapOutput.get(partition).forEach((key, values) ->
+          grouped.computeIfAbsent(key, k -> new ArrayList<>()).addAll(values));
+    }
+    Map<K, V> reduced = new HashMap<>();
+    grouped.forEach((key, values) -> reduced.put(key, reducer.reduce(key, values)));
+    return reduced;
+  }
+
+  static <T> List<T> join(List<CompletableFuture<T>> tasks) {
+    List<T> results = new ArrayList<>(tasks.size());
+    try {
+      for (CompletableFuture<T> task : tasks) {
+        results.add(task.join());
+      }
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw e;
+    }
+    return results;
+  }
+}
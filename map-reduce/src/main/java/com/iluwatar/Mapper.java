@@ -26,31 +26,62 @@ package com.iluwatar;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 
 /**
- * The Mapper class is responsible for processing an input string
- * and generating a map of word occurrences.
+ * A Mapper processes an input string and emits intermediate key-value pairs, which the
+ * {@link MapReduceJob} groups by key and hands to a {@link Reducer}.
+ *
+ * @param <K> the type of the keys emitted
+ * @param <V> the type of the values emitted
  */
-public class Mapper {
-  private Mapper() {
-    throw new UnsupportedOperationException("Mapper is a utility class and cannot be instantiated.");
-  }
+@FunctionalInterface
+public interface Mapper<K, V> {
+
+  /**
+   * Processes one input and emits any number of key-value pairs.
+   *
+   * @param input The input string to be mapped.
+   * @param output Receives the pairs emitted.
+   */
+  void map(String input, BiConsumer<? super K, ? super V> output);
+
   /**
    * Splits a given input string into words and counts their occurrences.
    *
    * @param input The input string to be mapped.
    * @return A map where keys are words and values are their respective counts.
    */
-  public static Map<String, Integer> map(String input) {
+  static Map<String, Integer> map(String input) {
     Map<String, Integer> wordCount = new HashMap<>();
-    String[] words = input.split("\\s+");
-    for (String word : words) {
-      word = word.toLowerCase().replaceAll("[^a-z]", "");
-      if (!word.isEmpty()) {
-        wordCount.put(word, wordCount.getOrDefault(word, 0) + 1);
-      }
-    }
+    wordCount().map(input, (word, count) -> wordCount.merge(word, count, Integer::sum));
     return wordCount;
   }
+
+  /**
+   * A mapper which splits its input into lower case words and emits each word with a count of 1.
+   *
+   * @return The word count mapper.
+   */
+  static Mapper<String, Integer> wordCount() {
+    return (input, output) -> {
+      String[] words = input.split("\\s+");
+      StringBuilder letters = new StringBuilder();
+      for (String word : words) {
+        //keeps a to z only, like replaceAll("[^a-z]", "") without compiling the regex every time
+        String lowerCase = word.toLowerCase();
+        letters.setLength(0);
+        for (int i = 0; i < lowerCase.length(); i++) {
+          char c = lowerCase.charAt(i);
+          if (c >= 'a' && c <= 'z') {
+            letters.append(c);
+          }
+        }
+        if (letters.length() > 0) {
+          output.accept(letters.toString(), 1);
+        }
+      }
+    };
+  }
 }
@@ -0,0 +1,118 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A RecordCodec writes keys or values to the runs an {@link ExternalMapReduceJob} spills to disk
+ * and reads them back, and estimates how much heap they take while they are buffered.
+ *
+ * @param <T> the type of the keys or values
+ */
+public interface RecordCodec<T> {
+
+  /**
+   * Writes a key or value.
+   *
+   * @param out The stream to write to.
+   * @param value The key or value to write.
+   * @throws IOException If writing fails.
+   */
+  void write(DataOutput out, T value) throws IOException;
+
+  /**
+   * Reads a key or value written by {@link #write(DataOutput, Object)}.
+   *
+   * @param in The stream to read from.
+   * @return The key or value read.
+   * @throws IOException If reading fails.
+   */
+  T read(DataInput in) throws IOException;
+
+  /**
+   * Estimates the heap taken by a key or value, counting the object headers as well as the data.
+   *
+   * @param value The key or value.
+   * @return The estimated size in bytes.
+   */
+  long estimateSize(T value);
+
+  /**
+   * A codec for strings, which it writes as UTF-8 of any length.
+   *
+   * @return The string codec.
+   */
+  static RecordCodec<String> string() {
+    return new RecordCodec<>() {
+      @Override
+      public void write(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+
+      @Override
+      public String read(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+      }
+
+      @Override
+      public long estimateSize(String value) {
+        //the String and its byte array, each with a header, for Latin-1 text
+        return 56L + value.length();
+      }
+    };
+  }
+
+  /**
+   * A codec for integers.
+   *
+   * @return The integer codec.
+   */
+  static RecordCodec<Integer> integer() {
+    return new RecordCodec<>() {
+      @Override
+      public void write(DataOutput out, Integer value) throws IOException {
+        out.writeInt(value);
+      }
+
+      @Override
+      public Integer read(DataInput in) throws IOException {
+        return in.readInt();
+      }
+
+      @Override
+      public long estimateSize(Integer value) {
+        return 16;
+      }
+    };
+  }
+}
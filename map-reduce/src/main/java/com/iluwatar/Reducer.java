@@ -31,26 +31,56 @@ import java.util.List;
 import java.util.Map;
 
 /**
- * The Reducer class is responsible for aggregating word counts from the shuffled data.
+ * A Reducer aggregates all the values emitted for one key into a single value. A reducer which is
+ * associative and commutative, like a sum, can also serve as the combiner of a
+ * {@link MapReduceJob}, which reduces the values of a key on the map side before they are shuffled.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
  */
-public class Reducer {
-  private Reducer() {
-    throw new UnsupportedOperationException("Reducer is a utility class and cannot be instantiated.");
-  }
+@FunctionalInterface
+public interface Reducer<K, V> {
+
+  /**
+   * Aggregates the values of a key.
+   *
+   * @param key The key the values were emitted with.
+   * @param values The values, never empty.
+   * @return The aggregated value.
+   */
+  V reduce(K key, List<V> values);
+
   /**
    * Sums the occurrences of each word and sorts the results in descending order.
    *
    * @param grouped A map where keys are words and values are lists of their occurrences.
    * @return A sorted list of word counts in descending order.
    */
-  public static List<Map.Entry<String, Integer>> reduce(Map<String, List<Integer>> grouped) {
+  static List<Map.Entry<String, Integer>> reduce(Map<String, List<Integer>> grouped) {
+    Reducer<String, Integer> sum = summing();
     Map<String, Integer> reduced = new HashMap<>();
     for (Map.Entry<String, List<Integer>> entry : grouped.entrySet()) {
-      reduced.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).sum());
+      reduced.put(entry.getKey(), sum.reduce(entry.getKey(), entry.getValue()));
     }
 
     List<Map.Entry<String, Integer>> result = new ArrayList<>(reduced.entrySet());
     result.sort(Map.Entry.comparingByValue(Comparator.reverseOrder()));
     return result;
   }
+
+  /**
+   * A reducer which adds up integer values.
+   *
+   * @param <K> the type of the keys
+   * @return The summing reducer.
+   */
+  static <K> Reducer<K, Integer> summing() {
+    return (key, values) -> {
+      int sum = 0;
+      for (int i = 0; i < values.size(); i++) {
+        sum += values.get(i);
+      }
+      return sum;
+    };
+  }
 }
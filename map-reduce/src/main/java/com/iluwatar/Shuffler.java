@@ -53,4 +53,17 @@ public class Shuffler {
     }
     return grouped;
   }
+
+  /**
+   * Assigns a key to one of the reducers, so that all values of a key meet at the same reducer.
+   *
+   * @param key The key to assign.
+   * @param partitions The number of reducers.
+   * @return The index of the reducer, from 0 to partitions - 1.
+   */
+  public static int partition(Object key, int partitions) {
+    int hash = key.hashCode();
+    //the high bits take part too, as hash codes often differ in those only
+    return Math.floorMod(hash ^ (hash >>> 16), partitions);
+  }
 }
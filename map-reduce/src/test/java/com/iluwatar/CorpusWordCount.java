@@ -0,0 +1,136 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates a corpus of random words and counts them with an {@link ExternalMapReduceJob}, checking
+ * every count. It runs in a JVM of its own, started by {@link ExternalMapReduceJobTest} with a heap
+ * far smaller than the counts would take in memory.
+ */
+public class CorpusWordCount {
+  static final int VOCABULARY = 1_000_000;
+  private static final int FILES = 4;
+  private static final int WORDS_PER_LINE = 12;
+
+  /**
+   * Generates the corpus, counts it and exits with 0 if every count is right.
+   *
+   * @param args The directory to work in, the corpus size in megabytes and the memory budget of
+   *     the job in megabytes.
+   * @throws IOException If the corpus cannot be written or read.
+   */
+  public static void main(String[] args) throws IOException {
+    Path directory = Path.of(args[0]);
+    long bytes = Long.parseLong(args[1]) * 1024 * 1024;
+    long budget = Long.parseLong(args[2]) * 1024 * 1024;
+
+    int[] expected = new int[VOCABULARY];
+    List<Path> inputs = generate(directory, bytes, expected);
+
+    AtomicLong keys = new AtomicLong();
+    AtomicLong mismatches = new AtomicLong();
+    ExternalMapReduceJob<String, Integer> job = ExternalMapReduceJob.<String, Integer>builder()
+        .mapper(Mapper.wordCount())
+        .combiner(Reducer.summing())
+        .reducer(Reducer.summing())
+        .keys(RecordCodec.string(), Comparator.naturalOrder())
+        .values(RecordCodec.integer())
+        .partitions(2)
+        .mapWorkers(2)
+        .memoryBudget(budget)
+        .spillDirectory(directory)
+        .build();
+    job.run(inputs, (word, count) -> {
+      keys.incrementAndGet();
+      if (expected[fromWord(word)] != count) {
+        mismatches.incrementAndGet();
+      }
+    });
+
+    long distinct = 0;
+    for (int count : expected) {
+      if (count > 0) {
+        distinct++;
+      }
+    }
+    System.out.println("keys=" + keys + " expected=" + distinct + " mismatches=" + mismatches
+        + " spills=" + job.getSpillCount() + " maxMemory=" + Runtime.getRuntime().maxMemory());
+    System.exit(keys.get() == distinct && mismatches.get() == 0 ? 0 : 1);
+  }
+
+  static List<Path> generate(Path directory, long bytes, int[] counts) throws IOException {
+    Random random = new Random(17);
+    List<Path> inputs = new ArrayList<>();
+    for (int file = 0; file < FILES; file++) {
+      Path input = directory.resolve("corpus-" + file + ".txt");
+      inputs.add(input);
+      long written = 0;
+      try (BufferedWriter writer = Files.newBufferedWriter(input, StandardCharsets.UTF_8)) {
+        while (written < bytes / FILES) {
+          StringBuilder line = new StringBuilder();
+          for (int i = 0; i < WORDS_PER_LINE; i++) {
+            int id = random.nextInt(VOCABULARY);
+            counts[id]++;
+            line.append(toWord(id)).append(' ');
+          }
+          writer.write(line.toString());
+          writer.newLine();
+          written += line.length() + 1;
+        }
+      }
+    }
+    return inputs;
+  }
+
+  //the word mapper keeps letters only, so ids are written in base 26 with letters for digits
+
+  static String toWord(int id) {
+    StringBuilder word = new StringBuilder();
+    do {
+      word.append((char) ('a' + id % 26));
+      id /= 26;
+    } while (id > 0);
+    return word.toString();
+  }
+
+  static int fromWord(String word) {
+    int id = 0;
+    for (int i = word.length() - 1; i >= 0; i--) {
+      id = id * 26 + word.charAt(i) - 'a';
+    }
+    return id;
+  }
+}
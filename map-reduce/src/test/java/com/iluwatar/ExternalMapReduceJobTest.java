@@ -0,0 +1,169 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalMapReduceJobTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void testSpilledCountsMatchInMemoryCounts() throws IOException {
+    int[] counts = new int[CorpusWordCount.VOCABULARY];
+    List<Path> inputs = CorpusWordCount.generate(directory, 1024 * 1024, counts);
+    List<String> lines = new ArrayList<>();
+    for (Path input : inputs) {
+      lines.addAll(Files.readAllLines(input, StandardCharsets.UTF_8));
+    }
+    Map<String, Integer> expected = new MapReduceJob<>(Mapper.wordCount(), Reducer.summing(),
+        Reducer.summing(), 2, Runnable::run).run(lines);
+
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      ExternalMapReduceJob<String, Integer> job = wordCount()
+          .memoryBudget(256 * 1024)
+          .executor(executor)
+          .build();
+      Map<String, Integer> result = new ConcurrentHashMap<>();
+      job.run(inputs, (word, count) -> assertNull(result.put(word, count)));
+
+      assertEquals(expected, result);
+      assertTrue(job.getSpillCount() > 2, "spills: " + job.getSpillCount());
+    } finally {
+      executor.shutdown();
+    }
+    //the runs are gone, only the corpus is left
+    try (var files = Files.list(directory)) {
+      assertEquals(inputs.size(), files.count());
+    }
+  }
+
+  @Test
+  void testEachPartitionIsOutputInKeyOrder() throws IOException {
+    Path input = directory.resolve("input.txt");
+    Files.write(input, List.of("pear apple fig", "kiwi apple", "banana fig fig"));
+    Map<Integer, List<String>> keysByPartition = new TreeMap<>();
+    Map<String, Integer> result = new TreeMap<>();
+
+    ExternalMapReduceJob<String, Integer> job = wordCount()
+        .combiner(null)
+        .memoryBudget(1)
+        .executor(Runnable::run)
+        .build();
+    job.run(List.of(input), (word, count) -> {
+      keysByPartition.computeIfAbsent(Shuffler.partition(word, 3), p -> new ArrayList<>())
+          .add(word);
+      result.put(word, count);
+    });
+
+    assertEquals(Map.of("apple", 2, "banana", 1, "fig", 3, "kiwi", 1, "pear", 1), result);
+    for (List<String> keys : keysByPartition.values()) {
+      List<String> sorted = new ArrayList<>(keys);
+      Collections.sort(sorted);
+      assertEquals(sorted, keys);
+    }
+    //a budget of one byte spills after every pair
+    assertEquals(8, job.getSpillCount());
+  }
+
+  @Test
+  void testManyRunsAreMergedInPasses() throws IOException {
+    int[] counts = new int[CorpusWordCount.VOCABULARY];
+    List<Path> inputs = CorpusWordCount.generate(directory, 256 * 1024, counts);
+    for (Reducer<String, Integer> combiner : Arrays.asList(Reducer.<String>summing(), null)) {
+      ExternalMapReduceJob<String, Integer> job = wordCount()
+          .combiner(combiner)
+          .memoryBudget(8 * 1024)
+          .mergeFanIn(3)
+          .executor(Runnable::run)
+          .build();
+      Map<String, Integer> result = new HashMap<>();
+      job.run(inputs, (word, count) -> assertNull(result.put(word, count)));
+
+      //a fan-in of 3 takes several passes over this many runs
+      assertTrue(job.getSpillCount() > 27, "spills: " + job.getSpillCount());
+      for (int id = 0; id < counts.length; id++) {
+        if (counts[id] > 0) {
+          assertEquals(counts[id], result.get(CorpusWordCount.toWord(id)));
+        }
+      }
+      assertEquals(Arrays.stream(counts).filter(count -> count > 0).count(), result.size());
+    }
+  }
+
+  @Test
+  void testMissingInputFailsTheJob() {
+    ExternalMapReduceJob<String, Integer> job = wordCount().build();
+    assertThrows(IOException.class,
+        () -> job.run(List.of(directory.resolve("missing.txt")), (word, count) -> { }));
+  }
+
+  @Test
+  void testLargeCorpusInSmallHeap() throws Exception {
+    //-Dmapreduce.corpus.megabytes=4096 counts a multi-GB corpus, the default keeps the build quick
+    String megabytes = System.getProperty("mapreduce.corpus.megabytes", "16");
+    String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    String classpath = location(CorpusWordCount.class) + File.pathSeparator
+        + location(ExternalMapReduceJob.class);
+    Process process = new ProcessBuilder(java, "-Xmx32m", "-cp", classpath,
+        CorpusWordCount.class.getName(), directory.toString(), megabytes, "8")
+        .redirectErrorStream(true)
+        .start();
+    String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+    assertTrue(process.waitFor(10, TimeUnit.MINUTES));
+    assertEquals(0, process.exitValue(), output);
+  }
+
+  private static String location(Class<?> type) throws Exception {
+    return Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+  }
+
+  private ExternalMapReduceJob.Builder<String, Integer> wordCount() {
+    return ExternalMapReduceJob.<String, Integer>builder()
+        .mapper(Mapper.wordCount())
+        .combiner(Reducer.summing())
+        .reducer(Reducer.summing())
+        .keys(RecordCodec.string(), Comparator.naturalOrder())
+        .values(RecordCodec.integer())
+        .partitions(3)
+        .mapWorkers(2)
+        .spillDirectory(directory);
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapReduceJobTest {
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdown();
+  }
+
+  @Test
+  void testWordCountMatchesSequentialCount() {
+    List<String> inputs = randomLines(2000);
+    Map<String, Integer> expected = new HashMap<>();
+    for (String input : inputs) {
+      Mapper.map(input).forEach((word, count) -> expected.merge(word, count, Integer::sum));
+    }
+
+    for (int partitions : new int[] {1, 3, 8}) {
+      MapReduceJob<String, Integer> job = new MapReduceJob<>(Mapper.wordCount(),
+          Reducer.summing(), Reducer.summing(), partitions, executor);
+      assertEquals(expected, job.run(inputs));
+    }
+    MapReduceJob<String, Integer> withoutCombiner =
+        new MapReduceJob<>(Mapper.wordCount(), Reducer.summing(), 4, ForkJoinPool.commonPool());
+    assertEquals(expected, withoutCombiner.run(inputs));
+  }
+
+  @Test
+  void testCombinerShrinksTheShuffle() {
+    List<String> inputs = Collections.nCopies(100, "spam spam spam spam spam spam spam spam");
+    AtomicInteger valuesReduced = new AtomicInteger();
+    Reducer<String, Integer> countingReducer = (key, values) -> {
+      valuesReduced.addAndGet(values.size());
+      return Reducer.<String>summing().reduce(key, values);
+    };
+
+    MapReduceJob<String, Integer> job = new MapReduceJob<>(Mapper.wordCount(), Reducer.summing(),
+        countingReducer, 2, executor);
+
+    assertEquals(Map.of("spam", 800), job.run(inputs));
+    //one combined count per map task, instead of all 800
+    assertTrue(valuesReduced.get() <= 8);
+  }
+
+  @Test
+  void testJobOtherThanWordCount() {
+    List<String> inputs = Arrays.asList("apple avocado", "banana", "blueberry apricot", "cherry");
+    Mapper<Character, String> byInitial = (input, output) -> {
+      for (String word : input.split(" ")) {
+        output.accept(word.charAt(0), word);
+      }
+    };
+    Reducer<Character, String> longest = (key, values) ->
+        values.stream().max(Comparator.comparingInt(String::length)).orElseThrow();
+
+    Map<Character, String> result =
+        new MapReduceJob<>(byInitial, longest, longest, 3, executor).run(inputs);
+
+    assertEquals(Map.of('a', "avocado", 'b', "blueberry", 'c', "cherry"), result);
+  }
+
+  @Test
+  void testEmptyInput() {
+    MapReduceJob<String, Integer> job =
+        new MapReduceJob<>(Mapper.wordCount(), Reducer.summing(), 2, executor);
+    assertTrue(job.run(List.of()).isEmpty());
+  }
+
+  @Test
+  void testFailingMapperFailsTheJob() {
+    Mapper<String, Integer> failing = (input, output) -> {
+      throw new IllegalStateException("bad input: " + input);
+    };
+    MapReduceJob<String, Integer> job =
+        new MapReduceJob<>(failing, Reducer.summing(), 2, executor);
+
+    IllegalStateException e =
+        assertThrows(IllegalStateException.class, () -> job.run(List.of("x")));
+    assertEquals("bad input: x", e.getMessage());
+  }
+
+  @Test
+  void testInvalidPartitions() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new MapReduceJob<>(Mapper.wordCount(), Reducer.summing(), 0, executor));
+  }
+
+  private static List<String> randomLines(int count) {
+    String[] words = {"alpha", "beta", "Gamma", "delta", "epsilon", "zeta!", "eta", "theta"};
+    Random random = new Random(1);
+    List<String> lines = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      StringBuilder line = new StringBuilder();
+      int length = random.nextInt(20);
+      for (int j = 0; j < length; j++) {
+        line.append(words[random.nextInt(words.length)]).append(' ');
+      }
+      lines.add(line.toString());
+    }
+    return lines;
+  }
+}
@@ -24,9 +24,14 @@
  */
 package com.iluwatar.promise;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -37,12 +42,17 @@ import java.util.function.Function;
  * the final value, the asynchronous method returns a promise of having a value at some point in the
  * future.
  *
+ * <p>Any number of dependent promises and error handlers may be added, from any thread, before or
+ * after the promise is fulfilled; each runs once, in the order it was added. The plain variants run
+ * on the thread which fulfills the promise, or on the adding thread when the promise is already
+ * fulfilled, and the {@code Async} variants on the given executor.
+ *
  * @param <T> type of result.
  */
 public class Promise<T> extends PromiseSupport<T> {
 
-  private Runnable fulfillmentAction;
-  private Consumer<? super Throwable> exceptionHandler;
+  // Runs the action on the calling thread
+  private static final Executor DIRECT = Runnable::run;
 
   /**
    * Creates a promise that will be fulfilled in the future.
@@ -52,18 +62,18 @@ public class Promise<T> extends PromiseSupport<T> {
   }
 
   /**
-   * Fulfills the promise with the provided value.
+   * Fulfills the promise with the provided value. Only the first fulfillment has any effect.
    *
    * @param value the fulfilled value that can be accessed using {@link #get()}.
    */
   @Override
   public void fulfill(T value) {
     super.fulfill(value);
-    postFulfillment();
   }
 
   /**
-   * Fulfills the promise with exception due to error in execution.
+   * Fulfills the promise with exception due to error in execution. Only the first fulfillment has
+   * any effect.
    *
    * @param exception the exception will be wrapped in {@link ExecutionException} when accessing the
    *                  value using {@link #get()}.
@@ -71,22 +81,6 @@ public class Promise<T> extends PromiseSupport<T> {
   @Override
   public void fulfillExceptionally(Exception exception) {
     super.fulfillExceptionally(exception);
-    handleException(exception);
-    postFulfillment();
-  }
-
-  private void handleException(Exception exception) {
-    if (exceptionHandler == null) {
-      return;
-    }
-    exceptionHandler.accept(exception);
-  }
-
-  private void postFulfillment() {
-    if (fulfillmentAction == null) {
-      return;
-    }
-    fulfillmentAction.run();
   }
 
   /**
@@ -98,13 +92,7 @@ public class Promise<T> extends PromiseSupport<T> {
    * @return a promise that represents the result of running the task provided.
    */
   public Promise<T> fulfillInAsync(final Callable<T> task, Executor executor) {
-    executor.execute(() -> {
-      try {
-        fulfill(task.call());
-      } catch (Exception ex) {
-        fulfillExceptionally(ex);
-      }
-    });
+    execute(this, executor, () -> fulfill(task.call()));
     return this;
   }
 
@@ -116,20 +104,25 @@ public class Promise<T> extends PromiseSupport<T> {
    * @return a new promise.
    */
   public Promise<Void> thenAccept(Consumer<? super T> action) {
-    var dest = new Promise<Void>();
-    fulfillmentAction = new ConsumeAction(this, dest, action);
-    return dest;
+    return thenApply(value -> {
+      action.accept(value);
+      return null;
+    });
   }
 
   /**
-   * Set the exception handler on this promise.
+   * Set an exception handler on this promise, in addition to those already set.
    *
    * @param exceptionHandler a consumer that will handle the exception occurred while fulfilling the
    *                         promise.
    * @return this
    */
   public Promise<T> onError(Consumer<? super Throwable> exceptionHandler) {
-    this.exceptionHandler = exceptionHandler;
+    whenComplete(outcome -> {
+      if (outcome.exception() != null) {
+        exceptionHandler.accept(outcome.exception());
+      }
+    });
     return this;
   }
 
@@ -141,61 +134,147 @@ public class Promise<T> extends PromiseSupport<T> {
    * @return a new promise.
    */
   public <V> Promise<V> thenApply(Function<? super T, V> func) {
-    Promise<V> dest = new Promise<>();
-    fulfillmentAction = new TransformAction<>(this, dest, func);
+    return thenApplyAsync(func, DIRECT);
+  }
+
+  /**
+   * Returns a new promise that, when this promise is fulfilled normally, is fulfilled with result
+   * of this promise as argument to the function provided, which runs on the executor.
+   *
+   * @param func     function to be executed.
+   * @param executor the executor in which the function should be run.
+   * @return a new promise.
+   */
+  public <V> Promise<V> thenApplyAsync(Function<? super T, V> func, Executor executor) {
+    var dest = new Promise<V>();
+    var fulfilled = outcome();
+    if (fulfilled != null && fulfilled.exception() == null && executor == DIRECT) {
+      apply(dest, func, fulfilled.value());
+      return dest;
+    }
+    whenComplete(outcome -> {
+      if (outcome.exception() != null) {
+        dest.fulfillExceptionally(outcome.exception());
+      } else if (executor == DIRECT) {
+        apply(dest, func, outcome.value());
+      } else {
+        execute(dest, executor, () -> apply(dest, func, outcome.value()));
+      }
+    });
     return dest;
   }
 
   /**
-   * Accesses the value from source promise and calls the consumer, then fulfills the destination
-   * promise.
+   * Returns a new promise that, when this promise is fulfilled normally, is fulfilled like the
+   * promise the function returns for the result of this promise.
+   *
+   * @param func function returning the next promise.
+   * @return a new promise.
    */
-  private class ConsumeAction implements Runnable {
+  public <V> Promise<V> thenCompose(Function<? super T, Promise<V>> func) {
+    return thenComposeAsync(func, DIRECT);
+  }
 
-    private final Promise<T> src;
-    private final Promise<Void> dest;
-    private final Consumer<? super T> action;
+  /**
+   * Returns a new promise that, when this promise is fulfilled normally, is fulfilled like the
+   * promise the function returns for the result of this promise. The function runs on the executor.
+   *
+   * @param func     function returning the next promise.
+   * @param executor the executor in which the function should be run.
+   * @return a new promise.
+   */
+  public <V> Promise<V> thenComposeAsync(Function<? super T, Promise<V>> func,
+      Executor executor) {
+    var dest = new Promise<V>();
+    whenComplete(outcome -> {
+      if (outcome.exception() != null) {
+        dest.fulfillExceptionally(outcome.exception());
+      } else {
+        execute(dest, executor, () -> func.apply(outcome.value()).whenComplete(dest::complete));
+      }
+    });
+    return dest;
+  }
 
-    private ConsumeAction(Promise<T> src, Promise<Void> dest, Consumer<? super T> action) {
-      this.src = src;
-      this.dest = dest;
-      this.action = action;
+  /**
+   * Returns a new promise that is fulfilled with the results of all the given promises, in their
+   * order, or exceptionally as soon as one of them is.
+   *
+   * @param promises the promises to wait for.
+   * @return a new promise.
+   */
+  @SafeVarargs
+  public static <T> Promise<List<T>> allOf(Promise<? extends T>... promises) {
+    var dest = new Promise<List<T>>();
+    if (promises.length == 0) {
+      dest.fulfill(List.of());
+      return dest;
     }
-
-    @Override
-    public void run() {
-      try {
-        action.accept(src.get());
-        dest.fulfill(null);
-      } catch (Throwable throwable) {
-        dest.fulfillExceptionally((Exception) throwable.getCause());
-      }
+    var results = new AtomicReferenceArray<T>(promises.length);
+    var remaining = new AtomicInteger(promises.length);
+    for (var i = 0; i < promises.length; i++) {
+      var index = i;
+      promises[i].thenAccept(value -> {
+        results.set(index, value);
+        if (remaining.decrementAndGet() == 0) {
+          var values = new Object[results.length()];
+          Arrays.setAll(values, results::get);
+          @SuppressWarnings("unchecked")
+          var list = (List<T>) Arrays.asList(values);
+          dest.fulfill(list);
+        }
+      }).onError(error -> dest.fulfillExceptionally((Exception) error));
     }
+    return dest;
   }
 
   /**
-   * Accesses the value from source promise, then fulfills the destination promise using the
-   * transformed value. The source value is transformed using the transformation function.
+   * Returns a new promise that is fulfilled like the first of the given promises to be fulfilled.
+   *
+   * @param promises the promises to wait for.
+   * @return a new promise.
    */
-  private class TransformAction<V> implements Runnable {
-
-    private final Promise<T> src;
-    private final Promise<V> dest;
-    private final Function<? super T, V> func;
+  @SafeVarargs
+  public static <T> Promise<T> anyOf(Promise<? extends T>... promises) {
+    var dest = new Promise<T>();
+    for (var promise : promises) {
+      promise.whenComplete(outcome ->
+          dest.complete(new Outcome<>(outcome.value(), outcome.exception())));
+    }
+    return dest;
+  }
 
-    private TransformAction(Promise<T> src, Promise<V> dest, Function<? super T, V> func) {
-      this.src = src;
-      this.dest = dest;
-      this.func = func;
+  private static <T, V> void apply(Promise<V> dest, Function<? super T, V> func, T value) {
+    try {
+      dest.fulfill(func.apply(value));
+    } catch (Exception ex) {
+      dest.fulfillExceptionally(ex);
     }
+  }
 
-    @Override
-    public void run() {
-      try {
-        dest.fulfill(func.apply(src.get()));
-      } catch (Throwable throwable) {
-        dest.fulfillExceptionally((Exception) throwable.getCause());
-      }
+  /**
+   * Runs the task on the executor, fulfilling the promise exceptionally when it fails or cannot be
+   * run at all.
+   */
+  private static void execute(Promise<?> promise, Executor executor, Task task) {
+    try {
+      executor.execute(() -> {
+        try {
+          task.run();
+        } catch (Exception ex) {
+          promise.fulfillExceptionally(ex);
+        }
+      });
+    } catch (RejectedExecutionException ex) {
+      promise.fulfillExceptionally(ex);
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Work which fulfills a promise, and may fail while doing so.
+   */
+  @FunctionalInterface
+  private interface Task {
+    void run() throws Exception;
+  }
+}
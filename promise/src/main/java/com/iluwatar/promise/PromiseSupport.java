@@ -24,47 +24,158 @@
  */
 package com.iluwatar.promise;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * A really simplified implementation of future that allows completing it successfully with a value
  * or exceptionally with an exception.
+ *
+ * <p>It takes no locks. The outcome is set once with compare-and-set, and the actions waiting for
+ * it are pushed on a lock-free stack, which the completing thread takes over in one swap, leaving a
+ * marker behind so that actions pushed later run at once. Threads blocked in {@link #get()} wait on
+ * that stack as well, parked until their waiter unparks them. A wait which times out or is
+ * interrupted marks its waiter dead and unlinks it, so the stack does not grow with every poll.
  */
 class PromiseSupport<T> implements Future<T> {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(PromiseSupport.class);
 
-  private static final int RUNNING = 1;
-  private static final int FAILED = 2;
-  private static final int COMPLETED = 3;
+  private static final VarHandle OUTCOME;
+  private static final VarHandle CONTINUATIONS;
+  // Top of the stack of a fulfilled promise
+  private static final Continuation<?> FULFILLED = new Continuation<>(outcome -> { }, null);
 
-  private final Object lock;
+  static {
+    try {
+      var lookup = MethodHandles.lookup();
+      OUTCOME = lookup.findVarHandle(PromiseSupport.class, "outcome", Outcome.class);
+      CONTINUATIONS =
+          lookup.findVarHandle(PromiseSupport.class, "continuations", Continuation.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
 
-  private volatile int state = RUNNING;
-  private T value;
-  private Exception exception;
+  private volatile Outcome<T> outcome;
+  private volatile Continuation<T> continuations;
 
   PromiseSupport() {
-    this.lock = new Object();
+    // Pending until fulfilled
   }
 
   void fulfill(T value) {
-    this.value = value;
-    this.state = COMPLETED;
-    synchronized (lock) {
-      lock.notifyAll();
-    }
+    complete(new Outcome<>(value, null));
   }
 
   void fulfillExceptionally(Exception exception) {
-    this.exception = exception;
-    this.state = FAILED;
-    synchronized (lock) {
-      lock.notifyAll();
+    complete(new Outcome<>(null, exception));
+  }
+
+  /**
+   * Sets the outcome unless the promise is already fulfilled, and runs the actions waiting for it
+   * in the order they were added.
+   */
+  @SuppressWarnings("unchecked")
+  boolean complete(Outcome<T> outcome) {
+    if (!OUTCOME.compareAndSet(this, null, outcome)) {
+      return false;
+    }
+    var stack = (Continuation<T>) CONTINUATIONS.getAndSet(this, FULFILLED);
+    Continuation<T> inOrder = null;
+    for (var node = stack; node != null; node = node.next) {
+      if (!node.isDead()) {
+        inOrder = new Continuation<>(node.action, inOrder);
+      }
+    }
+    for (var node = inOrder; node != null; node = node.next) {
+      run(node.action, outcome);
+    }
+    return true;
+  }
+
+  /**
+   * The outcome, or null while the promise is pending.
+   */
+  Outcome<T> outcome() {
+    return outcome;
+  }
+
+  /**
+   * Runs the action with the outcome when the promise is fulfilled, at once when it already is.
+   */
+  void whenComplete(Consumer<Outcome<T>> action) {
+    var head = continuations;
+    while (head != FULFILLED) {
+      if (CONTINUATIONS.compareAndSet(this, head, new Continuation<>(action, head))) {
+        return;
+      }
+      head = continuations;
+    }
+    run(action, outcome);
+  }
+
+  /**
+   * The number of actions waiting for the outcome, including threads blocked in {@link #get()}.
+   */
+  int pendingActions() {
+    var count = 0;
+    for (var node = continuations; node != null && node != FULFILLED; node = node.next) {
+      if (!node.isDead()) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Marks the waiter dead and unlinks every dead waiter from the stack.
+   */
+  private void removeWaiter(Waiter<T> waiter) {
+    waiter.thread = null;
+    var unlinked = false;
+    while (!unlinked) {
+      unlinked = unlinkDeadWaiters();
+    }
+  }
+
+  /**
+   * Unlinks the dead waiters, returning false if it raced with another thread and has to start
+   * over.
+   */
+  private boolean unlinkDeadWaiters() {
+    Continuation<T> previous = null;
+    var node = continuations;
+    while (node != null && node != FULFILLED) {
+      var next = node.next;
+      if (!node.isDead()) {
+        previous = node;
+      } else if (previous != null) {
+        previous.next = next;
+        if (previous.isDead()) {
+          return false;
+        }
+      } else if (!CONTINUATIONS.compareAndSet(this, node, next)) {
+        return false;
+      }
+      node = next;
+    }
+    return true;
+  }
+
+  private static <T> void run(Consumer<Outcome<T>> action, Outcome<T> outcome) {
+    try {
+      action.accept(outcome);
+    } catch (RuntimeException e) {
+      LOGGER.error("Promise action failed", e);
     }
   }
 
@@ -80,38 +191,101 @@ class PromiseSupport<T> implements Future<T> {
 
   @Override
   public boolean isDone() {
-    return state > RUNNING;
+    return outcome != null;
   }
 
   @Override
   public T get() throws InterruptedException, ExecutionException {
-    synchronized (lock) {
-      while (state == RUNNING) {
-        lock.wait();
+    var current = outcome;
+    if (current == null) {
+      var waiter = new Waiter<T>();
+      whenComplete(waiter);
+      while ((current = outcome) == null) {
+        LockSupport.park(this);
+        if (Thread.interrupted()) {
+          removeWaiter(waiter);
+          throw new InterruptedException();
+        }
       }
     }
-    if (state == COMPLETED) {
-      return value;
-    }
-    throw new ExecutionException(exception);
+    return current.get();
   }
 
+  /**
+   * Waits at most the given time for the promise to be fulfilled. An interrupt does not end the
+   * wait, it is kept for the caller.
+   *
+   * @throws ExecutionException with the exception the promise was fulfilled with, or with a
+   *                            {@link TimeoutException} when it is not fulfilled in time
+   */
   @Override
   public T get(long timeout, TimeUnit unit) throws ExecutionException {
-    synchronized (lock) {
-      while (state == RUNNING) {
-        try {
-          lock.wait(unit.toMillis(timeout));
-        } catch (InterruptedException e) {
-          LOGGER.warn("Interrupted!", e);
+    var current = outcome;
+    if (current == null) {
+      var waiter = new Waiter<T>();
+      whenComplete(waiter);
+      var deadline = System.nanoTime() + unit.toNanos(timeout);
+      var interrupted = false;
+      try {
+        while ((current = outcome) == null) {
+          var remaining = deadline - System.nanoTime();
+          if (remaining <= 0) {
+            removeWaiter(waiter);
+            throw new ExecutionException(new TimeoutException("Promise not fulfilled in time"));
+          }
+          LockSupport.parkNanos(this, remaining);
+          interrupted |= Thread.interrupted();
+        }
+      } finally {
+        if (interrupted) {
+          LOGGER.warn("Interrupted!");
           Thread.currentThread().interrupt();
         }
       }
     }
+    return current.get();
+  }
+
+  /**
+   * The value or the exception a promise was fulfilled with.
+   */
+  record Outcome<T>(T value, Exception exception) {
 
-    if (state == COMPLETED) {
+    T get() throws ExecutionException {
+      if (exception != null) {
+        throw new ExecutionException(exception);
+      }
       return value;
     }
-    throw new ExecutionException(exception);
+  }
+
+  private static final class Continuation<T> {
+    private final Consumer<Outcome<T>> action;
+    // Only changed to unlink dead waiters
+    private volatile Continuation<T> next;
+
+    Continuation(Consumer<Outcome<T>> action, Continuation<T> next) {
+      this.action = action;
+      this.next = next;
+    }
+
+    boolean isDead() {
+      return action instanceof Waiter<?> waiter && waiter.thread == null;
+    }
+  }
+
+  /**
+   * Unparks a thread blocked in {@link #get()}, dead once the thread has stopped waiting.
+   */
+  private static final class Waiter<T> implements Consumer<Outcome<T>> {
+    private volatile Thread thread = Thread.currentThread();
+
+    @Override
+    public void accept(Outcome<T> outcome) {
+      var waiting = thread;
+      if (waiting != null) {
+        LockSupport.unpark(waiting);
+      }
+    }
   }
 }
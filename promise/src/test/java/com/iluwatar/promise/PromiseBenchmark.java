@@ -0,0 +1,104 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.promise;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Cost of a chain of 1 to 100 transformations with {@link Promise} and with
+ * {@link CompletableFuture}, either built before the first stage completes, so that completing it
+ * runs the whole chain, or built on a completed stage, so that every transformation runs at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromiseBenchmark {
+
+  @Param({"1", "10", "100"})
+  private int depth;
+
+  @Benchmark
+  public Integer promiseThenFulfill() throws ExecutionException, InterruptedException {
+    var first = new Promise<Integer>();
+    var last = first;
+    for (var i = 0; i < depth; i++) {
+      last = last.thenApply(value -> value + 1);
+    }
+    first.fulfill(0);
+    return last.get();
+  }
+
+  @Benchmark
+  public Integer completableFutureThenComplete() {
+    var first = new CompletableFuture<Integer>();
+    var last = first;
+    for (var i = 0; i < depth; i++) {
+      last = last.thenApply(value -> value + 1);
+    }
+    first.complete(0);
+    return last.join();
+  }
+
+  @Benchmark
+  public Integer promiseFulfilled() throws ExecutionException, InterruptedException {
+    var last = new Promise<Integer>();
+    last.fulfill(0);
+    for (var i = 0; i < depth; i++) {
+      last = last.thenApply(value -> value + 1);
+    }
+    return last.get();
+  }
+
+  @Benchmark
+  public Integer completableFutureCompleted() {
+    var last = CompletableFuture.completedFuture(0);
+    for (var i = 0; i < depth; i++) {
+      last = last.thenApply(value -> value + 1);
+    }
+    return last.join();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(PromiseBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -26,17 +26,26 @@ package com.iluwatar.promise;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -226,6 +235,140 @@ class PromiseTest {
     verify(exceptionHandler).accept(eq(exception));
   }
 
+  @Test
+  void everyDependentPromiseIsFulfilled() throws InterruptedException, ExecutionException {
+    var first = promise.thenApply(value -> value + 1);
+    var second = promise.thenApply(value -> value + 2);
+    promise.fulfill(0);
+
+    assertEquals(1, first.get());
+    assertEquals(2, second.get());
+  }
+
+  @Test
+  void dependentPromiseOfAnAlreadyFulfilledPromiseIsFulfilledImmediately() {
+    promise.fulfill(1);
+
+    var dependentPromise = promise.thenApply(value -> value + 1);
+
+    assertTrue(dependentPromise.isDone());
+  }
+
+  @Test
+  void waitingSomeTimeForAPromiseWhichIsNeverFulfilledTimesOut() {
+    var exception = assertThrows(ExecutionException.class,
+        () -> promise.get(10, TimeUnit.MILLISECONDS));
+
+    assertInstanceOf(TimeoutException.class, exception.getCause());
+  }
+
+  @Test
+  void pollingWithShortTimeoutsLeavesNoWaitersBehind() throws Exception {
+    var runs = new AtomicInteger();
+    var dependentPromise = promise.thenAccept(value -> runs.incrementAndGet());
+    for (var i = 0; i < 1000; i++) {
+      assertThrows(ExecutionException.class, () -> promise.get(1, TimeUnit.MICROSECONDS));
+    }
+    assertEquals(1, promise.pendingActions());
+
+    var interrupted = new Thread(() -> assertThrows(InterruptedException.class, promise::get));
+    interrupted.start();
+    while (promise.pendingActions() < 2) {
+      Thread.onSpinWait();
+    }
+    interrupted.interrupt();
+    interrupted.join();
+    assertEquals(1, promise.pendingActions());
+
+    promise.fulfill(0);
+    dependentPromise.get();
+    assertEquals(1, runs.get());
+  }
+
+  @Test
+  void asyncFunctionRunsOnTheExecutor() throws InterruptedException, ExecutionException {
+    var executorThread = new Thread[1];
+    var singleThread = Executors.newSingleThreadExecutor(task -> {
+      executorThread[0] = new Thread(task);
+      return executorThread[0];
+    });
+    var dependentPromise = promise.thenApplyAsync(value -> Thread.currentThread(), singleThread);
+    promise.fulfill(0);
+
+    assertSame(executorThread[0], dependentPromise.get());
+  }
+
+  @Test
+  void composedPromiseIsFulfilledLikeThePromiseTheFunctionReturns()
+      throws InterruptedException, ExecutionException {
+    var composedPromise = promise.thenCompose(value -> new Promise<String>()
+        .fulfillInAsync(() -> String.valueOf(value), executor));
+    promise.fulfill(NumberCrunchingTask.CRUNCHED_NUMBER);
+
+    assertEquals(String.valueOf(NumberCrunchingTask.CRUNCHED_NUMBER), composedPromise.get());
+  }
+
+  @Test
+  void allOfIsFulfilledWithTheValuesInOrder() throws InterruptedException, ExecutionException {
+    var other = new Promise<Integer>();
+    var all = Promise.allOf(promise, other);
+    other.fulfill(2);
+    assertFalse(all.isDone());
+    promise.fulfill(1);
+
+    assertEquals(List.of(1, 2), all.get());
+  }
+
+  @Test
+  void allOfIsFulfilledExceptionallyWhenAnyPromiseFails() {
+    var all = Promise.allOf(promise, new Promise<Integer>());
+    var exception = new Exception("barf!");
+    promise.fulfillExceptionally(exception);
+
+    var thrown = assertThrows(ExecutionException.class, all::get);
+    assertSame(exception, thrown.getCause());
+  }
+
+  @Test
+  void anyOfIsFulfilledByTheFirstPromise() throws InterruptedException, ExecutionException {
+    var other = new Promise<Integer>();
+    var any = Promise.anyOf(promise, other);
+    other.fulfill(2);
+    promise.fulfill(1);
+
+    assertEquals(2, any.get());
+  }
+
+  @Test
+  void actionsAddedWhileThePromiseIsFulfilledRunExactlyOnce() throws Exception {
+    var threads = 4;
+    var actions = 1000;
+    var runs = new AtomicInteger();
+    var start = new CountDownLatch(1);
+    var pool = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> adders = new ArrayList<>();
+      for (var i = 0; i < threads; i++) {
+        adders.add(pool.submit(() -> {
+          start.await();
+          for (var j = 0; j < actions; j++) {
+            promise.thenAccept(value -> runs.incrementAndGet());
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      promise.fulfill(0);
+      for (var adder : adders) {
+        adder.get();
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    assertEquals(threads * actions, runs.get());
+  }
+
   private static class NumberCrunchingTask implements Callable<Integer> {
 
     private static final Integer CRUNCHED_NUMBER = Integer.MAX_VALUE;
@@ -84,7 +84,8 @@ import java.util.List;
  * </ul>
  * The application utilizes single thread to listen for requests on all ports. It does not create a
  * separate thread for each client, which provides better scalability under load (number of clients
- * increase).
+ * increase). For even more clients the reactor can hand accepted connections to several worker
+ * reactors, each running its own event loop, see {@link #App(Dispatcher, int)}.
  * The example uses Java NIO framework to implement the Reactor.
  */
 public class App {
@@ -92,6 +93,7 @@ public class App {
   private NioReactor reactor;
   private final List<AbstractNioChannel> channels = new ArrayList<>();
   private final Dispatcher dispatcher;
+  private final int workerCount;
 
   /**
    * Creates an instance of App which will use provided dispatcher for dispatching events on
@@ -100,7 +102,19 @@ public class App {
    * @param dispatcher the dispatcher that will be used to dispatch events.
    */
   public App(Dispatcher dispatcher) {
+    this(dispatcher, 0);
+  }
+
+  /**
+   * Creates an instance of App which accepts connections on one reactor and serves them on
+   * {@code workerCount} worker reactors.
+   *
+   * @param dispatcher  the dispatcher that will be used to dispatch events.
+   * @param workerCount the number of worker reactors, zero for a single reactor.
+   */
+  public App(Dispatcher dispatcher, int workerCount) {
     this.dispatcher = dispatcher;
+    this.workerCount = workerCount;
   }
 
   /**
@@ -119,7 +133,7 @@ public class App {
     /*
      * The application can customize its event dispatching mechanism.
      */
-    reactor = new NioReactor(dispatcher);
+    reactor = new NioReactor(dispatcher, workerCount);
 
     /*
      * This represents application specific business logic that dispatcher will call on appropriate
@@ -26,9 +26,11 @@ package com.iluwatar.reactor.app;
 
 import com.iluwatar.reactor.framework.AbstractNioChannel;
 import com.iluwatar.reactor.framework.ChannelHandler;
+import com.iluwatar.reactor.framework.CompositeBuffer;
 import com.iluwatar.reactor.framework.NioDatagramChannel.DatagramPacket;
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
+import java.nio.charset.StandardCharsets;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -47,16 +49,25 @@ public class LoggingHandler implements ChannelHandler {
   public void handleChannelRead(AbstractNioChannel channel, Object readObject, SelectionKey key) {
     /*
      * As this handler is attached with both TCP and UDP channels we need to check whether the data
-     * received is a ByteBuffer (from TCP channel) or a DatagramPacket (from UDP channel).
+     * received is a ByteBuffer or CompositeBuffer (from TCP channel) or a DatagramPacket (from UDP
+     * channel).
      */
-    if (readObject instanceof ByteBuffer) {
-      doLogging((ByteBuffer) readObject);
-      sendReply(channel, key);
-    } else if (readObject instanceof DatagramPacket datagram) {
-      doLogging(datagram.getData());
-      sendReply(channel, datagram, key);
-    } else {
-      throw new IllegalStateException("Unknown data received");
+    try {
+      if (readObject instanceof ByteBuffer buffer) {
+        doLogging(buffer);
+        sendReply(channel, key);
+      } else if (readObject instanceof CompositeBuffer composite) {
+        doLogging(composite);
+        sendReply(channel, key);
+      } else if (readObject instanceof DatagramPacket datagram) {
+        doLogging(datagram.getData());
+        sendReply(channel, datagram, key);
+      } else {
+        throw new IllegalStateException("Unknown data received");
+      }
+    } finally {
+      // the data has been logged, its pooled buffers can be reused
+      channel.release(readObject);
     }
   }
 
@@ -82,6 +93,17 @@ public class LoggingHandler implements ChannelHandler {
 
   private static void doLogging(ByteBuffer data) {
     // assuming UTF-8 :(
-    LOGGER.info(new String(data.array(), 0, data.limit()));
+    LOGGER.info(StandardCharsets.UTF_8.decode(data.duplicate()).toString());
+  }
+
+  private static void doLogging(CompositeBuffer data) {
+    var bytes = new byte[(int) data.remaining()];
+    var offset = 0;
+    for (var component : data.getComponents()) {
+      var length = component.remaining();
+      component.duplicate().get(bytes, offset, length);
+      offset += length;
+    }
+    LOGGER.info(new String(bytes, StandardCharsets.UTF_8));
   }
 }
@@ -25,14 +25,20 @@
 package com.iluwatar.reactor.framework;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * This represents the <i>Handle</i> of Reactor pattern. These are resources managed by OS which can
@@ -43,24 +49,68 @@ import lombok.Getter;
  * the concrete implementation. It provides a block writing mechanism wherein when any {@link
  * ChannelHandler} wants to write data back, it queues the data in pending write queue and clears it
  * in block manner. This provides better throughput.
+ *
+ * <p>The pending writes of a connection are bounded by a high and a low watermark. Once the bytes
+ * queued for a connection exceed the high watermark it stops being {@link #isWritable(SelectionKey)
+ * writable} and the handler is told so through {@link
+ * ChannelHandler#channelWritabilityChanged(AbstractNioChannel, SelectionKey, boolean)}. It becomes
+ * writable again as soon as the reactor has drained the queue below the low watermark. Handlers
+ * which produce data faster than a slow peer consumes it are expected to hold back meanwhile.
+ *
+ * <p>Data is read into direct buffers taken from a {@link ByteBufferPool}. The read object handed
+ * to the {@link ChannelHandler} belongs to the handler, which either passes it on to {@link
+ * #write(Object, SelectionKey)}, in which case the channel releases it once written, or releases
+ * it itself with {@link #release(Object)}.
  */
+@Slf4j
 public abstract class AbstractNioChannel {
 
   private final SelectableChannel channel;
   @Getter
   private final ChannelHandler handler;
-  private final Map<SelectableChannel, Queue<Object>> channelToPendingWrites;
+  @Getter
+  private final ByteBufferPool bufferPool;
+  /**
+   * Default number of pending bytes above which a connection is no longer writable.
+   */
+  public static final int DEFAULT_HIGH_WATER_MARK = 64 * 1024;
+  /**
+   * Default number of pending bytes below which a connection is writable again.
+   */
+  public static final int DEFAULT_LOW_WATER_MARK = 32 * 1024;
+  /**
+   * Bounds the buffers written by one gathering write.
+   */
+  private static final int MAX_GATHERED_BUFFERS = 64;
+
+  private final Map<SelectableChannel, PendingWrites> channelToPendingWrites;
+  private volatile long highWaterMark = DEFAULT_HIGH_WATER_MARK;
+  private volatile long lowWaterMark = DEFAULT_LOW_WATER_MARK;
   private NioReactor reactor;
 
   /**
-   * Creates a new channel.
+   * Creates a new channel which reads into buffers of the {@link ByteBufferPool#getDefault()
+   * default pool}.
    *
    * @param handler which will handle events occurring on this channel.
    * @param channel a NIO channel to be wrapped.
    */
   public AbstractNioChannel(ChannelHandler handler, SelectableChannel channel) {
+    this(handler, channel, ByteBufferPool.getDefault());
+  }
+
+  /**
+   * Creates a new channel.
+   *
+   * @param handler    which will handle events occurring on this channel.
+   * @param channel    a NIO channel to be wrapped.
+   * @param bufferPool the pool to read into.
+   */
+  public AbstractNioChannel(ChannelHandler handler, SelectableChannel channel,
+      ByteBufferPool bufferPool) {
     this.handler = handler;
     this.channel = channel;
+    this.bufferPool = bufferPool;
     this.channelToPendingWrites = new ConcurrentHashMap<>();
   }
 
@@ -71,6 +121,44 @@ public abstract class AbstractNioChannel {
     this.reactor = reactor;
   }
 
+  /**
+   * Sets the watermarks of the pending writes of every connection of this channel.
+   *
+   * @param lowWaterMark  the number of pending bytes below which a connection is writable again.
+   * @param highWaterMark the number of pending bytes above which a connection is not writable.
+   */
+  public void setWriteBufferWaterMarks(long lowWaterMark, long highWaterMark) {
+    if (lowWaterMark < 0 || lowWaterMark > highWaterMark) {
+      throw new IllegalArgumentException(
+          "Invalid watermarks, low: " + lowWaterMark + ", high: " + highWaterMark);
+    }
+    this.lowWaterMark = lowWaterMark;
+    this.highWaterMark = highWaterMark;
+  }
+
+  /**
+   * Tells whether the connection of the key is below its high watermark, i.e. whether data written
+   * to it now does not just pile up.
+   *
+   * @param key the key of the connection.
+   * @return {@code false} if the pending writes of the connection exceed the high watermark.
+   */
+  public boolean isWritable(SelectionKey key) {
+    var pendingWrites = channelToPendingWrites.get(key.channel());
+    return pendingWrites == null || pendingWrites.writable.get();
+  }
+
+  /**
+   * Get the number of bytes queued for the connection of the key but not written yet.
+   *
+   * @param key the key of the connection.
+   * @return the number of pending bytes.
+   */
+  public long getPendingBytes(SelectionKey key) {
+    var pendingWrites = channelToPendingWrites.get(key.channel());
+    return pendingWrites == null ? 0 : pendingWrites.bytes.get();
+  }
+
   /**
    * Get channel.
    *
@@ -107,28 +195,179 @@ public abstract class AbstractNioChannel {
   public abstract Object read(SelectionKey key) throws IOException;
 
   /*
-   * Called from the context of reactor thread when the key becomes writable. The channel writes the
-   * whole pending block of data at once.
+   * Called from the context of reactor thread when the key becomes writable. The channel writes as
+   * much of the pending data as the underlying channel accepts, gathering consecutive buffers into
+   * a single write where the channel supports it. Whatever is left is written on the next writable
+   * event.
    */
   void flush(SelectionKey key) throws IOException {
     var pendingWrites = channelToPendingWrites.get(key.channel());
-    Object pendingWrite;
-    while ((pendingWrite = pendingWrites.poll()) != null) {
+    if (pendingWrites == null) {
+      key.interestOps(SelectionKey.OP_READ);
+      return;
+    }
+    var queue = pendingWrites.queue;
+    while (true) {
+      var head = queue.peek();
+      if (head == null) {
+        // We don't have anything more to write so channel is interested in reading more data
+        key.interestOps(SelectionKey.OP_READ);
+        pendingWrites.flushScheduled.set(false);
+        // a writer may have queued data after the queue was found empty but before the flag was
+        // cleared, in which case it relied on this flush
+        if (queue.isEmpty() || !pendingWrites.flushScheduled.compareAndSet(false, true)) {
+          return;
+        }
+        key.interestOps(SelectionKey.OP_WRITE);
+        continue;
+      }
+      var batch = isGatheringWriteSupported() && isBuffer(head) ? gather(pendingWrites) : head;
+      var remaining = remaining(batch);
       // ask the concrete channel to make sense of data and write it to java channel
-      doWrite(pendingWrite, key);
+      var written = doWrite(batch, key);
+      retireWritten(pendingWrites, written, key);
+      if (written < remaining) {
+        // the underlying channel is full, stay interested in writing
+        return;
+      }
+    }
+  }
+
+  private ByteBuffer[] gather(PendingWrites pendingWrites) {
+    var gathered = pendingWrites.gathered;
+    gathered.clear();
+    for (var pendingWrite : pendingWrites.queue) {
+      if (!isBuffer(pendingWrite) || gathered.size() >= MAX_GATHERED_BUFFERS) {
+        break;
+      }
+      if (pendingWrite instanceof ByteBuffer buffer) {
+        gathered.add(buffer);
+      } else {
+        var buffers = pendingWrite instanceof CompositeBuffer composite
+            ? composite.getComponents() : (ByteBuffer[]) pendingWrite;
+        gathered.addAll(List.of(buffers));
+      }
+    }
+    return gathered.toArray(new ByteBuffer[0]);
+  }
+
+  private static boolean isBuffer(Object data) {
+    return data instanceof ByteBuffer || data instanceof ByteBuffer[]
+        || data instanceof CompositeBuffer;
+  }
+
+  /*
+   * Removes and releases the data that has been written completely, and makes the connection
+   * writable again once it has drained below the low watermark.
+   */
+  private void retireWritten(PendingWrites pendingWrites, long written, SelectionKey key) {
+    Object head;
+    while ((head = pendingWrites.queue.peek()) != null && remaining(head) == 0) {
+      pendingWrites.queue.poll();
+      release(head);
+    }
+    var pendingBytes = pendingWrites.bytes.addAndGet(-written);
+    if (pendingBytes < lowWaterMark && pendingWrites.writable.compareAndSet(false, true)) {
+      handler.channelWritabilityChanged(this, key, true);
     }
-    // We don't have anything more to write so channel is interested in reading more data
-    reactor.changeOps(key, SelectionKey.OP_READ);
   }
 
   /**
-   * Writes the data to the channel.
+   * Writes as much of the data to the channel as it accepts without blocking.
    *
    * @param pendingWrite the data to be written on channel.
    * @param key          the key which is writable.
+   * @return the number of bytes written.
    * @throws IOException if any I/O error occurs.
    */
-  protected abstract void doWrite(Object pendingWrite, SelectionKey key) throws IOException;
+  protected abstract long doWrite(Object pendingWrite, SelectionKey key) throws IOException;
+
+  /**
+   * Tells whether consecutive pending buffers may be written with a single gathering write, which
+   * is the case for stream oriented channels. Channels that have to write each piece of data on
+   * its own, e.g. because it is a datagram, keep the default.
+   *
+   * @return {@code true} if {@link #doWrite(Object, SelectionKey)} accepts a {@code ByteBuffer[]}
+   *     gathered from several pending writes.
+   */
+  protected boolean isGatheringWriteSupported() {
+    return false;
+  }
+
+  /**
+   * Get the number of bytes of the data which are still to be written. Channels writing other kinds
+   * of data override this method.
+   *
+   * @param data a {@link ByteBuffer}, an array of them, a {@link CompositeBuffer} or a {@link
+   *             FileRegion}.
+   * @return the number of bytes remaining.
+   */
+  protected long remaining(Object data) {
+    if (data instanceof ByteBuffer buffer) {
+      return buffer.remaining();
+    } else if (data instanceof ByteBuffer[] buffers) {
+      var remaining = 0L;
+      for (var buffer : buffers) {
+        remaining += buffer.remaining();
+      }
+      return remaining;
+    } else if (data instanceof CompositeBuffer composite) {
+      return composite.remaining();
+    } else if (data instanceof FileRegion region) {
+      return region.remaining();
+    }
+    throw new IllegalArgumentException("Unsupported data: " + data.getClass());
+  }
+
+  /**
+   * Closes the connection of the key, releases whatever is still pending for it and tells the
+   * handler about it. Closing a connection which is already closed has no effect.
+   *
+   * @param key the key of the connection.
+   */
+  public void close(SelectionKey key) {
+    var wasOpen = key.channel().isOpen();
+    try {
+      key.channel().close();
+    } catch (IOException e) {
+      LOGGER.error("error closing channel", e);
+    }
+    var pendingWrites = channelToPendingWrites.remove(key.channel());
+    if (pendingWrites != null) {
+      releasePending(pendingWrites);
+    }
+    if (wasOpen) {
+      if (reactor != null) {
+        reactor.channelClosed(key);
+      }
+      handler.channelClosed(this, key);
+    }
+  }
+
+  private void releasePending(PendingWrites pendingWrites) {
+    Object pendingWrite;
+    while ((pendingWrite = pendingWrites.queue.poll()) != null) {
+      release(pendingWrite);
+    }
+  }
+
+  /**
+   * Returns the pooled buffers held by data read from or written to this channel to the pool.
+   * Data which does not hold pooled buffers is ignored.
+   *
+   * @param data a {@link ByteBuffer}, an array of them or a {@link CompositeBuffer}.
+   */
+  public void release(Object data) {
+    if (data instanceof ByteBuffer buffer) {
+      bufferPool.release(buffer);
+    } else if (data instanceof ByteBuffer[] buffers) {
+      for (var buffer : buffers) {
+        bufferPool.release(buffer);
+      }
+    } else if (data instanceof CompositeBuffer composite) {
+      composite.release();
+    }
+  }
 
   /**
    * Queues the data for writing. The data is not guaranteed to be written on underlying channel
@@ -141,24 +380,60 @@ public abstract class AbstractNioChannel {
    * <code>
    * {@literal @}Override
    * public void handleChannelRead(AbstractNioChannel channel, Object readObj, SelectionKey key) {
-   *   byte[] data = ((ByteBuffer)readObj).array();
+   *   channel.release(readObj);
    *   ByteBuffer buffer = ByteBuffer.wrap("Server reply".getBytes());
    *   channel.write(buffer, key);
    * }
    * </code>
    * </pre>
    *
+   * <p>The data is queued even if the connection is not {@link #isWritable(SelectionKey)
+   * writable}, the watermarks are a signal to the handler and not a limit enforced by the channel.
+   * Only the first write after a flush makes the reactor interested in writing, so bursts of
+   * writes do not wake up its selector for every single message.
+   *
+   * <p>Data written to a connection which has been closed, possibly by another thread while the
+   * handler was still running, is released instead of being queued.
+   *
    * @param data the data to be written on underlying channel.
    * @param key  the key which is writable.
    */
   public void write(Object data, SelectionKey key) {
-    var pendingWrites = this.channelToPendingWrites.get(key.channel());
-    if (pendingWrites == null) {
-      synchronized (this.channelToPendingWrites) {
-        pendingWrites = this.channelToPendingWrites.computeIfAbsent(key.channel(), k -> new ConcurrentLinkedQueue<>());
-      }
+    if (!key.isValid() || !key.channel().isOpen()) {
+      release(data);
+      return;
+    }
+    var size = remaining(data);
+    var pendingWrites = channelToPendingWrites.computeIfAbsent(key.channel(),
+        k -> new PendingWrites());
+    pendingWrites.queue.add(data);
+    if (!key.channel().isOpen()) {
+      // close ran meanwhile and may have released the queue before the data was added
+      channelToPendingWrites.remove(key.channel(), pendingWrites);
+      releasePending(pendingWrites);
+      return;
     }
-    pendingWrites.add(data);
-    reactor.changeOps(key, SelectionKey.OP_WRITE);
+    var pendingBytes = pendingWrites.bytes.addAndGet(size);
+    if (pendingBytes > highWaterMark && pendingWrites.writable.compareAndSet(true, false)) {
+      handler.channelWritabilityChanged(this, key, false);
+    }
+    // only the first write since the last flush has to make the reactor interested in writing
+    if (pendingWrites.flushScheduled.compareAndSet(false, true)) {
+      reactor.changeOps(key, SelectionKey.OP_WRITE);
+    }
+  }
+
+  /**
+   * The pending writes of one connection.
+   */
+  private static class PendingWrites {
+    private final Queue<Object> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicBoolean writable = new AtomicBoolean(true);
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    /**
+     * Only touched by the reactor thread while flushing.
+     */
+    private final List<ByteBuffer> gathered = new ArrayList<>(MAX_GATHERED_BUFFERS);
   }
 }
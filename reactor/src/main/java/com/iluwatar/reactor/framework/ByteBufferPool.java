@@ -0,0 +1,265 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of direct {@link ByteBuffer}s, so that the reactor does not allocate a new buffer on every
+ * readable event. Buffers come in power of two size classes from {@value #MIN_CAPACITY} bytes up to
+ * the chunk size. A request is served by the smallest size class that fits it.
+ *
+ * <p>Each platform thread which acquires buffers keeps a small cache of released buffers per size
+ * class. The event loop of every reactor therefore acquires and releases its buffers without any
+ * contention. Buffers released on a thread which does not acquire any, e.g. by a
+ * {@link ThreadPoolDispatcher} worker, go to a shared queue per size class from which every thread
+ * can take them, as do buffers released on a full cache. Virtual threads, which live for one task
+ * only, never keep a cache, see {@link VirtualThreadDispatcher}.
+ *
+ * <p>A buffer must be released exactly once, after that it must not be touched any more. A pool
+ * created with leak detection records the stack trace of every acquire, see {@link #getLeaks()},
+ * and rejects buffers which are released twice. Leak detection is meant for tests.
+ */
+public class ByteBufferPool {
+
+  /**
+   * Capacity of the smallest size class.
+   */
+  public static final int MIN_CAPACITY = 512;
+  /**
+   * Default capacity of the largest size class. It is large enough for any UDP datagram.
+   */
+  public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+  private static final int THREAD_CACHE_SIZE = 16;
+  private static final int SHARED_QUEUE_SIZE = 64;
+  private static final ByteBufferPool DEFAULT = new ByteBufferPool();
+  private static final MethodHandle IS_VIRTUAL = findIsVirtual();
+
+  private final int chunkSize;
+  private final int sizeClasses;
+  private final List<Queue<ByteBuffer>> sharedQueues;
+  private final AtomicIntegerArray sharedSizes;
+  private final ThreadLocal<List<ArrayDeque<ByteBuffer>>> threadCaches = new ThreadLocal<>();
+  private final AtomicLong outstanding = new AtomicLong();
+  private final AtomicLong allocated = new AtomicLong();
+  private final Map<ByteBuffer, Throwable> acquiredAt;
+
+  /**
+   * Creates a pool with the {@link #DEFAULT_CHUNK_SIZE} and without leak detection.
+   */
+  public ByteBufferPool() {
+    this(DEFAULT_CHUNK_SIZE, false);
+  }
+
+  /**
+   * Creates a pool.
+   *
+   * @param chunkSize     the capacity of the largest size class, a power of two not smaller than
+   *                      {@value #MIN_CAPACITY}.
+   * @param leakDetection whether to track every acquired buffer until it is released.
+   */
+  public ByteBufferPool(int chunkSize, boolean leakDetection) {
+    if (chunkSize < MIN_CAPACITY || Integer.bitCount(chunkSize) != 1) {
+      throw new IllegalArgumentException("chunkSize must be a power of two >= " + MIN_CAPACITY);
+    }
+    this.chunkSize = chunkSize;
+    this.sizeClasses = sizeClass(chunkSize) + 1;
+    this.sharedQueues = new ArrayList<>(sizeClasses);
+    for (var i = 0; i < sizeClasses; i++) {
+      sharedQueues.add(new ConcurrentLinkedQueue<>());
+    }
+    this.sharedSizes = new AtomicIntegerArray(sizeClasses);
+    this.acquiredAt = leakDetection ? Collections.synchronizedMap(new IdentityHashMap<>()) : null;
+  }
+
+  /**
+   * Get the pool shared by all channels which are not given a pool of their own.
+   *
+   * @return the default pool.
+   */
+  public static ByteBufferPool getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Get the chunk size.
+   *
+   * @return the capacity of the largest pooled buffer.
+   */
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  /**
+   * Acquires a cleared direct buffer. Requests larger than the chunk size are served by a new
+   * buffer which is not pooled.
+   *
+   * @param capacity the minimum capacity of the buffer.
+   * @return a buffer with at least {@code capacity} bytes remaining.
+   */
+  public ByteBuffer acquire(int capacity) {
+    if (capacity > chunkSize) {
+      return ByteBuffer.allocateDirect(capacity);
+    }
+    var sizeClass = sizeClass(capacity);
+    var caches = threadCaches(true);
+    var buffer = caches == null ? null : caches.get(sizeClass).pollFirst();
+    if (buffer == null) {
+      buffer = sharedQueues.get(sizeClass).poll();
+      if (buffer != null) {
+        sharedSizes.decrementAndGet(sizeClass);
+      } else {
+        buffer = ByteBuffer.allocateDirect(MIN_CAPACITY << sizeClass);
+        allocated.incrementAndGet();
+      }
+    }
+    buffer.clear();
+    outstanding.incrementAndGet();
+    if (acquiredAt != null) {
+      acquiredAt.put(buffer, new Throwable("buffer acquired here"));
+    }
+    return buffer;
+  }
+
+  /**
+   * Returns a buffer to the pool. Heap buffers and buffers of a capacity other than a size class
+   * were not acquired from a pool and are ignored.
+   *
+   * @param buffer the buffer to release, may be {@code null}.
+   * @throws IllegalStateException if leak detection is enabled and the buffer is not currently
+   *                               acquired from this pool.
+   */
+  public void release(ByteBuffer buffer) {
+    if (buffer == null || !buffer.isDirect() || buffer.isReadOnly() || !isSizeClass(buffer)) {
+      return;
+    }
+    if (acquiredAt != null && acquiredAt.remove(buffer) == null) {
+      throw new IllegalStateException("Buffer released twice or not acquired from this pool");
+    }
+    outstanding.decrementAndGet();
+    var sizeClass = sizeClass(buffer.capacity());
+    var caches = threadCaches(false);
+    if (caches != null && caches.get(sizeClass).size() < THREAD_CACHE_SIZE) {
+      caches.get(sizeClass).addFirst(buffer);
+    } else if (sharedSizes.incrementAndGet(sizeClass) <= SHARED_QUEUE_SIZE) {
+      sharedQueues.get(sizeClass).add(buffer);
+    } else {
+      // the pool is full, the buffer is left to the garbage collector
+      sharedSizes.decrementAndGet(sizeClass);
+    }
+  }
+
+  /**
+   * Get the number of buffers acquired and not yet released.
+   *
+   * @return the number of outstanding pooled buffers.
+   */
+  public long getOutstanding() {
+    return outstanding.get();
+  }
+
+  /**
+   * Get the number of buffers the pool had to allocate because none was available for reuse.
+   *
+   * @return the number of direct buffers allocated by the pool.
+   */
+  public long getAllocated() {
+    return allocated.get();
+  }
+
+  /**
+   * Get the leaked buffers. Each leak is represented by the stack trace of the acquire of a buffer
+   * which has not been released yet.
+   *
+   * @return the acquire sites of all outstanding buffers, empty if leak detection is disabled.
+   */
+  public List<Throwable> getLeaks() {
+    if (acquiredAt == null) {
+      return List.of();
+    }
+    synchronized (acquiredAt) {
+      return new ArrayList<>(acquiredAt.values());
+    }
+  }
+
+  /*
+   * The caches of the current thread, created on its first acquire. Threads which only release
+   * buffers, and virtual threads, have none.
+   */
+  private List<ArrayDeque<ByteBuffer>> threadCaches(boolean create) {
+    var caches = threadCaches.get();
+    if (caches == null && create && !isVirtual(Thread.currentThread())) {
+      caches = new ArrayList<>(sizeClasses);
+      for (var i = 0; i < sizeClasses; i++) {
+        caches.add(new ArrayDeque<>(THREAD_CACHE_SIZE));
+      }
+      threadCaches.set(caches);
+    }
+    return caches;
+  }
+
+  private static boolean isVirtual(Thread thread) {
+    if (IS_VIRTUAL == null) {
+      return false;
+    }
+    try {
+      return (boolean) IS_VIRTUAL.invokeExact(thread);
+    } catch (Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static MethodHandle findIsVirtual() {
+    try {
+      return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual",
+          MethodType.methodType(boolean.class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      return null;
+    }
+  }
+
+  private boolean isSizeClass(ByteBuffer buffer) {
+    var capacity = buffer.capacity();
+    return capacity >= MIN_CAPACITY && capacity <= chunkSize && Integer.bitCount(capacity) == 1;
+  }
+
+  private static int sizeClass(int capacity) {
+    return Math.max(0, Integer.SIZE - Integer.numberOfLeadingZeros(capacity - 1)
+        - Integer.numberOfTrailingZeros(MIN_CAPACITY));
+  }
+}
@@ -0,0 +1,229 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * The bytes received on one connection which have not been decoded yet. The buffers read from the
+ * channel are kept as they are, a frame which arrived in pieces is never copied together. A {@link
+ * FrameDecoder} inspects the bytes by their index relative to the first readable byte and takes
+ * frames out with {@link #readSlice(int)}.
+ *
+ * <p>Slices share the memory of the buffers they were taken from. The buffers which have been read
+ * completely are therefore only released to the pool by {@link #releaseConsumed()}, which the
+ * {@link ChannelPipeline} calls once the frames have been handled.
+ */
+public class ByteCumulation {
+
+  private static final ByteBuffer EMPTY = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
+  private final ByteBufferPool pool;
+  private final Deque<ByteBuffer> buffers = new ArrayDeque<>();
+  private final List<ByteBuffer> consumed = new ArrayList<>();
+  private int readableBytes;
+
+  /**
+   * Creates an empty cumulation.
+   *
+   * @param pool the pool the buffers are released to.
+   */
+  public ByteCumulation(ByteBufferPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Appends data read from the channel. The cumulation takes over the buffers.
+   *
+   * @param data a {@link ByteBuffer} or a {@link CompositeBuffer}.
+   */
+  public void add(Object data) {
+    if (data instanceof ByteBuffer buffer) {
+      addBuffer(buffer);
+    } else if (data instanceof CompositeBuffer composite) {
+      for (var component : composite.getComponents()) {
+        addBuffer(component);
+      }
+    } else {
+      throw new IllegalArgumentException("Unsupported data: " + data.getClass());
+    }
+  }
+
+  private void addBuffer(ByteBuffer buffer) {
+    if (buffer.hasRemaining()) {
+      buffers.addLast(buffer);
+      readableBytes += buffer.remaining();
+    } else {
+      consumed.add(buffer);
+    }
+  }
+
+  /**
+   * Get the number of readable bytes.
+   *
+   * @return the number of bytes not yet taken out.
+   */
+  public int readableBytes() {
+    return readableBytes;
+  }
+
+  /**
+   * Gets a byte without taking it out.
+   *
+   * @param index the index relative to the first readable byte.
+   * @return the byte at the index.
+   */
+  public byte getByte(int index) {
+    checkReadable(index, 1);
+    for (var buffer : buffers) {
+      if (index < buffer.remaining()) {
+        return buffer.get(buffer.position() + index);
+      }
+      index -= buffer.remaining();
+    }
+    throw new IllegalStateException("Readable bytes out of sync");
+  }
+
+  /**
+   * Gets a big-endian int without taking it out.
+   *
+   * @param index the index of its first byte relative to the first readable byte.
+   * @return the int at the index.
+   */
+  public int getInt(int index) {
+    checkReadable(index, Integer.BYTES);
+    var head = buffers.getFirst();
+    if (index + Integer.BYTES <= head.remaining()) {
+      return head.getInt(head.position() + index);
+    }
+    var value = 0;
+    for (var i = 0; i < Integer.BYTES; i++) {
+      value = value << Byte.SIZE | getByte(index + i) & 0xFF;
+    }
+    return value;
+  }
+
+  /**
+   * Finds the first occurrence of a byte.
+   *
+   * @param value     the byte to look for.
+   * @param fromIndex the index to start at, relative to the first readable byte.
+   * @return the index of the byte relative to the first readable byte, or -1 if there is none.
+   */
+  public int indexOf(byte value, int fromIndex) {
+    var offset = 0;
+    for (var buffer : buffers) {
+      var remaining = buffer.remaining();
+      if (fromIndex < offset + remaining) {
+        var position = buffer.position();
+        for (var i = Math.max(fromIndex - offset, 0); i < remaining; i++) {
+          if (buffer.get(position + i) == value) {
+            return offset + i;
+          }
+        }
+      }
+      offset += remaining;
+    }
+    return -1;
+  }
+
+  /**
+   * Discards readable bytes.
+   *
+   * @param length the number of bytes to discard.
+   */
+  public void skip(int length) {
+    checkReadable(0, length);
+    while (length > 0) {
+      var head = buffers.getFirst();
+      var skipped = Math.min(length, head.remaining());
+      head.position(head.position() + skipped);
+      length -= skipped;
+      readableBytes -= skipped;
+      if (!head.hasRemaining()) {
+        consumed.add(buffers.removeFirst());
+      }
+    }
+  }
+
+  /**
+   * Takes readable bytes out without copying them. The slice is only valid until {@link
+   * #releaseConsumed()} is called.
+   *
+   * @param length the number of bytes to take.
+   * @return a {@link ByteBuffer} if the bytes are in one buffer, otherwise a {@link
+   *     CompositeBuffer} of slices of the buffers they are in.
+   */
+  public Object readSlice(int length) {
+    checkReadable(0, length);
+    if (length == 0) {
+      return EMPTY.duplicate();
+    }
+    var head = buffers.getFirst();
+    if (length <= head.remaining()) {
+      var slice = head.slice(head.position(), length);
+      skip(length);
+      return slice;
+    }
+    var slices = new ArrayList<ByteBuffer>();
+    while (length > 0) {
+      head = buffers.getFirst();
+      var sliced = Math.min(length, head.remaining());
+      slices.add(head.slice(head.position(), sliced));
+      skip(sliced);
+      length -= sliced;
+    }
+    return new CompositeBuffer(null, slices);
+  }
+
+  /**
+   * Releases the buffers which have been read completely.
+   */
+  public void releaseConsumed() {
+    consumed.forEach(pool::release);
+    consumed.clear();
+  }
+
+  /**
+   * Releases all buffers, e.g. when the connection has been closed.
+   */
+  public void releaseAll() {
+    releaseConsumed();
+    buffers.forEach(pool::release);
+    buffers.clear();
+    readableBytes = 0;
+  }
+
+  private void checkReadable(int index, int length) {
+    if (index < 0 || length < 0 || index + length > readableBytes) {
+      throw new IndexOutOfBoundsException(
+          "index: " + index + ", length: " + length + ", readable: " + readableBytes);
+    }
+  }
+}
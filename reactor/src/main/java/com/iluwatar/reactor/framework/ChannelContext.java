@@ -0,0 +1,83 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.channels.SelectionKey;
+import lombok.Getter;
+
+/**
+ * One connection served by a {@link ChannelPipeline}. It holds the bytes received but not decoded
+ * yet, and encodes the messages written to it.
+ *
+ * @param <T> the type of the messages.
+ */
+public class ChannelContext<T> {
+
+  @Getter
+  private final AbstractNioChannel channel;
+  @Getter
+  private final SelectionKey key;
+  private final FrameEncoder frameEncoder;
+  private final MessageCodec<T> codec;
+  final ByteCumulation cumulation;
+  final FrameDecoder frameDecoder;
+  boolean closed;
+
+  ChannelContext(AbstractNioChannel channel, SelectionKey key, FrameDecoder frameDecoder,
+      FrameEncoder frameEncoder, MessageCodec<T> codec) {
+    this.channel = channel;
+    this.key = key;
+    this.frameDecoder = frameDecoder;
+    this.frameEncoder = frameEncoder;
+    this.codec = codec;
+    this.cumulation = new ByteCumulation(channel.getBufferPool());
+  }
+
+  /**
+   * Encodes, frames and queues a message for writing.
+   *
+   * @param message the message.
+   */
+  public void write(T message) {
+    channel.write(frameEncoder.encode(codec.encode(message)), key);
+  }
+
+  /**
+   * Tells whether the connection is below the high watermark of its pending writes.
+   *
+   * @return {@code true} if the connection is writable.
+   * @see AbstractNioChannel#isWritable(SelectionKey)
+   */
+  public boolean isWritable() {
+    return channel.isWritable(key);
+  }
+
+  /**
+   * Closes the connection.
+   */
+  public void close() {
+    channel.close(key);
+  }
+}
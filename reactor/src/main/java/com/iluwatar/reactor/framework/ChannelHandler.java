@@ -37,11 +37,39 @@ import java.nio.channels.SelectionKey;
 public interface ChannelHandler {
 
   /**
-   * Called when the {@code channel} receives some data from remote peer.
+   * Called when the {@code channel} receives some data from remote peer. The data may hold pooled
+   * buffers, the handler has to either write it back to the channel or release it with {@link
+   * AbstractNioChannel#release(Object)} once done with it.
    *
    * @param channel    the channel from which the data was received.
    * @param readObject the data read.
    * @param key        the key on which read event occurred.
    */
   void handleChannelRead(AbstractNioChannel channel, Object readObject, SelectionKey key);
+
+  /**
+   * Called when the connection of the {@code key} crosses one of the watermarks of its pending
+   * writes. It becomes unwritable from the thread writing past the high watermark, and writable
+   * again from the reactor thread once its pending writes have drained below the low watermark.
+   *
+   * @param channel  the channel of the connection.
+   * @param key      the key of the connection.
+   * @param writable whether the connection is writable now.
+   * @see AbstractNioChannel#setWriteBufferWaterMarks(long, long)
+   */
+  default void channelWritabilityChanged(AbstractNioChannel channel, SelectionKey key,
+      boolean writable) {
+    // most handlers write small replies and do not need to throttle themselves
+  }
+
+  /**
+   * Called once the connection of the {@code key} has been closed, either by the peer or because
+   * of an error. Pending writes have been released at this point.
+   *
+   * @param channel the channel of the connection.
+   * @param key     the key of the connection.
+   */
+  default void channelClosed(AbstractNioChannel channel, SelectionKey key) {
+    // stateless handlers have nothing to clean up
+  }
 }
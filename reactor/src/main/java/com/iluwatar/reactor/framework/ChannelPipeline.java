@@ -0,0 +1,133 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.channels.SelectionKey;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A {@link ChannelHandler} which turns the raw data read from a connection into the messages of a
+ * protocol and back. The data of each connection is accumulated without copying, split into frames
+ * by a {@link FrameDecoder} and decoded into messages by a {@link MessageCodec}, which are passed
+ * to the {@link MessageHandler}. Partial frames wait for the rest of their bytes, a read holding
+ * several frames yields several messages. On the write path the {@link ChannelContext} encodes a
+ * message and frames it with a {@link FrameEncoder}.
+ *
+ * <p>Messages are handled in the order they are received as long as the events of a connection
+ * are dispatched in order, i.e. by a {@link SameThreadDispatcher} or an {@link OrderedDispatcher}.
+ *
+ * @param <T> the type of the messages.
+ */
+@Slf4j
+public class ChannelPipeline<T> implements ChannelHandler {
+
+  private final Supplier<FrameDecoder> frameDecoderFactory;
+  private final FrameEncoder frameEncoder;
+  private final MessageCodec<T> codec;
+  private final MessageHandler<T> handler;
+  private final Map<SelectionKey, ChannelContext<T>> contexts = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a pipeline.
+   *
+   * @param frameDecoderFactory creates the frame decoder of each connection.
+   * @param frameEncoder        frames the messages written.
+   * @param codec               converts between frames and messages.
+   * @param handler             handles the messages received.
+   */
+  public ChannelPipeline(Supplier<FrameDecoder> frameDecoderFactory, FrameEncoder frameEncoder,
+      MessageCodec<T> codec, MessageHandler<T> handler) {
+    this.frameDecoderFactory = frameDecoderFactory;
+    this.frameEncoder = frameEncoder;
+    this.codec = codec;
+    this.handler = handler;
+  }
+
+  /**
+   * Decodes and handles all complete messages received so far. Buffers that have been decoded
+   * completely are released once their messages have been handled.
+   */
+  @Override
+  public void handleChannelRead(AbstractNioChannel channel, Object readObject, SelectionKey key) {
+    var context = contexts.computeIfAbsent(key, k ->
+        new ChannelContext<>(channel, k, frameDecoderFactory.get(), frameEncoder, codec));
+    synchronized (context) {
+      if (context.closed || !key.isValid()) {
+        // the event was dispatched before the connection was closed
+        contexts.remove(key, context);
+        channel.release(readObject);
+        return;
+      }
+      context.cumulation.add(readObject);
+      try {
+        Object frame;
+        while (!context.closed && (frame = context.frameDecoder.decode(context.cumulation)) != null) {
+          handler.handleMessage(context, codec.decode(frame));
+        }
+      } catch (CorruptedFrameException e) {
+        LOGGER.error("closing connection with corrupted data", e);
+        context.close();
+      } finally {
+        context.cumulation.releaseConsumed();
+      }
+    }
+  }
+
+  @Override
+  public void channelWritabilityChanged(AbstractNioChannel channel, SelectionKey key,
+      boolean writable) {
+    var context = contexts.get(key);
+    if (context != null) {
+      handler.channelWritabilityChanged(context, writable);
+    }
+  }
+
+  /**
+   * Releases the bytes received on the connection but not decoded.
+   */
+  @Override
+  public void channelClosed(AbstractNioChannel channel, SelectionKey key) {
+    var context = contexts.remove(key);
+    if (context != null) {
+      synchronized (context) {
+        context.closed = true;
+        context.cumulation.releaseAll();
+      }
+      handler.channelClosed(context);
+    }
+  }
+
+  /**
+   * Get the number of connections with a context.
+   *
+   * @return the number of open connections which have received data.
+   */
+  public int getConnectionCount() {
+    return contexts.size();
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * A sequence of buffers which together hold one message. {@link NioServerSocketChannel} reads data
+ * which does not fit into one pooled chunk into a composite buffer instead of copying it into a
+ * larger buffer, and writes it out again with a single gathering write.
+ */
+public class CompositeBuffer {
+
+  private final ByteBufferPool pool;
+  private final ByteBuffer[] components;
+
+  /**
+   * Creates a composite of the given buffers.
+   *
+   * @param pool       the pool the components are released to, {@code null} if they are not
+   *                   pooled.
+   * @param components the buffers, each positioned at its first readable byte.
+   */
+  public CompositeBuffer(ByteBufferPool pool, List<ByteBuffer> components) {
+    this.pool = pool;
+    this.components = components.toArray(new ByteBuffer[0]);
+  }
+
+  /**
+   * Get the components. The returned array is the one backing this composite, so it can be passed
+   * to a gathering write without copying.
+   *
+   * @return the component buffers.
+   */
+  public ByteBuffer[] getComponents() {
+    return components;
+  }
+
+  /**
+   * Get the number of readable bytes.
+   *
+   * @return the sum of the remaining bytes of all components.
+   */
+  public long remaining() {
+    var remaining = 0L;
+    for (var component : components) {
+      remaining += component.remaining();
+    }
+    return remaining;
+  }
+
+  /**
+   * Tells whether any component has readable bytes left.
+   *
+   * @return {@code true} if there is at least one readable byte.
+   */
+  public boolean hasRemaining() {
+    for (var component : components) {
+      if (component.hasRemaining()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns all components to their pool.
+   */
+  public void release() {
+    if (pool != null) {
+      for (var component : components) {
+        pool.release(component);
+      }
+    }
+  }
+}
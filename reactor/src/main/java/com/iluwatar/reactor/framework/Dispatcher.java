@@ -38,6 +38,8 @@ import java.nio.channels.SelectionKey;
  *
  * @see SameThreadDispatcher
  * @see ThreadPoolDispatcher
+ * @see OrderedDispatcher
+ * @see VirtualThreadDispatcher
  */
 public interface Dispatcher {
   /**
@@ -53,6 +55,16 @@ public interface Dispatcher {
    */
   void onChannelReadEvent(AbstractNioChannel channel, Object readObject, SelectionKey key);
 
+  /**
+   * This hook method is called when the connection of <code>key</code> is closed, so that the
+   * dispatcher can drop whatever it keeps for it. No more read events follow for the key.
+   *
+   * @param key of the closed connection
+   */
+  default void onChannelClosed(SelectionKey key) {
+    // nothing is kept per key by default
+  }
+
   /**
    * Stops dispatching events and cleans up any acquired resources such as threads.
    *
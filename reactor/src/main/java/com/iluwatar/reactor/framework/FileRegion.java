@@ -0,0 +1,83 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A region of a file which is written to a socket with {@link FileChannel#transferTo(long, long,
+ * WritableByteChannel)}, so that static payloads go out without being copied through the heap.
+ * The region does not own the file, it is up to the application to close it.
+ */
+public class FileRegion {
+
+  private final FileChannel file;
+  private final long position;
+  private final long count;
+  private long transferred;
+
+  /**
+   * Creates a region.
+   *
+   * @param file     the file to send.
+   * @param position the position of the first byte to send.
+   * @param count    the number of bytes to send.
+   */
+  public FileRegion(FileChannel file, long position, long count) {
+    this.file = file;
+    this.position = position;
+    this.count = count;
+  }
+
+  /**
+   * Get the number of bytes which have not been transferred yet.
+   *
+   * @return the remaining bytes of the region.
+   */
+  public long remaining() {
+    return count - transferred;
+  }
+
+  /**
+   * Transfers as much of the rest of the region as the target accepts without blocking.
+   *
+   * @param target the channel to write to.
+   * @return the number of bytes transferred by this call.
+   * @throws IOException if any I/O error occurs.
+   */
+  public long transferTo(WritableByteChannel target) throws IOException {
+    var start = transferred;
+    while (transferred < count) {
+      var written = file.transferTo(position + transferred, count - transferred, target);
+      if (written <= 0) {
+        break;
+      }
+      transferred += written;
+    }
+    return transferred - start;
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+/**
+ * Decodes frames which are prefixed with their length as a four byte big-endian int. The prefix is
+ * stripped from the frame.
+ *
+ * <pre>
+ * +--------+----------------+
+ * | length | payload        |
+ * | 0x000C | "HELLO, WORLD" |
+ * +--------+----------------+
+ * </pre>
+ */
+public class LengthFieldFrameDecoder implements FrameDecoder {
+
+  private static final int LENGTH_FIELD_LENGTH = Integer.BYTES;
+
+  private final int maxFrameLength;
+
+  /**
+   * Creates a decoder.
+   *
+   * @param maxFrameLength the maximum length of the payload of a frame.
+   */
+  public LengthFieldFrameDecoder(int maxFrameLength) {
+    this.maxFrameLength = maxFrameLength;
+  }
+
+  @Override
+  public Object decode(ByteCumulation in) {
+    if (in.readableBytes() < LENGTH_FIELD_LENGTH) {
+      return null;
+    }
+    var length = in.getInt(0);
+    if (length < 0 || length > maxFrameLength) {
+      throw new CorruptedFrameException("Invalid frame length: " + length);
+    }
+    if (in.readableBytes() < LENGTH_FIELD_LENGTH + length) {
+      return null;
+    }
+    in.skip(LENGTH_FIELD_LENGTH);
+    return in.readSlice(length);
+  }
+}
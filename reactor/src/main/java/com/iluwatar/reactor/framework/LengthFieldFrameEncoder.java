@@ -0,0 +1,49 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Prefixes a frame with its length as a four byte big-endian int, the counterpart of {@link
+ * LengthFieldFrameDecoder}.
+ */
+public class LengthFieldFrameEncoder implements FrameEncoder {
+
+  @Override
+  public ByteBuffer[] encode(ByteBuffer[] payload) {
+    var length = 0L;
+    for (var buffer : payload) {
+      length += buffer.remaining();
+    }
+    if (length > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Frame too long: " + length);
+    }
+    var frame = new ByteBuffer[payload.length + 1];
+    frame[0] = ByteBuffer.allocate(Integer.BYTES).putInt(0, (int) length);
+    System.arraycopy(payload, 0, frame, 1, payload.length);
+    return frame;
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+/**
+ * Decodes frames which are terminated by a line feed, optionally preceded by a carriage return.
+ * The line terminator is stripped from the frame.
+ *
+ * <p>The decoder remembers how far it has searched for the terminator, so that a long line which
+ * arrives in many pieces is not searched from its start again for each piece.
+ */
+public class LineBasedFrameDecoder implements FrameDecoder {
+
+  private static final byte LF = '\n';
+  private static final byte CR = '\r';
+
+  private final int maxLineLength;
+  private int searched;
+
+  /**
+   * Creates a decoder.
+   *
+   * @param maxLineLength the maximum length of a line without its terminator.
+   */
+  public LineBasedFrameDecoder(int maxLineLength) {
+    this.maxLineLength = maxLineLength;
+  }
+
+  @Override
+  public Object decode(ByteCumulation in) {
+    var eol = in.indexOf(LF, searched);
+    if (eol < 0) {
+      searched = in.readableBytes();
+      if (searched > maxLineLength + 1) {
+        throw new CorruptedFrameException("Line longer than " + maxLineLength + " bytes");
+      }
+      return null;
+    }
+    searched = 0;
+    var length = eol > 0 && in.getByte(eol - 1) == CR ? eol - 1 : eol;
+    if (length > maxLineLength) {
+      throw new CorruptedFrameException("Line longer than " + maxLineLength + " bytes");
+    }
+    var frame = in.readSlice(length);
+    in.skip(eol + 1 - length);
+    return frame;
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+/**
+ * Handles the decoded messages of a connection, the application logic behind a {@link
+ * ChannelPipeline}.
+ *
+ * @param <T> the type of the messages.
+ */
+public interface MessageHandler<T> {
+
+  /**
+   * Called for every message received on the connection of the {@code context}, in the order the
+   * messages were received.
+   *
+   * @param context the connection, which replies are written to.
+   * @param message the message.
+   */
+  void handleMessage(ChannelContext<T> context, T message);
+
+  /**
+   * Called when the connection crosses one of the watermarks of its pending writes.
+   *
+   * @param context  the connection.
+   * @param writable whether the connection is writable now.
+   * @see ChannelHandler#channelWritabilityChanged(AbstractNioChannel, java.nio.channels.SelectionKey,
+   *     boolean)
+   */
+  default void channelWritabilityChanged(ChannelContext<T> context, boolean writable) {
+    // most handlers write small replies and do not need to throttle themselves
+  }
+
+  /**
+   * Called once the connection has been closed.
+   *
+   * @param context the connection.
+   */
+  default void channelClosed(ChannelContext<T> context) {
+    // stateless handlers have nothing to clean up
+  }
+}
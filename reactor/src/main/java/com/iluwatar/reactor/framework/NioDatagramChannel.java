@@ -37,11 +37,18 @@ import lombok.extern.slf4j.Slf4j;
 
 /**
  * A wrapper over {@link DatagramChannel} which can read and write data on a DatagramChannel.
+ *
+ * <p>A datagram which does not fit into the buffer it is received into is truncated, so datagrams
+ * are received into one buffer of the chunk size and copied into a pooled buffer of their size.
  */
 @Slf4j
 public class NioDatagramChannel extends AbstractNioChannel {
 
   private final int port;
+  /**
+   * Receives the datagrams, only touched by the reactor thread reading the channel.
+   */
+  private ByteBuffer receiveBuffer;
 
   /**
    * Creates a {@link DatagramChannel} which will bind at provided port and use <code>handler</code>
@@ -55,7 +62,21 @@ public class NioDatagramChannel extends AbstractNioChannel {
    * @throws IOException if any I/O error occurs.
    */
   public NioDatagramChannel(int port, ChannelHandler handler) throws IOException {
-    super(handler, DatagramChannel.open());
+    this(port, handler, ByteBufferPool.getDefault());
+  }
+
+  /**
+   * Creates a {@link DatagramChannel} which will bind at provided port and receive into buffers of
+   * the given pool. Datagrams larger than the chunk size of the pool are truncated.
+   *
+   * @param port       the port to be bound to listen for incoming datagram requests.
+   * @param handler    the handler to be used for handling incoming requests on this channel.
+   * @param bufferPool the pool to receive into.
+   * @throws IOException if any I/O error occurs.
+   */
+  public NioDatagramChannel(int port, ChannelHandler handler, ByteBufferPool bufferPool)
+      throws IOException {
+    super(handler, DatagramChannel.open(), bufferPool);
     this.port = port;
   }
 
@@ -74,14 +95,19 @@ public class NioDatagramChannel extends AbstractNioChannel {
    */
   @Override
   public DatagramPacket read(SelectionKey key) throws IOException {
-    var buffer = ByteBuffer.allocate(1024);
-    var sender = ((DatagramChannel) key.channel()).receive(buffer);
+    var pool = getBufferPool();
+    if (receiveBuffer == null) {
+      receiveBuffer = ByteBuffer.allocateDirect(pool.getChunkSize());
+    }
+    receiveBuffer.clear();
+    var sender = ((DatagramChannel) key.channel()).receive(receiveBuffer);
+    var buffer = pool.acquire(receiveBuffer.flip().remaining());
+    buffer.put(receiveBuffer).flip();
 
     /*
      * It is required to create a DatagramPacket because we need to preserve which socket address
      * acts as destination for sending reply packets.
      */
-    buffer.flip();
     var packet = new DatagramPacket(buffer);
     packet.setSender(sender);
 
@@ -112,12 +138,25 @@ public class NioDatagramChannel extends AbstractNioChannel {
 
   /**
    * Writes the pending {@link DatagramPacket} to the underlying channel sending data to the
-   * intended receiver of the packet.
+   * intended receiver of the packet. If the socket buffer is full nothing is sent and the packet
+   * stays pending until the next writable event.
    */
   @Override
-  protected void doWrite(Object pendingWrite, SelectionKey key) throws IOException {
+  protected long doWrite(Object pendingWrite, SelectionKey key) throws IOException {
     var pendingPacket = (DatagramPacket) pendingWrite;
-    getJavaChannel().send(pendingPacket.getData(), pendingPacket.getReceiver());
+    return getJavaChannel().send(pendingPacket.getData(), pendingPacket.getReceiver());
+  }
+
+  /**
+   * Get the number of bytes of a {@link DatagramPacket} still to be sent. A datagram is sent
+   * either as a whole or not at all.
+   */
+  @Override
+  protected long remaining(Object data) {
+    if (data instanceof DatagramPacket packet) {
+      return packet.getData().remaining();
+    }
+    return super.remaining(data);
   }
 
   /**
@@ -130,6 +169,19 @@ public class NioDatagramChannel extends AbstractNioChannel {
     super.write(data, key);
   }
 
+  /**
+   * Releases the data of a {@link DatagramPacket}, or any other data as described in {@link
+   * AbstractNioChannel#release(Object)}.
+   */
+  @Override
+  public void release(Object data) {
+    if (data instanceof DatagramPacket packet) {
+      super.release(packet.getData());
+    } else {
+      super.release(data);
+    }
+  }
+
   /**
    * Container of data used for {@link NioDatagramChannel} to communicate with remote peer.
    */
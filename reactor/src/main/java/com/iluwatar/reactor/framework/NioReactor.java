@@ -28,6 +28,9 @@ import java.io.IOException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
@@ -46,6 +49,12 @@ import lombok.extern.slf4j.Slf4j;
  * #start()} method. {@link NioReactor} uses {@link Selector} for realizing Synchronous Event
  * De-multiplexing.
  *
+ * <p>A reactor can also run in multi-reactor (boss/worker) mode, see {@link #NioReactor(Dispatcher,
+ * int)}. The reactor the channels are registered to then only accepts connections, and hands each
+ * accepted {@link SocketChannel} round-robin to one of its worker reactors. Every worker runs its
+ * own {@link Selector} on its own thread, so reads and writes of different connections are spread
+ * over several event loops instead of contending for a single one.
+ *
  * <p>NOTE: This is one of the ways to implement NIO reactor, and it does not take care of all
  * possible edge cases which are required in a real application. This implementation is meant to
  * demonstrate the fundamental concepts that lie behind Reactor pattern.
@@ -63,6 +72,12 @@ public class NioReactor {
    */
   private final Queue<Runnable> pendingCommands = new ConcurrentLinkedQueue<>();
   private final ExecutorService reactorMain = Executors.newSingleThreadExecutor();
+  private final List<NioReactor> workers;
+  /**
+   * Only touched by the event loop thread, which is the sole acceptor of connections.
+   */
+  private int nextWorker;
+  private volatile Thread eventLoopThread;
 
   /**
    * Creates a reactor which will use provided {@code dispatcher} to dispatch events. The
@@ -72,14 +87,46 @@ public class NioReactor {
    * @throws IOException if any I/O error occurs.
    */
   public NioReactor(Dispatcher dispatcher) throws IOException {
+    this(dispatcher, 0);
+  }
+
+  /**
+   * Creates a multi-reactor which accepts connections on its own event loop and serves them on
+   * {@code workerCount} worker event loops. With zero workers the reactor serves the accepted
+   * connections itself, exactly like {@link #NioReactor(Dispatcher)}.
+   *
+   * @param dispatcher  a non-null dispatcher used to dispatch events on registered channels.
+   * @param workerCount the number of worker reactors, zero for a single event loop.
+   * @throws IOException if any I/O error occurs.
+   */
+  public NioReactor(Dispatcher dispatcher, int workerCount) throws IOException {
+    if (workerCount < 0) {
+      throw new IllegalArgumentException("workerCount must not be negative: " + workerCount);
+    }
     this.dispatcher = dispatcher;
     this.selector = Selector.open();
+    this.workers = new ArrayList<>(workerCount);
+    for (var i = 0; i < workerCount; i++) {
+      workers.add(new NioReactor(dispatcher));
+    }
   }
 
   /**
-   * Starts the reactor event loop in a new thread.
+   * Get the number of worker reactors.
+   *
+   * @return the number of worker event loops, zero if this reactor serves connections itself.
+   */
+  public int getWorkerCount() {
+    return workers.size();
+  }
+
+  /**
+   * Starts the worker reactors, if any, and then the reactor event loop in a new thread.
    */
   public void start() {
+    for (var worker : workers) {
+      worker.start();
+    }
     reactorMain.execute(() -> {
       try {
         LOGGER.info("Reactor started, waiting for events...");
@@ -103,6 +150,9 @@ public class NioReactor {
       reactorMain.shutdownNow();
     }
     selector.close();
+    for (var worker : workers) {
+      worker.stop();
+    }
     LOGGER.info("Reactor stopped");
   }
 
@@ -124,8 +174,9 @@ public class NioReactor {
   }
 
   private void eventLoop() throws IOException {
-    // honor interrupt request
-    while (!Thread.interrupted()) {
+    eventLoopThread = Thread.currentThread();
+    // honor interrupt and stop requests
+    while (!Thread.interrupted() && !reactorMain.isShutdown()) {
       // honor any pending commands first
       processPendingCommands();
 
@@ -176,9 +227,12 @@ public class NioReactor {
     }
   }
 
-  private static void onChannelWritable(SelectionKey key) throws IOException {
-    var channel = (AbstractNioChannel) key.attachment();
-    channel.flush(key);
+  private static void onChannelWritable(SelectionKey key) {
+    try {
+      ((AbstractNioChannel) key.attachment()).flush(key);
+    } catch (IOException e) {
+      close(key);
+    }
   }
 
   private void onChannelReadable(SelectionKey key) {
@@ -187,14 +241,21 @@ public class NioReactor {
       var readObject = ((AbstractNioChannel) key.attachment()).read(key);
       dispatchReadEvent(key, readObject);
     } catch (IOException e) {
-      try {
-        key.channel().close();
-      } catch (IOException e1) {
-        LOGGER.error("error closing channel", e1);
-      }
+      close(key);
     }
   }
 
+  private static void close(SelectionKey key) {
+    ((AbstractNioChannel) key.attachment()).close(key);
+  }
+
+  /*
+   * Tells the dispatcher that the connection of the key is closed.
+   */
+  void channelClosed(SelectionKey key) {
+    dispatcher.onChannelClosed(key);
+  }
+
   /*
    * Uses the application provided dispatcher to dispatch events to application handler.
    */
@@ -205,9 +266,53 @@ public class NioReactor {
   private void onChannelAcceptable(SelectionKey key) throws IOException {
     var serverSocketChannel = (ServerSocketChannel) key.channel();
     var socketChannel = serverSocketChannel.accept();
+    if (socketChannel == null) {
+      return;
+    }
     socketChannel.configureBlocking(false);
-    var readKey = socketChannel.register(selector, SelectionKey.OP_READ);
-    readKey.attach(key.attachment());
+    var channel = (AbstractNioChannel) key.attachment();
+    if (workers.isEmpty()) {
+      socketChannel.register(selector, SelectionKey.OP_READ, channel);
+    } else {
+      var worker = workers.get(nextWorker);
+      nextWorker = (nextWorker + 1) % workers.size();
+      worker.registerAccepted(socketChannel, channel);
+    }
+  }
+
+  /*
+   * Registration must happen on the worker's own event loop, a register call from another thread
+   * would block until the worker's select returns.
+   */
+  private void registerAccepted(SocketChannel socketChannel, AbstractNioChannel channel) {
+    pendingCommands.add(() -> {
+      try {
+        socketChannel.register(selector, SelectionKey.OP_READ, channel);
+      } catch (IOException e) {
+        LOGGER.error("error registering accepted connection", e);
+        try {
+          socketChannel.close();
+        } catch (IOException e1) {
+          LOGGER.error("error closing channel", e1);
+        }
+      }
+    });
+    selector.wakeup();
+  }
+
+  /*
+   * A connection served by a worker has its key registered with that worker's selector, so it is
+   * the worker that has to change its operations.
+   */
+  private NioReactor reactorFor(SelectionKey key) {
+    if (key.selector() != selector) {
+      for (var worker : workers) {
+        if (key.selector() == worker.selector) {
+          return worker;
+        }
+      }
+    }
+    return this;
   }
 
   /**
@@ -215,14 +320,18 @@ public class NioReactor {
    * operations of the channel sometime in the future.
    *
    * <p>This is a non-blocking method and does not guarantee that the operations have changed when
-   * this method returns.
+   * this method returns. The selector is only woken up when called from outside the event loop,
+   * the event loop itself picks up the change before it selects again.
    *
    * @param key           the key for which operations have to be changed.
    * @param interestedOps the new interest operations.
    */
   public void changeOps(SelectionKey key, int interestedOps) {
-    pendingCommands.add(new ChangeKeyOpsCommand(key, interestedOps));
-    selector.wakeup();
+    var reactor = reactorFor(key);
+    reactor.pendingCommands.add(new ChangeKeyOpsCommand(key, interestedOps));
+    if (Thread.currentThread() != reactor.eventLoopThread) {
+      reactor.selector.wakeup();
+    }
   }
 
   /**
@@ -238,7 +347,10 @@ public class NioReactor {
     }
 
     public void run() {
-      key.interestOps(interestedOps);
+      // the connection may have been closed since the change was requested
+      if (key.isValid()) {
+        key.interestOps(interestedOps);
+      }
     }
 
     @Override
@@ -28,19 +28,42 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * A wrapper over {@link NioServerSocketChannel} which can read and write data on a {@link
  * SocketChannel}.
+ *
+ * <p>Data is read into pooled direct buffers. The first buffer of a read is sized from the previous
+ * reads of the connection, so that small messages do not each take a whole chunk. Whatever does
+ * not fit into it is read into further chunks, which are handed to the handler as a {@link
+ * CompositeBuffer}. Besides a
+ * {@link ByteBuffer} the channel writes arrays of buffers and composite buffers with one gathering
+ * write, and {@link FileRegion}s with {@link java.nio.channels.FileChannel#transferTo(long, long,
+ * java.nio.channels.WritableByteChannel)}.
  */
 @Slf4j
 public class NioServerSocketChannel extends AbstractNioChannel {
 
+  /**
+   * Bounds the data read in one readable event, so that one busy connection cannot starve the
+   * others served by the same reactor.
+   */
+  private static final int MAX_CHUNKS_PER_READ = 16;
+  /**
+   * Size of the first read of a connection, unless the chunk size is smaller.
+   */
+  private static final int INITIAL_READ_SIZE = 2048;
+
   private final int port;
+  private final Map<SelectableChannel, ReadSizeEstimate> readSizes = new ConcurrentHashMap<>();
 
   /**
    * Creates a {@link ServerSocketChannel} which will bind at provided port and use
@@ -54,7 +77,22 @@ public class NioServerSocketChannel extends AbstractNioChannel {
    * @throws IOException if any I/O error occurs.
    */
   public NioServerSocketChannel(int port, ChannelHandler handler) throws IOException {
-    super(handler, ServerSocketChannel.open());
+    this(port, handler, ByteBufferPool.getDefault());
+  }
+
+  /**
+   * Creates a {@link ServerSocketChannel} which will bind at provided port and read into buffers
+   * of the given pool.
+   *
+   * @param port       the port on which channel will be bound to accept incoming connection
+   *                   requests.
+   * @param handler    the handler that will handle incoming requests on this channel.
+   * @param bufferPool the pool to read into.
+   * @throws IOException if any I/O error occurs.
+   */
+  public NioServerSocketChannel(int port, ChannelHandler handler, ByteBufferPool bufferPool)
+      throws IOException {
+    super(handler, ServerSocketChannel.open(), bufferPool);
     this.port = port;
   }
 
@@ -76,20 +114,116 @@ public class NioServerSocketChannel extends AbstractNioChannel {
   }
 
   /**
-   * Reads and returns {@link ByteBuffer} from the underlying {@link SocketChannel} represented by
-   * the <code>key</code>. Due to the fact that there is a dedicated channel for each client
-   * connection we don't need to store the sender.
+   * Reads and returns a {@link ByteBuffer}, or a {@link CompositeBuffer} if the data does not fit
+   * into one chunk, from the underlying {@link SocketChannel} represented by the <code>key</code>.
+   * Due to the fact that there is a dedicated channel for each client connection we don't need to
+   * store the sender.
    */
   @Override
-  public ByteBuffer read(SelectionKey key) throws IOException {
+  public Object read(SelectionKey key) throws IOException {
     var socketChannel = (SocketChannel) key.channel();
-    var buffer = ByteBuffer.allocate(1024);
-    var read = socketChannel.read(buffer);
-    buffer.flip();
+    var pool = getBufferPool();
+    var estimate = readSizes.get(socketChannel);
+    var buffer = pool.acquire(estimate != null ? estimate.size : initialReadSize());
+    int read;
+    try {
+      read = socketChannel.read(buffer);
+    } catch (IOException e) {
+      pool.release(buffer);
+      throw e;
+    }
     if (read == -1) {
+      pool.release(buffer);
       throw new IOException("Socket closed");
     }
-    return buffer;
+    if (read > 0) {
+      recordRead(socketChannel, read, !buffer.hasRemaining());
+    }
+    if (buffer.hasRemaining()) {
+      return buffer.flip();
+    }
+    return readComposite(socketChannel, buffer);
+  }
+
+  private int initialReadSize() {
+    return Math.min(INITIAL_READ_SIZE, getBufferPool().getChunkSize());
+  }
+
+  private void recordRead(SocketChannel socketChannel, int read, boolean filled) {
+    var estimate = readSizes.computeIfAbsent(socketChannel,
+        channel -> new ReadSizeEstimate(initialReadSize()));
+    estimate.record(read, filled, getBufferPool().getChunkSize());
+    if (!socketChannel.isOpen()) {
+      // closed by a handler meanwhile, after close had forgotten the connection
+      readSizes.remove(socketChannel);
+    }
+  }
+
+  /**
+   * Closes the connection of the key and forgets the size of its reads.
+   *
+   * @param key the key of the connection.
+   */
+  @Override
+  public void close(SelectionKey key) {
+    super.close(key);
+    readSizes.remove(key.channel());
+  }
+
+  /*
+   * The first chunk is full, so there may be more data waiting. A close of the peer found here is
+   * reported by the next readable event, after the data read so far has been delivered.
+   */
+  private Object readComposite(SocketChannel socketChannel, ByteBuffer first) throws IOException {
+    var pool = getBufferPool();
+    var components = new ArrayList<ByteBuffer>(MAX_CHUNKS_PER_READ);
+    components.add(first);
+    var buffer = first;
+    try {
+      while (!buffer.hasRemaining() && components.size() < MAX_CHUNKS_PER_READ) {
+        buffer = pool.acquire(pool.getChunkSize());
+        components.add(buffer);
+        if (socketChannel.read(buffer) <= 0) {
+          break;
+        }
+      }
+    } catch (IOException e) {
+      components.forEach(pool::release);
+      throw e;
+    }
+    if (buffer.position() == 0) {
+      pool.release(components.remove(components.size() - 1));
+    }
+    components.forEach(ByteBuffer::flip);
+    return components.size() == 1 ? first : new CompositeBuffer(pool, components);
+  }
+
+  /**
+   * The size of the next read of a connection. It grows to the chunk size as soon as a read fills
+   * the buffer, and shrinks by one size class after two reads in a row which would have fit into
+   * half of it. Only touched by the reactor thread serving the connection.
+   */
+  private static final class ReadSizeEstimate {
+    private int size;
+    private boolean shrinking;
+
+    ReadSizeEstimate(int size) {
+      this.size = size;
+    }
+
+    void record(int read, boolean filled, int chunkSize) {
+      if (filled) {
+        size = chunkSize;
+        shrinking = false;
+      } else if (read <= size / 2 && size > ByteBufferPool.MIN_CAPACITY) {
+        if (shrinking) {
+          size /= 2;
+        }
+        shrinking = !shrinking;
+      } else {
+        shrinking = false;
+      }
+    }
   }
 
   /**
@@ -106,12 +240,28 @@ public class NioServerSocketChannel extends AbstractNioChannel {
   }
 
   /**
-   * Writes the pending {@link ByteBuffer} to the underlying channel sending data to the intended
-   * receiver of the packet.
+   * Writes the pending {@link ByteBuffer}, {@code ByteBuffer[]}, {@link CompositeBuffer} or {@link
+   * FileRegion} to the underlying channel sending data to the intended receiver of the packet.
+   * Writes only as much as the socket accepts without blocking, the rest is written on the next
+   * writable event.
    */
   @Override
-  protected void doWrite(Object pendingWrite, SelectionKey key) throws IOException {
-    var pendingBuffer = (ByteBuffer) pendingWrite;
-    ((SocketChannel) key.channel()).write(pendingBuffer);
+  protected long doWrite(Object pendingWrite, SelectionKey key) throws IOException {
+    var socketChannel = (SocketChannel) key.channel();
+    if (pendingWrite instanceof ByteBuffer buffer) {
+      return socketChannel.write(buffer);
+    } else if (pendingWrite instanceof ByteBuffer[] buffers) {
+      return socketChannel.write(buffers);
+    } else if (pendingWrite instanceof CompositeBuffer composite) {
+      return socketChannel.write(composite.getComponents());
+    } else if (pendingWrite instanceof FileRegion region) {
+      return region.transferTo(socketChannel);
+    }
+    throw new IllegalArgumentException("Unsupported data: " + pendingWrite.getClass());
+  }
+
+  @Override
+  protected boolean isGatheringWriteSupported() {
+    return true;
   }
 }
@@ -0,0 +1,168 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.channels.SelectionKey;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An implementation that dispatches the events to a pool of worker threads like {@link
+ * ThreadPoolDispatcher}, but handles the events of one {@link SelectionKey} strictly one after the
+ * other in the order they were read. Events of different keys are still handled in parallel.
+ *
+ * <p>Every key has its own queue of events. Only one task per key is submitted to the pool at any
+ * time; it handles a bounded batch of the queued events and then resubmits itself if more are
+ * waiting, so that a busy connection cannot monopolize a worker. A handler which fails only loses
+ * its own event, the events after it are still handled.
+ */
+@Slf4j
+public class OrderedDispatcher implements Dispatcher {
+
+  private static final int MAX_EVENTS_PER_TASK = 16;
+
+  private final ExecutorService executorService;
+  private final Map<SelectionKey, KeyQueue> queues = new ConcurrentHashMap<>();
+
+  /**
+   * Creates an ordered dispatcher with tunable pool size.
+   *
+   * @param poolSize number of pooled threads
+   */
+  public OrderedDispatcher(int poolSize) {
+    this(Executors.newFixedThreadPool(poolSize));
+  }
+
+  /**
+   * Creates an ordered dispatcher on top of the given executor, which is stopped along with the
+   * dispatcher.
+   *
+   * @param executorService the executor that runs the handlers.
+   */
+  public OrderedDispatcher(ExecutorService executorService) {
+    this.executorService = executorService;
+  }
+
+  /**
+   * Queues the read event behind the earlier events of the same key. <br> Note that this is a
+   * non-blocking call and returns immediately. It is not guaranteed that the event has been handled
+   * by associated handler.
+   */
+  @Override
+  public void onChannelReadEvent(AbstractNioChannel channel, Object readObject, SelectionKey key) {
+    var queue = queues.computeIfAbsent(key, KeyQueue::new);
+    queue.events.add(() -> channel.getHandler().handleChannelRead(channel, readObject, key));
+    if (queue.scheduled.compareAndSet(false, true)) {
+      executorService.execute(queue);
+    }
+  }
+
+  /**
+   * Forgets the queue of the closed key, unless a worker is still handling its events, in which
+   * case the worker forgets it when it is done.
+   */
+  @Override
+  public void onChannelClosed(SelectionKey key) {
+    queues.computeIfPresent(key, (closed, queue) -> queue.scheduled.get() ? queue : null);
+  }
+
+  /**
+   * Get the number of keys with events queued or being handled.
+   *
+   * @return the number of keys known to this dispatcher.
+   */
+  public int getActiveKeys() {
+    return queues.size();
+  }
+
+  /**
+   * Stops the pool of workers. Handlers which are still running after a grace period are
+   * interrupted.
+   *
+   * @throws InterruptedException if interrupted while stopping pool of workers.
+   */
+  @Override
+  public void stop() throws InterruptedException {
+    executorService.shutdown();
+    if (!executorService.awaitTermination(4, TimeUnit.SECONDS)) {
+      executorService.shutdownNow();
+    }
+  }
+
+  /**
+   * The events of one key, handled by at most one worker at a time.
+   */
+  private class KeyQueue implements Runnable {
+    private final SelectionKey key;
+    private final Queue<Runnable> events = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    KeyQueue(SelectionKey key) {
+      this.key = key;
+    }
+
+    @Override
+    public void run() {
+      try {
+        for (var i = 0; i < MAX_EVENTS_PER_TASK; i++) {
+          var event = events.poll();
+          if (event == null) {
+            break;
+          }
+          try {
+            event.run();
+          } catch (RuntimeException e) {
+            LOGGER.error("Handler failed to handle an event of {}", key, e);
+          }
+        }
+      } finally {
+        reschedule();
+      }
+    }
+
+    private void reschedule() {
+      if (!events.isEmpty()) {
+        executorService.execute(this);
+        return;
+      }
+      scheduled.set(false);
+      // an event may have been queued after the queue was found empty but before the flag was
+      // cleared, in which case it relied on this task
+      if (!events.isEmpty() && scheduled.compareAndSet(false, true)) {
+        executorService.execute(this);
+      } else if (!key.isValid()) {
+        // the connection is closed, no more events will follow
+        queues.remove(key, this);
+      }
+    }
+  }
+}
@@ -33,6 +33,9 @@ import java.util.concurrent.TimeUnit;
  * An implementation that uses a pool of worker threads to dispatch the events. This provides better
  * scalability as the application specific processing is not performed in the context of I/O
  * (reactor) thread.
+ *
+ * <p>Note that the events of one connection may be handled by several workers at the same time,
+ * and so out of order. Use {@link OrderedDispatcher} if the handler relies on the order.
  */
 public class ThreadPoolDispatcher implements Dispatcher {
 
@@ -58,14 +61,15 @@ public class ThreadPoolDispatcher implements Dispatcher {
   }
 
   /**
-   * Stops the pool of workers.
+   * Stops the pool of workers. Handlers which are still running after a grace period are
+   * interrupted.
    *
    * @throws InterruptedException if interrupted while stopping pool of workers.
    */
   @Override
   public void stop() throws InterruptedException {
     executorService.shutdown();
-    if (executorService.awaitTermination(4, TimeUnit.SECONDS)) {
+    if (!executorService.awaitTermination(4, TimeUnit.SECONDS)) {
       executorService.shutdownNow();
     }
   }
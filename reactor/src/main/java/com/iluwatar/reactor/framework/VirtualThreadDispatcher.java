@@ -0,0 +1,123 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.channels.SelectionKey;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An implementation that handles every read event on a thread of its own. This is a good fit for
+ * handlers which block, e.g. on a database or a remote service, where a fixed pool of workers
+ * would quickly be exhausted by waiting threads.
+ *
+ * <p>On a runtime with virtual threads (Java 21 and later) each event is handled on a new virtual
+ * thread, which are cheap enough to be created by the thousands. The project is built for Java 17,
+ * so the executor is looked up at runtime; on older runtimes the dispatcher falls back to a cached
+ * pool of platform threads, which grows with the number of concurrently blocked handlers.
+ *
+ * <p>Like {@link ThreadPoolDispatcher} it does not keep the events of a connection in order, wrap
+ * it in an {@link OrderedDispatcher} via {@link #newOrderedDispatcher()} if that is required.
+ */
+@Slf4j
+public class VirtualThreadDispatcher implements Dispatcher {
+
+  private final ExecutorService executorService;
+
+  /**
+   * Creates a dispatcher that uses virtual threads if the runtime supports them.
+   */
+  public VirtualThreadDispatcher() {
+    this.executorService = newThreadPerTaskExecutor();
+  }
+
+  /**
+   * Tells whether the runtime supports virtual threads.
+   *
+   * @return {@code true} if handlers run on virtual threads.
+   */
+  public static boolean isVirtualThreadSupported() {
+    return findVirtualThreadExecutorFactory() != null;
+  }
+
+  /**
+   * Creates an {@link OrderedDispatcher} which handles the events of every key in order on virtual
+   * threads, or on a cached pool on runtimes without virtual threads.
+   *
+   * @return a new ordered dispatcher.
+   */
+  public static OrderedDispatcher newOrderedDispatcher() {
+    return new OrderedDispatcher(newThreadPerTaskExecutor());
+  }
+
+  /**
+   * Starts a new thread handling the read event. <br> Note that this is a non-blocking call and
+   * returns immediately. It is not guaranteed that the event has been handled by associated
+   * handler.
+   */
+  @Override
+  public void onChannelReadEvent(AbstractNioChannel channel, Object readObject, SelectionKey key) {
+    executorService.execute(() -> channel.getHandler().handleChannelRead(channel, readObject, key));
+  }
+
+  /**
+   * Stops accepting events. Handlers which are still running after a grace period are interrupted.
+   *
+   * @throws InterruptedException if interrupted while waiting for running handlers.
+   */
+  @Override
+  public void stop() throws InterruptedException {
+    executorService.shutdown();
+    if (!executorService.awaitTermination(4, TimeUnit.SECONDS)) {
+      executorService.shutdownNow();
+    }
+  }
+
+  private static ExecutorService newThreadPerTaskExecutor() {
+    var factory = findVirtualThreadExecutorFactory();
+    if (factory != null) {
+      try {
+        return (ExecutorService) factory.invoke();
+      } catch (Throwable e) {
+        LOGGER.warn("Virtual threads are not available, using platform threads", e);
+      }
+    }
+    return Executors.newCachedThreadPool();
+  }
+
+  private static MethodHandle findVirtualThreadExecutorFactory() {
+    try {
+      return MethodHandles.publicLookup().findStatic(Executors.class,
+          "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link ByteBufferPool}.
+ */
+class ByteBufferPoolTest {
+
+  private final ByteBufferPool pool = new ByteBufferPool(4096, true);
+
+  @Test
+  void shouldRoundUpToSizeClass() {
+    assertEquals(512, pool.acquire(1).capacity());
+    assertEquals(512, pool.acquire(512).capacity());
+    assertEquals(1024, pool.acquire(513).capacity());
+    assertEquals(4096, pool.acquire(4096).capacity());
+    assertTrue(pool.acquire(1).isDirect());
+  }
+
+  @Test
+  void shouldReuseReleasedBuffers() {
+    var buffer = pool.acquire(1000);
+    buffer.putInt(42);
+    pool.release(buffer);
+
+    var reused = pool.acquire(1000);
+    assertSame(buffer, reused);
+    assertEquals(0, reused.position());
+    assertEquals(1, pool.getAllocated());
+    assertEquals(1, pool.getOutstanding());
+  }
+
+  @Test
+  void shouldShareBuffersReleasedOnOtherThreads() throws Exception {
+    var buffers = new ByteBuffer[20];
+    for (var i = 0; i < buffers.length; i++) {
+      buffers[i] = pool.acquire(512);
+    }
+    var releaser = new Thread(() -> List.of(buffers).forEach(pool::release));
+    releaser.start();
+    releaser.join();
+
+    // the releasing thread never acquired a buffer, so it keeps none of them
+    for (var i = 0; i < buffers.length; i++) {
+      pool.acquire(512);
+    }
+    assertEquals(buffers.length, pool.getAllocated());
+  }
+
+  @Test
+  void shouldShareBuffersReleasedOnVirtualThreads() throws Exception {
+    assumeTrue(VirtualThreadDispatcher.isVirtualThreadSupported());
+    var executor = (ExecutorService) Executors.class
+        .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    try {
+      for (var i = 0; i < 10; i++) {
+        executor.submit(() -> pool.release(pool.acquire(512))).get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    // every task ran on a new virtual thread, which left its buffer to the next one
+    assertEquals(1, pool.getAllocated());
+  }
+
+  @Test
+  void shouldNotPoolOversizedOrHeapBuffers() {
+    var oversized = pool.acquire(5000);
+    assertEquals(5000, oversized.capacity());
+    pool.release(oversized);
+    pool.release(ByteBuffer.allocate(512));
+
+    assertEquals(0, pool.getOutstanding());
+    assertEquals(0, pool.getAllocated());
+  }
+
+  @Test
+  void shouldReportLeaks() {
+    var leaked = pool.acquire(100);
+    pool.release(pool.acquire(100));
+
+    assertEquals(1, pool.getOutstanding());
+    assertEquals(1, pool.getLeaks().size());
+    pool.release(leaked);
+    assertTrue(pool.getLeaks().isEmpty());
+  }
+
+  @Test
+  void shouldRejectDoubleRelease() {
+    var buffer = pool.acquire(100);
+    pool.release(buffer);
+    assertThrows(IllegalStateException.class, () -> pool.release(buffer));
+  }
+
+  @Test
+  void shouldRejectInvalidChunkSize() {
+    assertThrows(IllegalArgumentException.class, () -> new ByteBufferPool(256, false));
+    assertThrows(IllegalArgumentException.class, () -> new ByteBufferPool(3000, false));
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs a line based request/response protocol on a {@link ChannelPipeline} served by a {@link
+ * NioReactor}.
+ */
+class ChannelPipelineTest {
+
+  private static final int MAX_LINE_LENGTH = 4096;
+
+  private final ByteBufferPool pool = new ByteBufferPool(1024, true);
+  private final CountDownLatch closed = new CountDownLatch(1);
+  private NioReactor reactor;
+  private NioServerSocketChannel serverChannel;
+  private ChannelPipeline<String> pipeline;
+
+  @AfterEach
+  void tearDown() throws Exception {
+    reactor.stop();
+    serverChannel.getJavaChannel().close();
+    assertEquals(0, pool.getOutstanding(), () -> "leaked buffers: " + pool.getLeaks());
+  }
+
+  @Test
+  void shouldAnswerMergedAndPartialRequests() throws Exception {
+    var port = startServer(new SameThreadDispatcher());
+
+    try (var client = connect(port)) {
+      write(client, "one\ntwo\r\nthr");
+      Thread.sleep(50);
+      write(client, "ee\n" + "x".repeat(3000) + "\n");
+
+      assertEquals("ONE\nTWO\nTHREE\n" + "X".repeat(3000) + "\n",
+          read(client, 14 + 3001));
+    }
+    assertTrue(closed.await(5, TimeUnit.SECONDS));
+    assertEquals(0, pipeline.getConnectionCount());
+  }
+
+  @Test
+  void shouldKeepOrderWithOrderedDispatcher() throws Exception {
+    var port = startServer(new OrderedDispatcher(4));
+    var requests = new StringBuilder();
+    var expected = new StringBuilder();
+    for (var i = 0; i < 2000; i++) {
+      requests.append("request ").append(i).append('\n');
+      expected.append("REQUEST ").append(i).append('\n');
+    }
+
+    try (var client = connect(port)) {
+      // written in pieces that do not line up with the requests
+      var bytes = requests.toString().getBytes(StandardCharsets.UTF_8);
+      for (var offset = 0; offset < bytes.length; offset += 777) {
+        client.write(ByteBuffer.wrap(bytes, offset, Math.min(777, bytes.length - offset)));
+      }
+      assertEquals(expected.toString(), read(client, bytes.length));
+    }
+    assertTrue(closed.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void shouldCloseConnectionOnCorruptedFrame() throws Exception {
+    var port = startServer(new SameThreadDispatcher());
+
+    try (var client = connect(port)) {
+      write(client, "y".repeat(MAX_LINE_LENGTH + 2));
+      // the server closes the connection, possibly resetting it as the data was not read
+      assertThrows(IOException.class, () -> read(client, 1));
+    }
+    assertTrue(closed.await(5, TimeUnit.SECONDS));
+  }
+
+  private int startServer(Dispatcher dispatcher) throws IOException {
+    pipeline = new ChannelPipeline<>(() -> new LineBasedFrameDecoder(MAX_LINE_LENGTH),
+        new LineBasedFrameEncoder(), new StringCodec(StandardCharsets.UTF_8),
+        new MessageHandler<>() {
+          @Override
+          public void handleMessage(ChannelContext<String> context, String message) {
+            context.write(message.toUpperCase());
+          }
+
+          @Override
+          public void channelClosed(ChannelContext<String> context) {
+            closed.countDown();
+          }
+        });
+    reactor = new NioReactor(dispatcher);
+    serverChannel = new NioServerSocketChannel(0, pipeline, pool);
+    serverChannel.bind();
+    reactor.registerChannel(serverChannel).start();
+    return serverChannel.getJavaChannel().socket().getLocalPort();
+  }
+
+  private static SocketChannel connect(int port) throws IOException {
+    return SocketChannel.open(new InetSocketAddress(InetAddress.getLocalHost(), port));
+  }
+
+  private static void write(SocketChannel client, String text) throws IOException {
+    var buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    while (buffer.hasRemaining()) {
+      client.write(buffer);
+    }
+  }
+
+  private static String read(SocketChannel client, int length) throws IOException {
+    var buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (client.read(buffer) == -1) {
+        throw new IOException("Socket closed");
+      }
+    }
+    return new String(buffer.array(), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,322 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link Dispatcher} implementations which run handlers on other threads.
+ */
+class DispatcherTest {
+
+  private final List<AbstractNioChannel> channels = new ArrayList<>();
+
+  @AfterEach
+  void tearDown() throws IOException {
+    for (var channel : channels) {
+      channel.getJavaChannel().close();
+    }
+  }
+
+  @Test
+  void orderedDispatcherShouldKeepOrderPerKey() throws Exception {
+    var events = 1000;
+    var keys = List.of(new StubKey(), new StubKey(), new StubKey(), new StubKey());
+    var received = new ConcurrentHashMap<SelectionKey, List<Integer>>();
+    var done = new CountDownLatch(events * keys.size());
+    var channel = channel((ch, readObject, key) -> {
+      received.computeIfAbsent(key, k -> new ArrayList<>()).add((Integer) readObject);
+      done.countDown();
+    });
+    var dispatcher = new OrderedDispatcher(4);
+
+    for (var i = 0; i < events; i++) {
+      for (var key : keys) {
+        dispatcher.onChannelReadEvent(channel, i, key);
+      }
+    }
+
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    dispatcher.stop();
+    for (var key : keys) {
+      var expected = new ArrayList<Integer>();
+      for (var i = 0; i < events; i++) {
+        expected.add(i);
+      }
+      assertEquals(expected, received.get(key));
+    }
+  }
+
+  @Test
+  void orderedDispatcherShouldHandleDifferentKeysInParallel() throws Exception {
+    var first = new StubKey();
+    var second = new StubKey();
+    var secondHandled = new CountDownLatch(1);
+    var firstHandled = new CountDownLatch(1);
+    var channel = channel((ch, readObject, key) -> {
+      if (key == first) {
+        // blocks the first key until the second one has been handled on another worker
+        await(secondHandled);
+        firstHandled.countDown();
+      } else {
+        secondHandled.countDown();
+      }
+    });
+    var dispatcher = new OrderedDispatcher(2);
+
+    dispatcher.onChannelReadEvent(channel, "a", first);
+    dispatcher.onChannelReadEvent(channel, "b", second);
+
+    assertTrue(firstHandled.await(5, TimeUnit.SECONDS));
+    dispatcher.stop();
+  }
+
+  @Test
+  void orderedDispatcherShouldForgetClosedKeys() throws Exception {
+    var key = new StubKey();
+    var handled = new CountDownLatch(1);
+    var channel = channel((ch, readObject, k) -> handled.countDown());
+    var dispatcher = new OrderedDispatcher(1);
+
+    key.valid = false;
+    dispatcher.onChannelReadEvent(channel, "last", key);
+
+    assertTrue(handled.await(5, TimeUnit.SECONDS));
+    dispatcher.stop();
+    assertEquals(0, dispatcher.getActiveKeys());
+  }
+
+  @Test
+  void orderedDispatcherShouldKeepHandlingAfterAHandlerFails() throws Exception {
+    var key = new StubKey();
+    var handled = new CountDownLatch(1);
+    var channel = channel((ch, readObject, k) -> {
+      if ("bad".equals(readObject)) {
+        throw new IllegalStateException("handler failed");
+      }
+      handled.countDown();
+    });
+    var dispatcher = new OrderedDispatcher(1);
+
+    dispatcher.onChannelReadEvent(channel, "bad", key);
+    assertTrue(awaitIdle(dispatcher));
+    dispatcher.onChannelReadEvent(channel, "good", key);
+
+    assertTrue(handled.await(5, TimeUnit.SECONDS));
+    dispatcher.stop();
+  }
+
+  @Test
+  void orderedDispatcherShouldForgetKeysClosedWhileIdle() throws Exception {
+    var key = new StubKey();
+    var channel = channel((ch, readObject, k) -> { });
+    var dispatcher = new OrderedDispatcher(1);
+
+    dispatcher.onChannelReadEvent(channel, "only", key);
+    assertTrue(awaitIdle(dispatcher));
+    assertEquals(1, dispatcher.getActiveKeys());
+    key.valid = false;
+    dispatcher.onChannelClosed(key);
+
+    dispatcher.stop();
+    assertEquals(0, dispatcher.getActiveKeys());
+  }
+
+  @Test
+  void virtualThreadDispatcherShouldRunBlockingHandlersConcurrently() throws Exception {
+    var handlers = 100;
+    var allBlocked = new CountDownLatch(handlers);
+    var threads = ConcurrentHashMap.<Thread>newKeySet();
+    var caller = Thread.currentThread();
+    var channel = channel((ch, readObject, key) -> {
+      threads.add(Thread.currentThread());
+      allBlocked.countDown();
+      // every handler blocks until all of them are running
+      await(allBlocked);
+    });
+    var dispatcher = new VirtualThreadDispatcher();
+
+    for (var i = 0; i < handlers; i++) {
+      dispatcher.onChannelReadEvent(channel, i, new StubKey());
+    }
+
+    assertTrue(allBlocked.await(5, TimeUnit.SECONDS));
+    dispatcher.stop();
+    assertEquals(handlers, threads.size());
+    assertTrue(threads.stream().noneMatch(caller::equals));
+  }
+
+  @Test
+  void threadPoolDispatcherShouldInterruptHandlersStillRunningOnStop() throws Exception {
+    var started = new CountDownLatch(1);
+    var interrupted = new CountDownLatch(1);
+    var channel = channel((ch, readObject, key) -> {
+      started.countDown();
+      try {
+        Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+      } catch (InterruptedException e) {
+        interrupted.countDown();
+      }
+    });
+    var dispatcher = new ThreadPoolDispatcher(1);
+    dispatcher.onChannelReadEvent(channel, "blocking", new StubKey());
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    dispatcher.stop();
+
+    assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void writesAfterCloseShouldReleaseTheirBuffers() throws Exception {
+    var pool = new ByteBufferPool(ByteBufferPool.DEFAULT_CHUNK_SIZE, true);
+    var key = new StubKey(SocketChannel.open());
+    var handled = new CountDownLatch(2);
+    var channel = new NioServerSocketChannel(0, (ch, readObject, k) -> {
+      if ("close".equals(readObject)) {
+        ch.close(k);
+      } else {
+        ch.write(pool.acquire(16), k);
+      }
+      handled.countDown();
+    }, pool);
+    channels.add(channel);
+    // a single worker runs the handlers in order, so the write comes after the close
+    var dispatcher = new ThreadPoolDispatcher(1);
+
+    dispatcher.onChannelReadEvent(channel, "close", key);
+    dispatcher.onChannelReadEvent(channel, "write", key);
+
+    assertTrue(handled.await(5, TimeUnit.SECONDS));
+    dispatcher.stop();
+    assertEquals(0, pool.getOutstanding());
+    assertEquals(0, channel.getPendingBytes(key));
+  }
+
+  private AbstractNioChannel channel(ChannelHandler handler) throws IOException {
+    var channel = new NioServerSocketChannel(0, handler);
+    channels.add(channel);
+    return channel;
+  }
+
+  // waits until the only worker has handled the events queued so far and gone idle
+  private static boolean awaitIdle(OrderedDispatcher dispatcher) throws Exception {
+    var idle = new CountDownLatch(1);
+    var probe = new NioServerSocketChannel(0, (ch, readObject, k) -> idle.countDown());
+    var probeKey = new StubKey();
+    probeKey.valid = false;
+    try {
+      dispatcher.onChannelReadEvent(probe, "probe", probeKey);
+      if (!idle.await(5, TimeUnit.SECONDS)) {
+        return false;
+      }
+      // the closed probe key is forgotten once its worker is done
+      var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (dispatcher.getActiveKeys() > 1 && System.nanoTime() < deadline) {
+        Thread.sleep(1);
+      }
+      return dispatcher.getActiveKeys() <= 1;
+    } finally {
+      probe.getJavaChannel().close();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * A key that is not registered with any selector, the dispatchers only use it for identity and
+   * validity. Handlers can only close or write to it if it is given a channel.
+   */
+  private static class StubKey extends SelectionKey {
+    private final SelectableChannel channel;
+    private volatile boolean valid = true;
+
+    StubKey() {
+      this(null);
+    }
+
+    StubKey(SelectableChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    public SelectableChannel channel() {
+      if (channel == null) {
+        throw new UnsupportedOperationException();
+      }
+      return channel;
+    }
+
+    @Override
+    public Selector selector() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isValid() {
+      return valid;
+    }
+
+    @Override
+    public void cancel() {
+      valid = false;
+    }
+
+    @Override
+    public int interestOps() {
+      return 0;
+    }
+
+    @Override
+    public SelectionKey interestOps(int ops) {
+      return this;
+    }
+
+    @Override
+    public int readyOps() {
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the frame decoders and encoders and the {@link ByteCumulation} they work on.
+ */
+class FrameCodecTest {
+
+  private final ByteBufferPool pool = new ByteBufferPool(1024, true);
+  private final StringCodec codec = new StringCodec(StandardCharsets.UTF_8);
+
+  @Test
+  void lengthFieldDecoderShouldSplitMergedFrames() {
+    var in = new ByteCumulation(pool);
+    in.add(direct(lengthFramed("one", "two", "three")));
+
+    var frames = decodeAll(new LengthFieldFrameDecoder(100), in);
+
+    assertEquals(List.of("one", "two", "three"), frames);
+    assertEquals(0, in.readableBytes());
+    in.releaseConsumed();
+    assertEquals(0, pool.getOutstanding());
+  }
+
+  @Test
+  void lengthFieldDecoderShouldWaitForPartialFrames() {
+    var bytes = lengthFramed("hello", "world");
+    var decoder = new LengthFieldFrameDecoder(100);
+    var in = new ByteCumulation(pool);
+    var frames = new ArrayList<String>();
+
+    // every split point, including ones inside the length field
+    for (var i = 0; i < bytes.length; i++) {
+      in.add(direct(new byte[] {bytes[i]}));
+      frames.addAll(decodeAll(decoder, in));
+    }
+
+    assertEquals(List.of("hello", "world"), frames);
+  }
+
+  @Test
+  void framesWithinOneBufferShouldBeSlicesAndOthersComposites() {
+    var bytes = lengthFramed("inside", "across");
+    var split = bytes.length - 3;
+    var first = direct(Arrays.copyOfRange(bytes, 0, split));
+    var in = new ByteCumulation(pool);
+    in.add(first);
+    in.add(direct(Arrays.copyOfRange(bytes, split, bytes.length)));
+    var decoder = new LengthFieldFrameDecoder(100);
+
+    var inside = assertInstanceOf(ByteBuffer.class, decoder.decode(in));
+    // a slice shares the memory of the buffer it was read into
+    first.put(Integer.BYTES, (byte) 'I');
+    assertEquals("Inside", codec.decode(inside));
+    var across = assertInstanceOf(CompositeBuffer.class, decoder.decode(in));
+    assertEquals(2, across.getComponents().length);
+    assertEquals("across", codec.decode(across));
+    in.releaseConsumed();
+    assertEquals(0, pool.getOutstanding());
+  }
+
+  @Test
+  void lengthFieldDecoderShouldRejectInvalidLength() {
+    var in = new ByteCumulation(pool);
+    in.add(ByteBuffer.allocate(Integer.BYTES).putInt(0, 101));
+    assertThrows(CorruptedFrameException.class, () -> new LengthFieldFrameDecoder(100).decode(in));
+  }
+
+  @Test
+  void lineDecoderShouldHandlePartialAndMergedLines() {
+    var decoder = new LineBasedFrameDecoder(100);
+    var in = new ByteCumulation(pool);
+    var frames = new ArrayList<String>();
+
+    in.add(heap("first\r\nsec"));
+    frames.addAll(decodeAll(decoder, in));
+    in.add(heap("ond"));
+    frames.addAll(decodeAll(decoder, in));
+    in.add(heap("\n\nthird\nfourth"));
+    frames.addAll(decodeAll(decoder, in));
+
+    assertEquals(List.of("first", "second", "", "third"), frames);
+    assertEquals("fourth".length(), in.readableBytes());
+  }
+
+  @Test
+  void lineDecoderShouldRejectTooLongLines() {
+    var decoder = new LineBasedFrameDecoder(4);
+    var in = new ByteCumulation(pool);
+    in.add(heap("four\n"));
+    assertEquals("four", codec.decode(decoder.decode(in)));
+
+    in.add(heap("fiv"));
+    assertNull(decoder.decode(in));
+    in.add(heap("e and more"));
+    assertThrows(CorruptedFrameException.class, () -> decoder.decode(in));
+  }
+
+  @Test
+  void encodersShouldRoundTripThroughDecoders() {
+    var messages = List.of("alpha", "", "gamma delta");
+    assertEquals(messages, roundTrip(new LengthFieldFrameEncoder(),
+        new LengthFieldFrameDecoder(100), messages));
+    assertEquals(messages, roundTrip(new LineBasedFrameEncoder(),
+        new LineBasedFrameDecoder(100), messages));
+  }
+
+  @Test
+  void cumulationShouldReadIntsAcrossBuffers() {
+    var in = new ByteCumulation(pool);
+    in.add(heap("x"));
+    in.add(ByteBuffer.wrap(new byte[] {0x12, 0x34}));
+    in.add(ByteBuffer.wrap(new byte[] {0x56, 0x78}));
+
+    assertEquals(0x12345678, in.getInt(1));
+    assertEquals(2, in.indexOf((byte) 0x34, 0));
+    assertEquals(-1, in.indexOf((byte) 0x12, 2));
+    assertThrows(IndexOutOfBoundsException.class, () -> in.getInt(2));
+  }
+
+  private List<String> roundTrip(FrameEncoder encoder, FrameDecoder decoder,
+      List<String> messages) {
+    var in = new ByteCumulation(pool);
+    for (var message : messages) {
+      for (var buffer : encoder.encode(codec.encode(message))) {
+        in.add(buffer);
+      }
+    }
+    return decodeAll(decoder, in);
+  }
+
+  private List<String> decodeAll(FrameDecoder decoder, ByteCumulation in) {
+    var frames = new ArrayList<String>();
+    Object frame;
+    while ((frame = decoder.decode(in)) != null) {
+      frames.add(codec.decode(frame));
+    }
+    return frames;
+  }
+
+  private static byte[] lengthFramed(String... messages) {
+    var out = new ByteArrayOutputStream();
+    for (var message : messages) {
+      var bytes = message.getBytes(StandardCharsets.UTF_8);
+      out.writeBytes(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+      out.writeBytes(bytes);
+    }
+    return out.toByteArray();
+  }
+
+  private ByteBuffer direct(byte[] bytes) {
+    return pool.acquire(bytes.length).put(bytes).flip();
+  }
+
+  private static ByteBuffer heap(String text) {
+    return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,270 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the single and the multi-reactor (boss/worker) modes of {@link NioReactor} with an echo
+ * server. The server reads into a leak detecting {@link ByteBufferPool}, every test checks that
+ * all pooled buffers have been released.
+ */
+class NioReactorTest {
+
+  private static final int CHUNK_SIZE = 1024;
+
+  private final ByteBufferPool pool = new ByteBufferPool(CHUNK_SIZE, true);
+  private NioReactor reactor;
+  private NioServerSocketChannel serverChannel;
+
+  @AfterEach
+  void tearDown() throws Exception {
+    if (reactor != null) {
+      reactor.stop();
+      serverChannel.getJavaChannel().close();
+    }
+    assertEquals(0, pool.getOutstanding(), () -> "leaked buffers: " + pool.getLeaks());
+  }
+
+  @Test
+  void shouldServeConnectionsOnSingleReactor() throws Exception {
+    var handler = new EchoHandler();
+    var port = startServer(0, handler);
+
+    assertEchoes(port, 4);
+    assertEquals(1, handler.threads.size());
+  }
+
+  @Test
+  void shouldServeConnectionsOnWorkerReactors() throws Exception {
+    var handler = new EchoHandler();
+    var port = startServer(3, handler);
+
+    assertEchoes(port, 6);
+    assertEquals(3, reactor.getWorkerCount());
+    // connections are handed out round-robin, so every worker served some of them
+    assertEquals(3, handler.threads.size());
+  }
+
+  @Test
+  void shouldRejectNegativeWorkerCount() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new NioReactor(new SameThreadDispatcher(), -1));
+  }
+
+  @Test
+  void shouldEchoMessagesLargerThanOneChunk() throws Exception {
+    var handler = new EchoHandler();
+    var port = startServer(1, handler);
+    var message = new byte[10 * CHUNK_SIZE + 7];
+    for (var i = 0; i < message.length; i++) {
+      message[i] = (byte) i;
+    }
+
+    try (var client = connect(port)) {
+      client.write(ByteBuffer.wrap(message));
+      assertArrayEquals(message, readReply(client, message.length));
+    }
+    assertTrue(handler.composite.get());
+  }
+
+  @Test
+  void shouldSizeReadsFromPreviousReads() throws Exception {
+    var handler = new EchoHandler();
+    var port = startServer(0, handler);
+    var large = new byte[CHUNK_SIZE];
+
+    try (var client = connect(port)) {
+      for (var i = 0; i < 4; i++) {
+        echo(client, new byte[10]);
+      }
+      // fills the shrunk buffer, so the next read gets a whole chunk
+      echo(client, large);
+      echo(client, new byte[10]);
+    }
+    assertEquals(List.of(CHUNK_SIZE, CHUNK_SIZE, CHUNK_SIZE / 2, CHUNK_SIZE / 2, CHUNK_SIZE / 2,
+        CHUNK_SIZE), handler.firstCapacities);
+  }
+
+  @Test
+  void shouldTransferFileRegions(@TempDir Path directory) throws Exception {
+    var content = "static payload ".repeat(200).getBytes(StandardCharsets.UTF_8);
+    var path = Files.write(directory.resolve("payload.txt"), content);
+    try (var file = FileChannel.open(path, StandardOpenOption.READ)) {
+      var port = startServer(0, (channel, readObject, key) -> {
+        channel.release(readObject);
+        channel.write(new FileRegion(file, 7, content.length - 7), key);
+      });
+
+      try (var client = connect(port)) {
+        client.write(ByteBuffer.wrap("get".getBytes(StandardCharsets.UTF_8)));
+        var reply = readReply(client, content.length - 7);
+        assertEquals(new String(content, 7, content.length - 7, StandardCharsets.UTF_8),
+            new String(reply, StandardCharsets.UTF_8));
+      }
+    }
+  }
+
+  @Test
+  void shouldSignalWritabilityAndCompletePartialWrites() throws Exception {
+    var chunks = 2048;
+    var chunkSize = 4096;
+    var writabilityChanges = new ArrayList<Boolean>();
+    var port = startServer(1, new ChannelHandler() {
+      @Override
+      public void handleChannelRead(AbstractNioChannel channel, Object readObject,
+          SelectionKey key) {
+        channel.release(readObject);
+        // far more than the socket buffers hold, so most of it is written partially and later
+        for (var i = 0; i < chunks; i++) {
+          var chunk = ByteBuffer.allocate(chunkSize);
+          while (chunk.hasRemaining()) {
+            chunk.putInt(i);
+          }
+          channel.write(chunk.flip(), key);
+        }
+      }
+
+      @Override
+      public void channelWritabilityChanged(AbstractNioChannel channel, SelectionKey key,
+          boolean writable) {
+        synchronized (writabilityChanges) {
+          writabilityChanges.add(writable);
+        }
+      }
+    });
+    serverChannel.setWriteBufferWaterMarks(8 * 1024, 32 * 1024);
+
+    try (var client = connect(port)) {
+      client.write(ByteBuffer.wrap("go".getBytes(StandardCharsets.UTF_8)));
+      var reply = ByteBuffer.wrap(readReply(client, chunks * chunkSize));
+      for (var i = 0; i < chunks * chunkSize / Integer.BYTES; i++) {
+        assertEquals(i * Integer.BYTES / chunkSize, reply.getInt());
+      }
+    }
+    synchronized (writabilityChanges) {
+      assertEquals(List.of(false, true), writabilityChanges);
+    }
+  }
+
+  @Test
+  void shouldRejectInvalidWaterMarks() throws Exception {
+    var channel = new NioServerSocketChannel(0, new EchoHandler(), pool);
+    assertThrows(IllegalArgumentException.class, () -> channel.setWriteBufferWaterMarks(10, 5));
+    assertThrows(IllegalArgumentException.class, () -> channel.setWriteBufferWaterMarks(-1, 5));
+    channel.getJavaChannel().close();
+  }
+
+  private int startServer(int workerCount, ChannelHandler handler) throws IOException {
+    reactor = new NioReactor(new SameThreadDispatcher(), workerCount);
+    serverChannel = new NioServerSocketChannel(0, handler, pool);
+    serverChannel.bind();
+    reactor.registerChannel(serverChannel).start();
+    return serverChannel.getJavaChannel().socket().getLocalPort();
+  }
+
+  private static SocketChannel connect(int port) throws IOException {
+    return SocketChannel.open(new InetSocketAddress(InetAddress.getLocalHost(), port));
+  }
+
+  private static void assertEchoes(int port, int connections) throws IOException {
+    var clients = new ArrayList<SocketChannel>();
+    try {
+      for (var i = 0; i < connections; i++) {
+        clients.add(connect(port));
+      }
+      for (var i = 0; i < connections; i++) {
+        var message = "message " + i;
+        clients.get(i).write(ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(message,
+            new String(readReply(clients.get(i), message.length()), StandardCharsets.UTF_8));
+      }
+    } finally {
+      for (var client : clients) {
+        client.close();
+      }
+    }
+  }
+
+  private static void echo(SocketChannel client, byte[] message) throws IOException {
+    client.write(ByteBuffer.wrap(message));
+    assertArrayEquals(message, readReply(client, message.length));
+  }
+
+  private static byte[] readReply(SocketChannel client, int length) throws IOException {
+    var buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (client.read(buffer) == -1) {
+        throw new IOException("Socket closed");
+      }
+    }
+    return buffer.array();
+  }
+
+  private static class EchoHandler implements ChannelHandler {
+
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean composite = new AtomicBoolean();
+    // capacity of the first buffer of every read
+    private final List<Integer> firstCapacities = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void handleChannelRead(AbstractNioChannel channel, Object readObject,
+        SelectionKey key) {
+      threads.add(Thread.currentThread());
+      if (readObject instanceof CompositeBuffer buffer) {
+        composite.set(true);
+        firstCapacities.add(buffer.getComponents()[0].capacity());
+      } else if (readObject instanceof ByteBuffer buffer) {
+        firstCapacities.add(buffer.capacity());
+      }
+      channel.write(readObject, key);
+    }
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH load test of an echo server on a {@link NioReactor} with 0 (a single event loop), 1, 2 and 4
+ * worker reactors. {@link #connectAndEcho} measures connection throughput, every operation opens a
+ * connection, exchanges one message and closes it. {@link #echo} measures message throughput over
+ * one persistent connection per benchmark thread.
+ *
+ * <p>Run {@link #main(String[])} from the test classpath to execute it with 1, 4, 16 and 64 client
+ * threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+@Fork(1)
+public class ReactorLoadBenchmark {
+  private static final int MESSAGE_SIZE = 64;
+  private static final int[] THREADS = {1, 4, 16, 64};
+
+  @Param({"0", "1", "2", "4"})
+  public int workers;
+
+  private NioReactor reactor;
+  private NioServerSocketChannel serverChannel;
+  private InetSocketAddress address;
+
+  /**
+   * Starts the echo server.
+   *
+   * @throws IOException if the server fails to bind
+   */
+  @Setup
+  public void setUp() throws IOException {
+    reactor = new NioReactor(new SameThreadDispatcher(), workers);
+    serverChannel = new NioServerSocketChannel(0, new EchoHandler());
+    serverChannel.bind();
+    reactor.registerChannel(serverChannel).start();
+    address = new InetSocketAddress(InetAddress.getLocalHost(),
+        serverChannel.getJavaChannel().socket().getLocalPort());
+  }
+
+  /**
+   * Stops the echo server.
+   *
+   * @throws Exception if stopping the reactor fails
+   */
+  @TearDown
+  public void tearDown() throws Exception {
+    reactor.stop();
+    serverChannel.getJavaChannel().close();
+  }
+
+  /**
+   * A persistent client connection and its message buffers.
+   */
+  @State(Scope.Thread)
+  public static class Client {
+    private final ByteBuffer request = ByteBuffer.allocate(MESSAGE_SIZE);
+    private final ByteBuffer reply = ByteBuffer.allocate(MESSAGE_SIZE);
+    private SocketChannel socket;
+
+    /**
+     * Connects to the echo server.
+     *
+     * @param benchmark the benchmark holding the server address
+     * @throws IOException if connecting fails
+     */
+    @Setup(Level.Trial)
+    public void connect(ReactorLoadBenchmark benchmark) throws IOException {
+      socket = SocketChannel.open(benchmark.address);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+      socket.close();
+    }
+  }
+
+  @Benchmark
+  public int echo(Client client) throws IOException {
+    return exchange(client.socket, client.request, client.reply);
+  }
+
+  @Benchmark
+  public int connectAndEcho(Client client) throws IOException {
+    try (var socket = SocketChannel.open(address)) {
+      return exchange(socket, client.request, client.reply);
+    }
+  }
+
+  private static int exchange(SocketChannel socket, ByteBuffer request, ByteBuffer reply)
+      throws IOException {
+    request.clear();
+    while (request.hasRemaining()) {
+      socket.write(request);
+    }
+    reply.clear();
+    while (reply.hasRemaining()) {
+      if (socket.read(reply) == -1) {
+        throw new IOException("Socket closed");
+      }
+    }
+    return reply.get(0);
+  }
+
+  /**
+   * Writes every buffer it reads back to the peer.
+   */
+  private static class EchoHandler implements ChannelHandler {
+    @Override
+    public void handleChannelRead(AbstractNioChannel channel, Object readObject,
+        SelectionKey key) {
+      channel.write(readObject, key);
+    }
+  }
+
+  /**
+   * Runs the benchmark once per client thread count.
+   *
+   * @param args command line args
+   * @throws Exception if JMH fails
+   */
+  public static void main(String[] args) throws Exception {
+    for (var threads : THREADS) {
+      var options = new OptionsBuilder()
+          .include(ReactorLoadBenchmark.class.getSimpleName())
+          .threads(threads)
+          .build();
+      new Runner(options).run();
+    }
+  }
+}
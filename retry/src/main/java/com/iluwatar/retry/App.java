@@ -24,6 +24,7 @@
  */
 package com.iluwatar.retry;
 
+import java.util.concurrent.Executors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -73,6 +74,7 @@ public final class App {
     errorNoRetry();
     errorWithRetry();
     errorWithRetryExponentialBackoff();
+    errorWithAsyncRetry();
   }
 
   private static void noErrors() throws Exception {
@@ -119,4 +121,29 @@ public final class App {
             + "the result %s after a number of attempts %s", customerId, retry.attempts()
     ));
   }
+
+  private static void errorWithAsyncRetry() throws Exception {
+    final var scheduler = Executors.newSingleThreadScheduledExecutor();
+    final var executor = Executors.newCachedThreadPool();
+    try {
+      final var retry = AsyncRetry.builder(
+              new FindCustomer("123", new CustomerNotFoundException(NOT_FOUND)),
+              scheduler,
+              executor)
+          .maxAttempts(6)
+          .backoff(Backoff.decorrelatedJitter(100, 30000)) //100 ms to 30 s random delay
+          .ignore(e -> CustomerNotFoundException.class.isAssignableFrom(e.getClass()))
+          .budget(new RetryBudget(0.1, 10))
+          .attemptTimeout(1000)
+          .build();
+      final var customerId = retry.perform().get();
+      LOG.info(String.format(
+          "Retrying asynchronously frees the calling thread between attempts, and yields the "
+              + "result %s", customerId
+      ));
+    } finally {
+      scheduler.shutdown();
+      executor.shutdown();
+    }
+  }
 }
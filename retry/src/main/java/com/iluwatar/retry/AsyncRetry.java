@@ -0,0 +1,254 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.retry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Retries a {@link BusinessOperation business operation} without blocking the caller.
+ *
+ * <p>{@link #perform()} returns at once. The attempts run on an executor, and the delays between
+ * them and the attempt timeouts are scheduled on a {@link ScheduledExecutorService}, which may be
+ * shared by many retries since it only ever runs short tasks. The two are separate, because an
+ * attempt which blocks on the scheduler would hold up the timeouts which are meant to end it.
+ * No thread sleeps between attempts.
+ *
+ * <p>Unlike {@link Retry}, an instance keeps no state of its own calls and is immutable once
+ * {@link Builder#build() built}, so it may be performed by many callers at the same time; the
+ * errors of the earlier attempts of a call are attached to the error it fails with as suppressed
+ * exceptions.
+ *
+ * @param <T> the remote op's return type
+ */
+public final class AsyncRetry<T> {
+  private final BusinessOperation<T> op;
+  private final ScheduledExecutorService scheduler;
+  private final Executor executor;
+  private final int maxAttempts;
+  private final Backoff backoff;
+  private final Predicate<Exception> test;
+  private final RetryBudget budget;
+  private final long attemptTimeout;
+
+  private AsyncRetry(Builder<T> builder) {
+    this.op = builder.op;
+    this.scheduler = builder.scheduler;
+    this.executor = builder.executor;
+    this.maxAttempts = builder.maxAttempts;
+    this.backoff = builder.backoff;
+    this.test = builder.test;
+    this.budget = builder.budget;
+    this.attemptTimeout = builder.attemptTimeout;
+  }
+
+  /**
+   * Starts building a retry, which attempts the operation once unless told otherwise.
+   *
+   * @param op        the {@link BusinessOperation} to retry
+   * @param scheduler schedules the delays between attempts and the attempt timeouts
+   * @param executor  runs the attempts, which may block it; not the scheduler
+   * @param <T>       the remote op's return type
+   * @return the builder
+   */
+  public static <T> Builder<T> builder(BusinessOperation<T> op,
+      ScheduledExecutorService scheduler, Executor executor) {
+    if (executor == scheduler) {
+      throw new IllegalArgumentException("The attempts must not run on the scheduler");
+    }
+    return new Builder<>(op, scheduler, executor);
+  }
+
+  /**
+   * Performs the operation, retrying it on the ignored errors while attempts and budget remain.
+   * Cancelling the returned future stops further attempts.
+   *
+   * @return the result of the first successful attempt, or the error of the last attempt
+   */
+  public CompletableFuture<T> perform() {
+    var result = new CompletableFuture<T>();
+    this.budget.deposit();
+    attempt(result, 1, 0, new ArrayList<>());
+    return result;
+  }
+
+  // The errors are only touched by one attempt at a time, each scheduled after the previous one
+  private void attempt(CompletableFuture<T> result, int attempt, long delay,
+      List<Exception> errors) {
+    if (result.isDone()) {
+      return;
+    }
+    var current = new CompletableFuture<T>();
+    var timeout = scheduleTimeout(current, attempt);
+    current.whenComplete((value, error) -> {
+      if (timeout != null) {
+        timeout.cancel(false);
+      }
+      if (error == null) {
+        result.complete(value);
+      } else if (!(error instanceof Exception e)) {
+        result.completeExceptionally(error);
+      } else if (attempt >= this.maxAttempts || !this.test.test(e)
+          || !this.budget.tryWithdraw()) {
+        errors.stream().filter(previous -> previous != e).distinct().forEach(e::addSuppressed);
+        result.completeExceptionally(e);
+      } else {
+        errors.add(e);
+        var nextDelay = this.backoff.nextDelay(attempt, delay);
+        execute(result, () -> this.scheduler.schedule(
+            () -> attempt(result, attempt + 1, nextDelay, errors), nextDelay, TimeUnit.MILLISECONDS));
+      }
+    });
+    execute(current, () -> this.executor.execute(() -> {
+      try {
+        current.complete(this.op.perform());
+      } catch (Exception e) {
+        current.completeExceptionally(e);
+      }
+    }));
+  }
+
+  private ScheduledFuture<?> scheduleTimeout(CompletableFuture<T> current, int attempt) {
+    if (this.attemptTimeout <= 0) {
+      return null;
+    }
+    try {
+      return this.scheduler.schedule(() -> current.completeExceptionally(new AttemptTimeoutException(
+          "Attempt " + attempt + " timed out after " + this.attemptTimeout + " ms")),
+          this.attemptTimeout, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      current.completeExceptionally(e);
+      return null;
+    }
+  }
+
+  /**
+   * Builder of an {@link AsyncRetry}.
+   *
+   * @param <T> the remote op's return type
+   */
+  public static final class Builder<T> {
+    private final BusinessOperation<T> op;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+    private int maxAttempts = 1;
+    private Backoff backoff = Backoff.fixed(0);
+    private Predicate<Exception> test = e -> false;
+    private RetryBudget budget = RetryBudget.unlimited();
+    private long attemptTimeout;
+
+    private Builder(BusinessOperation<T> op, ScheduledExecutorService scheduler,
+        Executor executor) {
+      this.op = op;
+      this.scheduler = scheduler;
+      this.executor = executor;
+    }
+
+    /**
+     * Sets the number of times to attempt.
+     *
+     * @param maxAttempts number of times to attempt
+     * @return this builder
+     */
+    public Builder<T> maxAttempts(int maxAttempts) {
+      if (maxAttempts < 1) {
+        throw new IllegalArgumentException("Max attempts must be positive: " + maxAttempts);
+      }
+      this.maxAttempts = maxAttempts;
+      return this;
+    }
+
+    /**
+     * Sets the delay between attempts, which is none by default.
+     *
+     * @param backoff delay between attempts
+     * @return this builder
+     */
+    public Builder<T> backoff(Backoff backoff) {
+      this.backoff = backoff;
+      return this;
+    }
+
+    /**
+     * Adds a test to check whether the remote exception can be ignored. No exceptions are ignored
+     * if no tests are given.
+     *
+     * @param ignoreTest test of an exception to retry
+     * @return this builder
+     */
+    public Builder<T> ignore(Predicate<Exception> ignoreTest) {
+      this.test = this.test.or(ignoreTest);
+      return this;
+    }
+
+    /**
+     * Shares the given budget of retries with the other retries which use it.
+     *
+     * @param budget the retry budget
+     * @return this builder
+     */
+    public Builder<T> budget(RetryBudget budget) {
+      this.budget = budget;
+      return this;
+    }
+
+    /**
+     * Fails an attempt with an {@link AttemptTimeoutException} when it does not complete in time.
+     * The operation is not interrupted, its late result is ignored.
+     *
+     * @param attemptTimeout timeout (in milliseconds) of each attempt, 0 for none
+     * @return this builder
+     */
+    public Builder<T> attemptTimeout(long attemptTimeout) {
+      this.attemptTimeout = attemptTimeout;
+      return this;
+    }
+
+    /**
+     * Builds the retry.
+     *
+     * @return the retry
+     */
+    public AsyncRetry<T> build() {
+      return new AsyncRetry<>(this);
+    }
+  }
+
+  // Fails the future when the executor is shut down, instead of leaving it incomplete
+  private static void execute(CompletableFuture<?> future, Runnable submit) {
+    try {
+      submit.run();
+    } catch (RejectedExecutionException e) {
+      future.completeExceptionally(e);
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.retry;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Computes the delay before the next attempt of an {@link AsyncRetry}.
+ *
+ */
+@FunctionalInterface
+public interface Backoff {
+
+  /**
+   * The delay before the attempt after the given one.
+   *
+   * @param attempt       the number of the attempt which just failed, starting at 1
+   * @param previousDelay the delay before that attempt in milliseconds, 0 before the first one
+   * @return the delay in milliseconds
+   */
+  long nextDelay(int attempt, long previousDelay);
+
+  /**
+   * The same delay between all attempts.
+   *
+   * @param delay delay (in milliseconds) between attempts
+   * @return the backoff
+   */
+  static Backoff fixed(long delay) {
+    return (attempt, previousDelay) -> delay;
+  }
+
+  /**
+   * A delay which doubles after every attempt, up to a maximum.
+   *
+   * @param base     delay (in milliseconds) before the second attempt
+   * @param maxDelay max delay (in milliseconds) between attempts
+   * @return the backoff
+   */
+  static Backoff exponential(long base, long maxDelay) {
+    return (attempt, previousDelay) ->
+        (long) Math.min(maxDelay, base * Math.pow(2, attempt - 1));
+  }
+
+  /**
+   * "Decorrelated jitter": a random delay between the base and three times the previous delay, up
+   * to a maximum. It grows about as fast as an exponential backoff, but callers which failed
+   * together do not retry together.
+   *
+   * @param base     smallest delay (in milliseconds) between attempts
+   * @param maxDelay max delay (in milliseconds) between attempts
+   * @return the backoff
+   */
+  static Backoff decorrelatedJitter(long base, long maxDelay) {
+    return (attempt, previousDelay) -> {
+      var upper = Math.max(base, Math.min(maxDelay, 3 * Math.max(base, previousDelay)));
+      return Math.min(maxDelay, ThreadLocalRandom.current().nextLong(base, upper + 1));
+    };
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.retry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the retries of all the callers which share it, so that a failing dependency does not get
+ * several times its usual load when every caller retries at once.
+ *
+ * <p>Every call deposits a fraction of a retry and every retry withdraws a whole one, so over time
+ * at most that fraction of the calls is retried. The balance is capped, and starts full, which
+ * allows a burst of retries after a quiet period.
+ *
+ */
+public final class RetryBudget {
+  private static final long SCALE = 1000;
+  private final long deposit;
+  private final long capacity;
+  private final AtomicLong balance;
+
+  /**
+   * Ctor.
+   *
+   * @param retryRatio the fraction of calls which may be retried, e.g. 0.1 for one in ten
+   * @param maxRetries number of retries the budget can save up, or a negative number for no limit
+   */
+  public RetryBudget(double retryRatio, int maxRetries) {
+    this.deposit = Math.round(retryRatio * SCALE);
+    this.capacity = maxRetries * SCALE;
+    this.balance = new AtomicLong(this.capacity);
+  }
+
+  /**
+   * A budget which never runs out.
+   *
+   * @return the budget
+   */
+  public static RetryBudget unlimited() {
+    return new RetryBudget(0, -1);
+  }
+
+  /**
+   * The number of retries currently available.
+   *
+   * @return the number of retries which would be allowed now
+   */
+  public long availableRetries() {
+    return this.capacity < 0 ? Long.MAX_VALUE : this.balance.get() / SCALE;
+  }
+
+  void deposit() {
+    this.balance.getAndUpdate(current -> Math.min(this.capacity, current + this.deposit));
+  }
+
+  boolean tryWithdraw() {
+    if (this.capacity < 0) {
+      return true;
+    }
+    var current = this.balance.get();
+    while (current >= SCALE) {
+      if (this.balance.compareAndSet(current, current - SCALE)) {
+        return true;
+      }
+      current = this.balance.get();
+    }
+    return false;
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.retry;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link AsyncRetry}.
+ *
+ */
+class AsyncRetryTest {
+  private ScheduledExecutorService scheduler;
+  private ExecutorService executor;
+
+  @BeforeEach
+  void setUp() {
+    scheduler = Executors.newScheduledThreadPool(2);
+    executor = Executors.newCachedThreadPool();
+  }
+
+  @AfterEach
+  void tearDown() {
+    scheduler.shutdownNow();
+    executor.shutdownNow();
+  }
+
+  /**
+   * The ignored errors are retried until the operation succeeds.
+   */
+  @Test
+  void retriesUntilSuccess() throws Exception {
+    final var retry = AsyncRetry.builder(
+            new FindCustomer("123", new CustomerNotFoundException("not found"),
+                new CustomerNotFoundException("not found")),
+            scheduler,
+            executor)
+        .maxAttempts(3)
+        .backoff(Backoff.fixed(10))
+        .ignore(e -> CustomerNotFoundException.class.isAssignableFrom(e.getClass()))
+        .build();
+
+    assertThat(retry.perform().get(5, TimeUnit.SECONDS), is("123"));
+  }
+
+  /**
+   * No exceptions will be ignored, hence the operation is attempted once.
+   */
+  @Test
+  void doesNotRetryUnignoredErrors() {
+    final var e = new BusinessException("unhandled");
+    final var calls = new AtomicInteger();
+    final var retry = AsyncRetry.<String>builder(
+            () -> {
+              calls.incrementAndGet();
+              throw e;
+            },
+            scheduler,
+            executor)
+        .maxAttempts(3)
+        .build();
+
+    final var error = assertThrows(ExecutionException.class, () -> retry.perform().get());
+    assertThat(error.getCause(), is(e));
+    assertThat(calls.get(), is(1));
+  }
+
+  /**
+   * The last error is reported, with the errors of the earlier attempts suppressed in it.
+   */
+  @Test
+  void reportsAllErrorsAfterTheLastAttempt() {
+    final var first = new CustomerNotFoundException("first");
+    final var last = new CustomerNotFoundException("last");
+    final var retry = AsyncRetry.builder(new FindCustomer("123", first, last), scheduler, executor)
+        .maxAttempts(2)
+        .backoff(Backoff.decorrelatedJitter(1, 10))
+        .ignore(e -> CustomerNotFoundException.class.isAssignableFrom(e.getClass()))
+        .build();
+
+    final var error = assertThrows(ExecutionException.class, () -> retry.perform().get());
+    assertThat(error.getCause(), is(last));
+    assertThat(last.getSuppressed()[0], is(first));
+  }
+
+  /**
+   * An attempt which hangs is timed out and retried, instead of holding up the call.
+   */
+  @Test
+  void retriesAttemptsWhichTimeOut() throws Exception {
+    final var calls = new AtomicInteger();
+    final var hang = new CompletableFuture<Void>();
+    final var retry = AsyncRetry.builder(
+            () -> {
+              if (calls.incrementAndGet() == 1) {
+                hang.join();
+              }
+              return "123";
+            },
+            scheduler,
+            executor)
+        .maxAttempts(2)
+        .ignore(e -> e instanceof AttemptTimeoutException)
+        .attemptTimeout(50)
+        .build();
+
+    try {
+      assertThat(retry.perform().get(5, TimeUnit.SECONDS), is("123"));
+      assertThat(calls.get(), is(2));
+    } finally {
+      hang.complete(null);
+    }
+  }
+
+  /**
+   * Callers sharing a budget together retry no more than the budget allows.
+   */
+  @Test
+  void sharedBudgetLimitsRetries() {
+    final var calls = new AtomicInteger();
+    final var budget = new RetryBudget(0, 1);
+    final var retry = AsyncRetry.<String>builder(
+            () -> {
+              calls.incrementAndGet();
+              throw new CustomerNotFoundException("not found");
+            },
+            scheduler,
+            executor)
+        .maxAttempts(5)
+        .ignore(e -> CustomerNotFoundException.class.isAssignableFrom(e.getClass()))
+        .budget(budget)
+        .build();
+
+    final var error = assertThrows(ExecutionException.class, () -> retry.perform().get());
+    assertThat(error.getCause(), instanceOf(CustomerNotFoundException.class));
+    assertThrows(ExecutionException.class, () -> retry.perform().get());
+    assertThat(calls.get(), is(3));
+    assertThat(budget.availableRetries(), is(0L));
+  }
+
+  /**
+   * The caller is not blocked while the operation waits for its next attempt.
+   */
+  @Test
+  void doesNotBlockTheCaller() throws Exception {
+    final var retry = AsyncRetry.builder(
+            new FindCustomer("123", new CustomerNotFoundException("not found")),
+            scheduler,
+            executor)
+        .maxAttempts(2)
+        .backoff(Backoff.fixed(500))
+        .ignore(e -> CustomerNotFoundException.class.isAssignableFrom(e.getClass()))
+        .build();
+
+    final var result = retry.perform();
+    assertThat(result.isDone(), is(false));
+    assertThat(result.get(5, TimeUnit.SECONDS), is("123"));
+  }
+
+  /**
+   * Attempts which block must not run on the scheduler, where they would hold up their timeouts.
+   */
+  @Test
+  void rejectsTheSchedulerAsExecutor() {
+    assertThrows(IllegalArgumentException.class,
+        () -> AsyncRetry.builder(new FindCustomer("123"), scheduler, scheduler));
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.retry;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link Backoff}.
+ *
+ */
+class BackoffTest {
+
+  /**
+   * The exponential delay doubles until it reaches the max delay.
+   */
+  @Test
+  void exponential() {
+    final var backoff = Backoff.exponential(100, 1000);
+    assertThat(backoff.nextDelay(1, 0), is(100L));
+    assertThat(backoff.nextDelay(2, 100), is(200L));
+    assertThat(backoff.nextDelay(5, 800), is(1000L));
+  }
+
+  /**
+   * Every jittered delay lies between the base and three times the previous delay.
+   */
+  @Test
+  void decorrelatedJitter() {
+    final var backoff = Backoff.decorrelatedJitter(10, 1000);
+    var delay = 0L;
+    for (var attempt = 1; attempt <= 100; attempt++) {
+      final var next = backoff.nextDelay(attempt, delay);
+      assertThat(next, is(allOf(greaterThanOrEqualTo(10L),
+          lessThanOrEqualTo(Math.min(1000L, 3 * Math.max(10L, delay))))));
+      delay = next;
+    }
+  }
+}
@@ -84,6 +84,21 @@ public class App {
     shard1.clearData();
     shard2.clearData();
     shard3.clearData();
+
+    var consistentHashShardManager = new ConsistentHashShardManager();
+    consistentHashShardManager.addNewShard(shard1);
+    consistentHashShardManager.addNewShard(shard2);
+    consistentHashShardManager.storeData(data1);
+    consistentHashShardManager.storeData(data2);
+    consistentHashShardManager.storeData(data3);
+    consistentHashShardManager.storeData(data4);
+    consistentHashShardManager.addNewShard(shard3, 2);
+    consistentHashShardManager.getRebalancing().join();
+    consistentHashShardManager.shutdown();
+
+    shard1.clearData();
+    shard2.clearData();
+    shard3.clearData();
   }
 
 }
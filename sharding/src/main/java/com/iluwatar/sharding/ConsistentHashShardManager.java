@@ -0,0 +1,400 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ShardManager with consistent hashing strategy. Every shard is placed on a ring of hash values at
+ * many points, its virtual nodes, as many as its weight times the number of virtual nodes per
+ * weight, and a key belongs to the shard of the first point at or after the hash of the key. When
+ * a shard is added, it takes over only the keys between its points and the points before them,
+ * about 1/n of all keys, instead of the almost all keys which move when {@link HashShardManager}
+ * takes the key modulo a different number of shards. When a shard is removed, only its own keys
+ * move, spread over all other shards.
+ *
+ * <p>Shards can be added and removed while data is read and written. The ring is replaced at once,
+ * so new data goes to its new shard straight away, and a rebalancer thread moves the keys which
+ * changed shards in the background. Until it is done, {@link #getData(int)} looks for data at the
+ * shard which held it before as well, and a removed shard is kept until all its data is gone and
+ * no write which started before its removal is left. A write during which the ring changes moves
+ * its data to the shard of the new ring itself, since the rebalancer may have passed it by.
+ */
+@Slf4j
+public class ConsistentHashShardManager extends ShardManager {
+
+  private static final int DEFAULT_VIRTUAL_NODES = 128;
+
+  private final int virtualNodesPerWeight;
+  private final Map<Integer, Integer> weights = new ConcurrentHashMap<>();
+  private final ExecutorService rebalancer = Executors.newSingleThreadExecutor(runnable -> {
+    var thread = new Thread(runnable, "shard-rebalancer");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private volatile Ring ring = Ring.EMPTY;
+  //the rings whose data may not have been moved to the shards of the current ring yet, newest first
+  private volatile List<Ring> staleRings = List.of();
+  private volatile CompletableFuture<Void> rebalancing = CompletableFuture.completedFuture(null);
+  private final AtomicInteger writers = new AtomicInteger();
+  private volatile boolean dropPending;
+
+  private final AtomicLong rebalances = new AtomicLong();
+  private final AtomicLong keysScanned = new AtomicLong();
+  private final AtomicLong keysMoved = new AtomicLong();
+  private volatile long lastKeysMoved;
+  private volatile Duration lastDuration = Duration.ZERO;
+
+  public ConsistentHashShardManager() {
+    this(DEFAULT_VIRTUAL_NODES);
+  }
+
+  /**
+   * Creates a manager without shards.
+   *
+   * @param virtualNodesPerWeight number of points on the ring of a shard with weight 1
+   */
+  public ConsistentHashShardManager(int virtualNodesPerWeight) {
+    if (virtualNodesPerWeight < 1) {
+      throw new IllegalArgumentException("virtual nodes must be positive: " + virtualNodesPerWeight);
+    }
+    this.virtualNodesPerWeight = virtualNodesPerWeight;
+  }
+
+  @Override
+  public boolean addNewShard(final Shard shard) {
+    return addNewShard(shard, 1);
+  }
+
+  /**
+   * Add a shard which takes a share of the keys in proportion to its weight.
+   *
+   * @param shard  new shard instance
+   * @param weight weight of the shard, 2 takes twice as many keys as 1
+   * @return {@code true} if succeed to add the new instance.
+   *         {@code false} if the shardId is already existed.
+   */
+  public synchronized boolean addNewShard(final Shard shard, final int weight) {
+    if (weight < 1) {
+      throw new IllegalArgumentException("weight must be positive: " + weight);
+    }
+    if (ring.contains(shard.getId()) || shardMap.containsKey(shard.getId())) {
+      return false;
+    }
+    shardMap.put(shard.getId(), shard);
+    weights.put(shard.getId(), weight);
+    resize();
+    return true;
+  }
+
+  /**
+   * Remove a shard. Its data is moved to the other shards in the background, and the shard is
+   * dropped once it is empty. The last shard cannot be removed, as its data would have nowhere to
+   * go.
+   *
+   * @param shardId Id of shard instance to remove.
+   * @return {@code true} if removed. {@code false} if the shardId is not existed or it is the
+   *         last shard.
+   */
+  @Override
+  public synchronized boolean removeShardById(final int shardId) {
+    if (!ring.contains(shardId) || weights.size() == 1) {
+      return false;
+    }
+    weights.remove(shardId);
+    resize();
+    return true;
+  }
+
+  private void resize() {
+    var previous = ring;
+    var stale = new ArrayList<Ring>(staleRings.size() + 1);
+    stale.add(previous);
+    stale.addAll(staleRings);
+    staleRings = List.copyOf(stale);
+    ring = Ring.of(weights, virtualNodesPerWeight);
+    rebalancing = CompletableFuture.runAsync(this::rebalance, rebalancer);
+  }
+
+  /**
+   * Store data at the shard of its key. When the ring changes during the write, the rebalancer may
+   * have scanned the shard before the data arrived, so the data is moved to the shard of the new
+   * ring here, until the ring stays the same for the whole write.
+   *
+   * @param data data to store
+   * @return id of the shard the data is stored in
+   */
+  @Override
+  public int storeData(Data data) {
+    writers.incrementAndGet();
+    try {
+      var current = ring;
+      var shardId = current.shardFor(data.getKey());
+      shardMap.get(shardId).storeData(data);
+      shardId = reroute(data, current, shardId);
+      LOGGER.debug("Data {} is stored in Shard {}", data.getKey(), shardId);
+      return shardId;
+    } finally {
+      endWrite();
+    }
+  }
+
+  /**
+   * Store a batch of data, grouped by shard. When the ring changes during the write, the data is
+   * moved to the shards of the new ring like with {@link #storeData(Data)}.
+   *
+   * @param batch new data
+   * @return number of data stored in each shard, by shard id, before any moves
+   */
+  @Override
+  public Map<Integer, Integer> storeAll(Collection<Data> batch) {
+    writers.incrementAndGet();
+    try {
+      var current = ring;
+      var counts = super.storeAll(batch);
+      //the shards were looked up one at a time, maybe in different rings, so after a change the
+      //data is taken out of every shard but the one it belongs to now
+      while (ring != current) {
+        current = ring;
+        for (var data : batch) {
+          var owner = current.shardFor(data.getKey());
+          shardMap.get(owner).storeData(data);
+          for (var shard : shardMap.values()) {
+            if (shard.getId() != owner) {
+              shard.removeData(data);
+            }
+          }
+        }
+      }
+      return counts;
+    } finally {
+      endWrite();
+    }
+  }
+
+  //moves data written with a ring which has been replaced since, returning the shard it is at now
+
+  private int reroute(Data data, Ring written, int shardId) {
+    var current = written;
+    while (ring != current) {
+      current = ring;
+      var owner = current.shardFor(data.getKey());
+      if (owner != shardId) {
+        //a shard is kept until no writer is left which may write to it
+        shardMap.get(owner).storeData(data);
+        shardMap.get(shardId).removeData(data);
+        shardId = owner;
+      }
+    }
+    return shardId;
+  }
+
+  private void endWrite() {
+    if (writers.decrementAndGet() == 0 && dropPending) {
+      dropRemovedShards();
+    }
+  }
+
+  //a writer which started before a shard left the ring may still write to it, so removed shards
+  //are dropped only while no write is in progress, by the rebalancer or by the last writer
+
+  private synchronized void dropRemovedShards() {
+    dropPending = true;
+    if (writers.get() > 0) {
+      return;
+    }
+    var current = ring;
+    shardMap.keySet().removeIf(id -> !current.contains(id) && shardMap.get(id).size() == 0);
+    dropPending = shardMap.size() > current.shardCount();
+  }
+
+  @Override
+  protected int allocateShard(Data data) {
+    return ring.shardFor(data.getKey());
+  }
+
+  /**
+   * Get data by key from whichever shard holds it, while keys are being moved as well.
+   *
+   * @param key key of the data
+   * @return the data, or null if there is none with the key
+   */
+  public Data getData(int key) {
+    var current = ring.shardFor(key);
+    var data = shardMap.get(current).getDataById(key);
+    if (data != null) {
+      return data;
+    }
+    var stale = staleRings;
+    if (stale.isEmpty()) {
+      return null;
+    }
+    for (var previous : stale) {
+      if (!previous.isEmpty()) {
+        var shard = shardMap.get(previous.shardFor(key));
+        data = shard == null ? null : shard.getDataById(key);
+        if (data != null) {
+          return data;
+        }
+      }
+    }
+    //the rebalancer stores data at its new shard before it removes it from the old one, so data
+    //which was at neither place when we looked has arrived at the new one meanwhile
+    return shardMap.get(current).getDataById(key);
+  }
+
+  /**
+   * The shard a key belongs to.
+   *
+   * @param key key of the data
+   * @return id of the shard which new data with the key is stored in
+   */
+  public int getShardIdForKey(int key) {
+    return ring.shardFor(key);
+  }
+
+  /**
+   * The rebalancing pass which is running or has run last.
+   *
+   * @return a future completed when all data is at the shard it belongs to
+   */
+  public CompletableFuture<Void> getRebalancing() {
+    return rebalancing;
+  }
+
+  public RebalanceMetrics getRebalanceMetrics() {
+    return new RebalanceMetrics(rebalances.get(), keysScanned.get(), keysMoved.get(),
+        lastKeysMoved, lastDuration);
+  }
+
+  /**
+   * Stop the rebalancer thread. Any pass which is running is finished first.
+   */
+  public void shutdown() {
+    rebalancer.shutdown();
+  }
+
+  //moves every key which is not at the shard the current ring assigns it to
+
+  private void rebalance() {
+    final var start = System.nanoTime();
+    var target = ring;
+    var staleAtStart = staleRings;
+    var moved = 0L;
+    for (var shard : shardMap.values()) {
+      for (var data : shard.getAllData()) {
+        keysScanned.incrementAndGet();
+        var owner = target.shardFor(data.getKey());
+        if (owner != shard.getId()) {
+          //a writer may have stored newer data at the new shard already, which is kept
+          shardMap.get(owner).storeDataIfAbsent(data);
+          shard.removeData(data);
+          moved++;
+        }
+      }
+    }
+    synchronized (this) {
+      if (ring == target) {
+        var remaining = new ArrayList<>(staleRings);
+        remaining.removeAll(staleAtStart);
+        staleRings = List.copyOf(remaining);
+        dropRemovedShards();
+      }
+    }
+    keysMoved.addAndGet(moved);
+    lastKeysMoved = moved;
+    lastDuration = Duration.ofNanos(System.nanoTime() - start);
+    rebalances.incrementAndGet();
+    LOGGER.info("Rebalanced {} shards, moved {} keys in {}", target.shardCount(), moved,
+        lastDuration);
+  }
+
+  /**
+   * The points of the shards on the hash ring, sorted by hash.
+   */
+  private record Ring(long[] points, int[] shards, int shardCount) {
+    private static final Ring EMPTY = new Ring(new long[0], new int[0], 0);
+
+    static Ring of(Map<Integer, Integer> weights, int virtualNodesPerWeight) {
+      var nodes = new ArrayList<long[]>();
+      weights.forEach((shardId, weight) -> {
+        for (var replica = 0; replica < weight * virtualNodesPerWeight; replica++) {
+          nodes.add(new long[] {mix(mix(shardId) + replica), shardId});
+        }
+      });
+      nodes.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+      var points = new long[nodes.size()];
+      var shards = new int[nodes.size()];
+      for (var i = 0; i < points.length; i++) {
+        points[i] = nodes.get(i)[0];
+        shards[i] = (int) nodes.get(i)[1];
+      }
+      return new Ring(points, shards, weights.size());
+    }
+
+    boolean isEmpty() {
+      return points.length == 0;
+    }
+
+    boolean contains(int shardId) {
+      for (var shard : shards) {
+        if (shard == shardId) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    int shardFor(int key) {
+      if (points.length == 0) {
+        throw new IllegalStateException("There are no shards");
+      }
+      var index = Arrays.binarySearch(points, mix(key));
+      if (index < 0) {
+        index = -index - 1;
+      }
+      return shards[index == points.length ? 0 : index];
+    }
+
+    //the finalizer of SplitMix64, which spreads consecutive keys evenly over all 64 bits
+    private static long mix(long value) {
+      var z = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+      z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+      return z ^ (z >>> 31);
+    }
+  }
+}
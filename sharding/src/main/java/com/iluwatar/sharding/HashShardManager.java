@@ -40,7 +40,7 @@ public class HashShardManager extends ShardManager {
     var shardId = allocateShard(data);
     var shard = shardMap.get(shardId);
     shard.storeData(data);
-    LOGGER.info(data + " is stored in Shard " + shardId);
+    LOGGER.debug("Data {} is stored in Shard {}", data.getKey(), shardId);
     return shardId;
   }
 
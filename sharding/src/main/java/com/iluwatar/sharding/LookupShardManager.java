@@ -25,8 +25,8 @@
 package com.iluwatar.sharding;
 
 import java.security.SecureRandom;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -37,27 +37,25 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class LookupShardManager extends ShardManager {
 
-  private final Map<Integer, Integer> lookupMap = new HashMap<>();
+  private final Map<Integer, Integer> lookupMap = new ConcurrentHashMap<>();
 
   @Override
   public int storeData(Data data) {
     var shardId = allocateShard(data);
-    lookupMap.put(data.getKey(), shardId);
     var shard = shardMap.get(shardId);
     shard.storeData(data);
-    LOGGER.info(data + " is stored in Shard " + shardId);
+    LOGGER.debug("Data {} is stored in Shard {}", data.getKey(), shardId);
     return shardId;
   }
 
+  /**
+   * Look up the shard of the key, or pick one for a new key. The lookup map is updated at once, so
+   * that writers of the same key at the same time agree on the shard.
+   */
   @Override
   protected int allocateShard(Data data) {
-    var key = data.getKey();
-    if (lookupMap.containsKey(key)) {
-      return lookupMap.get(key);
-    } else {
-      var shardCount = shardMap.size();
-      return new SecureRandom().nextInt(shardCount - 1) + 1;
-    }
+    return lookupMap.computeIfAbsent(data.getKey(),
+        key -> new SecureRandom().nextInt(shardMap.size() - 1) + 1);
   }
 
 }
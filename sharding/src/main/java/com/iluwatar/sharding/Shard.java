@@ -24,12 +24,18 @@
  */
 package com.iluwatar.sharding;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 import lombok.Getter;
 
 /**
- * The Shard class stored data in a HashMap.
+ * The Shard class stored data in a ConcurrentHashMap, so that any number of threads can read and
+ * write it at once, and data can be moved to other shards while it is being read and written.
  */
 public class Shard {
 
@@ -40,13 +46,24 @@ public class Shard {
 
   public Shard(final int id) {
     this.id = id;
-    this.dataStore = new HashMap<>();
+    this.dataStore = new ConcurrentHashMap<>();
   }
 
   public void storeData(Data data) {
     dataStore.put(data.getKey(), data);
   }
 
+  /**
+   * Store a batch of data.
+   *
+   * @param batch data to store
+   */
+  public void storeAll(Collection<Data> batch) {
+    for (var data : batch) {
+      dataStore.put(data.getKey(), data);
+    }
+  }
+
   public void clearData() {
     dataStore.clear();
   }
@@ -54,4 +71,70 @@ public class Shard {
   public Data getDataById(final int id) {
     return dataStore.get(id);
   }
+
+  /**
+   * Get the data with any of the keys.
+   *
+   * @param keys keys to look up
+   * @return the data the shard holds for the keys
+   */
+  public List<Data> getAll(Collection<Integer> keys) {
+    var found = new ArrayList<Data>();
+    for (var key : keys) {
+      var data = dataStore.get(key);
+      if (data != null) {
+        found.add(data);
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Find all data which matches a predicate.
+   *
+   * @param predicate condition on the data
+   * @return the matching data the shard holds
+   */
+  public List<Data> findAll(Predicate<? super Data> predicate) {
+    var found = new ArrayList<Data>();
+    for (var data : dataStore.values()) {
+      if (predicate.test(data)) {
+        found.add(data);
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Store data unless the shard already holds data with the same key.
+   *
+   * @param data data to store
+   * @return the data already stored with the key, or null if the data was stored
+   */
+  public Data storeDataIfAbsent(Data data) {
+    return dataStore.putIfAbsent(data.getKey(), data);
+  }
+
+  /**
+   * Remove data, unless other data has been stored with its key since.
+   *
+   * @param data data to remove
+   * @return {@code true} if the data was removed
+   */
+  public boolean removeData(Data data) {
+    return dataStore.remove(data.getKey(), data);
+  }
+
+  /**
+   * All data in the shard, as a view which reflects later changes.
+   *
+   * @return the data stored in the shard
+   */
+  public Collection<Data> getAllData() {
+    return Collections.unmodifiableCollection(dataStore.values());
+  }
+
+  public int size() {
+    return dataStore.size();
+  }
 }
@@ -0,0 +1,76 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency of the requests a {@link ShardManager} sends to one shard. Many threads record requests
+ * at once, so the counters are adders which do not contend.
+ */
+public class ShardLatency {
+
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final AtomicLong maxNanos = new AtomicLong();
+
+  void record(long nanos) {
+    requests.increment();
+    totalNanos.add(nanos);
+    if (nanos > maxNanos.get()) {
+      maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+  }
+
+  public long getRequests() {
+    return requests.sum();
+  }
+
+  public Duration getTotalTime() {
+    return Duration.ofNanos(totalNanos.sum());
+  }
+
+  /**
+   * Mean time of a request.
+   *
+   * @return the mean time, or zero if there were no requests
+   */
+  public Duration getMeanTime() {
+    var count = requests.sum();
+    return count == 0 ? Duration.ZERO : Duration.ofNanos(totalNanos.sum() / count);
+  }
+
+  public Duration getMaxTime() {
+    return Duration.ofNanos(maxNanos.get());
+  }
+
+  @Override
+  public String toString() {
+    return "ShardLatency {" + "requests=" + getRequests() + ", mean=" + getMeanTime()
+        + ", max=" + getMaxTime() + '}';
+  }
+}
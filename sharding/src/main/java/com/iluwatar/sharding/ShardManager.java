@@ -24,20 +24,41 @@
  */
 package com.iluwatar.sharding;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Abstract class for ShardManager.
+ * Abstract class for ShardManager. The shards are kept in a ConcurrentHashMap, so data can be
+ * stored and read by many threads at once. Reads which need every shard are scattered over the
+ * shards in parallel on the executor, and the results are gathered, while the latency of every
+ * shard is recorded.
  */
 @Slf4j
 public abstract class ShardManager {
 
   protected Map<Integer, Shard> shardMap;
 
+  private final Map<Integer, ShardLatency> latencies = new ConcurrentHashMap<>();
+
+  /**
+   * Executor which runs the requests to the shards of batched writes and scatter-gather reads.
+   */
+  @Setter
+  private Executor executor = ForkJoinPool.commonPool();
+
   public ShardManager() {
-    shardMap = new HashMap<>();
+    shardMap = new ConcurrentHashMap<>();
   }
 
   /**
@@ -48,13 +69,7 @@ public abstract class ShardManager {
    *         {@code false} if the shardId is already existed.
    */
   public boolean addNewShard(final Shard shard) {
-    var shardId = shard.getId();
-    if (!shardMap.containsKey(shardId)) {
-      shardMap.put(shardId, shard);
-      return true;
-    } else {
-      return false;
-    }
+    return shardMap.putIfAbsent(shard.getId(), shard) == null;
   }
 
   /**
@@ -64,12 +79,7 @@ public abstract class ShardManager {
    * @return {@code true} if removed. {@code false} if the shardId is not existed.
    */
   public boolean removeShardById(final int shardId) {
-    if (shardMap.containsKey(shardId)) {
-      shardMap.remove(shardId);
-      return true;
-    } else {
-      return false;
-    }
+    return shardMap.remove(shardId) != null;
   }
 
   /**
@@ -90,6 +100,85 @@ public abstract class ShardManager {
    */
   public abstract int storeData(final Data data);
 
+  /**
+   * Store a batch of data. The data is grouped by the shard it is allocated to, and every shard
+   * stores its group at once, in parallel with the other shards.
+   *
+   * @param batch new data
+   * @return number of data stored in each shard, by shard id
+   */
+  public Map<Integer, Integer> storeAll(final Collection<Data> batch) {
+    var groups = new HashMap<Integer, List<Data>>();
+    for (var data : batch) {
+      groups.computeIfAbsent(allocateShard(data), shardId -> new ArrayList<>()).add(data);
+    }
+    var futures = new ArrayList<CompletableFuture<Void>>(groups.size());
+    var counts = new HashMap<Integer, Integer>();
+    groups.forEach((shardId, group) -> {
+      var shard = shardMap.get(shardId);
+      futures.add(CompletableFuture.runAsync(() -> timed(shard, s -> {
+        s.storeAll(group);
+        return null;
+      }), executor));
+      counts.put(shardId, group.size());
+    });
+    CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+    LOGGER.debug("{} data are stored in Shards {}", batch.size(), counts.keySet());
+    return counts;
+  }
+
+  /**
+   * Get the data with any of the keys from all shards in parallel.
+   *
+   * @param keys keys to look up
+   * @return the data found, by key
+   */
+  public Map<Integer, Data> getAll(final Collection<Integer> keys) {
+    var found = new HashMap<Integer, Data>();
+    for (var part : scatter(shard -> shard.getAll(keys))) {
+      for (var data : part) {
+        found.putIfAbsent(data.getKey(), data);
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Find the data which matches a predicate in all shards in parallel.
+   *
+   * @param predicate condition on the data
+   * @return the matching data
+   */
+  public List<Data> findAll(final Predicate<? super Data> predicate) {
+    var found = new HashMap<Integer, Data>();
+    for (var part : scatter(shard -> shard.findAll(predicate))) {
+      for (var data : part) {
+        found.putIfAbsent(data.getKey(), data);
+      }
+    }
+    return new ArrayList<>(found.values());
+  }
+
+  /**
+   * Find the data of a type in all shards in parallel.
+   *
+   * @param type type of the data
+   * @return the data of the type
+   */
+  public List<Data> findByType(final Data.DataType type) {
+    return findAll(data -> data.getType() == type);
+  }
+
+  /**
+   * Latency of the batched writes and scatter-gather reads a shard has served.
+   *
+   * @param shardId id of the shard
+   * @return latency of the shard
+   */
+  public ShardLatency getLatency(final int shardId) {
+    return latencies.computeIfAbsent(shardId, id -> new ShardLatency());
+  }
+
   /**
    * Allocate proper shard to provided data.
    *
@@ -98,4 +187,25 @@ public abstract class ShardManager {
    */
   protected abstract int allocateShard(final Data data);
 
+  private <T> List<T> scatter(Function<Shard, T> request) {
+    var futures = new ArrayList<CompletableFuture<T>>(shardMap.size());
+    for (var shard : shardMap.values()) {
+      futures.add(CompletableFuture.supplyAsync(() -> timed(shard, request), executor));
+    }
+    var results = new ArrayList<T>(futures.size());
+    for (var future : futures) {
+      results.add(future.join());
+    }
+    return results;
+  }
+
+  private <T> T timed(Shard shard, Function<Shard, T> request) {
+    var start = System.nanoTime();
+    try {
+      return request.apply(shard);
+    } finally {
+      getLatency(shard.getId()).record(System.nanoTime() - start);
+    }
+  }
+
 }
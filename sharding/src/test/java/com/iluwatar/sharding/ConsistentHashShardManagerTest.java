@@ -0,0 +1,269 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for ConsistentHashShardManager class.
+ */
+class ConsistentHashShardManagerTest {
+
+  private static final int KEYS = 20_000;
+
+  private ConsistentHashShardManager manager;
+
+  /**
+   * Initialize a manager with four shards.
+   */
+  @BeforeEach
+  void setup() {
+    manager = new ConsistentHashShardManager();
+    for (var id = 1; id <= 4; id++) {
+      manager.addNewShard(new Shard(id));
+    }
+    manager.getRebalancing().join();
+  }
+
+  @AfterEach
+  void tearDown() {
+    manager.shutdown();
+  }
+
+  @Test
+  void testStoreAndGetData() {
+    var data = new Data(1, "test", Data.DataType.TYPE_1);
+    var shardId = manager.storeData(data);
+    assertEquals(data, manager.getShardById(shardId).getDataById(1));
+    assertEquals(data, manager.getData(1));
+    assertNull(manager.getData(2));
+  }
+
+  @Test
+  void testAddExistingShard() {
+    assertFalse(manager.addNewShard(new Shard(1)));
+    assertFalse(manager.removeShardById(5));
+  }
+
+  @Test
+  void testNoShards() {
+    var empty = new ConsistentHashShardManager();
+    var data = new Data(1, "test", Data.DataType.TYPE_1);
+    assertThrows(IllegalStateException.class, () -> empty.storeData(data));
+    empty.shutdown();
+  }
+
+  @Test
+  void testKeepsLastShard() {
+    var keys = storeKeys().size();
+    assertTrue(manager.removeShardById(2));
+    assertTrue(manager.removeShardById(3));
+    assertTrue(manager.removeShardById(4));
+    assertFalse(manager.removeShardById(1));
+    manager.getRebalancing().join();
+
+    assertEquals(keys, manager.getShardById(1).size());
+    var data = new Data(KEYS, "test", Data.DataType.TYPE_1);
+    assertEquals(1, manager.storeData(data));
+    assertEquals(data, manager.getData(KEYS));
+  }
+
+  @Test
+  void testAddShardMovesOnlyItsShareOfKeys() {
+    var before = storeKeys();
+    manager.addNewShard(new Shard(5));
+    manager.getRebalancing().join();
+
+    var moved = 0;
+    for (var key = 0; key < KEYS; key++) {
+      var shardId = manager.getShardIdForKey(key);
+      if (shardId != before.get(key)) {
+        assertEquals(5, shardId);
+        moved++;
+      }
+      assertNotNull(manager.getShardById(shardId).getDataById(key));
+    }
+    //a fifth of the keys belongs to the new shard, where a modulo hash would move four fifths
+    assertTrue(moved > KEYS / 5 * 0.8 && moved < KEYS / 5 * 1.2, "moved " + moved);
+    assertEquals(moved, manager.getRebalanceMetrics().lastKeysMoved());
+    assertEquals(moved, manager.getShardById(5).size());
+  }
+
+  @Test
+  void testRemoveShardDrainsIt() {
+    storeKeys();
+    var removed = manager.getShardById(2);
+    var keys = removed.size();
+    assertTrue(manager.removeShardById(2));
+    manager.getRebalancing().join();
+
+    assertEquals(0, removed.size());
+    assertNull(manager.getShardById(2));
+    assertEquals(keys, manager.getRebalanceMetrics().lastKeysMoved());
+    for (var key = 0; key < KEYS; key++) {
+      assertNotNull(manager.getData(key));
+    }
+  }
+
+  @Test
+  void testWeightsSkewDistribution() {
+    var weighted = new ConsistentHashShardManager();
+    weighted.addNewShard(new Shard(1), 1);
+    weighted.addNewShard(new Shard(2), 3);
+    for (var key = 0; key < KEYS; key++) {
+      weighted.storeData(new Data(key, "value" + key, Data.DataType.TYPE_1));
+    }
+    weighted.getRebalancing().join();
+    var share = (double) weighted.getShardById(2).size() / KEYS;
+    assertTrue(share > 0.7 && share < 0.8, "share " + share);
+    weighted.shutdown();
+  }
+
+  @Test
+  void testReadsAndWritesDuringResize() throws Exception {
+    storeKeys();
+    var failures = new ConcurrentLinkedQueue<String>();
+    var running = new AtomicBoolean(true);
+    var started = new CountDownLatch(2);
+    var reader = new Thread(() -> {
+      started.countDown();
+      while (running.get()) {
+        for (var key = 0; key < KEYS; key += 7) {
+          if (manager.getData(key) == null) {
+            failures.add("missing key " + key);
+          }
+        }
+      }
+    });
+    var writer = new Thread(() -> {
+      started.countDown();
+      for (var key = KEYS; running.get() && key < 2 * KEYS; key++) {
+        manager.storeData(new Data(key, "value" + key, Data.DataType.TYPE_2));
+        if (manager.getData(key) == null) {
+          failures.add("missing new key " + key);
+        }
+      }
+    });
+    reader.start();
+    writer.start();
+    started.await();
+
+    manager.addNewShard(new Shard(5));
+    manager.addNewShard(new Shard(6), 2);
+    manager.removeShardById(1);
+    manager.getRebalancing().get(30, TimeUnit.SECONDS);
+    running.set(false);
+    reader.join();
+    writer.join();
+
+    assertTrue(failures.isEmpty(), () -> failures.peek());
+    for (var key = 0; key < KEYS; key++) {
+      var shardId = manager.getShardIdForKey(key);
+      assertNotNull(manager.getShardById(shardId).getDataById(key), "key " + key);
+    }
+    assertNull(manager.getShardById(1));
+  }
+
+  @Test
+  void testWritesRacingResizesEndAtTheirShards() throws Exception {
+    var failures = new ConcurrentLinkedQueue<Throwable>();
+    var running = new AtomicBoolean(true);
+    var written = new AtomicInteger();
+    var writers = new ArrayList<Thread>();
+    for (var w = 0; w < 4; w++) {
+      var batched = w % 2 == 1;
+      var first = w * 10 * KEYS;
+      writers.add(new Thread(() -> {
+        try {
+          for (var key = first; running.get(); key += 10) {
+            var batch = new ArrayList<Data>();
+            for (var i = key; i < key + 10; i++) {
+              batch.add(new Data(i, "value" + i, Data.DataType.TYPE_1));
+            }
+            if (batched) {
+              manager.storeAll(batch);
+            } else {
+              batch.forEach(manager::storeData);
+            }
+            written.addAndGet(batch.size());
+          }
+        } catch (RuntimeException e) {
+          failures.add(e);
+        }
+      }));
+    }
+    writers.forEach(Thread::start);
+    for (var id = 5; id < 25; id++) {
+      manager.addNewShard(new Shard(id));
+      manager.removeShardById(id - 3);
+      Thread.sleep(5);
+    }
+    running.set(false);
+    for (var writer : writers) {
+      writer.join();
+    }
+    manager.getRebalancing().get(30, TimeUnit.SECONDS);
+
+    assertTrue(failures.isEmpty(), () -> failures.peek().toString());
+    var stored = 0;
+    for (var id = 1; id < 25; id++) {
+      var shard = manager.getShardById(id);
+      if (shard != null) {
+        for (var data : shard.getAllData()) {
+          assertEquals(id, manager.getShardIdForKey(data.getKey()), "key " + data.getKey());
+          stored++;
+        }
+      }
+    }
+    assertEquals(written.get(), stored);
+    for (var id = 2; id < 22; id++) {
+      assertNull(manager.getShardById(id), "shard " + id);
+    }
+  }
+
+  private HashMap<Integer, Integer> storeKeys() {
+    var shards = new HashMap<Integer, Integer>();
+    for (var key = 0; key < KEYS; key++) {
+      shards.put(key, manager.storeData(new Data(key, "value" + key, Data.DataType.TYPE_1)));
+    }
+    return shards;
+  }
+}
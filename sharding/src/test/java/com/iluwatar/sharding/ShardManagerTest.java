@@ -28,7 +28,12 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -86,6 +91,81 @@ class ShardManagerTest {
     assertEquals(shard, tmpShard);
   }
 
+  @Test
+  void testStoreAllGroupsByShard() {
+    var manager = hashShardManager();
+    var counts = manager.storeAll(data(0, 30));
+    assertEquals(Map.of(1, 10, 2, 10, 3, 10), counts);
+    for (var id = 1; id <= 3; id++) {
+      assertEquals(10, manager.getShardById(id).size());
+      assertEquals(1, manager.getLatency(id).getRequests());
+    }
+    assertEquals(data(0, 30).size(), manager.getAll(keys(0, 30)).size());
+  }
+
+  @Test
+  void testGetAll() {
+    var manager = hashShardManager();
+    manager.storeAll(data(0, 30));
+    var found = manager.getAll(List.of(1, 5, 29, 100));
+    assertEquals(List.of(1, 5, 29), found.keySet().stream().sorted().toList());
+    assertEquals("value5", found.get(5).getValue());
+    for (var id = 1; id <= 3; id++) {
+      assertEquals(2, manager.getLatency(id).getRequests());
+    }
+  }
+
+  @Test
+  void testFindByType() {
+    var manager = hashShardManager();
+    var executor = Executors.newFixedThreadPool(3);
+    manager.setExecutor(executor);
+    manager.storeAll(data(0, 30));
+    var found = manager.findByType(Data.DataType.TYPE_2);
+    assertEquals(keys(0, 30).stream().filter(key -> key % 3 == 1).collect(Collectors.toSet()),
+        found.stream().map(Data::getKey).collect(Collectors.toSet()));
+    assertTrue(manager.getLatency(1).getMaxTime().compareTo(manager.getLatency(1).getMeanTime())
+        >= 0);
+    executor.shutdown();
+  }
+
+  @Test
+  void testConcurrentWriters() throws InterruptedException {
+    var manager = hashShardManager();
+    var writers = new ArrayList<Thread>();
+    for (var writer = 0; writer < 4; writer++) {
+      var from = writer * 1000;
+      writers.add(new Thread(() -> {
+        for (var data : data(from, from + 1000)) {
+          manager.storeData(data);
+        }
+      }));
+    }
+    writers.forEach(Thread::start);
+    for (var writer : writers) {
+      writer.join();
+    }
+    assertEquals(4000, manager.getAll(keys(0, 4000)).size());
+  }
+
+  private static HashShardManager hashShardManager() {
+    var manager = new HashShardManager();
+    for (var id = 1; id <= 3; id++) {
+      manager.addNewShard(new Shard(id));
+    }
+    return manager;
+  }
+
+  private static List<Data> data(int from, int to) {
+    return IntStream.range(from, to)
+        .mapToObj(key -> new Data(key, "value" + key, Data.DataType.values()[key % 3]))
+        .toList();
+  }
+
+  private static List<Integer> keys(int from, int to) {
+    return IntStream.range(from, to).boxed().toList();
+  }
+
   static class TestShardManager extends ShardManager {
 
     @Override
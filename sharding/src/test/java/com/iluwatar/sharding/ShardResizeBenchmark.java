@@ -0,0 +1,129 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Throughput of reads and writes of a {@link ConsistentHashShardManager} while its shards stay the
+ * same, and while a shard is added and removed over and over in the background. The keys moved by
+ * the resizes are printed after every iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(2)
+public class ShardResizeBenchmark {
+
+  private static final int KEYS = 100_000;
+
+  @Param({"false", "true"})
+  private boolean resizing;
+
+  private ConsistentHashShardManager manager;
+  private Thread resizer;
+  private volatile boolean running;
+
+  /**
+   * Fill eight shards, and start resizing them if asked to.
+   */
+  @Setup(Level.Iteration)
+  public void setUp() {
+    manager = new ConsistentHashShardManager();
+    for (var id = 1; id <= 8; id++) {
+      manager.addNewShard(new Shard(id));
+    }
+    for (var key = 0; key < KEYS; key++) {
+      manager.storeData(new Data(key, "value" + key, Data.DataType.TYPE_1));
+    }
+    manager.getRebalancing().join();
+    running = true;
+    if (resizing) {
+      resizer = new Thread(this::resize, "resizer");
+      resizer.start();
+    }
+  }
+
+  /**
+   * Stop resizing and print how many keys were moved.
+   */
+  @TearDown(Level.Iteration)
+  public void tearDown() throws InterruptedException {
+    running = false;
+    if (resizer != null) {
+      resizer.join();
+    }
+    var metrics = manager.getRebalanceMetrics();
+    System.out.printf("%n%d rebalances, %d keys scanned, %d keys moved%n",
+        metrics.rebalances(), metrics.keysScanned(), metrics.keysMoved());
+    manager.shutdown();
+  }
+
+  private void resize() {
+    while (running) {
+      manager.addNewShard(new Shard(9));
+      manager.getRebalancing().join();
+      manager.removeShardById(9);
+      manager.getRebalancing().join();
+    }
+  }
+
+  @Benchmark
+  public Data get() {
+    return manager.getData(ThreadLocalRandom.current().nextInt(KEYS));
+  }
+
+  @Benchmark
+  public int store() {
+    var key = ThreadLocalRandom.current().nextInt(KEYS);
+    return manager.storeData(new Data(key, "value", Data.DataType.TYPE_2));
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(ShardResizeBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
@@ -27,6 +27,7 @@ package com.iluwatar.spatialpartition;
 import java.security.SecureRandom;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -56,6 +57,10 @@ import lombok.extern.slf4j.Slf4j;
  * within a certain range from <b>O(n^2) to O(nlogn)</b>, increasing the speed of computations
  * immensely in case of large number of objects, which will have a positive effect on the rendering
  * speed of the game.</p>
+ * <p>The quadtree is one of several <b>{@link SpatialIndex}</b> implementations. The simulation
+ * uses a {@link LooseQuadTree}, which is told when a bubble moves instead of being rebuilt every
+ * frame; an {@link Rtree} bulk loads faster and a {@link UniformGrid} is cheapest for evenly spread
+ * objects. All of them also find the objects within a radius and the nearest neighbours.</p>
  */
 
 @Slf4j
@@ -82,21 +87,21 @@ public class App {
 
   static void withSpatialPartition(
       int height, int width, int numOfMovements, Map<Integer, Bubble> bubbles) {
-    //creating quadtree
+    //creating quadtree, its loose nodes let the bubbles move without being reinserted
     var rect = new Rect(width / 2D, height / 2D, width, height);
-    var quadTree = new QuadTree(rect, 4);
+    var quadTree = new LooseQuadTree<Bubble>(rect, 4);
+    quadTree.build(bubbles.values());
+    var sp = new SpatialPartitionBubbles(bubbles, quadTree);
 
     //will run numOfMovement times or till all bubbles have popped
     while (numOfMovements > 0 && !bubbles.isEmpty()) {
-      //quadtree updated each time
-      bubbles.values().forEach(quadTree::insert);
-      bubbles.forEach((i, bubble) -> {
-        //bubble moves, new position gets updated, quadtree used to reduce computations
+      bubbles.values().forEach(bubble -> {
+        //bubble moves, new position gets updated in the quadtree
         bubble.move();
-        bubbles.replace(i, bubble);
-        var sp = new SpatialPartitionBubbles(bubbles, quadTree);
-        sp.handleCollisionsUsingQt(bubble);
+        quadTree.update(bubble);
       });
+      //quadtree used to reduce computations, collisions of all bubbles found in parallel
+      sp.handleCollisions(ForkJoinPool.commonPool());
       numOfMovements--;
     }
     //bubbles not popped
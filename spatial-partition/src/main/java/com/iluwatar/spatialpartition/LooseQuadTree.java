@@ -0,0 +1,330 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.spatialpartition;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * A quadtree whose nodes are loose: a node keeps the points which lie within twice its size, so a
+ * point which moves a little stays where it is and {@link #update(Point)} costs a lookup. Only a
+ * point which leaves the loose bounds of its node is moved, up to the nearest node that contains it
+ * and down again from there. Nodes are divided when they hold more than capacity points and are
+ * merged again when their points are removed, so the tree follows the points around instead of
+ * being rebuilt every frame.
+ *
+ * <p>The root keeps the points outside the field, so that nothing is lost when points wander off.
+ *
+ * @param <T> the type of the points
+ */
+
+public class LooseQuadTree<T extends Point> implements SpatialIndex<T> {
+
+  private static final int DEFAULT_MAX_DEPTH = 16;
+
+  private final Rect boundary;
+  private final int capacity;
+  private final int maxDepth;
+  private final Map<Integer, Node<T>> nodeOf = new HashMap<>();
+  private Node<T> root;
+
+  public LooseQuadTree(Rect boundary, int capacity) {
+    this(boundary, capacity, DEFAULT_MAX_DEPTH);
+  }
+
+  /**
+   * Creates an empty tree.
+   *
+   * @param boundary the field the points move in
+   * @param capacity the number of points a node holds before it is divided
+   * @param maxDepth the depth beyond which nodes are not divided, however many points they hold
+   */
+  public LooseQuadTree(Rect boundary, int capacity, int maxDepth) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    this.boundary = boundary;
+    this.capacity = capacity;
+    this.maxDepth = maxDepth;
+    this.root = new Node<>(null, boundary, 0);
+  }
+
+  @Override
+  public void insert(T point) {
+    if (nodeOf.containsKey(point.id)) {
+      remove(point);
+    }
+    root.insert(point, this);
+  }
+
+  @Override
+  public boolean remove(T point) {
+    var node = nodeOf.remove(point.id);
+    if (node == null) {
+      return false;
+    }
+    node.points.removeIf(p -> p.id == point.id);
+    node.adjustCount(-1);
+    merge(node);
+    return true;
+  }
+
+  @Override
+  public void update(T point) {
+    var node = nodeOf.get(point.id);
+    if (node == null) {
+      insert(point);
+      return;
+    }
+    if (node.holds(point)) {
+      return;
+    }
+    node.points.removeIf(p -> p.id == point.id);
+    node.adjustCount(-1);
+    var ancestor = node.parent;
+    while (ancestor != null && ancestor.parent != null && !ancestor.bounds.contains(point)) {
+      ancestor = ancestor.parent;
+    }
+    merge(node);
+    //merging may have collapsed the ancestor into one of its own ancestors
+    while (ancestor != null && ancestor.detached) {
+      ancestor = ancestor.parent;
+    }
+    (ancestor == null ? root : ancestor).insert(point, this);
+  }
+
+  @Override
+  public void clear() {
+    nodeOf.clear();
+    root = new Node<>(null, boundary, 0);
+  }
+
+  @Override
+  public int size() {
+    return nodeOf.size();
+  }
+
+  @Override
+  public void query(Rect range, Consumer<? super T> action) {
+    root.query(range, action);
+  }
+
+  @Override
+  public void queryRadius(double x, double y, double radius, Consumer<? super T> action) {
+    var radiusSquared = radius * radius;
+    root.queryRadius(x, y, radiusSquared, action);
+  }
+
+  @Override
+  public List<T> nearest(double x, double y, int k) {
+    var result = new NearestNeighbours<T>(x, y, k);
+    var queue = new PriorityQueue<NodeDistance<T>>(Comparator.comparingDouble(NodeDistance::distance));
+    queue.add(new NodeDistance<>(root, 0));
+    while (!queue.isEmpty()) {
+      var next = queue.poll();
+      if (next.distance() > result.worstDistanceSquared()) {
+        break;
+      }
+      next.node().points.forEach(result::offer);
+      if (next.node().children != null) {
+        for (var child : next.node().children) {
+          if (child.count > 0) {
+            queue.add(new NodeDistance<>(child, child.looseDistanceSquared(x, y)));
+          }
+        }
+      }
+    }
+    return result.toList();
+  }
+
+  //collapses the topmost ancestor of the node which holds few enough points to do without children
+
+  private void merge(Node<T> node) {
+    Node<T> collapsible = null;
+    for (var n = node; n != null; n = n.parent) {
+      if (n.children != null && n.count <= capacity / 2) {
+        collapsible = n;
+      }
+    }
+    if (collapsible != null) {
+      collapsible.collapse(this);
+    }
+  }
+
+  private record NodeDistance<T extends Point>(Node<T> node, double distance) {
+  }
+
+  private static class Node<T extends Point> {
+    private final Node<T> parent;
+    private final Rect bounds;
+    private final Rect looseBounds;
+    private final int depth;
+    private final List<T> points = new ArrayList<>();
+    private Node<T>[] children;
+    private int count;
+    private boolean detached;
+
+    Node(Node<T> parent, Rect bounds, int depth) {
+      this.parent = parent;
+      this.bounds = bounds;
+      this.looseBounds = new Rect(bounds.coordinateX, bounds.coordinateY,
+          2 * bounds.width, 2 * bounds.height);
+      this.depth = depth;
+    }
+
+    boolean holds(T point) {
+      return parent == null || looseBounds.contains(point);
+    }
+
+    double looseDistanceSquared(double x, double y) {
+      return parent == null ? 0 : looseBounds.distanceSquared(x, y);
+    }
+
+    void adjustCount(int delta) {
+      for (var n = this; n != null; n = n.parent) {
+        n.count += delta;
+      }
+    }
+
+    void insert(T point, LooseQuadTree<T> tree) {
+      var node = this;
+      while (node.children != null) {
+        var child = node.childFor(point);
+        if (child == null) {
+          break;
+        }
+        node = child;
+      }
+      node.points.add(point);
+      tree.nodeOf.put(point.id, node);
+      node.adjustCount(1);
+      if (node.children == null && node.points.size() > tree.capacity && node.depth < tree.maxDepth) {
+        node.divide(tree);
+      }
+    }
+
+    //the child whose tight bounds contain the point, if this node's do
+
+    Node<T> childFor(T point) {
+      if (!bounds.contains(point)) {
+        return null;
+      }
+      var east = point.coordinateX >= bounds.coordinateX ? 1 : 0;
+      var north = point.coordinateY >= bounds.coordinateY ? 2 : 0;
+      return children[east + north];
+    }
+
+    @SuppressWarnings("unchecked")
+    void divide(LooseQuadTree<T> tree) {
+      var x = bounds.coordinateX;
+      var y = bounds.coordinateY;
+      var width = bounds.width / 2;
+      var height = bounds.height / 2;
+      children = new Node[] {
+          new Node<>(this, new Rect(x - width / 2, y - height / 2, width, height), depth + 1),
+          new Node<>(this, new Rect(x + width / 2, y - height / 2, width, height), depth + 1),
+          new Node<>(this, new Rect(x - width / 2, y + height / 2, width, height), depth + 1),
+          new Node<>(this, new Rect(x + width / 2, y + height / 2, width, height), depth + 1)
+      };
+      var kept = new ArrayList<T>();
+      for (var point : points) {
+        var child = childFor(point);
+        if (child == null) {
+          kept.add(point);
+        } else {
+          child.points.add(point);
+          child.count++;
+          tree.nodeOf.put(point.id, child);
+        }
+      }
+      points.clear();
+      points.addAll(kept);
+      for (var child : children) {
+        if (child.points.size() > tree.capacity && child.depth < tree.maxDepth) {
+          child.divide(tree);
+        }
+      }
+    }
+
+    void collapse(LooseQuadTree<T> tree) {
+      for (var child : children) {
+        child.gather(points, tree, this);
+      }
+      children = null;
+    }
+
+    private void gather(List<T> into, LooseQuadTree<T> tree, Node<T> owner) {
+      for (var point : points) {
+        into.add(point);
+        tree.nodeOf.put(point.id, owner);
+      }
+      detached = true;
+      if (children != null) {
+        for (var child : children) {
+          child.gather(into, tree, owner);
+        }
+      }
+    }
+
+    void query(Rect range, Consumer<? super T> action) {
+      if (count == 0 || parent != null && !looseBounds.overlaps(range)) {
+        return;
+      }
+      for (var point : points) {
+        if (range.contains(point)) {
+          action.accept(point);
+        }
+      }
+      if (children != null) {
+        for (var child : children) {
+          child.query(range, action);
+        }
+      }
+    }
+
+    void queryRadius(double x, double y, double radiusSquared, Consumer<? super T> action) {
+      if (count == 0 || looseDistanceSquared(x, y) > radiusSquared) {
+        return;
+      }
+      for (var point : points) {
+        var dx = point.coordinateX - x;
+        var dy = point.coordinateY - y;
+        if (dx * dx + dy * dy <= radiusSquared) {
+          action.accept(point);
+        }
+      }
+      if (children != null) {
+        for (var child : children) {
+          child.queryRadius(x, y, radiusSquared, action);
+        }
+      }
+    }
+  }
+}
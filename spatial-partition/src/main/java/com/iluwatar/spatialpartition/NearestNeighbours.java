@@ -0,0 +1,92 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.spatialpartition;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Collects the k nearest points found by a k-nearest-neighbour search. The farthest of them is on
+ * top of a heap, so that a search can stop looking into regions farther away than that.
+ *
+ * @param <T> the type of the points
+ */
+
+class NearestNeighbours<T extends Point> {
+
+  private record Candidate<T extends Point>(T point, double distanceSquared) {
+  }
+
+  private static final Comparator<Candidate<?>> NEAREST_FIRST = Comparator
+      .<Candidate<?>>comparingDouble(Candidate::distanceSquared)
+      .thenComparingInt(c -> c.point().id);
+
+  private final double originX;
+  private final double originY;
+  private final int wanted;
+  private final PriorityQueue<Candidate<T>> farthestFirst;
+
+  NearestNeighbours(double x, double y, int k) {
+    if (k < 0) {
+      throw new IllegalArgumentException("k must not be negative: " + k);
+    }
+    this.originX = x;
+    this.originY = y;
+    this.wanted = k;
+    this.farthestFirst = new PriorityQueue<>(Math.max(k, 1), NEAREST_FIRST.reversed());
+  }
+
+  void offer(T point) {
+    var dx = point.coordinateX - originX;
+    var dy = point.coordinateY - originY;
+    var candidate = new Candidate<>(point, dx * dx + dy * dy);
+    if (farthestFirst.size() < wanted) {
+      farthestFirst.add(candidate);
+    } else if (wanted > 0 && NEAREST_FIRST.compare(candidate, farthestFirst.peek()) < 0) {
+      farthestFirst.poll();
+      farthestFirst.add(candidate);
+    }
+  }
+
+  //a region farther than this squared distance cannot hold a nearer point
+
+  double worstDistanceSquared() {
+    if (wanted == 0) {
+      return Double.NEGATIVE_INFINITY;
+    }
+    return farthestFirst.size() < wanted
+        ? Double.POSITIVE_INFINITY : farthestFirst.peek().distanceSquared;
+  }
+
+  List<T> toList() {
+    var candidates = new ArrayList<>(farthestFirst);
+    candidates.sort(NEAREST_FIRST);
+    var points = new ArrayList<T>(candidates.size());
+    candidates.forEach(c -> points.add(c.point()));
+    return points;
+  }
+}
@@ -0,0 +1,232 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.spatialpartition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * The broad phase of collision detection, run in parallel: it finds every pair of bubbles which
+ * touch, without popping any of them. The field is divided into quadrants, recursively, until a
+ * region holds few enough bubbles, and each region is a fork/join task which looks up the
+ * neighbours of its own bubbles in the spatial index. The index and the bubbles are only read, so
+ * the tasks need no locks. Each worker thread collects its pairs in its own buffer, which is
+ * reused from one pass to the next, and the buffers are merged and sorted when all regions are
+ * done, so that the result does not depend on how the work was split or scheduled.
+ *
+ * <p>A pair is found the way {@link SpatialPartitionBubbles#handleCollisionsUsingQt(Bubble)} finds
+ * it: the other bubble lies in the square around the bubble and touches it. One pass at a time may
+ * run on a broad phase.
+ */
+
+class ParallelBroadPhase {
+
+  private static final int MAX_DEPTH = 16;
+
+  private final SpatialIndex<? super Bubble> index;
+  private final ForkJoinPool pool;
+  private final int regionSize;
+  private final List<Worker> workers = new CopyOnWriteArrayList<>();
+  private final ThreadLocal<Worker> worker = ThreadLocal.withInitial(this::newWorker);
+
+  ParallelBroadPhase(SpatialIndex<? super Bubble> index, ForkJoinPool pool, int regionSize) {
+    if (regionSize < 1) {
+      throw new IllegalArgumentException("region size must be positive: " + regionSize);
+    }
+    this.index = index;
+    this.pool = pool;
+    this.regionSize = regionSize;
+  }
+
+  ForkJoinPool getPool() {
+    return pool;
+  }
+
+  private Worker newWorker() {
+    var w = new Worker();
+    workers.add(w);
+    return w;
+  }
+
+  /**
+   * finds the bubbles which touch.
+   *
+   * @param bubbles the bubbles to find the neighbours of, all of them in the index
+   * @return the pairs of the id of a bubble and the id of a bubble it touches, packed into longs by
+   *     {@link #pair(int, int)} and sorted by the first id and then the second
+   */
+  long[] findPairs(Collection<Bubble> bubbles) {
+    workers.forEach(Worker::reset);
+    var array = bubbles.toArray(new Bubble[0]);
+    if (array.length > 0) {
+      pool.invoke(new RegionTask(array, 0, array.length, bounds(array), 0));
+    }
+    var count = 0;
+    for (var w : workers) {
+      count += w.size;
+    }
+    var pairs = new long[count];
+    var offset = 0;
+    for (var w : workers) {
+      System.arraycopy(w.pairs, 0, pairs, offset, w.size);
+      offset += w.size;
+    }
+    Arrays.sort(pairs);
+    return pairs;
+  }
+
+  //the first id takes the high bits, and both are shifted so that the longs sort like the ids
+
+  static long pair(int bubble, int other) {
+    return ((long) bubble << 32) | ((other ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+  }
+
+  static int bubble(long pair) {
+    return (int) (pair >> 32);
+  }
+
+  static int other(long pair) {
+    return (int) pair ^ Integer.MIN_VALUE;
+  }
+
+  private static Rect bounds(Bubble[] bubbles) {
+    double minX = Double.POSITIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+    for (var b : bubbles) {
+      minX = Math.min(minX, b.coordinateX);
+      minY = Math.min(minY, b.coordinateY);
+      maxX = Math.max(maxX, b.coordinateX);
+      maxY = Math.max(maxY, b.coordinateY);
+    }
+    return new Rect((minX + maxX) / 2, (minY + maxY) / 2, maxX - minX, maxY - minY);
+  }
+
+  /**
+   * The scratch space of one worker thread.
+   */
+  private static class Worker {
+    private final Rect range = new Rect(0, 0, 0, 0);
+    private final List<Point> candidates = new ArrayList<>();
+    private final Consumer<Point> collect = candidates::add;
+    private long[] pairs = new long[64];
+    private int size;
+
+    void reset() {
+      size = 0;
+    }
+
+    void add(long pair) {
+      if (size == pairs.length) {
+        pairs = Arrays.copyOf(pairs, 2 * size);
+      }
+      pairs[size++] = pair;
+    }
+  }
+
+  /**
+   * Finds the pairs of the bubbles in a region, which are the range [from, to) of the array.
+   */
+  private class RegionTask extends RecursiveAction {
+    private final transient Bubble[] bubbles;
+    private final int from;
+    private final int to;
+    private final transient Rect region;
+    private final int depth;
+
+    RegionTask(Bubble[] bubbles, int from, int to, Rect region, int depth) {
+      this.bubbles = bubbles;
+      this.from = from;
+      this.to = to;
+      this.region = region;
+      this.depth = depth;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= regionSize || depth == MAX_DEPTH) {
+        findPairs();
+        return;
+      }
+      var x = region.coordinateX;
+      var y = region.coordinateY;
+      var width = region.width / 2;
+      var height = region.height / 2;
+      //south bubbles to the front, then west to the front of each half, like the quadtree divides
+      var north = partition(from, to, b -> b.coordinateY >= y);
+      var southEast = partition(from, north, b -> b.coordinateX >= x);
+      var northEast = partition(north, to, b -> b.coordinateX >= x);
+      invokeAll(
+          new RegionTask(bubbles, from, southEast,
+              new Rect(x - width / 2, y - height / 2, width, height), depth + 1),
+          new RegionTask(bubbles, southEast, north,
+              new Rect(x + width / 2, y - height / 2, width, height), depth + 1),
+          new RegionTask(bubbles, north, northEast,
+              new Rect(x - width / 2, y + height / 2, width, height), depth + 1),
+          new RegionTask(bubbles, northEast, to,
+              new Rect(x + width / 2, y + height / 2, width, height), depth + 1));
+    }
+
+    //moves the bubbles which do not satisfy the condition to the front, returns where the rest start
+
+    private int partition(int start, int end, Predicate<Bubble> condition) {
+      var boundary = start;
+      for (var i = start; i < end; i++) {
+        if (!condition.test(bubbles[i])) {
+          var b = bubbles[i];
+          bubbles[i] = bubbles[boundary];
+          bubbles[boundary++] = b;
+        }
+      }
+      return boundary;
+    }
+
+    private void findPairs() {
+      var w = worker.get();
+      for (var i = from; i < to; i++) {
+        var b = bubbles[i];
+        w.range.coordinateX = b.coordinateX;
+        w.range.coordinateY = b.coordinateY;
+        w.range.width = 2D * b.radius;
+        w.range.height = 2D * b.radius;
+        w.candidates.clear();
+        index.query(w.range, w.collect);
+        for (var candidate : w.candidates) {
+          if (candidate instanceof Bubble other && other.id != b.id && b.touches(other)) {
+            w.add(pair(b.id, other.id));
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,297 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.spatialpartition;
+
+import java.util.Arrays;
+
+/**
+ * A quadtree like {@link QuadTree} which keeps its nodes and points in flat primitive arrays
+ * instead of objects. A node is an index into the node arrays, and each node owns a block of
+ * capacity slots in the point arrays, holding the ids and coordinates of its points next to each
+ * other. There are no {@link Point} references, boxed keys or maps to chase, so a query reads
+ * memory in order and hands each point found to a {@link PointVisitor} as plain ints.
+ *
+ * <p>The arrays grow when the tree does and are kept by {@link #clear()}, so a tree which is
+ * cleared and filled again every frame stops allocating once it has grown to the size it needs.
+ * Queries never allocate. Nodes at the maximum depth which overflow chain further blocks, so that
+ * any number of points can share a location.
+ */
+
+public class PrimitiveQuadTree {
+
+  private static final int DEFAULT_MAX_DEPTH = 16;
+  private static final int NONE = -1;
+  private static final int INITIAL_NODES = 16;
+
+  /**
+   * Receives the points found by a query.
+   */
+  @FunctionalInterface
+  public interface PointVisitor {
+
+    /**
+     * called for each point found.
+     *
+     * @param id the id of the point
+     * @param x  x coordinate of the point
+     * @param y  y coordinate of the point
+     */
+    void visit(int id, int x, int y);
+  }
+
+  private final int capacity;
+  private final int maxDepth;
+
+  private double[] centreX;
+  private double[] centreY;
+  private double[] halfWidth;
+  private double[] halfHeight;
+  private int[] depth;
+  //index of the first of the four children (northwest, northeast, southwest, southeast) or NONE
+  private int[] firstChild;
+  //index of the block which takes the points of a full node at the maximum depth, or NONE
+  private int[] nextBlock;
+  private int[] pointCount;
+  private int nodeCount;
+
+  private int[] ids;
+  private int[] xs;
+  private int[] ys;
+  private int size;
+
+  public PrimitiveQuadTree(Rect boundary, int capacity) {
+    this(boundary, capacity, DEFAULT_MAX_DEPTH);
+  }
+
+  /**
+   * Creates an empty tree.
+   *
+   * @param boundary the field the points lie in, points outside it are not added
+   * @param capacity the number of points a node holds before it is divided
+   * @param maxDepth the depth beyond which nodes are not divided
+   */
+  public PrimitiveQuadTree(Rect boundary, int capacity, int maxDepth) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    this.capacity = capacity;
+    this.maxDepth = maxDepth;
+    this.centreX = new double[INITIAL_NODES];
+    this.centreY = new double[INITIAL_NODES];
+    this.halfWidth = new double[INITIAL_NODES];
+    this.halfHeight = new double[INITIAL_NODES];
+    this.depth = new int[INITIAL_NODES];
+    this.firstChild = new int[INITIAL_NODES];
+    this.nextBlock = new int[INITIAL_NODES];
+    this.pointCount = new int[INITIAL_NODES];
+    this.ids = new int[INITIAL_NODES * capacity];
+    this.xs = new int[INITIAL_NODES * capacity];
+    this.ys = new int[INITIAL_NODES * capacity];
+    newNode(boundary.coordinateX, boundary.coordinateY, boundary.width / 2, boundary.height / 2, 0);
+  }
+
+  /**
+   * removes all points, keeping the arrays for the points to come.
+   */
+  public void clear() {
+    nodeCount = 1;
+    firstChild[0] = NONE;
+    nextBlock[0] = NONE;
+    pointCount[0] = 0;
+    size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public void insert(Point point) {
+    insert(point.id, point.coordinateX, point.coordinateY);
+  }
+
+  /**
+   * adds a point.
+   *
+   * @param id the id of the point
+   * @param x  x coordinate of the point
+   * @param y  y coordinate of the point
+   * @return whether the point was added, which it is unless it lies outside the boundary
+   */
+  public boolean insert(int id, int x, int y) {
+    if (!contains(0, x, y)) {
+      return false;
+    }
+    var node = 0;
+    while (pointCount[node] == capacity) {
+      if (depth[node] == maxDepth) {
+        while (pointCount[node] == capacity) {
+          if (nextBlock[node] == NONE) {
+            var block = newNode(0, 0, 0, 0, maxDepth);
+            nextBlock[node] = block;
+          }
+          node = nextBlock[node];
+        }
+        break;
+      }
+      if (firstChild[node] == NONE) {
+        divide(node);
+      }
+      //the first child containing the point, in the order the QuadTree tries them
+      var east = x > centreX[node] ? 1 : 0;
+      var south = y < centreY[node] ? 2 : 0;
+      node = firstChild[node] + east + south;
+    }
+    var slot = node * capacity + pointCount[node]++;
+    ids[slot] = id;
+    xs[slot] = x;
+    ys[slot] = y;
+    size++;
+    return true;
+  }
+
+  /**
+   * finds the points within a rectangular range, including its border.
+   *
+   * @param range   the range to search
+   * @param visitor called for each point found
+   */
+  public void query(Rect range, PointVisitor visitor) {
+    query(0, range.coordinateX - range.width / 2, range.coordinateY - range.height / 2,
+        range.coordinateX + range.width / 2, range.coordinateY + range.height / 2, visitor);
+  }
+
+  private void query(int node, double minX, double minY, double maxX, double maxY,
+      PointVisitor visitor) {
+    if (centreX[node] - halfWidth[node] > maxX || centreX[node] + halfWidth[node] < minX
+        || centreY[node] - halfHeight[node] > maxY || centreY[node] + halfHeight[node] < minY) {
+      return;
+    }
+    for (var block = node; block != NONE; block = nextBlock[block]) {
+      var from = block * capacity;
+      var to = from + pointCount[block];
+      for (var slot = from; slot < to; slot++) {
+        var x = xs[slot];
+        var y = ys[slot];
+        if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+          visitor.visit(ids[slot], x, y);
+        }
+      }
+    }
+    var child = firstChild[node];
+    if (child != NONE) {
+      for (var i = 0; i < 4; i++) {
+        query(child + i, minX, minY, maxX, maxY, visitor);
+      }
+    }
+  }
+
+  /**
+   * finds the points within a radius of a location, including the ones at exactly that distance.
+   *
+   * @param x       x coordinate of the centre
+   * @param y       y coordinate of the centre
+   * @param radius  the radius to search
+   * @param visitor called for each point found
+   */
+  public void queryRadius(double x, double y, double radius, PointVisitor visitor) {
+    queryRadius(0, x, y, radius * radius, visitor);
+  }
+
+  private void queryRadius(int node, double x, double y, double radiusSquared,
+      PointVisitor visitor) {
+    var outsideX = Math.max(Math.abs(x - centreX[node]) - halfWidth[node], 0);
+    var outsideY = Math.max(Math.abs(y - centreY[node]) - halfHeight[node], 0);
+    if (outsideX * outsideX + outsideY * outsideY > radiusSquared) {
+      return;
+    }
+    for (var block = node; block != NONE; block = nextBlock[block]) {
+      var from = block * capacity;
+      var to = from + pointCount[block];
+      for (var slot = from; slot < to; slot++) {
+        var dx = xs[slot] - x;
+        var dy = ys[slot] - y;
+        if (dx * dx + dy * dy <= radiusSquared) {
+          visitor.visit(ids[slot], xs[slot], ys[slot]);
+        }
+      }
+    }
+    var child = firstChild[node];
+    if (child != NONE) {
+      for (var i = 0; i < 4; i++) {
+        queryRadius(child + i, x, y, radiusSquared, visitor);
+      }
+    }
+  }
+
+  private boolean contains(int node, int x, int y) {
+    return x >= centreX[node] - halfWidth[node] && x <= centreX[node] + halfWidth[node]
+        && y >= centreY[node] - halfHeight[node] && y <= centreY[node] + halfHeight[node];
+  }
+
+  private void divide(int node) {
+    var x = centreX[node];
+    var y = centreY[node];
+    var halfW = halfWidth[node] / 2;
+    var halfH = halfHeight[node] / 2;
+    var childDepth = depth[node] + 1;
+    //the four children are consecutive, in the order northwest, northeast, southwest, southeast
+    final var first = newNode(x - halfW, y + halfH, halfW, halfH, childDepth);
+    newNode(x + halfW, y + halfH, halfW, halfH, childDepth);
+    newNode(x - halfW, y - halfH, halfW, halfH, childDepth);
+    newNode(x + halfW, y - halfH, halfW, halfH, childDepth);
+    firstChild[node] = first;
+  }
+
+  private int newNode(double x, double y, double halfW, double halfH, int nodeDepth) {
+    if (nodeCount == firstChild.length) {
+      grow();
+    }
+    var node = nodeCount++;
+    centreX[node] = x;
+    centreY[node] = y;
+    halfWidth[node] = halfW;
+    halfHeight[node] = halfH;
+    depth[node] = nodeDepth;
+    firstChild[node] = NONE;
+    nextBlock[node] = NONE;
+    pointCount[node] = 0;
+    return node;
+  }
+
+  private void grow() {
+    var nodes = 2 * firstChild.length;
+    centreX = Arrays.copyOf(centreX, nodes);
+    centreY = Arrays.copyOf(centreY, nodes);
+    halfWidth = Arrays.copyOf(halfWidth, nodes);
+    halfHeight = Arrays.copyOf(halfHeight, nodes);
+    depth = Arrays.copyOf(depth, nodes);
+    firstChild = Arrays.copyOf(firstChild, nodes);
+    nextBlock = Arrays.copyOf(nextBlock, nodes);
+    pointCount = Arrays.copyOf(pointCount, nodes);
+    ids = Arrays.copyOf(ids, nodes * capacity);
+    xs = Arrays.copyOf(xs, nodes * capacity);
+    ys = Arrays.copyOf(ys, nodes * capacity);
+  }
+}
@@ -25,16 +25,24 @@
 package com.iluwatar.spatialpartition;
 
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
 
 /**
  * The quadtree data structure is being used to keep track of the objects' locations. It has the
  * insert(Point) and query(range) methods to insert a new object and find the objects within a
  * certain (rectangular) range respectively.
+ *
+ * <p>The tree knows nothing about points which move, so removing or updating a point has to look
+ * for it in every node. It suits a tree which is built anew for each frame; {@link LooseQuadTree}
+ * is the one to use for points which are tracked as they move.
  */
 
-public class QuadTree {
+public class QuadTree implements SpatialIndex<Point> {
   Rect boundary;
   int capacity;
   boolean divided;
@@ -55,7 +63,8 @@ public class QuadTree {
     this.southeast = null;
   }
 
-  void insert(Point p) {
+  @Override
+  public void insert(Point p) {
     if (this.boundary.contains(p)) {
       if (this.points.size() < this.capacity) {
         points.put(p.id, p);
@@ -93,20 +102,92 @@ public class QuadTree {
   }
 
   Collection<Point> query(Rect r, Collection<Point> relevantPoints) {
-    //could also be a circle instead of a rectangle
-    if (this.boundary.intersects(r)) {
-      this.points
-          .values()
-          .stream()
-          .filter(r::contains)
-          .forEach(relevantPoints::add);
+    query(r, relevantPoints::add);
+    return relevantPoints;
+  }
+
+  @Override
+  public void query(Rect r, Consumer<? super Point> action) {
+    //could also be a circle instead of a rectangle, see queryRadius
+    if (this.boundary.overlaps(r)) {
+      for (var p : this.points.values()) {
+        if (r.contains(p)) {
+          action.accept(p);
+        }
+      }
       if (this.divided) {
-        this.northwest.query(r, relevantPoints);
-        this.northeast.query(r, relevantPoints);
-        this.southwest.query(r, relevantPoints);
-        this.southeast.query(r, relevantPoints);
+        this.northwest.query(r, action);
+        this.northeast.query(r, action);
+        this.southwest.query(r, action);
+        this.southeast.query(r, action);
       }
     }
-    return relevantPoints;
+  }
+
+  @Override
+  public void queryRadius(double x, double y, double radius, Consumer<? super Point> action) {
+    var range = new Rect(x, y, 2 * radius, 2 * radius);
+    query(range, p -> {
+      var dx = p.coordinateX - x;
+      var dy = p.coordinateY - y;
+      if (dx * dx + dy * dy <= radius * radius) {
+        action.accept(p);
+      }
+    });
+  }
+
+  @Override
+  public List<Point> nearest(double x, double y, int k) {
+    var result = new NearestNeighbours<>(x, y, k);
+    var queue = new PriorityQueue<QuadTree>(
+        Comparator.comparingDouble(q -> q.boundary.distanceSquared(x, y)));
+    queue.add(this);
+    while (!queue.isEmpty()) {
+      var next = queue.poll();
+      if (next.boundary.distanceSquared(x, y) > result.worstDistanceSquared()) {
+        break;
+      }
+      next.points.values().forEach(result::offer);
+      if (next.divided) {
+        queue.addAll(List.of(next.northwest, next.northeast, next.southwest, next.southeast));
+      }
+    }
+    return result.toList();
+  }
+
+  @Override
+  public boolean remove(Point p) {
+    var removed = this.points.remove(p.id) != null;
+    if (!removed && this.divided) {
+      removed = this.northwest.remove(p) || this.northeast.remove(p)
+          || this.southwest.remove(p) || this.southeast.remove(p);
+    }
+    return removed;
+  }
+
+  @Override
+  public void update(Point p) {
+    remove(p);
+    insert(p);
+  }
+
+  @Override
+  public void clear() {
+    this.points.clear();
+    this.divided = false;
+    this.northwest = null;
+    this.northeast = null;
+    this.southwest = null;
+    this.southeast = null;
+  }
+
+  @Override
+  public int size() {
+    var size = this.points.size();
+    if (this.divided) {
+      size += this.northwest.size() + this.northeast.size()
+          + this.southwest.size() + this.southeast.size();
+    }
+    return size;
   }
 }
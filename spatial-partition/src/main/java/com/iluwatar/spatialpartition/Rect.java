@@ -51,11 +51,34 @@ public class Rect {
         && p.coordinateY <= this.coordinateY + this.height / 2;
   }
 
+  boolean contains(double x, double y) {
+    return x >= this.coordinateX - this.width / 2
+        && x <= this.coordinateX + this.width / 2
+        && y >= this.coordinateY - this.height / 2
+        && y <= this.coordinateY + this.height / 2;
+  }
+
+  //squared distance from (x,y) to the nearest point of the rectangle, 0 if it lies inside
+
+  double distanceSquared(double x, double y) {
+    var dx = Math.max(Math.abs(x - this.coordinateX) - this.width / 2, 0);
+    var dy = Math.max(Math.abs(y - this.coordinateY) - this.height / 2, 0);
+    return dx * dx + dy * dy;
+  }
+
   boolean intersects(Rect other) {
     return !(this.coordinateX + this.width / 2 <= other.coordinateX - other.width / 2
         || this.coordinateX - this.width / 2 >= other.coordinateX + other.width / 2
         || this.coordinateY + this.height / 2 <= other.coordinateY - other.height / 2
         || this.coordinateY - this.height / 2 >= other.coordinateY + other.height / 2);
   }
-}
 
+  //unlike intersects, rectangles which only share an edge overlap, as points on it are in both
+
+  boolean overlaps(Rect other) {
+    return this.coordinateX - this.width / 2 <= other.coordinateX + other.width / 2
+        && this.coordinateX + this.width / 2 >= other.coordinateX - other.width / 2
+        && this.coordinateY - this.height / 2 <= other.coordinateY + other.height / 2
+        && this.coordinateY + this.height / 2 >= other.coordinateY - other.height / 2;
+  }
+}
@@ -0,0 +1,389 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.spatialpartition;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * An R-tree groups nearby points into nodes of at most nodeCapacity entries, each with the
+ * bounding box of its entries, and nodes into parents the same way. Unlike a quadtree, the boxes
+ * follow the points rather than a fixed subdivision of the field, so clustered points do not make
+ * the tree deep.
+ *
+ * <p>{@link #build(Collection)} bulk loads the tree with Sort-Tile-Recursive packing: the points
+ * are sorted by x into vertical slices, each slice is sorted by y and cut into full leaves, and the
+ * leaves are packed into parents the same way until one node is left. That is much cheaper than
+ * inserting the points one by one and gives leaves which hardly overlap, so when most points move
+ * every frame the tree is better rebuilt than updated. {@link #insert(Point)} and {@link
+ * #update(Point)} are still supported for the odd point: insert goes down into the child whose box
+ * grows least and splits overflowing nodes in half along their longer side.
+ *
+ * @param <T> the type of the points
+ */
+
+public class Rtree<T extends Point> implements SpatialIndex<T> {
+
+  private static final int DEFAULT_NODE_CAPACITY = 16;
+
+  private final int nodeCapacity;
+  private final Map<Integer, Node> leafOf = new HashMap<>();
+  private Node root = new Node(true);
+
+  public Rtree() {
+    this(DEFAULT_NODE_CAPACITY);
+  }
+
+  /**
+   * Creates an empty tree.
+   *
+   * @param nodeCapacity the maximum number of entries of a node
+   */
+  public Rtree(int nodeCapacity) {
+    if (nodeCapacity < 2) {
+      throw new IllegalArgumentException("node capacity must be at least 2: " + nodeCapacity);
+    }
+    this.nodeCapacity = nodeCapacity;
+  }
+
+  @Override
+  public void build(Collection<? extends T> points) {
+    clear();
+    List<Node> level = new ArrayList<>();
+    for (var slice : tile(new ArrayList<T>(points), p -> p.coordinateX, p -> p.coordinateY)) {
+      var leaf = new Node(true);
+      for (var point : slice) {
+        leaf.points.add(point);
+        leafOf.put(point.id, leaf);
+      }
+      leaf.recalculate();
+      level.add(leaf);
+    }
+    while (level.size() > 1) {
+      List<Node> parents = new ArrayList<>();
+      for (var group : tile(level, Node::centreX, Node::centreY)) {
+        var parent = new Node(false);
+        group.forEach(parent::adopt);
+        parent.recalculate();
+        parents.add(parent);
+      }
+      level = parents;
+    }
+    if (!level.isEmpty()) {
+      root = level.get(0);
+    }
+  }
+
+  //Sort-Tile-Recursive: cuts the entries into runs of nodeCapacity which are close in x and y
+
+  private <E> List<List<E>> tile(List<E> entries, ToDoubleFunction<E> x, ToDoubleFunction<E> y) {
+    var nodes = (entries.size() + nodeCapacity - 1) / nodeCapacity;
+    var slices = (int) Math.ceil(Math.sqrt(nodes));
+    var sliceSize = slices == 0 ? 0 : (nodes + slices - 1) / slices * nodeCapacity;
+    entries.sort(Comparator.comparingDouble(x));
+    var runs = new ArrayList<List<E>>(nodes);
+    for (var start = 0; start < entries.size(); start += sliceSize) {
+      var slice = entries.subList(start, Math.min(start + sliceSize, entries.size()));
+      slice.sort(Comparator.comparingDouble(y));
+      for (var from = 0; from < slice.size(); from += nodeCapacity) {
+        runs.add(slice.subList(from, Math.min(from + nodeCapacity, slice.size())));
+      }
+    }
+    return runs;
+  }
+
+  @Override
+  public void insert(T point) {
+    if (leafOf.containsKey(point.id)) {
+      remove(point);
+    }
+    var node = root;
+    while (!node.leaf) {
+      node = node.bestChildFor(point.coordinateX, point.coordinateY);
+    }
+    node.points.add(point);
+    leafOf.put(point.id, node);
+    for (var n = node; n != null; n = n.parent) {
+      n.include(point.coordinateX, point.coordinateY);
+    }
+    if (node.size() > nodeCapacity) {
+      split(node);
+    }
+  }
+
+  private void split(Node node) {
+    var sibling = new Node(node.leaf);
+    if (node.leaf) {
+      var points = new ArrayList<>(node.points);
+      node.points.clear();
+      sortAlongLongerSide(points, node, p -> p.coordinateX, p -> p.coordinateY);
+      for (var i = 0; i < points.size(); i++) {
+        var target = i < points.size() / 2 ? node : sibling;
+        target.points.add(points.get(i));
+        leafOf.put(points.get(i).id, target);
+      }
+    } else {
+      var children = new ArrayList<>(node.children);
+      node.children.clear();
+      sortAlongLongerSide(children, node, Node::centreX, Node::centreY);
+      for (var i = 0; i < children.size(); i++) {
+        (i < children.size() / 2 ? node : sibling).adopt(children.get(i));
+      }
+    }
+    node.recalculate();
+    sibling.recalculate();
+    if (node.parent == null) {
+      root = new Node(false);
+      root.adopt(node);
+      root.adopt(sibling);
+      root.recalculate();
+    } else {
+      var parent = node.parent;
+      parent.adopt(sibling);
+      if (parent.size() > nodeCapacity) {
+        split(parent);
+      }
+    }
+  }
+
+  private <E> void sortAlongLongerSide(
+      List<E> entries, Node node, ToDoubleFunction<E> x, ToDoubleFunction<E> y) {
+    var alongX = node.maxX - node.minX >= node.maxY - node.minY;
+    entries.sort(Comparator.comparingDouble(alongX ? x : y));
+  }
+
+  @Override
+  public boolean remove(T point) {
+    var leaf = leafOf.remove(point.id);
+    if (leaf == null) {
+      return false;
+    }
+    leaf.points.removeIf(p -> p.id == point.id);
+    var node = leaf;
+    //empty nodes are dropped, the others shrink to their remaining entries
+    while (node.parent != null && node.size() == 0) {
+      node.parent.children.remove(node);
+      node = node.parent;
+    }
+    for (var n = node; n != null; n = n.parent) {
+      n.recalculate();
+    }
+    if (!root.leaf && root.children.size() == 1) {
+      root = root.children.get(0);
+      root.parent = null;
+    } else if (root.size() == 0) {
+      root = new Node(true);
+    }
+    return true;
+  }
+
+  @Override
+  public void update(T point) {
+    var leaf = leafOf.get(point.id);
+    if (leaf != null && leaf.contains(point.coordinateX, point.coordinateY)) {
+      return;
+    }
+    insert(point);
+  }
+
+  @Override
+  public void clear() {
+    leafOf.clear();
+    root = new Node(true);
+  }
+
+  @Override
+  public int size() {
+    return leafOf.size();
+  }
+
+  @Override
+  public void query(Rect range, Consumer<? super T> action) {
+    var minX = range.coordinateX - range.width / 2;
+    var maxX = range.coordinateX + range.width / 2;
+    var minY = range.coordinateY - range.height / 2;
+    var maxY = range.coordinateY + range.height / 2;
+    query(root, minX, minY, maxX, maxY, range, action);
+  }
+
+  private void query(Node node, double minX, double minY, double maxX, double maxY, Rect range,
+      Consumer<? super T> action) {
+    if (node.minX > maxX || node.maxX < minX || node.minY > maxY || node.maxY < minY) {
+      return;
+    }
+    if (node.leaf) {
+      for (var point : node.points) {
+        if (range.contains(point)) {
+          action.accept(point);
+        }
+      }
+    } else {
+      for (var child : node.children) {
+        query(child, minX, minY, maxX, maxY, range, action);
+      }
+    }
+  }
+
+  @Override
+  public void queryRadius(double x, double y, double radius, Consumer<? super T> action) {
+    queryRadius(root, x, y, radius * radius, action);
+  }
+
+  private void queryRadius(Node node, double x, double y, double radiusSquared,
+      Consumer<? super T> action) {
+    if (node.distanceSquared(x, y) > radiusSquared) {
+      return;
+    }
+    if (node.leaf) {
+      for (var point : node.points) {
+        var dx = point.coordinateX - x;
+        var dy = point.coordinateY - y;
+        if (dx * dx + dy * dy <= radiusSquared) {
+          action.accept(point);
+        }
+      }
+    } else {
+      for (var child : node.children) {
+        queryRadius(child, x, y, radiusSquared, action);
+      }
+    }
+  }
+
+  @Override
+  public List<T> nearest(double x, double y, int k) {
+    var result = new NearestNeighbours<T>(x, y, k);
+    var queue = new PriorityQueue<Node>(Comparator.comparingDouble(n -> n.distanceSquared(x, y)));
+    queue.add(root);
+    while (!queue.isEmpty()) {
+      var node = queue.poll();
+      if (node.distanceSquared(x, y) > result.worstDistanceSquared()) {
+        break;
+      }
+      if (node.leaf) {
+        node.points.forEach(result::offer);
+      } else {
+        queue.addAll(node.children);
+      }
+    }
+    return result.toList();
+  }
+
+  private class Node {
+    private final boolean leaf;
+    private final List<T> points;
+    private final List<Node> children;
+    private Node parent;
+    private double minX = Double.POSITIVE_INFINITY;
+    private double minY = Double.POSITIVE_INFINITY;
+    private double maxX = Double.NEGATIVE_INFINITY;
+    private double maxY = Double.NEGATIVE_INFINITY;
+
+    Node(boolean leaf) {
+      this.leaf = leaf;
+      this.points = leaf ? new ArrayList<>(nodeCapacity + 1) : null;
+      this.children = leaf ? null : new ArrayList<>(nodeCapacity + 1);
+    }
+
+    int size() {
+      return leaf ? points.size() : children.size();
+    }
+
+    double centreX() {
+      return (minX + maxX) / 2;
+    }
+
+    double centreY() {
+      return (minY + maxY) / 2;
+    }
+
+    void adopt(Node child) {
+      children.add(child);
+      child.parent = this;
+    }
+
+    boolean contains(double x, double y) {
+      return x >= minX && x <= maxX && y >= minY && y <= maxY;
+    }
+
+    double distanceSquared(double x, double y) {
+      var dx = Math.max(Math.max(minX - x, x - maxX), 0);
+      var dy = Math.max(Math.max(minY - y, y - maxY), 0);
+      return dx * dx + dy * dy;
+    }
+
+    void include(double x, double y) {
+      minX = Math.min(minX, x);
+      minY = Math.min(minY, y);
+      maxX = Math.max(maxX, x);
+      maxY = Math.max(maxY, y);
+    }
+
+    void recalculate() {
+      minX = Double.POSITIVE_INFINITY;
+      minY = Double.POSITIVE_INFINITY;
+      maxX = Double.NEGATIVE_INFINITY;
+      maxY = Double.NEGATIVE_INFINITY;
+      if (leaf) {
+        points.forEach(p -> include(p.coordinateX, p.coordinateY));
+      } else {
+        for (var child : children) {
+          include(child.minX, child.minY);
+          include(child.maxX, child.maxY);
+        }
+      }
+    }
+
+    //the child whose box grows least to take the point, the smaller one of equals
+
+    Node bestChildFor(double x, double y) {
+      Node best = null;
+      var bestGrowth = Double.POSITIVE_INFINITY;
+      var bestArea = Double.POSITIVE_INFINITY;
+      for (var child : children) {
+        var area = child.area();
+        var grown = (Math.max(child.maxX, x) - Math.min(child.minX, x))
+            * (Math.max(child.maxY, y) - Math.min(child.minY, y));
+        var growth = grown - area;
+        if (growth < bestGrowth || growth == bestGrowth && area < bestArea) {
+          best = child;
+          bestGrowth = growth;
+          bestArea = area;
+        }
+      }
+      return best;
+    }
+
+    double area() {
+      return (maxX - minX) * (maxY - minY);
+    }
+  }
+}
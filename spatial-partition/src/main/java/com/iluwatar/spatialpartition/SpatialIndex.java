@@ -0,0 +1,119 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.spatialpartition;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The common interface of the spatial indexes which keep track of the locations of {@link Point}s.
+ * Besides finding the points within a rectangular range, which is all the {@link QuadTree} can do,
+ * an index finds the points within a radius and the k nearest neighbours of a location.
+ *
+ * <p>Points move, so an index is told about a new location with {@link #update(Point)} instead of
+ * being rebuilt every frame. Indexes which are cheaper to rebuild than to update, like the {@link
+ * Rtree}, bulk load all points with {@link #build(Collection)}.
+ *
+ * @param <T> the type of the points
+ * @see LooseQuadTree
+ * @see Rtree
+ * @see UniformGrid
+ */
+
+public interface SpatialIndex<T extends Point> {
+
+  /**
+   * adds a point at its current location.
+   *
+   * @param point the point to add
+   */
+  void insert(T point);
+
+  /**
+   * removes a point, wherever it has moved since it was added or last updated.
+   *
+   * @param point the point to remove
+   * @return whether the point was in the index
+   */
+  boolean remove(T point);
+
+  /**
+   * moves a point to its current location after its coordinates have changed.
+   *
+   * @param point the point which has moved
+   */
+  void update(T point);
+
+  /**
+   * removes all points.
+   */
+  void clear();
+
+  /**
+   * number of points in the index.
+   *
+   * @return the number of points
+   */
+  int size();
+
+  /**
+   * replaces the content of the index with the given points.
+   *
+   * @param points the points to index
+   */
+  default void build(Collection<? extends T> points) {
+    clear();
+    points.forEach(this::insert);
+  }
+
+  /**
+   * finds the points within a rectangular range, including its border.
+   *
+   * @param range  the range to search
+   * @param action called for each point found
+   */
+  void query(Rect range, Consumer<? super T> action);
+
+  /**
+   * finds the points within a radius of a location, including the ones at exactly that distance.
+   *
+   * @param x      x coordinate of the centre
+   * @param y      y coordinate of the centre
+   * @param radius the radius to search
+   * @param action called for each point found
+   */
+  void queryRadius(double x, double y, double radius, Consumer<? super T> action);
+
+  /**
+   * finds the k points nearest to a location. Points at the same distance are ordered by id.
+   *
+   * @param x x coordinate of the location
+   * @param y y coordinate of the location
+   * @param k the number of points to find
+   * @return at most k points, nearest first
+   */
+  List<T> nearest(double x, double y, int k);
+}
@@ -25,30 +25,109 @@
 package com.iluwatar.spatialpartition;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * This class extends the generic SpatialPartition abstract class and is used in our example to keep
- * track of all the bubbles that collide, pop and stay un-popped.
+ * track of all the bubbles that collide, pop and stay un-popped. The bubbles which pop are removed
+ * from the spatial index as well, so that it only keeps track of the ones still on the field.
+ *
+ * <p>All the collisions of a frame are handled at once by {@link #handleCollisions()}, or by
+ * {@link #handleCollisions(ForkJoinPool)} which finds the touching bubbles in parallel. Both handle
+ * the bubbles in the order of their ids, so they pop the same bubbles.
  */
 
 public class SpatialPartitionBubbles extends SpatialPartitionGeneric<Bubble> {
 
+  //the number of bubbles in a region below which the broad phase stops dividing the field
+  private static final int REGION_SIZE = 256;
+
   private final Map<Integer, Bubble> bubbles;
-  private final QuadTree bubblesQuadTree;
+  private final SpatialIndex<? super Bubble> bubblesIndex;
+  private final List<Point> queryResult = new ArrayList<>();
+  private final Rect queryRange = new Rect(0, 0, 0, 0);
+  private ParallelBroadPhase broadPhase;
 
-  SpatialPartitionBubbles(Map<Integer, Bubble> bubbles, QuadTree bubblesQuadTree) {
+  SpatialPartitionBubbles(Map<Integer, Bubble> bubbles, SpatialIndex<? super Bubble> bubblesIndex) {
     this.bubbles = bubbles;
-    this.bubblesQuadTree = bubblesQuadTree;
+    this.bubblesIndex = bubblesIndex;
   }
 
   void handleCollisionsUsingQt(Bubble b) {
     // finding points within area of a square drawn with centre same as
     // centre of bubble and length = radius of bubble
-    var rect = new Rect(b.coordinateX, b.coordinateY, 2D * b.radius, 2D * b.radius);
-    var quadTreeQueryResult = new ArrayList<Point>();
-    this.bubblesQuadTree.query(rect, quadTreeQueryResult);
+    queryRange.coordinateX = b.coordinateX;
+    queryRange.coordinateY = b.coordinateY;
+    queryRange.width = 2D * b.radius;
+    queryRange.height = 2D * b.radius;
+    queryResult.clear();
+    this.bubblesIndex.query(queryRange, queryResult::add);
     //handling these collisions
-    b.handleCollision(quadTreeQueryResult, this.bubbles);
+    b.handleCollision(queryResult, this.bubbles);
+    for (var point : queryResult) {
+      if (point instanceof Bubble popped && !this.bubbles.containsKey(popped.id)) {
+        this.bubblesIndex.remove(popped);
+      }
+    }
+    if (!this.bubbles.containsKey(b.id)) {
+      this.bubblesIndex.remove(b);
+    }
+  }
+
+  /**
+   * handles the collisions of all bubbles, one after the other in the order of their ids. A bubble
+   * which has popped does not pop others.
+   */
+  void handleCollisions() {
+    for (var id : new TreeSet<>(this.bubbles.keySet())) {
+      var b = this.bubbles.get(id);
+      if (b != null) {
+        handleCollisionsUsingQt(b);
+      }
+    }
+  }
+
+  /**
+   * handles the collisions of all bubbles like {@link #handleCollisions()}, but finds the bubbles
+   * which touch in parallel first. Only popping them is left to the calling thread.
+   *
+   * @param pool the pool to find the touching bubbles in
+   */
+  void handleCollisions(ForkJoinPool pool) {
+    if (broadPhase == null || broadPhase.getPool() != pool) {
+      broadPhase = new ParallelBroadPhase(this.bubblesIndex, pool, REGION_SIZE);
+    }
+    var pairs = broadPhase.findPairs(this.bubbles.values());
+    var start = 0;
+    while (start < pairs.length) {
+      var id = ParallelBroadPhase.bubble(pairs[start]);
+      var end = start + 1;
+      while (end < pairs.length && ParallelBroadPhase.bubble(pairs[end]) == id) {
+        end++;
+      }
+      var b = this.bubbles.get(id);
+      if (b != null) {
+        var toBePopped = false;
+        for (var i = start; i < end; i++) {
+          var other = this.bubbles.get(ParallelBroadPhase.other(pairs[i]));
+          if (other != null) {
+            pop(other);
+            toBePopped = true;
+          }
+        }
+        if (toBePopped) {
+          pop(b);
+        }
+      }
+      start = end;
+    }
+  }
+
+  private void pop(Bubble b) {
+    b.pop(this.bubbles);
+    this.bubblesIndex.remove(b);
   }
 }
@@ -0,0 +1,210 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.spatialpartition;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * The simplest spatial index: the field is cut into square cells of a fixed size and each cell has
+ * a list of the points in it. Finding the cell of a point is arithmetic, so inserting, removing and
+ * updating points take constant time, and a query only looks into the cells its range covers. It
+ * works best when the points are spread evenly and the cell size is close to the query size, as it
+ * does not adapt to clusters like the trees do. Points outside the field are kept in the cells on
+ * its edge.
+ *
+ * @param <T> the type of the points
+ */
+
+public class UniformGrid<T extends Point> implements SpatialIndex<T> {
+
+  private final double minX;
+  private final double minY;
+  private final double cellSize;
+  private final int columns;
+  private final int rows;
+  private final List<T>[] cells;
+  private final Map<Integer, Integer> cellOf = new HashMap<>();
+
+  /**
+   * Creates an empty grid.
+   *
+   * @param field    the field the points move in
+   * @param cellSize the width and height of a cell
+   */
+  @SuppressWarnings("unchecked")
+  public UniformGrid(Rect field, double cellSize) {
+    if (!(cellSize > 0)) {
+      throw new IllegalArgumentException("cell size must be positive: " + cellSize);
+    }
+    this.minX = field.coordinateX - field.width / 2;
+    this.minY = field.coordinateY - field.height / 2;
+    this.cellSize = cellSize;
+    this.columns = Math.max(1, (int) Math.ceil(field.width / cellSize));
+    this.rows = Math.max(1, (int) Math.ceil(field.height / cellSize));
+    this.cells = new List[columns * rows];
+    for (var i = 0; i < cells.length; i++) {
+      cells[i] = new ArrayList<>();
+    }
+  }
+
+  private int column(double x) {
+    return (int) Math.min(Math.max(Math.floor((x - minX) / cellSize), 0), columns - 1);
+  }
+
+  private int row(double y) {
+    return (int) Math.min(Math.max(Math.floor((y - minY) / cellSize), 0), rows - 1);
+  }
+
+  private int cellIndex(Point point) {
+    return row(point.coordinateY) * columns + column(point.coordinateX);
+  }
+
+  @Override
+  public void insert(T point) {
+    if (cellOf.containsKey(point.id)) {
+      remove(point);
+    }
+    var cell = cellIndex(point);
+    cells[cell].add(point);
+    cellOf.put(point.id, cell);
+  }
+
+  @Override
+  public boolean remove(T point) {
+    var cell = cellOf.remove(point.id);
+    if (cell == null) {
+      return false;
+    }
+    cells[cell].removeIf(p -> p.id == point.id);
+    return true;
+  }
+
+  @Override
+  public void update(T point) {
+    var cell = cellOf.get(point.id);
+    if (cell == null || cell != cellIndex(point)) {
+      insert(point);
+    }
+  }
+
+  @Override
+  public void clear() {
+    cellOf.clear();
+    for (var cell : cells) {
+      cell.clear();
+    }
+  }
+
+  @Override
+  public int size() {
+    return cellOf.size();
+  }
+
+  @Override
+  public void query(Rect range, Consumer<? super T> action) {
+    var fromColumn = column(range.coordinateX - range.width / 2);
+    var toColumn = column(range.coordinateX + range.width / 2);
+    var fromRow = row(range.coordinateY - range.height / 2);
+    var toRow = row(range.coordinateY + range.height / 2);
+    for (var r = fromRow; r <= toRow; r++) {
+      for (var c = fromColumn; c <= toColumn; c++) {
+        for (var point : cells[r * columns + c]) {
+          if (range.contains(point)) {
+            action.accept(point);
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public void queryRadius(double x, double y, double radius, Consumer<? super T> action) {
+    var radiusSquared = radius * radius;
+    for (var r = row(y - radius); r <= row(y + radius); r++) {
+      for (var c = column(x - radius); c <= column(x + radius); c++) {
+        for (var point : cells[r * columns + c]) {
+          var dx = point.coordinateX - x;
+          var dy = point.coordinateY - y;
+          if (dx * dx + dy * dy <= radiusSquared) {
+            action.accept(point);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The cells are searched in rings around the cell of the location, until the k points found
+   * are nearer than anything outside the rings searched so far could be.
+   */
+  @Override
+  public List<T> nearest(double x, double y, int k) {
+    var result = new NearestNeighbours<T>(x, y, k);
+    var column = column(x);
+    var row = row(y);
+    for (var ring = 0; ring <= Math.max(columns, rows); ring++) {
+      for (var r = Math.max(row - ring, 0); r <= Math.min(row + ring, rows - 1); r++) {
+        var edgeRow = r == row - ring || r == row + ring;
+        var step = edgeRow ? 1 : 2 * ring;
+        for (var c = column - ring; c <= column + ring; c += Math.max(step, 1)) {
+          if (c >= 0 && c < columns) {
+            cells[r * columns + c].forEach(result::offer);
+          }
+        }
+      }
+      if (outsideRingsDistanceSquared(x, y, column, row, ring) > result.worstDistanceSquared()) {
+        break;
+      }
+    }
+    return result.toList();
+  }
+
+  //lower bound on the distance to any point in a cell outside the rings searched so far; edge
+  //cells hold the points beyond the field as well, so once the rings reach an edge of the field
+  //nothing lies beyond them on that side
+
+  private double outsideRingsDistanceSquared(double x, double y, int column, int row, int ring) {
+    var bound = Double.POSITIVE_INFINITY;
+    if (column - ring > 0) {
+      bound = Math.min(bound, x - (minX + (column - ring) * cellSize));
+    }
+    if (column + ring < columns - 1) {
+      bound = Math.min(bound, minX + (column + ring + 1) * cellSize - x);
+    }
+    if (row - ring > 0) {
+      bound = Math.min(bound, y - (minY + (row - ring) * cellSize));
+    }
+    if (row + ring < rows - 1) {
+      bound = Math.min(bound, minY + (row + ring + 1) * cellSize - y);
+    }
+    return bound * bound;
+  }
+}
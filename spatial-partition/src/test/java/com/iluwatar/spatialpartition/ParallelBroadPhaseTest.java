@@ -0,0 +1,106 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.spatialpartition;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testing ParallelBroadPhase class.
+ */
+
+class ParallelBroadPhaseTest {
+
+  private final ForkJoinPool pool = new ForkJoinPool(4);
+
+  @AfterEach
+  void tearDown() {
+    pool.shutdown();
+  }
+
+  @Test
+  void findsTheSamePairsAsBruteForce() {
+    var random = new Random(7);
+    var bubbles = new ArrayList<Bubble>();
+    for (var i = 0; i < 3000; i++) {
+      bubbles.add(new Bubble(random.nextInt(500), random.nextInt(500), i, random.nextInt(3) + 1));
+    }
+    var index = new UniformGrid<Bubble>(new Rect(250, 250, 500, 500), 10);
+    index.build(bubbles);
+    var broadPhase = new ParallelBroadPhase(index, pool, 64);
+    var expected = bruteForce(bubbles);
+    assertArrayEquals(expected, broadPhase.findPairs(bubbles));
+    //the buffers of the workers are reused by the next pass
+    assertArrayEquals(expected, broadPhase.findPairs(bubbles));
+  }
+
+  @Test
+  void bubblesAtOnePlaceDoNotDivideForever() {
+    var bubbles = new ArrayList<Bubble>();
+    for (var i = 0; i < 100; i++) {
+      bubbles.add(new Bubble(5, 5, i, 1));
+    }
+    var index = new LooseQuadTree<Bubble>(new Rect(5, 5, 10, 10), 4);
+    index.build(bubbles);
+    assertEquals(100 * 99, new ParallelBroadPhase(index, pool, 1).findPairs(bubbles).length);
+    assertEquals(0, new ParallelBroadPhase(index, pool, 1).findPairs(List.of()).length);
+  }
+
+  @Test
+  void pairsSortLikeTheIds() {
+    var pairs = new long[] {
+        ParallelBroadPhase.pair(3, -1), ParallelBroadPhase.pair(-2, 7),
+        ParallelBroadPhase.pair(3, 2), ParallelBroadPhase.pair(-2, -5)
+    };
+    Arrays.sort(pairs);
+    assertEquals(-2, ParallelBroadPhase.bubble(pairs[0]));
+    assertEquals(-5, ParallelBroadPhase.other(pairs[0]));
+    assertEquals(7, ParallelBroadPhase.other(pairs[1]));
+    assertEquals(3, ParallelBroadPhase.bubble(pairs[2]));
+    assertEquals(-1, ParallelBroadPhase.other(pairs[2]));
+    assertEquals(2, ParallelBroadPhase.other(pairs[3]));
+  }
+
+  private static long[] bruteForce(List<Bubble> bubbles) {
+    var pairs = new ArrayList<Long>();
+    for (var b : bubbles) {
+      var range = new Rect(b.coordinateX, b.coordinateY, 2D * b.radius, 2D * b.radius);
+      for (var other : bubbles) {
+        if (other.id != b.id && range.contains(other) && b.touches(other)) {
+          pairs.add(ParallelBroadPhase.pair(b.id, other.id));
+        }
+      }
+    }
+    return pairs.stream().mapToLong(Long::longValue).sorted().toArray();
+  }
+}
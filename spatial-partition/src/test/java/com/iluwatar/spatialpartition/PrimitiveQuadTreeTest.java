@@ -0,0 +1,109 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.spatialpartition;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testing PrimitiveQuadTree class.
+ */
+
+class PrimitiveQuadTreeTest {
+
+  private static final Rect FIELD = new Rect(150, 150, 300, 300);
+
+  @Test
+  void queriesFindTheSamePointsAsQuadTree() {
+    var random = new Random(11);
+    var quadTree = new QuadTree(FIELD, 4);
+    var primitive = new PrimitiveQuadTree(FIELD, 4);
+    //filled twice, to check that clearing the tree leaves nothing behind
+    for (var round = 0; round < 2; round++) {
+      quadTree.clear();
+      primitive.clear();
+      for (var i = 0; i < 1000; i++) {
+        var bubble = new Bubble(random.nextInt(301), random.nextInt(301), i, 1);
+        quadTree.insert(bubble);
+        primitive.insert(bubble);
+      }
+      assertEquals(quadTree.size(), primitive.size());
+      for (var q = 0; q < 100; q++) {
+        var x = random.nextInt(300);
+        var y = random.nextInt(300);
+        var range = new Rect(x, y, random.nextInt(60), random.nextInt(60));
+        var expected = new TreeSet<Integer>();
+        quadTree.query(range, p -> expected.add(p.id));
+        var found = new TreeSet<Integer>();
+        primitive.query(range, (id, px, py) -> assertTrue(found.add(id)));
+        assertEquals(expected, found);
+
+        var radius = random.nextInt(30);
+        expected.clear();
+        quadTree.queryRadius(x, y, radius, p -> expected.add(p.id));
+        found.clear();
+        primitive.queryRadius(x, y, radius, (id, px, py) -> assertTrue(found.add(id)));
+        assertEquals(expected, found);
+      }
+    }
+  }
+
+  @Test
+  void visitorGetsTheCoordinates() {
+    var tree = new PrimitiveQuadTree(FIELD, 2);
+    tree.insert(7, 10, 20);
+    tree.insert(8, 200, 250);
+    var visited = new ArrayList<String>();
+    tree.query(new Rect(10, 20, 2, 2), (id, x, y) -> visited.add(id + "@" + x + "," + y));
+    assertEquals(List.of("7@10,20"), visited);
+  }
+
+  @Test
+  void pointsOutsideTheBoundaryAreNotAdded() {
+    var tree = new PrimitiveQuadTree(FIELD, 4);
+    assertFalse(tree.insert(1, -1, 10));
+    assertFalse(tree.insert(2, 10, 301));
+    assertTrue(tree.insert(3, 300, 0));
+    assertEquals(1, tree.size());
+  }
+
+  @Test
+  void anyNumberOfPointsCanShareALocation() {
+    var tree = new PrimitiveQuadTree(FIELD, 2, 4);
+    for (var i = 0; i < 100; i++) {
+      assertTrue(tree.insert(i, 42, 42));
+    }
+    var found = new TreeSet<Integer>();
+    tree.query(new Rect(42, 42, 0, 0), (id, x, y) -> found.add(id));
+    assertEquals(100, found.size());
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.spatialpartition;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark of the object based {@link QuadTree} against the array based {@link
+ * PrimitiveQuadTree}: building a tree of all bubbles, the way {@link App} used to every frame, and
+ * range queries around random locations.
+ *
+ * <p>Run {@link #main(String[])} from the test classpath to execute it with the GC profiler, which
+ * reports the bytes allocated per operation as gc.alloc.rate.norm next to the time per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuadTreeStorageBenchmark {
+  private static final int FIELD_SIZE = 1000;
+  private static final int CAPACITY = 8;
+  private static final int QUERY_SIZE = 20;
+  private static final int QUERIES = 1024;
+
+  @Param({"1000", "100000"})
+  public int bubbleCount;
+
+  private final Rect field = new Rect(FIELD_SIZE / 2D, FIELD_SIZE / 2D, FIELD_SIZE, FIELD_SIZE);
+  private final Rect range = new Rect(0, 0, QUERY_SIZE, QUERY_SIZE);
+  private final int[] queryX = new int[QUERIES];
+  private final int[] queryY = new int[QUERIES];
+  private Bubble[] bubbles;
+  private QuadTree quadTree;
+  private PrimitiveQuadTree primitiveQuadTree;
+  private Consumer<Point> consumePoint;
+  private PrimitiveQuadTree.PointVisitor consumeId;
+  private int nextQuery;
+
+  /**
+   * Scatters the bubbles over the field and builds both trees.
+   *
+   * @param blackhole sinks the points found by the queries, created once so that the callbacks do
+   *                  not count as allocation of the queries
+   */
+  @Setup
+  public void setUp(Blackhole blackhole) {
+    consumePoint = blackhole::consume;
+    consumeId = (id, x, y) -> blackhole.consume(id);
+    var random = new Random(42);
+    bubbles = new Bubble[bubbleCount];
+    for (var i = 0; i < bubbleCount; i++) {
+      bubbles[i] = new Bubble(random.nextInt(FIELD_SIZE), random.nextInt(FIELD_SIZE), i, 1);
+    }
+    for (var i = 0; i < QUERIES; i++) {
+      queryX[i] = random.nextInt(FIELD_SIZE);
+      queryY[i] = random.nextInt(FIELD_SIZE);
+    }
+    quadTree = buildQuadTree();
+    primitiveQuadTree = new PrimitiveQuadTree(field, CAPACITY);
+    buildPrimitiveQuadTree();
+  }
+
+  @Benchmark
+  public QuadTree buildQuadTree() {
+    var tree = new QuadTree(field, CAPACITY);
+    for (var bubble : bubbles) {
+      tree.insert(bubble);
+    }
+    return tree;
+  }
+
+  @Benchmark
+  public PrimitiveQuadTree buildPrimitiveQuadTree() {
+    primitiveQuadTree.clear();
+    for (var bubble : bubbles) {
+      primitiveQuadTree.insert(bubble);
+    }
+    return primitiveQuadTree;
+  }
+
+  @Benchmark
+  public void queryQuadTree() {
+    moveRange();
+    quadTree.query(range, consumePoint);
+  }
+
+  @Benchmark
+  public void queryPrimitiveQuadTree() {
+    moveRange();
+    primitiveQuadTree.query(range, consumeId);
+  }
+
+  private void moveRange() {
+    var i = nextQuery++ & (QUERIES - 1);
+    range.coordinateX = queryX[i];
+    range.coordinateY = queryY[i];
+  }
+
+  /**
+   * Runs the benchmark with the GC profiler.
+   *
+   * @param args command line args
+   * @throws Exception if JMH fails
+   */
+  public static void main(String[] args) throws Exception {
+    var options = new OptionsBuilder()
+        .include(QuadTreeStorageBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.spatialpartition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark of the {@link SpatialIndex} implementations on a field of bubbles like the one of
+ * {@link App}. It measures building the index from scratch, a tick in which every bubble moves a
+ * little and the index is updated, and range, radius and k-nearest-neighbour queries around random
+ * locations. The legacy {@link QuadTree} has no cheap update, so its tick rebuilds it, as {@link
+ * App} used to.
+ *
+ * <p>Run {@link #main(String[])} from the test classpath to execute it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpatialIndexBenchmark {
+  private static final int FIELD_SIZE = 1000;
+  private static final int QUERY_SIZE = 20;
+  private static final int NEIGHBOURS = 8;
+  private static final int QUERIES = 1024;
+
+  @Param({"quadTree", "looseQuadTree", "rtree", "uniformGrid"})
+  public String indexType;
+
+  @Param({"1000", "10000", "100000"})
+  public int bubbleCount;
+
+  private final Random random = new Random(42);
+  private final List<Bubble> bubbles = new ArrayList<>();
+  private final int[] queryX = new int[QUERIES];
+  private final int[] queryY = new int[QUERIES];
+  private SpatialIndex<? super Bubble> index;
+  private int nextQuery;
+  private int direction = 1;
+
+  /**
+   * Scatters the bubbles over the field and indexes them.
+   */
+  @Setup
+  public void setUp() {
+    for (var i = 0; i < bubbleCount; i++) {
+      bubbles.add(new Bubble(random.nextInt(FIELD_SIZE), random.nextInt(FIELD_SIZE), i, 1));
+    }
+    for (var i = 0; i < QUERIES; i++) {
+      queryX[i] = random.nextInt(FIELD_SIZE);
+      queryY[i] = random.nextInt(FIELD_SIZE);
+    }
+    index = newIndex();
+    index.build(bubbles);
+  }
+
+  private SpatialIndex<? super Bubble> newIndex() {
+    var field = new Rect(FIELD_SIZE / 2D, FIELD_SIZE / 2D, FIELD_SIZE, FIELD_SIZE);
+    return switch (indexType) {
+      case "quadTree" -> new QuadTree(field, 4);
+      case "looseQuadTree" -> new LooseQuadTree<Bubble>(field, 8);
+      case "rtree" -> new Rtree<Bubble>();
+      case "uniformGrid" -> new UniformGrid<Bubble>(field, QUERY_SIZE);
+      default -> throw new IllegalArgumentException(indexType);
+    };
+  }
+
+  @Benchmark
+  public int build() {
+    var built = newIndex();
+    built.build(bubbles);
+    return built.size();
+  }
+
+  /**
+   * Moves every bubble one unit diagonally, back and forth between ticks so that the field does
+   * not drift, and brings the index up to date.
+   *
+   * @return the size of the index
+   */
+  @Benchmark
+  public int tick() {
+    direction = -direction;
+    for (var bubble : bubbles) {
+      bubble.coordinateX += direction;
+      bubble.coordinateY += direction;
+    }
+    if (index instanceof QuadTree) {
+      index.build(bubbles);
+    } else {
+      bubbles.forEach(index::update);
+    }
+    return index.size();
+  }
+
+  @Benchmark
+  public void range(Blackhole blackhole) {
+    var i = nextQuery++ & (QUERIES - 1);
+    index.query(new Rect(queryX[i], queryY[i], QUERY_SIZE, QUERY_SIZE), blackhole::consume);
+  }
+
+  @Benchmark
+  public void radius(Blackhole blackhole) {
+    var i = nextQuery++ & (QUERIES - 1);
+    index.queryRadius(queryX[i], queryY[i], QUERY_SIZE / 2D, blackhole::consume);
+  }
+
+  @Benchmark
+  public List<?> nearest() {
+    var i = nextQuery++ & (QUERIES - 1);
+    return index.nearest(queryX[i], queryY[i], NEIGHBOURS);
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args command line args
+   * @throws Exception if JMH fails
+   */
+  public static void main(String[] args) throws Exception {
+    var options = new OptionsBuilder()
+        .include(SpatialIndexBenchmark.class.getSimpleName())
+        .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.spatialpartition;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Testing the SpatialIndex implementations against a brute force search of all points.
+ */
+
+class SpatialIndexTest {
+
+  private static final Rect FIELD = new Rect(150, 150, 300, 300);
+
+  private final Random random = new Random(42);
+
+  static Stream<Arguments> indexes() {
+    return Stream.concat(Stream.of(Arguments.of("QuadTree",
+        (Supplier<SpatialIndex<? super Bubble>>) () -> new QuadTree(FIELD, 4))), trackingIndexes());
+  }
+
+  //the indexes which keep the points that wander off the field
+
+  static Stream<Arguments> trackingIndexes() {
+    return Stream.of(
+        Arguments.of("LooseQuadTree",
+            (Supplier<SpatialIndex<? super Bubble>>) () -> new LooseQuadTree<Bubble>(FIELD, 4)),
+        Arguments.of("Rtree", (Supplier<SpatialIndex<? super Bubble>>) () -> new Rtree<Bubble>(4)),
+        Arguments.of("UniformGrid",
+            (Supplier<SpatialIndex<? super Bubble>>) () -> new UniformGrid<Bubble>(FIELD, 25)));
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @MethodSource("indexes")
+  void queriesFindTheSamePointsAsBruteForce(String name,
+      Supplier<SpatialIndex<? super Bubble>> factory) {
+    var bubbles = bubbles(500, 0, 300);
+    var index = factory.get();
+    index.build(bubbles);
+    assertEquals(bubbles.size(), index.size());
+    assertQueriesMatch(index, bubbles);
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @MethodSource("indexes")
+  void queriesFollowUpdatedPoints(String name, Supplier<SpatialIndex<? super Bubble>> factory) {
+    var bubbles = bubbles(500, 0, 300);
+    var index = factory.get();
+    bubbles.forEach(index::insert);
+    for (var step = 0; step < 20; step++) {
+      for (var bubble : bubbles) {
+        bubble.coordinateX = clamp(bubble.coordinateX + random.nextInt(21) - 10);
+        bubble.coordinateY = clamp(bubble.coordinateY + random.nextInt(21) - 10);
+        index.update(bubble);
+      }
+    }
+    assertEquals(bubbles.size(), index.size());
+    assertQueriesMatch(index, bubbles);
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @MethodSource("indexes")
+  void removedPointsAreNotFound(String name, Supplier<SpatialIndex<? super Bubble>> factory) {
+    var bubbles = bubbles(500, 0, 300);
+    var index = factory.get();
+    index.build(bubbles);
+    var removed = new ArrayList<Bubble>();
+    for (var i = 0; i < bubbles.size(); i += 2) {
+      removed.add(bubbles.get(i));
+    }
+    removed.forEach(b -> assertTrue(index.remove(b)));
+    removed.forEach(b -> assertFalse(index.remove(b)));
+    bubbles.removeAll(removed);
+    assertEquals(bubbles.size(), index.size());
+    assertQueriesMatch(index, bubbles);
+    bubbles.forEach(index::remove);
+    assertEquals(0, index.size());
+    assertEquals(List.of(), index.nearest(150, 150, 3));
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @MethodSource("trackingIndexes")
+  void pointsOutsideTheFieldAreKept(String name, Supplier<SpatialIndex<? super Bubble>> factory) {
+    var bubbles = bubbles(300, -200, 500);
+    var index = factory.get();
+    index.build(bubbles);
+    assertEquals(bubbles.size(), index.size());
+    assertQueriesMatch(index, bubbles);
+    for (var bubble : bubbles) {
+      bubble.coordinateX += random.nextInt(401) - 200;
+      bubble.coordinateY += random.nextInt(401) - 200;
+      index.update(bubble);
+    }
+    assertQueriesMatch(index, bubbles);
+  }
+
+  private List<Bubble> bubbles(int count, int from, int to) {
+    var bubbles = new ArrayList<Bubble>();
+    for (var i = 0; i < count; i++) {
+      bubbles.add(new Bubble(from + random.nextInt(to - from), from + random.nextInt(to - from),
+          i, random.nextInt(2) + 1));
+    }
+    for (var i = 0; i < 5; i++) {
+      bubbles.add(new Bubble(100, 100, count + i, 1));
+    }
+    return bubbles;
+  }
+
+  private static int clamp(int coordinate) {
+    return Math.min(Math.max(coordinate, 0), 300);
+  }
+
+  private void assertQueriesMatch(SpatialIndex<? super Bubble> index, List<Bubble> bubbles) {
+    for (var i = 0; i < 50; i++) {
+      //every tenth query is at the bubbles which share a place, to check the ties
+      var x = i % 10 == 0 ? 100 : random.nextInt(340) - 20;
+      var y = i % 10 == 0 ? 100 : random.nextInt(340) - 20;
+      var range = new Rect(x, y, random.nextInt(80), random.nextInt(80));
+      var found = new TreeSet<Integer>();
+      index.query(range, p -> assertTrue(found.add(p.id), "found twice: " + p.id));
+      assertEquals(ids(bubbles.stream().filter(range::contains)), found);
+
+      var radius = random.nextInt(40);
+      var inRadius = new TreeSet<Integer>();
+      index.queryRadius(x, y, radius, p -> assertTrue(inRadius.add(p.id)));
+      assertEquals(ids(bubbles.stream()
+          .filter(b -> distanceSquared(b, x, y) <= (double) radius * radius)), inRadius);
+
+      var k = random.nextInt(10);
+      var expected = bubbles.stream()
+          .sorted(Comparator.<Bubble>comparingDouble(b -> distanceSquared(b, x, y))
+              .thenComparingInt(b -> b.id))
+          .limit(k)
+          .map(b -> b.id)
+          .toList();
+      assertEquals(expected, index.nearest(x, y, k).stream().map(p -> p.id).toList());
+    }
+  }
+
+  private static Set<Integer> ids(Stream<Bubble> bubbles) {
+    return bubbles.map(b -> b.id).collect(Collectors.toCollection(TreeSet::new));
+  }
+
+  private static double distanceSquared(Point point, double x, double y) {
+    var dx = point.coordinateX - x;
+    var dy = point.coordinateY - y;
+    return dx * dx + dy * dy;
+  }
+}
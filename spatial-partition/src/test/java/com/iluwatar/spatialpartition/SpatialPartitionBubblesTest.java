@@ -24,10 +24,13 @@
  */
 package com.iluwatar.spatialpartition;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
 import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -61,4 +64,50 @@ class SpatialPartitionBubblesTest {
     assertNull(bubbles.get(3));
     assertNull(bubbles.get(4));
   }
+
+  @Test
+  void poppedBubblesAreRemovedFromTheIndex() {
+    var b1 = new Bubble(10, 10, 1, 3);
+    var b2 = new Bubble(5, 5, 2, 1);
+    var b3 = new Bubble(9, 9, 3, 1);
+    var bubbles = new HashMap<Integer, Bubble>();
+    bubbles.put(1, b1);
+    bubbles.put(2, b2);
+    bubbles.put(3, b3);
+    var index = new LooseQuadTree<Bubble>(new Rect(10, 10, 20, 20), 4);
+    index.build(bubbles.values());
+    var sp = new SpatialPartitionBubbles(bubbles, index);
+    sp.handleCollisionsUsingQt(b1);
+    //b1 and b3 pop and are no longer found, b2 is left
+    assertEquals(1, index.size());
+    assertEquals(b2, index.nearest(10, 10, 1).get(0));
+  }
+
+  @Test
+  void parallelCollisionsPopTheSameBubblesAsSequential() {
+    var random = new Random(3);
+    var sequential = new HashMap<Integer, Bubble>();
+    var parallel = new HashMap<Integer, Bubble>();
+    for (var i = 0; i < 2000; i++) {
+      var x = random.nextInt(400);
+      var y = random.nextInt(400);
+      var radius = random.nextInt(3) + 1;
+      sequential.put(i, new Bubble(x, y, i, radius));
+      parallel.put(i, new Bubble(x, y, i, radius));
+    }
+    var field = new Rect(200, 200, 400, 400);
+    var sequentialIndex = new LooseQuadTree<Bubble>(field, 4);
+    sequentialIndex.build(sequential.values());
+    new SpatialPartitionBubbles(sequential, sequentialIndex).handleCollisions();
+    var parallelIndex = new LooseQuadTree<Bubble>(field, 4);
+    parallelIndex.build(parallel.values());
+    var pool = new ForkJoinPool(4);
+    try {
+      new SpatialPartitionBubbles(parallel, parallelIndex).handleCollisions(pool);
+    } finally {
+      pool.shutdown();
+    }
+    assertEquals(sequential.keySet(), parallel.keySet());
+    assertEquals(sequential.size(), parallelIndex.size());
+  }
 }
@@ -24,6 +24,7 @@
  */
 package com.iluwatar.throttling;
 
+import com.iluwatar.throttling.limiter.RateLimiter;
 import com.iluwatar.throttling.timer.Throttler;
 import java.util.concurrent.ThreadLocalRandom;
 import org.slf4j.Logger;
@@ -31,31 +32,40 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Bartender is a service which accepts a BarCustomer (tenant) and throttles
- * the resource based on the time given to the tenant.
+ * the resource based on the time given to the tenant. The calls are either counted in a
+ * CallsCount which a timer resets, or limited by a rate limiter itself.
  */
 class Bartender {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(Bartender.class);
-  private final CallsCount callsCount;
+  private final RateLimiter limiter;
 
   public Bartender(Throttler timer, CallsCount callsCount) {
-    this.callsCount = callsCount;
+    this.limiter = callsCount::tryIncrement;
     timer.start();
   }
 
+  /**
+   * Constructor for a limiter which limits the calls itself.
+   *
+   * @param limiter the rate limiter
+   */
+  public Bartender(RateLimiter limiter) {
+    this.limiter = limiter;
+  }
+
   /**
    * Orders a drink from the bartender.
    * @return customer id which is randomly generated
    */
   public int orderDrink(BarCustomer barCustomer) {
     var tenantName = barCustomer.getName();
-    var count = callsCount.getCount(tenantName);
-    if (count >= barCustomer.getAllowedCallsPerSecond()) {
+    var allowed = barCustomer.getAllowedCallsPerSecond();
+    if (!limiter.tryAcquire(tenantName, allowed)) {
       LOGGER.error("I'm sorry {}, you've had enough for today!", tenantName);
       return -1;
     }
-    callsCount.incrementCount(tenantName);
-    LOGGER.debug("Serving beer to {} : [{} consumed] ", barCustomer.getName(), count + 1);
+    LOGGER.debug("Serving beer to {}", tenantName);
     return getRandomCustomerId();
   }
 
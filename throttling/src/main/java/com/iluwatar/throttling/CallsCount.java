@@ -55,6 +55,26 @@ public final class CallsCount {
     tenantCallsCount.get(tenantName).incrementAndGet();
   }
 
+  /**
+   * Increment the count of the specified tenant, unless it has reached a limit. The check and the
+   * increment are one atomic step.
+   *
+   * @param tenantName name of the tenant.
+   * @param limit      the count the tenant may reach.
+   * @return {@code true} if the count was incremented.
+   */
+  public boolean tryIncrement(String tenantName, long limit) {
+    var counter = tenantCallsCount.get(tenantName);
+    long count;
+    do {
+      count = counter.get();
+      if (count >= limit) {
+        return false;
+      }
+    } while (!counter.compareAndSet(count, count + 1));
+    return true;
+  }
+
   /**
    * Get count of tenant based on tenant name.
    *
@@ -69,7 +89,7 @@ public final class CallsCount {
    * Resets the count of all the tenants in the map.
    */
   public void reset() {
-    tenantCallsCount.replaceAll((k, v) -> new AtomicLong(0));
+    tenantCallsCount.values().forEach(count -> count.set(0));
     LOGGER.info("reset counters");
   }
 }
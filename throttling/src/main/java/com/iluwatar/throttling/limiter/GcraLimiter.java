@@ -0,0 +1,74 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.limiter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limiter with the generic cell rate algorithm. For every tenant it keeps a single number, the
+ * theoretical arrival time: the time at which the tenant would be idle again if it made its calls
+ * evenly spaced at the allowed rate. A call moves it one interval further, and is allowed if that
+ * does not move it more than one second ahead of now, which allows the same bursts as a
+ * {@link TokenBucketLimiter} with one compare-and-set of a long and no allocation.
+ */
+public class GcraLimiter implements RateLimiter {
+
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final Map<String, AtomicLong> arrivals = new ConcurrentHashMap<>();
+  private final LongSupplier clock;
+
+  public GcraLimiter() {
+    this(System::nanoTime);
+  }
+
+  GcraLimiter(LongSupplier clock) {
+    this.clock = clock;
+  }
+
+  @Override
+  public boolean tryAcquire(String tenant, int callsPerSecond) {
+    if (callsPerSecond <= 0) {
+      return false;
+    }
+    var interval = NANOS_PER_SECOND / callsPerSecond;
+    var arrival = arrivals.computeIfAbsent(tenant, name -> new AtomicLong(clock.getAsLong()));
+    while (true) {
+      var now = clock.getAsLong();
+      var current = arrival.get();
+      var next = Math.max(current, now) + interval;
+      if (next - now > NANOS_PER_SECOND) {
+        return false;
+      }
+      if (arrival.compareAndSet(current, next)) {
+        return true;
+      }
+    }
+  }
+}
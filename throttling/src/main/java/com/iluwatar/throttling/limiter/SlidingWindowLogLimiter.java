@@ -0,0 +1,82 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.limiter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limiter which logs the times of the last calls of every tenant, as many as it is allowed per
+ * second, in a ring. A call is allowed if the oldest of them is at least a second old, so there are
+ * never more calls than allowed in any second, unlike with counters which are reset every second
+ * and allow twice as many around a reset. The log of a tenant takes memory in proportion to its
+ * limit, and is guarded by a lock of its own.
+ */
+public class SlidingWindowLogLimiter implements RateLimiter {
+
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final Map<String, Log> logs = new ConcurrentHashMap<>();
+  private final LongSupplier clock;
+
+  public SlidingWindowLogLimiter() {
+    this(System::nanoTime);
+  }
+
+  SlidingWindowLogLimiter(LongSupplier clock) {
+    this.clock = clock;
+  }
+
+  @Override
+  public boolean tryAcquire(String tenant, int callsPerSecond) {
+    if (callsPerSecond <= 0) {
+      return false;
+    }
+    var log = logs.computeIfAbsent(tenant, name -> new Log());
+    synchronized (log) {
+      if (log.times.length != callsPerSecond) {
+        log.times = new long[callsPerSecond];
+        log.size = 0;
+        log.next = 0;
+      }
+      var now = clock.getAsLong();
+      if (log.size == log.times.length && now - log.times[log.next] < NANOS_PER_SECOND) {
+        return false;
+      }
+      log.times[log.next] = now;
+      log.next = (log.next + 1) % log.times.length;
+      log.size = Math.min(log.size + 1, log.times.length);
+      return true;
+    }
+  }
+
+  private static class Log {
+    private long[] times = new long[0];
+    private int size;
+    private int next;
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.limiter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limiter which gives every tenant a bucket of tokens. A call takes a token, and the bucket is
+ * refilled continuously at the allowed rate up to one second of calls, so a tenant may burst that
+ * many calls after a quiet second, but never more. The bucket is refilled when it is used, not by a
+ * timer, and a call swaps the bucket for a new one with compare-and-set, without a lock.
+ */
+public class TokenBucketLimiter implements RateLimiter {
+
+  private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final Map<String, AtomicReference<Bucket>> buckets = new ConcurrentHashMap<>();
+  private final LongSupplier clock;
+
+  public TokenBucketLimiter() {
+    this(System::nanoTime);
+  }
+
+  TokenBucketLimiter(LongSupplier clock) {
+    this.clock = clock;
+  }
+
+  @Override
+  public boolean tryAcquire(String tenant, int callsPerSecond) {
+    if (callsPerSecond <= 0) {
+      return false;
+    }
+    var bucket = buckets.computeIfAbsent(tenant,
+        name -> new AtomicReference<>(new Bucket(callsPerSecond, clock.getAsLong())));
+    while (true) {
+      var current = bucket.get();
+      var now = Math.max(clock.getAsLong(), current.refilledAt());
+      var tokens = Math.min(callsPerSecond,
+          current.tokens() + (now - current.refilledAt()) * callsPerSecond / NANOS_PER_SECOND);
+      if (tokens < 1) {
+        return false;
+      }
+      if (bucket.compareAndSet(current, new Bucket(tokens - 1, now))) {
+        return true;
+      }
+    }
+  }
+
+  private record Bucket(double tokens, long refilledAt) {
+  }
+}
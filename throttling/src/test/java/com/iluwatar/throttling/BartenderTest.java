@@ -26,6 +26,7 @@ package com.iluwatar.throttling;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import com.iluwatar.throttling.limiter.GcraLimiter;
 import com.iluwatar.throttling.timer.Throttler;
 import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
@@ -48,4 +49,15 @@ class BartenderTest {
     var counter = callsCount.getCount(tenant.getName());
     assertEquals(2, counter, "Counter limit must be reached");
   }
+
+  @Test
+  void throttlerLimitsCallsItself() {
+    var tenant = new BarCustomer("dwarf", 3, callsCount);
+    var service = new Bartender(new GcraLimiter());
+
+    var served = IntStream.range(0, 5).map(i -> service.orderDrink(tenant)).filter(id -> id > 0)
+        .count();
+    assertEquals(3, served);
+    assertEquals(0, callsCount.getCount(tenant.getName()));
+  }
 }
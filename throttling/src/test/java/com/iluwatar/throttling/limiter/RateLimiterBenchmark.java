@@ -0,0 +1,105 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.limiter;
+
+import com.iluwatar.throttling.CallsCount;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Cost of acquiring a call from four threads for random tenants out of 1 to 1024, for each
+ * rate limiter and for the counters of {@link CallsCount}, which a timer would reset every second.
+ * With one tenant all threads contend for its state.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RateLimiterBenchmark {
+
+  private static final int CALLS_PER_SECOND = 10_000;
+
+  @Param({"calls-count", "token-bucket", "sliding-window-log", "gcra"})
+  private String algorithm;
+
+  @Param({"1", "64", "1024"})
+  private int tenants;
+
+  private String[] names;
+  private RateLimiter limiter;
+  private CallsCount callsCount;
+
+  /**
+   * Create the rate limiter and the tenants.
+   */
+  @Setup
+  public void setUp() {
+    names = new String[tenants];
+    callsCount = new CallsCount();
+    for (var i = 0; i < tenants; i++) {
+      names[i] = "tenant " + i;
+      callsCount.addTenant(names[i]);
+    }
+    limiter = switch (algorithm) {
+      case "calls-count" -> null;
+      case "token-bucket" -> new TokenBucketLimiter();
+      case "sliding-window-log" -> new SlidingWindowLogLimiter();
+      case "gcra" -> new GcraLimiter();
+      default -> throw new IllegalArgumentException(algorithm);
+    };
+  }
+
+  @Benchmark
+  public boolean acquire() {
+    var tenant = names[ThreadLocalRandom.current().nextInt(tenants)];
+    if (limiter == null) {
+      return callsCount.tryIncrement(tenant, CALLS_PER_SECOND);
+    }
+    return limiter.tryAcquire(tenant, CALLS_PER_SECOND);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(RateLimiterBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.limiter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Tests for the rate limiters which limit calls themselves, on a clock the tests move.
+ */
+class RateLimiterTest {
+
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+  private static final long MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final AtomicLong clock = new AtomicLong(12_345 * SECOND);
+
+  static Stream<Arguments> limiters() {
+    return Stream.of(
+        Arguments.of("token bucket",
+            (Function<LongSupplier, RateLimiter>) TokenBucketLimiter::new),
+        Arguments.of("sliding window log",
+            (Function<LongSupplier, RateLimiter>) SlidingWindowLogLimiter::new),
+        Arguments.of("gcra", (Function<LongSupplier, RateLimiter>) GcraLimiter::new));
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @MethodSource("limiters")
+  void allowsOneSecondOfCallsAtOnce(String name, Function<LongSupplier, RateLimiter> factory) {
+    var limiter = factory.apply(clock::get);
+    for (var i = 0; i < 10; i++) {
+      assertTrue(limiter.tryAcquire("dwarf", 10), "call " + i);
+    }
+    assertFalse(limiter.tryAcquire("dwarf", 10));
+    assertTrue(limiter.tryAcquire("human", 2));
+    assertFalse(limiter.tryAcquire("nobody", 0));
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @MethodSource("limiters")
+  void allowsCallsAgainAfterASecond(String name, Function<LongSupplier, RateLimiter> factory) {
+    var limiter = factory.apply(clock::get);
+    for (var i = 0; i < 10; i++) {
+      limiter.tryAcquire("dwarf", 10);
+    }
+    clock.addAndGet(SECOND);
+    for (var i = 0; i < 10; i++) {
+      assertTrue(limiter.tryAcquire("dwarf", 10), "call " + i);
+    }
+    assertFalse(limiter.tryAcquire("dwarf", 10));
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @MethodSource("limiters")
+  void neverAllowsTwiceTheCallsAroundASecondBoundary(String name,
+      Function<LongSupplier, RateLimiter> factory) {
+    var limiter = factory.apply(clock::get);
+    clock.addAndGet(990 * MILLISECOND);
+    var allowed = 0;
+    for (var i = 0; i < 100; i++) {
+      allowed += limiter.tryAcquire("dwarf", 100) ? 1 : 0;
+    }
+    clock.addAndGet(20 * MILLISECOND);
+    for (var i = 0; i < 100; i++) {
+      allowed += limiter.tryAcquire("dwarf", 100) ? 1 : 0;
+    }
+    assertTrue(allowed <= 102, "allowed " + allowed);
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @MethodSource("limiters")
+  void concurrentCallsDoNotExceedTheLimit(String name, Function<LongSupplier, RateLimiter> factory)
+      throws InterruptedException {
+    var limiter = factory.apply(clock::get);
+    var allowed = new AtomicInteger();
+    var threads = new ArrayList<Thread>();
+    for (var t = 0; t < 8; t++) {
+      threads.add(new Thread(() -> {
+        for (var i = 0; i < 10_000; i++) {
+          if (limiter.tryAcquire("pirate", 1_000)) {
+            allowed.incrementAndGet();
+          }
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    for (var thread : threads) {
+      thread.join();
+    }
+    assertEquals(1_000, allowed.get());
+  }
+}